@@ -5,13 +5,23 @@ import com.github.pemistahl.lingua.api.LanguageDetector;
 import com.github.pemistahl.lingua.api.LanguageDetectorBuilder;
 import cz.zcu.kiv.ir.silhavyj.searchengine.fetcher.BBCNewsProcessor;
 import cz.zcu.kiv.ir.silhavyj.searchengine.fetcher.ISiteProcessor;
-import cz.zcu.kiv.ir.silhavyj.searchengine.index.Document;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.DocumentStore;
 import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
 import cz.zcu.kiv.ir.silhavyj.searchengine.index.Index;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.MappedIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.RankingModel;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.TopHits;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.DocumentLocator;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.IDocumentSource;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.IIndexingListener;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.IndexingPipeline;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.LanguageRouter;
 import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.CzechPreprocessor;
 import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.EnglishPreprocessor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.IPreprocessor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.StemCache;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.SearchService;
 import cz.zcu.kiv.ir.silhavyj.searchengine.query.lexer.QueryLexer;
-import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.IQueryParser;
 import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.QueryParseInfix;
 import cz.zcu.kiv.ir.silhavyj.searchengine.utils.IOUtils;
 import javafx.application.Platform;
@@ -28,9 +38,14 @@ import org.json.JSONObject;
 import org.jsoup.Jsoup;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.github.pemistahl.lingua.api.Language.*;
 import static java.time.LocalDateTime.now;
@@ -51,6 +66,12 @@ public class MainController implements Initializable {
     /*** File containing English stop words */
     private static final String STOPWORDS_ENGLISH = "stopwords-en.txt";
 
+    /*** Folder to store the indexes into */
+    private static final String INDEXES_FOLDER = "indexes";
+
+    /*** Extension of the files the indexes are stored in */
+    private static final String INDEX_FILE_EXTENSION = ".idx";
+
     /*** Bar menu in the top left corner */
     @FXML
     private MenuBar menuBar;
@@ -59,6 +80,22 @@ public class MainController implements Initializable {
     @FXML
     private MenuItem addJSONDocumentMenuItem;
 
+    /*** Menu item for adding collections of documents (JSON Lines, archives) from the disk */
+    @FXML
+    private MenuItem addBulkDocumentsMenuItem;
+
+    /*** Menu item for fetching a document from a URL */
+    @FXML
+    private MenuItem fetchDocumentMenuItem;
+
+    /*** Menu item for loading the indexes stored on the disk */
+    @FXML
+    private MenuItem loadIndexesMenuItem;
+
+    /*** Menu item for opening the indexes stored on the disk as read-only */
+    @FXML
+    private MenuItem mapIndexesMenuItem;
+
     /*** Search button to perform a search */
     @FXML
     private Button searchBtn;
@@ -110,18 +147,30 @@ public class MainController implements Initializable {
     /*** Root item (displaying information about different indexes) */
     private TreeItem<String> treeRootItem;
 
-    /*** Flag if the stop button should be displayed or not */
-    private boolean stopDocumentLoading;
+    /*** Pipeline indexing the documents that are currently being imported */
+    private volatile IndexingPipeline indexingPipeline;
+
+    /*** Service performing searches off the UI thread (each search gets its own query parser) */
+    private final SearchService searchService = new SearchService(() -> new QueryParseInfix(new QueryLexer()));
 
-    /*** Instance of a query parser */
-    private final IQueryParser queryParser = new QueryParseInfix(new QueryLexer());
+    /*** Results of the latest search (only accessed by the UI thread) */
+    private CompletableFuture<SearchResults> currentSearch;
 
-    /*** Map of different indexes by their languages */
-    private final Map<String, IIndex> languageIndexes = new HashMap<>();
+    /*** Map of different indexes by their languages (indexes are added by the loader thread) */
+    private final Map<String, IIndex> languageIndexes = new ConcurrentHashMap<>();
+
+    /*** Caches of stems by languages (shared by the indexing threads and searching) */
+    private final Map<Language, StemCache> stemCaches = new ConcurrentHashMap<>();
+
+    /*** Publisher of the statistics of the indexes (number of documents, terms, tokens) */
+    private final StatisticsPublisher statisticsPublisher = new StatisticsPublisher(Platform::runLater);
 
     /*** Instance of a language detector */
     private final LanguageDetector languageDetector = LanguageDetectorBuilder.fromLanguages(ENGLISH, CZECH, SLOVAK).build();
 
+    /*** Stage determining the language of the imported documents (see initialize) */
+    private final LanguageRouter languageRouter = new LanguageRouter(languageDetector::detectLanguageOf);
+
     /*** Instance of a site processor */
     private ISiteProcessor siteProcessor;
 
@@ -135,6 +184,10 @@ public class MainController implements Initializable {
         // Instantiate the site processor
         siteProcessor = new BBCNewsProcessor();
 
+        // Let the language router recognize the supported languages by their stopwords.
+        languageRouter.addStopWords(CZECH, STOPWORDS_CZECH);
+        languageRouter.addStopWords(ENGLISH, STOPWORDS_ENGLISH);
+
         // Bind the slider and the label (number of results to
         // be displayed to the user).
         topResultsCountSlider.valueProperty().addListener((observableValue, oldValue, newValue) -> {
@@ -151,6 +204,9 @@ public class MainController implements Initializable {
 
         // Hide the stop button.
         stopLoadingBtn.setVisible(false);
+
+        // Start publishing the statistics of the indexes.
+        statisticsPublisher.start();
     }
 
     /***
@@ -162,23 +218,46 @@ public class MainController implements Initializable {
      */
     private void disableUserInput(boolean disable) {
         addJSONDocumentMenuItem.setDisable(disable);
+        addBulkDocumentsMenuItem.setDisable(disable);
+        fetchDocumentMenuItem.setDisable(disable);
+        loadIndexesMenuItem.setDisable(disable);
+        mapIndexesMenuItem.setDisable(disable);
         searchBtn.setDisable(disable);
         queryTextField.setDisable(disable);
         stopLoadingBtn.setVisible(disable);
     }
 
+    /***
+     * Disables adding more documents and replacing the indexes (loading them from the disk)
+     * while documents are being indexed. Searching stays enabled as queries run against
+     * snapshots of the indexes.
+     * @param disable flag if adding documents should be enabled or disabled
+     */
+    private void disableIndexing(boolean disable) {
+        addJSONDocumentMenuItem.setDisable(disable);
+        addBulkDocumentsMenuItem.setDisable(disable);
+        fetchDocumentMenuItem.setDisable(disable);
+        loadIndexesMenuItem.setDisable(disable);
+        mapIndexesMenuItem.setDisable(disable);
+        stopLoadingBtn.setVisible(disable);
+    }
+
     /***
      * Returns a JSON document by a given index.
-     * It gets the path of the document on the disk, reads it,
-     * and parses it.
+     * The document is made up of its stored fields (see DocumentStore). If its fields have
+     * not been stored, it gets the locator of the document (see DocumentLocator), reads it
+     * from the disk, and parses it.
      * @param documentIndex index of the document to be parsed
      * @param index Index in which the document is held
      * @return JSON object, if all goes well. Null, otherwise.
      */
     private JSONObject getJSONDocument(int documentIndex, final IIndex index) {
-        final String rawData = IOUtils.readFile(index.getFilePath(documentIndex));
+        final var storedFields = index.getStoredFields(documentIndex);
+        if (storedFields != null) {
+            return new JSONObject(storedFields);
+        }
         try {
-            return new JSONObject(rawData);
+            return new JSONObject(DocumentLocator.read(index.getFilePath(documentIndex)));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -186,45 +265,114 @@ public class MainController implements Initializable {
     }
 
     /***
-     * Displays the results of a search to the user.
-     * Each document is displayed in a separate tab.
-     * @param resultIndexer List of documents matching the query (sorted)
-     * @param ranks map of ranks (each document has its own value)
-     * @param count maximum number of documents to be displayed
-     * @param timeOfSearchInMS how much time the query took in milliseconds
-     * @param index Index in which the search was performed
-     * @param language Language in which the search was performed
+     * Returns the fields of a JSON document that are stored in an index.
+     * @param data JSON document
+     * @return fields of the document to be stored (key = name of a field)
+     */
+    private static Map<String, String> getStoredFields(final JSONObject data) {
+        final Map<String, String> fields = new HashMap<>();
+        for (final var field : DocumentStore.FIELDS) {
+            if (data.has(field)) {
+                fields.put(field, data.get(field).toString());
+            }
+        }
+        return fields;
+    }
+
+    /***
+     * Results of a search including the documents that are going to be displayed.
      */
-    private void displayResults(final List<Integer> resultIndexer, final HashMap<Integer, Double> ranks, int count, long timeOfSearchInMS, final IIndex index, final Language language) {
-        JSONObject data;
-        int totalNumberOfDocument = 0;
-        int documentIndex;
-        final var iter = resultIndexer.listIterator();
+    private static class SearchResults {
+
+        /*** Best-ranked documents matching the query */
+        private final TopHits topHits;
+
+        /*** How much time the query took in milliseconds */
+        private final long timeOfSearchInMS;
 
-        // Iterate through all documents and display them to the user.
-        while (iter.hasNext() && count > 0) {
-            // Get the current document index.
-            documentIndex = iter.next();
+        /*** Indexes of the documents that have been loaded */
+        private final List<Integer> documentIndexes = new ArrayList<>();
+
+        /*** Scores of the documents that have been loaded */
+        private final List<Float> scores = new ArrayList<>();
+
+        /*** Documents that have been loaded (JSON format) */
+        private final List<JSONObject> data = new ArrayList<>();
+
+        /***
+         * Creates an instance of the class.
+         * @param topHits best-ranked documents matching the query
+         * @param timeOfSearchInMS how much time the query took in milliseconds
+         */
+        private SearchResults(final TopHits topHits, long timeOfSearchInMS) {
+            this.topHits = topHits;
+            this.timeOfSearchInMS = timeOfSearchInMS;
+        }
+
+        /***
+         * Adds a document that has been loaded.
+         * @param documentIndex index of the document
+         * @param score score of the document
+         * @param document document in a JSON format
+         */
+        private void add(int documentIndex, float score, final JSONObject document) {
+            documentIndexes.add(documentIndex);
+            scores.add(score);
+            data.add(document);
+        }
+    }
 
-            // Read the documents from the disk, and if it was loaded successfully,
-            // create a new tab for it.
-            data = getJSONDocument(documentIndex, index);
+    /***
+     * Loads the documents of the results of a search, so they can be displayed.
+     * This is called off the UI thread as the documents might need to be read from the disk.
+     * @param topHits best-ranked documents matching the query (sorted)
+     * @param timeOfSearchInMS how much time the query took in milliseconds
+     * @param index Index in which the search was performed
+     * @return results of the search including the documents that have been loaded successfully
+     */
+    private SearchResults loadResults(final TopHits topHits, long timeOfSearchInMS, final IIndex index) {
+        final var results = new SearchResults(topHits, timeOfSearchInMS);
+
+        // Iterate through the best-ranked documents and read them
+        // (documents that could not be loaded are left out).
+        for (int i = 0; i < topHits.size(); i++) {
+            final int documentIndex = topHits.getDocument(i);
+            final JSONObject data = getJSONDocument(documentIndex, index);
             if (data != null) {
-                final var resultTab = createResultTab(data, documentIndex, index, ranks);
-                resultsTabPane.getTabs().add(resultTab);
+                results.add(documentIndex, topHits.getScore(i), data);
             }
-            count--;
-            totalNumberOfDocument++;
         }
+        return results;
+    }
+
+    /***
+     * Displays the results of a search to the user.
+     * Each document is displayed in a separate tab. All tabs are added at once.
+     * @param results results of the search (including the loaded documents)
+     * @param index Index in which the search was performed
+     * @param language Language in which the search was performed
+     */
+    private void displayResults(final SearchResults results, final IIndex index, final Language language) {
+        final TopHits topHits = results.topHits;
 
-        // Finish calculating how many results we found in total and
-        // display it into the status bar (label).
-        while (iter.hasNext()) {
-            totalNumberOfDocument++;
-            iter.next();
+        // No results found.
+        if (topHits.getTotalHits() == 0) {
+            statusLabel.setStyle("-fx-background-color: RED");
+            statusLabel.setText(language + " - no results were found");
+            return;
+        }
+
+        // Create a new tab for each of the documents.
+        final List<Tab> tabs = new ArrayList<>(results.data.size());
+        for (int i = 0; i < results.data.size(); i++) {
+            tabs.add(createResultTab(results.data.get(i), results.documentIndexes.get(i), index, results.scores.get(i)));
         }
+        resultsTabPane.getTabs().setAll(tabs);
+
+        // Display how many results we found in total into the status bar (label).
         statusLabel.setStyle("-fx-background-color: GREEN");
-        statusLabel.setText(language + " - found " + totalNumberOfDocument + " matching documents (" + timeOfSearchInMS + "ms)");
+        final String totalHits = (topHits.isTotalHitsExact() ? "" : "at least ") + topHits.getTotalHits();
+        statusLabel.setText(language + " - found " + totalHits + " matching documents (" + results.timeOfSearchInMS + "ms)");
     }
 
     /***
@@ -232,13 +380,13 @@ public class MainController implements Initializable {
      * @param data document in a JSON format (it contains the text as well as its metadata)
      * @param documentIndex index of the document
      * @param index Index in which the document is held
-     * @param ranks map of ranks
+     * @param rank rank of the document
      * @return new tab holding information about the document
      */
-    private Tab createResultTab(final JSONObject data, int documentIndex, final IIndex index, final HashMap<Integer, Double> ranks) {
+    private Tab createResultTab(final JSONObject data, int documentIndex, final IIndex index, float rank) {
         Tab tab = new Tab();
         tab.setText(String.valueOf(Paths.get(index.getFilePath(documentIndex)).getFileName()));
-        tab.setContent(createTabBody(data, documentIndex, index, ranks));
+        tab.setContent(createTabBody(data, documentIndex, index, rank));
         tab.setOnClosed(e -> resultsTabPane.getTabs().remove(tab));
         return tab;
     }
@@ -248,10 +396,10 @@ public class MainController implements Initializable {
      * @param data document in a JSON format (it contains the text as well as its metadata)
      * @param documentIndex index of the document
      * @param index Index in which the document is held
-     * @param ranks map of ranks
+     * @param rank rank of the document
      * @return new body holding information about the document
      */
-    private VBox createTabBody(final JSONObject data, int documentIndex, final IIndex index, final HashMap<Integer, Double> ranks) {
+    private VBox createTabBody(final JSONObject data, int documentIndex, final IIndex index, float rank) {
         VBox vBox = new VBox();
         vBox.setSpacing(5);
         vBox.setPadding(new Insets(20, 20, 20, 20));
@@ -272,7 +420,7 @@ public class MainController implements Initializable {
         }
 
         // Display the rank of the document.
-        vBox.getChildren().add(createMetadataInfo("Rank", "" + ranks.get(documentIndex)));
+        vBox.getChildren().add(createMetadataInfo("Rank", "" + rank));
 
         // Display the location of the document on the disk.
         vBox.getChildren().add(createMetadataInfo("Location", index.getFilePath(documentIndex)));
@@ -374,115 +522,112 @@ public class MainController implements Initializable {
     }
 
     /***
-     * Creates information about how many documents have been indexed so far.
-     * The label is bound to documentCountProperty of a particular index.
-     * @param index index that we want to monitor (number of documents).
-     * @return HBox displaying the number of currently indexed documents
+     * Creates information about one of the counts of an index (documents, terms, tokens).
+     * @param description description of the count
+     * @param value label displaying the value of the count
+     * @return HBox displaying the count
      */
-    private HBox createDocumentCountInfo(final IIndex index) {
+    private HBox createCountInfo(final String description, final Label value) {
         HBox hBox = new HBox();
-        final var desc = createLabel("documents: ", false);
-        final var value = createLabel("0", false);
-
-        // Add a listener to documentCountProperty.
-        index.documentCountProperty().addListener((observableValue, oldValue, newValue) -> {
-            if (newValue == null) {
-                Platform.runLater(() -> value.setText("null"));
-            } else {
-                Platform.runLater(() -> value.setText(newValue.toString()));
-            }
-        });
+        final var desc = createLabel(description, false);
         hBox.getChildren().addAll(desc, value);
         return hBox;
     }
 
     /***
-     * Creates information about how many tokens have been spotted during indexing so far.
-     * The label is bound to tokenCountProperty of a particular index.
-     * @param index index that we want to monitor (number of tokens).
-     * @return HBox displaying the number of currently found tokens.
+     * Creates a TreView node that holds information about a given index.
+     * The index is registered with the statistics publisher, which updates
+     * the displayed counts at a fixed rate (replacing the previous index of the same name).
+     * @param index index that we want to monitor
+     * @param name name of the index (the language of the index)
+     * @return new TreeItem
      */
-    private HBox createTokenCountInfo(final IIndex index) {
-        HBox hBox = new HBox();
-        final var desc = createLabel("tokens: ", false);
-        final var value = createLabel("0", false);
-
-        // Add a listener to tokenCountProperty.
-        index.tokenCountProperty().addListener((observableValue, oldValue, newValue) -> {
-            if (newValue == null) {
-                Platform.runLater(() -> value.setText("null"));
-            } else {
-                Platform.runLater(() -> value.setText(newValue.toString()));
-            }
+    private TreeItem createIndexTreeRecord(final IIndex index, final String name) {
+        final var documentCount = createLabel("0", false);
+        final var termCount = createLabel("0", false);
+        final var tokenCount = createLabel("0", false);
+        statisticsPublisher.register(name, index, statistics -> {
+            documentCount.setText(String.valueOf(statistics.getDocumentCount()));
+            termCount.setText(String.valueOf(statistics.getTermCount()));
+            tokenCount.setText(String.valueOf(statistics.getTokenCount()));
         });
-        hBox.getChildren().addAll(desc, value);
-        return hBox;
+
+        TreeItem treeItem = new TreeItem(name);
+        treeItem.getChildren().add(new TreeItem<>(createCountInfo("documents: ", documentCount)));
+        treeItem.getChildren().add(new TreeItem<>(createCountInfo("terms: ", termCount)));
+        treeItem.getChildren().add(new TreeItem<>(createCountInfo("tokens: ", tokenCount)));
+        return treeItem;
     }
 
     /***
-     * Creates information about how many terms have been spotted during indexing so far.
-     * The label is bound to termCountProperty of a particular index.
-     * @param index index that we want to monitor (number of terms).
-     * @return HBox displaying the number of currently found terms.
+     * Stops loading documents from the disk.
+     * This could be used if the user selected to upload multiple
+     * files, and it is taking too much time to process.
      */
-    private HBox createTermCountInfo(final IIndex index) {
-        HBox hBox = new HBox();
-        final var desc = createLabel("terms: ", false);
-        final var value = createLabel("0", false);
-
-        // Add a listener to tokenCountProperty.
-        index.termCountProperty().addListener((observableValue, oldValue, newValue) -> {
-            if (newValue == null) {
-                Platform.runLater(() -> value.setText("null"));
-            } else {
-                Platform.runLater(() -> value.setText(newValue.toString()));
-            }
-        });
-        hBox.getChildren().addAll(desc, value);
-        return hBox;
+    @FXML
+    private void stopDocumentLoading() {
+        final var pipeline = indexingPipeline;
+        if (pipeline != null) {
+            pipeline.stop();
+        }
     }
 
     /***
-     * Creates a TreView node that holds information about a given index.
-     * @param index index that we want to monitor
-     * @param name name of the index (the language of the index)
-     * @return new TreeItem
+     * Creates a new preprocessor for a given language. All preprocessors
+     * of the same language share one cache of stems.
+     * @param language language of the documents
+     * @return new preprocessor or null if the language is not supported
      */
-    private TreeItem createIndexTreeRecord(final IIndex index, final String name) {
-        TreeItem treeItem = new TreeItem(name);
-        treeItem.getChildren().add(new TreeItem<>(createDocumentCountInfo(index)));
-        treeItem.getChildren().add(new TreeItem<>(createTermCountInfo(index)));
-        treeItem.getChildren().add(new TreeItem<>(createTokenCountInfo(index)));
-        return treeItem;
+    private IPreprocessor createPreprocessor(final Language language) {
+        switch (language) {
+            case CZECH:
+                return new CzechPreprocessor(STOPWORDS_CZECH, stemCaches.computeIfAbsent(language, key -> new StemCache()));
+            case ENGLISH:
+                return new EnglishPreprocessor(STOPWORDS_ENGLISH, stemCaches.computeIfAbsent(language, key -> new StemCache()));
+            default:
+                return null;
+        }
     }
 
     /***
-     * Tries to parse a text file.
-     * @param text plain text (assumed to be a JSON file)
-     * @return JSON object if the text's been parsed successfully. Null, otherwise.
+     * Returns the index of a given language. If an index for the language
+     * has not yet been created, it gets created and displayed in the tree view.
+     * It's called by both the thread indexing the documents and the UI thread
+     * (fetching a document), so it's synchronized.
+     * @param language language of the documents
+     * @return index of the language or null if the language is not supported
+     * @throws IllegalStateException if the index of the language is memory-mapped (read-only)
      */
-    private JSONObject parseJSON(final String text) {
-        try {
-            JSONObject data = new JSONObject(text);
-
-            // Each document needs to have these two compulsory fields.
-            if (data.has("article") && data.has("title")) {
-                return data;
+    private synchronized IIndex getOrCreateIndex(final Language language) throws IllegalStateException {
+        var index = languageIndexes.get(language.toString());
+        if (index instanceof MappedIndex) {
+            throw new IllegalStateException("The " + language + " index is read-only");
+        }
+        if (index == null) {
+            final var preprocessor = createPreprocessor(language);
+            if (preprocessor == null) {
+                return null;
             }
-        } catch (Exception e) {
-            return null;
+            final IIndex newIndex = new Index(preprocessor);
+            languageIndexes.put(language.toString(), newIndex);
+            Platform.runLater(() -> treeRootItem.getChildren().add(createIndexTreeRecord(newIndex, language.toString())));
+            index = newIndex;
         }
-        return null;
+        return index;
     }
 
     /***
-     * Stops loading documents from the disk.
-     * This could be used if the user selected to upload multiple
-     * files, and it is taking too much time to process.
+     * Checks whether documents can be added into the indexes. Memory-mapped indexes
+     * are read-only, so if any of them has been opened, the user is told to load them instead.
+     * @return True, if documents can be added. False, otherwise.
      */
-    @FXML
-    private void stopDocumentLoading() {
-        stopDocumentLoading = true;
+    private boolean checkIndexesWritable() {
+        if (languageIndexes.values().stream().anyMatch(index -> index instanceof MappedIndex)) {
+            statusLabel.setStyle("-fx-background-color: RED");
+            statusLabel.setText("The indexes have been opened as read-only, load them to add documents");
+            return false;
+        }
+        return true;
     }
 
     /***
@@ -490,6 +635,9 @@ public class MainController implements Initializable {
      */
     @FXML
     private void addJSONDocument() {
+        if (!checkIndexesWritable()) {
+            return;
+        }
         final Stage stage = (Stage)menuBar.getScene().getWindow();
 
         // Create a new file chooser.
@@ -502,82 +650,200 @@ public class MainController implements Initializable {
         if (files == null) {
             return;
         }
+        startIndexing((pipeline, listener) -> pipeline.run(files, listener));
+    }
 
-        // Create a new thread to process all documents.
-        final var loaderWorker = new Thread(() -> {
-            IIndex index;
-            int processedDocuments = 0;
-            double progress;
+    /***
+     * Imports documents stored in bulk (files of newline-delimited JSON
+     * or zip and tar.gz archives of JSON files) into the application.
+     */
+    @FXML
+    private void addBulkDocuments() {
+        if (!checkIndexesWritable()) {
+            return;
+        }
+        final Stage stage = (Stage)menuBar.getScene().getWindow();
 
-            // Disable user input.
-            stopDocumentLoading = false;
-            disableUserInput(true);
+        // Create a new file chooser.
+        final FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Select a collection of documents to index");
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("JSON Lines / Archive", "*.jsonl", "*.ndjson", "*.zip", "*.tar.gz", "*.tgz"));
 
-            // Start measuring time.
-            long startTime = System.currentTimeMillis();
-            statusLabel.setStyle("-fx-background-color: GREEN");
+        // Get a list of the collections the user wants to add.
+        final var files = fileChooser.showOpenMultipleDialog(stage);
+        if (files == null) {
+            return;
+        }
 
-            // Iterate through all documents and process them.
+        // Index the collections one by one (the documents of each collection are indexed in parallel).
+        startIndexing((pipeline, listener) -> {
             for (final var file : files) {
-                // If the user terminated the processes.
-                if (stopDocumentLoading) {
+                // The user's stopped the import (skip the remaining collections).
+                if (pipeline.isStopped()) {
                     break;
                 }
-                processedDocuments++;
+                try (final var source = IDocumentSource.open(file)) {
+                    pipeline.run(source, listener);
+                } catch (IOException | IllegalArgumentException e) {
+                    System.out.println("Failed to read documents from " + file.getName() + ": " + e.getMessage());
+                }
+            }
+        });
+    }
 
-                // Read the file and parse it into JSON object.
-                final var content = IOUtils.readFile(file.getAbsolutePath());
-                JSONObject data = parseJSON(content);
+    /***
+     * Indexing of a set of documents that is run on a separate thread.
+     */
+    private interface IIndexingJob {
+
+        /***
+         * Runs the indexing.
+         * @param pipeline pipeline the documents are indexed by
+         * @param listener listener displaying the progress to the user
+         * @throws InterruptedException if the thread's been interrupted
+         */
+        void run(IndexingPipeline pipeline, IIndexingListener listener) throws InterruptedException;
+    }
 
-                // Make sure the file has the correct structure.
-                if (data != null) {
-                    final String article = data.get("title") + " " + data.get("article");
+    /***
+     * Starts a new thread indexing documents. The documents are read, parsed,
+     * and tokenized by the workers of the pipeline, the thread adds them into the indexes.
+     * @param job indexing of the documents
+     */
+    private void startIndexing(final IIndexingJob job) {
+        final var pipeline = new IndexingPipeline(languageRouter, this::createPreprocessor, this::getOrCreateIndex);
+        indexingPipeline = pipeline;
 
-                    // Detect the language of the documents (SLOVAK and CZECH) are treated the same.
-                    var language = languageDetector.detectLanguageOf(article);
-                    if (language == SLOVAK) {
-                        language = CZECH;
-                    }
+        // Disable adding more documents (the indexes can still be searched).
+        disableIndexing(true);
+        final var loaderWorker = new Thread(() -> {
+            // Start measuring time.
+            long startTime = System.currentTimeMillis();
+            statusLabel.setStyle("-fx-background-color: GREEN");
 
-                    // If an index for the detected language has not yet been created, create it.
-                    if (!languageIndexes.containsKey(language.toString())) {
-                        switch (language) {
-                            case CZECH:
-                                index = new Index(new CzechPreprocessor(STOPWORDS_CZECH));
-                                languageIndexes.put(language.toString(), index);
-                                treeRootItem.getChildren().add(createIndexTreeRecord(index, language.toString()));
-                                break;
-                            case ENGLISH:
-                                index = new Index(new EnglishPreprocessor(STOPWORDS_ENGLISH));
-                                languageIndexes.put(language.toString(), index);
-                                treeRootItem.getChildren().add(createIndexTreeRecord(index, language.toString()));
-                                break;
-                            default:
-                                System.out.println("Language detected in " + file.getName() + " is not supported");
-                                continue;
-                        }
+            try {
+                job.run(pipeline, (processedDocuments, totalDocuments) -> {
+                    long timeStamp = (long)((System.currentTimeMillis() - startTime) * 0.0000167);
+
+                    // The size of a collection is not known in advance, so only the number of documents is displayed.
+                    if (totalDocuments < 0) {
+                        Platform.runLater(() -> statusLabel.setText("Indexing in progress " + processedDocuments + " documents | " + timeStamp + " min"));
+                        return;
                     }
-                    // Index the document.
-                    index = languageIndexes.get(language.toString());
-                    if (index == null || !index.index(article, file.getAbsolutePath())) {
-                        System.out.println("Failed to index document " + file.getName());
+
+                    // Calculate the progress and display it in the status label.
+                    double finalProgress = (double) processedDocuments / totalDocuments * 100.0;
+                    if (finalProgress >= 100) {
+                        Platform.runLater(() -> statusLabel.setText("Done " + String.format("%.2f", finalProgress) + "% | " + timeStamp + " min"));
+                    } else {
+                        Platform.runLater(() -> statusLabel.setText("Indexing in progress " + String.format("%.2f", finalProgress) + "% | " + timeStamp + " min"));
                     }
-                } else {
-                    System.out.print("Failed to parse document " + file.getName());
-                }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                Platform.runLater(() -> {
+                    statusLabel.setStyle("-fx-background-color: RED");
+                    statusLabel.setText("Indexing failed: " + e.getMessage());
+                });
+            } finally {
+                // Make the rest of the documents searchable and enable adding documents again.
+                languageIndexes.values().forEach(IIndex::refresh);
+                Platform.runLater(() -> disableIndexing(false));
+            }
+        });
+        loaderWorker.setDaemon(true);
+        loaderWorker.start();
+    }
 
-                // Calculate the progress and display it in the status label.
-                progress = (double) processedDocuments / files.size() * 100.0;
-                double finalProgress = progress;
-                long timeStamp = (long)((System.currentTimeMillis() - startTime) * 0.0000167);
-                if (finalProgress >= 100) {
-                    Platform.runLater(() -> statusLabel.setText("Done " + String.format("%.2f", finalProgress) + "% | " + timeStamp + " min"));
-                } else {
-                    Platform.runLater(() -> statusLabel.setText("Indexing in progress " + String.format("%.2f", finalProgress) + "% | " + timeStamp + " min"));
+    /***
+     * Stores all indexes on the disk. Each language
+     * is stored in a separate file.
+     */
+    @FXML
+    private void saveIndexes() {
+        IOUtils.createDirectoryIfMissing(INDEXES_FOLDER);
+        try {
+            for (final var entry : languageIndexes.entrySet()) {
+                entry.getValue().save(INDEXES_FOLDER + "/" + entry.getKey() + INDEX_FILE_EXTENSION);
+            }
+            statusLabel.setStyle("-fx-background-color: GREEN");
+            statusLabel.setText("Saved " + languageIndexes.size() + " indexes into " + INDEXES_FOLDER);
+        } catch (IOException e) {
+            statusLabel.setStyle("-fx-background-color: RED");
+            statusLabel.setText("Failed to save the indexes: " + e.getMessage());
+        }
+    }
+
+    /***
+     * Loads the indexes that have been previously stored on the disk.
+     * The indexes of the languages that are loaded replace the current ones.
+     */
+    @FXML
+    private void loadIndexes() {
+        openIndexes(false);
+    }
+
+    /***
+     * Opens the indexes that have been previously stored on the disk as read-only
+     * indexes. The files are memory-mapped, so they are not read into the memory
+     * upfront, and no more documents can be added into them.
+     */
+    @FXML
+    private void mapIndexes() {
+        openIndexes(true);
+    }
+
+    /***
+     * Opens the indexes that have been previously stored on the disk.
+     * The indexes of the languages that are opened replace the current ones.
+     * @param readOnly flag if the files should be memory-mapped (read-only) or loaded into the memory
+     */
+    private void openIndexes(boolean readOnly) {
+        // Disable the user input until the indexes are loaded.
+        disableUserInput(true);
+
+        // Create a new thread to load the indexes.
+        final var loaderWorker = new Thread(() -> {
+            long startTime = System.currentTimeMillis();
+            int loadedIndexes = 0;
+
+            for (final var language : new Language[] { CZECH, ENGLISH }) {
+                final var file = new File(INDEXES_FOLDER + "/" + language + INDEX_FILE_EXTENSION);
+                if (!file.exists()) {
+                    continue;
                 }
+                // Create an index for the language and load it.
+                final IPreprocessor preprocessor = createPreprocessor(language);
+                final IIndex index;
+                try {
+                    if (readOnly) {
+                        index = new MappedIndex(preprocessor, file.getPath());
+                    } else {
+                        index = new Index(preprocessor);
+                        index.load(file.getPath());
+                    }
+                } catch (IOException e) {
+                    System.out.println("Failed to load index " + file.getName() + ": " + e.getMessage());
+                    continue;
+                }
+                loadedIndexes++;
+
+                // Replace the current index of the language.
+                Platform.runLater(() -> {
+                    languageIndexes.put(language.toString(), index);
+                    treeRootItem.getChildren().removeIf(item -> item.getValue().equals(language.toString()));
+                    treeRootItem.getChildren().add(createIndexTreeRecord(index, language.toString()));
+                });
             }
-            // Enable user input again.
-            disableUserInput(false);
+            final int finalLoadedIndexes = loadedIndexes;
+            final long time = System.currentTimeMillis() - startTime;
+            Platform.runLater(() -> {
+                statusLabel.setStyle("-fx-background-color: GREEN");
+                statusLabel.setText("Loaded " + finalLoadedIndexes + " indexes (" + time + "ms)");
+                disableUserInput(false);
+            });
         });
         loaderWorker.setDaemon(true);
         loaderWorker.start();
@@ -599,10 +865,6 @@ public class MainController implements Initializable {
             return;
         }
 
-        long end;
-        long start;
-        long timeOfSearchInMS;
-
         // Detect the language of the query.
         Language language;
         if (czechLanguageRadioBtn.isSelected()) {
@@ -620,65 +882,48 @@ public class MainController implements Initializable {
             return;
         }
 
-        // Get the corresponding index (by the language).
-        IIndex index = languageIndexes.get(language.toString());
-
-        Document result;
-        final var resultList = new ArrayList<Integer>();
-        final var ranks = new HashMap<Integer, Double>();
-
-        try {
-            // Start measuring time.
-            start = System.currentTimeMillis();
+        // Get a snapshot of the corresponding index (by the language), so the search
+        // sees a consistent view even if documents are being indexed at the same time.
+        final IIndex index = languageIndexes.get(language.toString()).snapshot();
+
+        // Rank the documents using TF-IDF, cosine similarity, or None (null).
+        // Only as many of the best-ranked documents as are going to be displayed are kept.
+        final int count = (int)topResultsCountSlider.getValue();
+        RankingModel model = null;
+        if (tfidfRadioButton.isSelected()) {
+            model = RankingModel.TF_IDF;
+        } else if (cosineSimilarityRadioButton.isSelected()) {
+            model = RankingModel.COSINE_SIMILARITY;
+        }
 
-            // Perform the search itself.
-            result = queryParser.search(index, query);
+        // Perform the search off the UI thread (this cancels the previous search if it's still running).
+        // Once it's finished, load the documents off the UI thread as well.
+        final long start = System.currentTimeMillis();
+        final var search = searchService.search(index, query, model, count).thenApplyAsync(topHits -> {
+            final long timeOfSearchInMS = System.currentTimeMillis() - start;
+            return loadResults(topHits, timeOfSearchInMS, index);
+        });
+        currentSearch = search;
+        statusLabel.setStyle("-fx-background-color: GREEN");
+        statusLabel.setText(language + " - searching...");
 
-            // Retrieve relevant words.
-            final var relevantWords = queryParser.getRelevantWords();
-            final Set<String> relevantTerms = new HashSet<>();
-            for (final var word : relevantWords) {
-                if (!index.getPreprocessor().isStopWord(word)) {
-                    relevantTerms.add(index.getPreprocessor().preprocess(word));
-                }
+        // Hand the results over to the UI thread in a single batch.
+        search.whenComplete((results, error) -> Platform.runLater(() -> {
+            // A newer search has been started in the meantime.
+            if (currentSearch != search) {
+                return;
             }
-
-            // Rank the document (TF-IDF, cosine similarity, or None)
-            Document currentDocument = result;
-            while (currentDocument != null) {
-                resultList.add(currentDocument.getIndex());
-                if (tfidfRadioButton.isSelected() && !relevantTerms.isEmpty()) {
-                    ranks.put(currentDocument.getIndex(), index.calculateTF_IDF(currentDocument.getIndex(), relevantTerms));
-                } else if (cosineSimilarityRadioButton.isSelected() && !relevantTerms.isEmpty()) {
-                    ranks.put(currentDocument.getIndex(), index.calculateCosineSimilarity(currentDocument.getIndex(), relevantTerms));
-                } else {
-                    ranks.put(currentDocument.getIndex(), 0.0);
-                }
-                currentDocument = currentDocument.getNext();
+            currentSearch = null;
+            if (error == null) {
+                displayResults(results, index, language);
+                return;
             }
-
-            // Sort the documents by their ranks
-            resultList.sort((x, y) -> Double.compare(ranks.get(y), ranks.get(x)));
-
-            // Stop measuring time.
-            end = System.currentTimeMillis();
-            timeOfSearchInMS = end - start;
-        } catch (Exception e) {
-            statusLabel.setStyle("-fx-background-color: RED");
-            if (queryParser.getErrorMessage() != null && !queryParser.getErrorMessage().equals("")) {
-                statusLabel.setText(queryParser.getErrorMessage());
-            } else {
-                statusLabel.setText(e.getMessage());
+            final Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof CancellationException)) {
+                statusLabel.setStyle("-fx-background-color: RED");
+                statusLabel.setText(cause.getMessage());
             }
-            return;
-        }
-        // No results found.
-        if (result == null || result.isUninitialized()) {
-            statusLabel.setStyle("-fx-background-color: RED");
-            statusLabel.setText(language + " - no results were found");
-        } else {
-            displayResults(resultList, ranks, (int)topResultsCountSlider.getValue(), timeOfSearchInMS, index, language);
-        }
+        }));
     }
 
     /***
@@ -686,6 +931,8 @@ public class MainController implements Initializable {
      */
     @FXML
     private void closeApplication() {
+        statisticsPublisher.stop();
+        searchService.stop();
         Platform.exit();
         System.exit(0);
     }
@@ -695,6 +942,9 @@ public class MainController implements Initializable {
      */
     @FXML
     private void fetchDocumentFromURL() {
+        if (!checkIndexesWritable()) {
+            return;
+        }
         // Create a text dialog so that the user can input a URL.
         TextInputDialog dialog = new TextInputDialog();
         dialog.setHeaderText("Enter desired URL");
@@ -728,36 +978,24 @@ public class MainController implements Initializable {
                     final var file = new File(filename);
 
                     // Detect the language the document.
-                    var language = languageDetector.detectLanguageOf(article);
+                    var language = languageRouter.detect(article);
                     if (language == SLOVAK) {
                         language = CZECH;
                     }
 
                     // If an index for the detected language has not yet been created, create it.
-                    IIndex index;
-                    if (!languageIndexes.containsKey(language.toString())) {
-                        switch (language) {
-                            case CZECH:
-                                index = new Index(new CzechPreprocessor(STOPWORDS_CZECH));
-                                languageIndexes.put(language.toString(), index);
-                                treeRootItem.getChildren().add(createIndexTreeRecord(index, language.toString()));
-                                break;
-                            case ENGLISH:
-                                index = new Index(new EnglishPreprocessor(STOPWORDS_ENGLISH));
-                                languageIndexes.put(language.toString(), index);
-                                treeRootItem.getChildren().add(createIndexTreeRecord(index, language.toString()));
-                                break;
-                            default:
-                                System.out.println("Language detected in " + file.getName() + " is not supported");
-                                return;
-                        }
+                    final IIndex index = getOrCreateIndex(language);
+                    if (index == null) {
+                        System.out.println("Language detected in " + file.getName() + " is not supported");
+                        return;
                     }
                     // Index the document.
-                    index = languageIndexes.get(language.toString());
-                    if (index == null || !index.index(article, file.getAbsolutePath())) {
+                    if (!index.index(article, file.getAbsolutePath(), getStoredFields(data.get()))) {
                         statusLabel.setStyle("-fx-background-color: RED");
                         statusLabel.setText("failed to index the document");
                     } else {
+                        // Make the document searchable right away.
+                        index.refresh();
                         statusLabel.setStyle("-fx-background-color: GREEN");
                         statusLabel.setText("document has been successfully fetched and indexed");
                     }
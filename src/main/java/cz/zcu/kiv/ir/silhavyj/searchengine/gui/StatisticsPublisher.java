@@ -0,0 +1,153 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.gui;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.IndexStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class periodically pushes the statistics of indexes to the UI.
+ * Rather than notifying the UI about every single token, the counters of the
+ * indexes are sampled at a fixed rate and the listeners of all indexes whose
+ * statistics have changed since the last sample are called within a single
+ * task handed over to the UI thread (e.g. Platform::runLater).
+ */
+public class StatisticsPublisher {
+
+    /*** Default period of sampling the statistics (10 Hz) */
+    public static final long DEFAULT_PERIOD_MS = 100;
+
+    /***
+     * Index registered with the publisher together with its listener.
+     */
+    private static class Registration {
+
+        /*** Index whose statistics are published */
+        final IIndex index;
+
+        /*** Listener called (on the UI thread) with new statistics */
+        final Consumer<IndexStatistics> listener;
+
+        /*** Statistics published last time (accessed only by the sampling thread) */
+        IndexStatistics published;
+
+        /***
+         * Creates an instance of the class.
+         * @param index index whose statistics are published
+         * @param listener listener called with new statistics
+         */
+        Registration(final IIndex index, final Consumer<IndexStatistics> listener) {
+            this.index = index;
+            this.listener = listener;
+        }
+    }
+
+    /*** Executor running tasks on the UI thread */
+    private final Executor uiExecutor;
+
+    /*** Period of sampling the statistics [ms] */
+    private final long period;
+
+    /*** Registered indexes by their names */
+    private final Map<String, Registration> registrations;
+
+    /*** Thread sampling the statistics (null if the publisher is not running) */
+    private ScheduledExecutorService scheduler;
+
+    /***
+     * Creates an instance of the class with the default period.
+     * @param uiExecutor executor running tasks on the UI thread
+     */
+    public StatisticsPublisher(final Executor uiExecutor) {
+        this(uiExecutor, DEFAULT_PERIOD_MS);
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param uiExecutor executor running tasks on the UI thread
+     * @param period period of sampling the statistics [ms]
+     * @throws IllegalArgumentException if the period is not positive
+     */
+    public StatisticsPublisher(final Executor uiExecutor, long period) throws IllegalArgumentException {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period of publishing statistics must be positive");
+        }
+        this.uiExecutor = uiExecutor;
+        this.period = period;
+        registrations = new ConcurrentHashMap<>();
+    }
+
+    /***
+     * Registers an index. If there's already an index of the same name,
+     * it gets replaced. The listener is called with the current statistics
+     * of the index as soon as the next sample is taken.
+     * @param name name of the index
+     * @param index index whose statistics are published
+     * @param listener listener called (on the UI thread) with new statistics
+     */
+    public void register(final String name, final IIndex index, final Consumer<IndexStatistics> listener) {
+        registrations.put(name, new Registration(index, listener));
+    }
+
+    /***
+     * Unregisters an index.
+     * @param name name of the index
+     */
+    public void unregister(final String name) {
+        registrations.remove(name);
+    }
+
+    /***
+     * Starts sampling the statistics. The sampling thread is a daemon,
+     * so it does not prevent the application from exiting.
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final var thread = new Thread(runnable, "statistics-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::publish, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    /***
+     * Stops sampling the statistics.
+     */
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /***
+     * Samples the statistics of all registered indexes and hands the changed
+     * ones over to the UI thread as a single task.
+     */
+    private void publish() {
+        final List<Runnable> updates = new ArrayList<>();
+        for (final var registration : registrations.values()) {
+            final var statistics = IndexStatistics.of(registration.index);
+            if (!statistics.equals(registration.published)) {
+                registration.published = statistics;
+                updates.add(() -> registration.listener.accept(statistics));
+            }
+        }
+        if (!updates.isEmpty()) {
+            uiExecutor.execute(() -> updates.forEach(Runnable::run));
+        }
+    }
+}
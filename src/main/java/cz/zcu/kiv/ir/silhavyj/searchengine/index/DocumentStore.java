@@ -0,0 +1,300 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a store of the fields of documents (title, article, ...),
+ * so the documents can be displayed without reading their original files.
+ * The fields of consecutive documents are gathered into blocks of about BLOCK_SIZE bytes,
+ * and each block is compressed using Deflate. An offset table keyed by document indexes
+ * holds the block of each document, so reading a document costs a single decompression
+ * of a block. Documents are added by one thread, but they can be read by any thread.
+ *
+ * A block is stored as its uncompressed size, its compressed size, and the compressed bytes.
+ * The uncompressed content of a block is a sequence of documents, each of them stored as
+ * its index, the number of its fields, and the names and values of the fields.
+ */
+public class DocumentStore {
+
+    /*** Names of the fields of a document that are stored */
+    public static final List<String> FIELDS = List.of("title", "author", "datetime", "url", "subject", "article");
+
+    /*** Number of uncompressed bytes after which a block gets compressed */
+    static final int BLOCK_SIZE = 1 << 14;
+
+    /*** Block of a document whose fields have not been stored */
+    static final int NO_BLOCK = -1;
+
+    /*** Size of the header of a block (uncompressed and compressed size) */
+    static final int BLOCK_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /*** Compressed blocks (each including its header) */
+    private final List<byte[]> blocks;
+
+    /*** Block of each document (indexed by document indexes) */
+    private int[] documentBlocks;
+
+    /*** Uncompressed content of the block that is being filled */
+    private final ByteArrayOutputStream pending;
+
+    /***
+     * Creates an instance of the class.
+     */
+    public DocumentStore() {
+        blocks = new ArrayList<>();
+        documentBlocks = new int[0];
+        pending = new ByteArrayOutputStream(BLOCK_SIZE);
+    }
+
+    /***
+     * Stores the fields of a document. The documents must be added in ascending order
+     * of their indexes and the fields of a document can be stored only once.
+     * @param documentIndex index of the document
+     * @param fields fields of the document (key = name of a field)
+     * @throws IllegalArgumentException if the fields of the document have already been stored
+     */
+    public synchronized void add(int documentIndex, final Map<String, String> fields) throws IllegalArgumentException {
+        if (getBlock(documentIndex) != NO_BLOCK) {
+            throw new IllegalArgumentException("Fields of document " + documentIndex + " have already been stored");
+        }
+        if (documentIndex >= documentBlocks.length) {
+            final int length = documentBlocks.length;
+            documentBlocks = Arrays.copyOf(documentBlocks, Math.max(documentIndex + 1, 2 * length));
+            Arrays.fill(documentBlocks, length, documentBlocks.length, NO_BLOCK);
+        }
+        try {
+            final var out = new DataOutputStream(pending);
+            out.writeInt(documentIndex);
+            out.writeInt(fields.size());
+            for (final var field : fields.entrySet()) {
+                IndexFormat.writeBytes(out, field.getKey().getBytes(StandardCharsets.UTF_8));
+                IndexFormat.writeBytes(out, field.getValue().getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            // Writing into a memory buffer does not fail.
+            throw new UncheckedIOException(e);
+        }
+        // The document goes into the block that is being filled.
+        documentBlocks[documentIndex] = blocks.size();
+        if (pending.size() >= BLOCK_SIZE) {
+            seal();
+        }
+    }
+
+    /***
+     * Returns the stored fields of a document.
+     * @param documentIndex index of the document
+     * @return fields of the document (key = name of a field) or null if they have not been stored
+     */
+    public Map<String, String> get(int documentIndex) {
+        // Only look the block up while holding the lock (it's decompressed afterwards).
+        final byte[] block;
+        final byte[] content;
+        synchronized (this) {
+            final int blockIndex = getBlock(documentIndex);
+            if (blockIndex == NO_BLOCK) {
+                return null;
+            }
+            block = blockIndex < blocks.size() ? blocks.get(blockIndex) : null;
+            content = block == null ? pending.toByteArray() : null;
+        }
+        try {
+            return block != null ? readDocument(ByteBuffer.wrap(block), documentIndex) : findDocument(content, documentIndex);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /***
+     * Returns the block holding the fields of a document.
+     * @param documentIndex index of the document
+     * @return index of the block or NO_BLOCK if the fields of the document have not been stored
+     */
+    private int getBlock(int documentIndex) {
+        return documentIndex >= 0 && documentIndex < documentBlocks.length ? documentBlocks[documentIndex] : NO_BLOCK;
+    }
+
+    /***
+     * Compresses the block that is being filled.
+     */
+    private void seal() {
+        if (pending.size() == 0) {
+            return;
+        }
+        final byte[] content = pending.toByteArray();
+        final var deflater = new Deflater();
+        final var compressed = new ByteArrayOutputStream(content.length / 2);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            final byte[] chunk = new byte[BLOCK_SIZE];
+            while (!deflater.finished()) {
+                compressed.write(chunk, 0, deflater.deflate(chunk));
+            }
+        } finally {
+            deflater.end();
+        }
+        final var block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + compressed.size());
+        block.putInt(content.length).putInt(compressed.size()).put(compressed.toByteArray());
+        blocks.add(block.array());
+        pending.reset();
+    }
+
+    /***
+     * Writes the fields of the first documents of the store into an output (see IndexFormat).
+     * The block that is being filled gets compressed first if it holds any of the documents.
+     * @param out output the store is written into
+     * @param offset offset the store is written at within the file
+     * @param numberOfDocuments number of documents whose fields are written
+     * @throws IOException if the store could not be written
+     */
+    synchronized void write(final DataOutput out, long offset, int numberOfDocuments) throws IOException {
+        // Find out how many blocks hold the documents.
+        int numberOfBlocks = 0;
+        for (int i = 0; i < numberOfDocuments; i++) {
+            numberOfBlocks = Math.max(numberOfBlocks, getBlock(i) + 1);
+        }
+        if (numberOfBlocks > blocks.size()) {
+            seal();
+        }
+
+        // Write the offsets of the blocks.
+        out.writeInt(numberOfBlocks);
+        offset += Integer.BYTES + (long)Long.BYTES * numberOfBlocks + (long)Integer.BYTES * numberOfDocuments;
+        for (int i = 0; i < numberOfBlocks; i++) {
+            out.writeLong(offset);
+            offset += blocks.get(i).length;
+        }
+
+        // Write the offset table and the blocks themselves.
+        for (int i = 0; i < numberOfDocuments; i++) {
+            out.writeInt(getBlock(i));
+        }
+        for (int i = 0; i < numberOfBlocks; i++) {
+            out.write(blocks.get(i));
+        }
+    }
+
+    /***
+     * Reads a store that has been written using write(DataOutput, long, int).
+     * @param in input the store is read from
+     * @param numberOfDocuments number of documents whose fields have been written
+     * @return store read from the input
+     * @throws IOException if the store could not be read
+     */
+    static DocumentStore read(final DataInput in, int numberOfDocuments) throws IOException {
+        final var store = new DocumentStore();
+
+        // The offsets are not needed as the blocks are read sequentially.
+        final int numberOfBlocks = in.readInt();
+        for (int i = 0; i < numberOfBlocks; i++) {
+            in.readLong();
+        }
+        store.documentBlocks = new int[numberOfDocuments];
+        for (int i = 0; i < numberOfDocuments; i++) {
+            store.documentBlocks[i] = in.readInt();
+            if (store.documentBlocks[i] < NO_BLOCK || store.documentBlocks[i] >= numberOfBlocks) {
+                throw new IOException("Invalid block of document " + i);
+            }
+        }
+        for (int i = 0; i < numberOfBlocks; i++) {
+            final int size = in.readInt();
+            final int compressedSize = in.readInt();
+            final var block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + compressedSize).putInt(size).putInt(compressedSize);
+            in.readFully(block.array(), BLOCK_HEADER_SIZE, compressedSize);
+            store.blocks.add(block.array());
+        }
+        return store;
+    }
+
+    /***
+     * Returns the size of a block stored at a given position of a buffer.
+     * @param buffer buffer holding the block
+     * @param position position of the block within the buffer
+     * @return size of the block (including its header)
+     */
+    static int getBlockSize(final ByteBuffer buffer, int position) {
+        return BLOCK_HEADER_SIZE + buffer.getInt(position + Integer.BYTES);
+    }
+
+    /***
+     * Decompresses a block and reads the fields of a document from it.
+     * @param block compressed block (including its header) from its position to its limit
+     * @param documentIndex index of the document
+     * @return fields of the document or null if the block does not hold the document
+     * @throws IOException if the block is corrupted
+     */
+    static Map<String, String> readDocument(final ByteBuffer block, int documentIndex) throws IOException {
+        final int size = block.getInt(block.position());
+        final int compressedSize = block.getInt(block.position() + Integer.BYTES);
+        final byte[] content = new byte[size];
+        final var inflater = new Inflater();
+        try {
+            inflater.setInput(block.duplicate().position(block.position() + BLOCK_HEADER_SIZE).limit(block.position() + BLOCK_HEADER_SIZE + compressedSize));
+            int count = 0;
+            while (count < size && !inflater.finished()) {
+                final int inflated = inflater.inflate(content, count, size - count);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                count += inflated;
+            }
+            if (count != size) {
+                throw new IOException("Truncated block of stored fields");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupted block of stored fields", e);
+        } finally {
+            inflater.end();
+        }
+        return findDocument(content, documentIndex);
+    }
+
+    /***
+     * Finds a document within the uncompressed content of a block and reads its fields.
+     * The fields of the other documents are skipped without being decoded.
+     * @param content uncompressed content of a block
+     * @param documentIndex index of the document
+     * @return fields of the document or null if the block does not hold the document
+     * @throws IOException if the content is corrupted
+     */
+    private static Map<String, String> findDocument(final byte[] content, int documentIndex) throws IOException {
+        final var in = new DataInputStream(new ByteArrayInputStream(content));
+        while (in.available() > 0) {
+            final int index = in.readInt();
+            final int numberOfFields = in.readInt();
+            if (index != documentIndex) {
+                for (int i = 0; i < 2 * numberOfFields; i++) {
+                    in.skipBytes(in.readInt());
+                }
+                continue;
+            }
+            final Map<String, String> fields = new LinkedHashMap<>();
+            for (int i = 0; i < numberOfFields; i++) {
+                final String name = IndexFormat.readString(in);
+                fields.put(name, IndexFormat.readString(in));
+            }
+            return fields;
+        }
+        return null;
+    }
+}
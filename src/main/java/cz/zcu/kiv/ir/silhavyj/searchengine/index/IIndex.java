@@ -1,8 +1,11 @@
 package cz.zcu.kiv.ir.silhavyj.searchengine.index;
 
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
 import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.IPreprocessor;
-import javafx.beans.property.IntegerProperty;
 
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /***
@@ -22,10 +25,18 @@ public interface IIndex {
 
     /***
      * Returns a linked list of all documents.
+     * This method is kept as a compatibility adapter, see getAllPostings().
      * @return head of a linked list of all documents.
      */
     Document getAllDocumentIndexes();
 
+    /***
+     * Returns a posting list of all documents that have been indexed.
+     * The NOT operator complements a result within this list.
+     * @return posting list of all documents
+     */
+    IPostingList getAllPostings();
+
     /***
      * Returns a filepath of a given document
      * @param documentIndex index of a document
@@ -35,12 +46,29 @@ public interface IIndex {
     String getFilePath(int documentIndex) throws IllegalArgumentException;
 
     /***
-     * Returns a linked list (row in the index) of a given term
+     * Returns a linked list (row in the index) of a given term.
+     * This method is kept as a compatibility adapter, see getPostings(String).
      * @param term given term
      * @return linked list (row in the index) of a given term
      */
     Document getDocuments(final String term);
 
+    /***
+     * Returns a posting list (row in the index) of a given term
+     * @param term given term
+     * @return posting list of the term (empty if the term has not been indexed)
+     */
+    IPostingList getPostings(final String term);
+
+    /***
+     * Returns documents containing a given term in a form suited for boolean
+     * operations (e.g. as a bitmap if the term occurs in many documents).
+     * Unlike getPostings(String), the term frequencies may not be available.
+     * @param term given term
+     * @return documents containing the term (empty if the term has not been indexed)
+     */
+    IPostingList getMatchingDocuments(final String term);
+
     /***
      * Indexes a document given as a piece of text
      * @param text content of a document to be indexed
@@ -49,6 +77,70 @@ public interface IIndex {
      */
     boolean index(final String text, final String filePath);
 
+    /***
+     * Indexes a document that has already been split into preprocessed terms
+     * (e.g. by a worker thread of an indexing pipeline).
+     * @param terms preprocessed terms of the document in the order they occur in
+     * @param filePath filepath of the document
+     * @return True, if the document's been indexed successfully. False, otherwise.
+     */
+    boolean index(final List<String> terms, final String filePath);
+
+    /***
+     * Indexes a document given as a piece of text and stores its fields (see getStoredFields).
+     * @param text content of a document to be indexed
+     * @param filePath filepath of the document
+     * @param storedFields fields of the document to be stored (key = name of a field, null if none)
+     * @return True, if the document's been indexed successfully. False, otherwise.
+     */
+    boolean index(final String text, final String filePath, final Map<String, String> storedFields);
+
+    /***
+     * Indexes a document that has already been split into preprocessed terms
+     * and stores its fields (see getStoredFields).
+     * @param terms preprocessed terms of the document in the order they occur in
+     * @param filePath filepath of the document
+     * @param storedFields fields of the document to be stored (key = name of a field, null if none)
+     * @return True, if the document's been indexed successfully. False, otherwise.
+     */
+    boolean index(final List<String> terms, final String filePath, final Map<String, String> storedFields);
+
+    /***
+     * Returns the stored fields of a document (see DocumentStore), so the document
+     * can be displayed without reading and parsing its original file.
+     * @param documentIndex index of a document
+     * @return fields of the document (key = name of a field) or null if they have not been stored
+     */
+    Map<String, String> getStoredFields(int documentIndex);
+
+    /***
+     * Stores the index into a file.
+     * @param filePath path to the file
+     * @throws IOException if the index could not be written
+     */
+    void save(final String filePath) throws IOException;
+
+    /***
+     * Loads the index from a file that has been created using save(String).
+     * The current content of the index is discarded.
+     * @param filePath path to the file
+     * @throws IOException if the index could not be read or if the file is not a valid index file
+     */
+    void load(final String filePath) throws IOException;
+
+    /***
+     * Returns a point-in-time read-only view of the index. The view never changes,
+     * so it can be searched by any thread (and kept for as long as needed) while
+     * documents are being added into the index by another thread.
+     * @return snapshot of the index
+     */
+    IIndex snapshot();
+
+    /***
+     * Makes all documents indexed so far visible to the snapshots taken from now on.
+     */
+    void refresh();
+
     /***
      * Returns the instance of a preprocessor used within the index.
      * @return preprocessor of the index
@@ -61,26 +153,12 @@ public interface IIndex {
      */
     int getDocumentCount();
 
-    /***
-     * Return document count property that is
-     * used to update the view.
-     * @return document count property
-     */
-    IntegerProperty documentCountProperty();
-
     /***
      * Return the total number of terms.
      * @return number of terms that were encountered during indexing
      */
     int getTermCount();
 
-    /***
-     * Return term count property that is
-     * used to update the view.
-     * @return term count property
-     */
-    IntegerProperty termCountProperty();
-
     /***
      * Returns number of tokens occurred during indexing.
      * @return total number of tokens
@@ -88,15 +166,34 @@ public interface IIndex {
     int getTokenCount();
 
     /***
-     * Return token count property that is
-     * used to update the view.
-     * @return token count property
+     * Returns the inverse document frequency of a given term.
+     * @param term given term
+     * @return IDF of the term (0 if the term has not been indexed)
+     */
+    double getIDF(final String term);
+
+    /***
+     * Returns the precomputed norm of a document's vector.
+     * @param documentIndex index of a document
+     * @param model ranking model the vector is weighted by
+     * @return norm of the document
+     * @throws IllegalArgumentException if the document has not been indexed yet
+     */
+    double getDocumentNorm(int documentIndex, final RankingModel model) throws IllegalArgumentException;
+
+    /***
+     * Returns the greatest contribution of a term to the score of a document
+     * (before it's normalized by the norm of the query).
+     * @param term given term
+     * @param model ranking model the documents are ranked by
+     * @return upper bound of the term's contribution (0 if the term has not been indexed)
      */
-    IntegerProperty tokenCountProperty();
+    double getMaxImpact(final String term, final RankingModel model);
 
     /***
      * Calculates TF-IDF for a given document and a unique
-     * set of words (query).
+     * set of words (query). The norm of the document is precomputed,
+     * so the cost depends only on the number of words of the query.
      * @param index index of a document
      * @param relevantTerms relevant words of a query
      * @return value of TF-IDF
@@ -105,6 +202,8 @@ public interface IIndex {
 
     /***
      * Calculates cosine similarity for a given document and relevant words of a query.
+     * The norm of the document is precomputed, so the cost depends only
+     * on the number of words of the query.
      * @param index index of a document
      * @param relevantTerms relevant words of a query
      * @return cosine similarity
@@ -1,60 +1,181 @@
 package cz.zcu.kiv.ir.silhavyj.searchengine.index;
 
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.CompressedPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingsCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.RoaringDocIdSet;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.VByteCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.IMergePolicy;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.ISegment;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.Segment;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.SegmentWriter;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.TieredMergePolicy;
 import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.IPreprocessor;
-import javafx.beans.property.IntegerProperty;
-import javafx.beans.property.SimpleIntegerProperty;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /***
  * @author Jakub Silhavy
  *
  * This class represents an inverted index. It is filled during
  * preprocessing and havily used when evaluating a query.
+ *
+ * New documents are indexed into an in-memory buffer (SegmentWriter) which is
+ * flushed into an immutable segment once it holds enough documents. Segments
+ * are merged on a background thread as decided by a merge policy, and
+ * all queries run across the buffer and all live segments.
+ *
+ * The index itself is meant to be used by the thread that indexes the documents.
+ * Each flush (and each merge) publishes a new immutable snapshot of the segments
+ * by swapping a single reference, so other threads can search the last published
+ * snapshot (see snapshot()) without ever waiting for the indexing thread.
  */
-public class Index implements IIndex {
+public class Index extends SegmentedIndex {
+
+    /*** Minimum number of documents a term needs to occur in to be served as a bitmap */
+    private static final int DENSE_TERM_MIN_DOCUMENTS = 1024;
+
+    /*** A term is served as a bitmap if it occurs in at least 1/DENSE_TERM_RATIO of all documents */
+    private static final int DENSE_TERM_RATIO = 32;
+
+    /*** Default number of documents the buffer holds before it's flushed into a segment */
+    public static final int DEFAULT_MAX_BUFFERED_DOCUMENTS = 1000;
+
+    /*** Number of seconds an idle merging thread is kept alive for */
+    private static final int MERGE_THREAD_KEEP_ALIVE = 30;
+
+    /*** Codec used to compress posting lists */
+    private final IPostingsCodec codec;
+
+    /*** Buffer new documents are indexed into */
+    private final SegmentWriter writer;
+
+    /*** Number of documents the buffer holds before it's flushed into a segment */
+    private final int maxBufferedDocuments;
+
+    /*** Last published snapshot holding the live segments (replaced as a whole when they change) */
+    private volatile IndexSnapshot snapshot;
+
+    /*** Lock guarding the publication of snapshots */
+    private final Object snapshotLock;
+
+    /*** Policy deciding which segments should be merged */
+    private final IMergePolicy mergePolicy;
 
-    /*** Inverted index (key = word, value = linked list) */
-    private final Map<String, DocumentList> invertedIndex;
+    /*** Executor running the merges on a background thread */
+    private final ExecutorService mergeExecutor;
 
     /*** Set of all documents that have been indexed */
-    private final Set<Integer> allDocumentIndexes;
+    private RoaringDocIdSet allDocuments;
+
+    /*** Flag if the set of all documents has changed since it was last optimized */
+    private boolean allDocumentsChanged;
+
+    /*** Bitmaps of terms that occur in a large fraction of documents (key = word) */
+    private final Map<String, RoaringDocIdSet> denseTerms;
 
     /*** Set of all file paths to all documents */
     private final Set<String> filePaths;
 
-    /*** Map of file paths (key = document index, value = path) */
-    private final Map<Integer, String> indexFilePaths;
+    /*** Norms of the documents and upper bounds of the terms' contributions to their scores */
+    private RankingStatistics statistics;
+
+    /*** Number of documents at the time the statistics were calculated */
+    private int statisticsDocumentCount;
+
+    /*** Flag if the index has changed since the statistics were last calculated */
+    private boolean statisticsChanged;
+
+    /*** The greatest index of a document that has been indexed */
+    private int maxDocumentIndex;
+
+    /*** Store of the fields of the documents */
+    private DocumentStore documentStore;
 
-    /*** Map of all documents (key = document index, value = bag of words) */
-    private final Map<Integer, BagOfWords> bagOfWords;
+    /*** Dictionary assigning ids to the terms (replaced when the index is loaded) */
+    private TermDictionary dictionary;
 
     /*** Instance of a preprocessor */
     private final IPreprocessor preprocessor;
 
+    // The counters are only modified by the indexing thread (holding the lock), but they
+    // are polled by other threads without locking (see IndexStatistics), hence volatile.
+
     /*** Number of documents that have been indexed */
-    private final IntegerProperty documentCount;
+    private volatile int documentCount;
 
     /*** Number of terms occurred during indexing */
-    private final IntegerProperty termCount;
+    private volatile int termCount;
 
     /*** Number of tokens occurred during indexing */
-    private final IntegerProperty tokenCount;
+    private volatile int tokenCount;
 
     /***
-     * Creates an instance of the class.
+     * Creates an instance of the class. Posting lists
+     * are compressed using VByteCodec.
      * @param preprocessor instance of a word preprocessor
      */
     public Index(final IPreprocessor preprocessor) {
+        this(preprocessor, new VByteCodec());
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param preprocessor instance of a word preprocessor
+     * @param codec codec used to compress posting lists
+     */
+    public Index(final IPreprocessor preprocessor, final IPostingsCodec codec) {
+        this(preprocessor, codec, DEFAULT_MAX_BUFFERED_DOCUMENTS, new TieredMergePolicy());
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param preprocessor instance of a word preprocessor
+     * @param codec codec used to compress posting lists
+     * @param maxBufferedDocuments number of documents the buffer holds before it's flushed into a segment
+     * @param mergePolicy policy deciding which segments should be merged
+     * @throws IllegalArgumentException if the number of buffered documents is not positive
+     */
+    public Index(final IPreprocessor preprocessor, final IPostingsCodec codec,
+                 int maxBufferedDocuments, final IMergePolicy mergePolicy) throws IllegalArgumentException {
+        if (maxBufferedDocuments < 1) {
+            throw new IllegalArgumentException("Number of buffered documents must be positive");
+        }
         this.preprocessor = preprocessor;
-        invertedIndex = new HashMap<>();
-        allDocumentIndexes = new TreeSet<>();
-        indexFilePaths = new HashMap<>();
+        this.codec = codec;
+        this.maxBufferedDocuments = maxBufferedDocuments;
+        this.mergePolicy = mergePolicy;
+        writer = new SegmentWriter(codec);
+        dictionary = new TermDictionary();
+        documentStore = new DocumentStore();
+        snapshotLock = new Object();
+
+        // The merging thread is started on demand and terminates once it's been idle for a while.
+        mergeExecutor = new ThreadPoolExecutor(0, 1, MERGE_THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final var thread = new Thread(runnable, "segment-merger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        allDocuments = new RoaringDocIdSet();
+        allDocumentsChanged = false;
+        denseTerms = new HashMap<>();
         filePaths = new HashSet<>();
-        bagOfWords = new HashMap<>();
-        documentCount = new SimpleIntegerProperty(0);
-        termCount = new SimpleIntegerProperty(0);
-        tokenCount = new SimpleIntegerProperty(0);
+        statistics = new RankingStatistics(new double[0], new double[0], new double[0], new double[0]);
+        statisticsDocumentCount = 0;
+        statisticsChanged = false;
+        maxDocumentIndex = -1;
+        documentCount = 0;
+        termCount = 0;
+        tokenCount = 0;
+        snapshot = new IndexSnapshot(preprocessor, codec, dictionary, Collections.emptyList(), documentStore, 0, 0, 0, -1, null);
     }
 
     /***
@@ -63,7 +184,7 @@ public class Index implements IIndex {
      */
     @Override
     public int getDocumentCount() {
-        return documentCount.get();
+        return documentCount;
     }
 
     /***
@@ -71,17 +192,7 @@ public class Index implements IIndex {
      * @param value new value (number of documents)
      */
     private void setDocumentCount(int value) {
-        documentCount.set(value);
-    }
-
-    /***
-     * Return document count property that is
-     * used to update the view.
-     * @return document count property
-     */
-    @Override
-    public IntegerProperty documentCountProperty() {
-        return documentCount;
+        documentCount = value;
     }
 
     /***
@@ -90,7 +201,7 @@ public class Index implements IIndex {
      */
     @Override
     public int getTermCount() {
-        return termCount.get();
+        return termCount;
     }
 
     /***
@@ -98,17 +209,7 @@ public class Index implements IIndex {
      * @param value new value (number of terms)
      */
     private void setTermCount(int value) {
-        termCount.set(value);
-    }
-
-    /***
-     * Return term count property that is
-     * used to update the view.
-     * @return term count property
-     */
-    @Override
-    public IntegerProperty termCountProperty() {
-        return termCount;
+        termCount = value;
     }
 
     /***
@@ -117,7 +218,7 @@ public class Index implements IIndex {
      */
     @Override
     public int getTokenCount() {
-        return tokenCount.get();
+        return tokenCount;
     }
 
     /***
@@ -125,121 +226,188 @@ public class Index implements IIndex {
      * @param value new value (number of tokens)
      */
     private void setTokenCount(int value) {
-        tokenCount.set(value);
+        tokenCount = value;
     }
 
     /***
-     * Return token count property that is
-     * used to update the view.
-     * @return token count property
+     * Returns the buffer and all live segments, i.e. all parts
+     * of the index documents are stored in.
+     * @return list of the buffer and the live segments
      */
     @Override
-    public IntegerProperty tokenCountProperty() {
-        return tokenCount;
+    List<ISegment> getReadSegments() {
+        final List<ISegment> all = new ArrayList<>(snapshot.getSegments());
+        if (!writer.isEmpty()) {
+            all.add(writer);
+        }
+        return all;
     }
 
     /***
-     * Calculates TF-IDF for a given document and a unique
-     * set of words (query).
-     * @param index index of a document
-     * @param relevantTerms relevant words of a query
-     * @return value of TF-IDF
+     * Returns the dictionary assigning ids to the terms.
+     * @return term dictionary
      */
     @Override
-    public double calculateTF_IDF(int index, Set<String> relevantTerms) {
-        // Create one bag-of-words that will hold all words of both documents.
-        final var bag = new BagOfWords();
+    TermDictionary getDictionary() {
+        return dictionary;
+    }
 
-        // Get the bag of words of the document.
-        final var bow1 = bagOfWords.get(index);
+    /***
+     * Returns the number of live segments (not counting the buffer).
+     * @return number of segments
+     */
+    public int getSegmentCount() {
+        return snapshot.getSegments().size();
+    }
 
-        // Create a bag-of-words out of the given words of a query
-        final var bow2 = new BagOfWords();
-        bow2.addAllWords(relevantTerms);
+    /***
+     * Returns the last published snapshot of the index. The snapshot holds
+     * the documents that had been indexed before the last flush (or refresh()).
+     * @return point-in-time read-only view of the index
+     */
+    @Override
+    public IIndex snapshot() {
+        return snapshot;
+    }
 
-        // Union both bags into the overall bag-of-words.
-        bag.addAllWords(bow1);
-        bag.addAllWords(bow2);
+    /***
+     * Flushes the buffer, so all documents indexed so far become
+     * visible to the snapshots published from now on.
+     */
+    @Override
+    public void refresh() {
+        flush();
+    }
 
-        double normDoc1 = 0;
-        double normDoc2 = 0;
-        double multi = 0;
+    /***
+     * Flushes the documents held in the buffer into a new segment, publishes
+     * a new snapshot, and schedules a merge of the segments on the background thread.
+     */
+    public synchronized void flush() {
+        if (writer.isEmpty()) {
+            return;
+        }
+        final var segment = writer.flush();
+        synchronized (snapshotLock) {
+            final List<Segment> updated = new ArrayList<>(snapshot.getSegments());
+            updated.add(segment);
+            publish(Collections.unmodifiableList(updated));
+        }
+        mergeExecutor.execute(this::mergeSegments);
+    }
 
-        for (var word : bag.getWords()) {
-            double IDF = 0;
-            double val1 = 0;
-            double val2 = 0;
+    /***
+     * Publishes a new snapshot consisting of given segments and the current
+     * statistics of the index. It must be called while holding the snapshot lock.
+     * If the norms and the bounds of the index are up to date (e.g. the index's just been loaded),
+     * they're handed over to the snapshot, otherwise the snapshot calculates them lazily.
+     * @param segments segments of the snapshot
+     */
+    private void publish(final List<Segment> segments) {
+        final RankingStatistics current = isStatisticsUpToDate() ? statistics : null;
+        snapshot = new IndexSnapshot(preprocessor, codec, dictionary, segments, documentStore, getDocumentCount(), getTermCount(), getTokenCount(), maxDocumentIndex, current);
+    }
 
-            if (bow1.contains(word)) {
-                val1 = 1 + Math.log10(bow1.getNumberOfOccurrences(word));
-            }
-            if (bow2.contains(word)) {
-                val2 = 1 + Math.log10(bow2.getNumberOfOccurrences(word));
+    /***
+     * Merges segments as long as the merge policy finds some to be merged.
+     * Merging runs on the background thread, so readers keep using the old
+     * segments until the list of segments is replaced by the new one.
+     */
+    private void mergeSegments() {
+        while (true) {
+            final var merge = mergePolicy.findMerge(snapshot.getSegments());
+            if (merge.isEmpty()) {
+                return;
             }
-
-            if (invertedIndex.containsKey(word)) {
-                IDF = Math.log10((double)getDocumentCount() / invertedIndex.get(word).getCount());
+            final var merged = Segment.merge(merge, codec);
+            synchronized (snapshotLock) {
+                // The segments may have been replaced in the meantime (the index's been loaded).
+                final var current = snapshot;
+                final List<Segment> updated = new ArrayList<>(current.getSegments());
+                int position = updated.size();
+                for (final var segment : merge) {
+                    final int i = updated.indexOf(segment);
+                    if (i == -1) {
+                        return;
+                    }
+                    position = Math.min(position, i);
+                }
+                updated.removeAll(merge);
+                updated.add(position, merged);
+
+                // Merging does not change the content of the index, so the statistics stay the same.
+                snapshot = current.withSegments(Collections.unmodifiableList(updated));
             }
+        }
+    }
 
-            val1 *= IDF;
-            val2 *= IDF;
-
-            multi += val1 * val2;
-            normDoc1 += val1 * val1;
-            normDoc2 += val2 * val2;
+    /***
+     * Waits until all merges that have been scheduled so far are done.
+     * @throws IllegalStateException if the thread's been interrupted or a merge has failed
+     */
+    public void waitForMerges() throws IllegalStateException {
+        try {
+            // The merges run one by one, so the empty task gets executed after all of them.
+            mergeExecutor.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for merges");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getMessage());
         }
-        normDoc1 = Math.sqrt(normDoc1);
-        normDoc2 = Math.sqrt(normDoc2);
+    }
 
-        if (normDoc1 * normDoc2 == 0)
-            return 0;
+    /***
+     * Checks whether the statistics of the index reflect all documents indexed so far.
+     * @return True, if no document has been indexed since the statistics were calculated. False, otherwise.
+     */
+    private boolean isStatisticsUpToDate() {
+        return !statisticsChanged && statisticsDocumentCount == getDocumentCount();
+    }
 
-        return multi / (normDoc1 * normDoc2);
+    /***
+     * Recalculates the norms of all documents and the bounds of all terms if the index
+     * has changed since they were last calculated. The TF-IDF norms depend on the IDF
+     * of every term of a document, so they need to be recalculated as a whole
+     * whenever new documents are added into the index.
+     */
+    private void refreshStatistics() {
+        if (isStatisticsUpToDate()) {
+            return;
+        }
+        statistics = RankingStatistics.calculate(getReadSegments(), getDocumentCount(), maxDocumentIndex);
+        statisticsDocumentCount = getDocumentCount();
+        statisticsChanged = false;
     }
 
     /***
-     * Calculates cosine similarity for a given document and relevant words of a query.
-     * @param index index of a document
-     * @param relevantTerms relevant words of a query
-     * @return cosine similarity
+     * Returns the precomputed norm of a document's vector.
+     * @param documentIndex index of a document
+     * @param model ranking model the vector is weighted by
+     * @return norm of the document
+     * @throws IllegalArgumentException if the document has not been indexed yet
      */
     @Override
-    public double calculateCosineSimilarity(int index, Set<String> relevantTerms) {
-        // Create one bag-of-words that will hold all words of both documents.
-        final var bag = new BagOfWords();
-
-        // Get the bag of words of the document.
-        final var bow1 = bagOfWords.get(index);
-
-        // Create a bag-of-words out of the given words of a query
-        final var bow2 = new BagOfWords();
-        bow2.addAllWords(relevantTerms);
-
-        // Union both bags into the overall bag-of-words.
-        bag.addAllWords(bow1);
-        bag.addAllWords(bow2);
-
-        double normDoc1 = 0;
-        double normDoc2 = 0;
-        double multi = 0;
-
-        for (var word : bag.getWords()) {
-            double val1 = bow1.getNumberOfOccurrences(word);
-            double val2 = bow2.getNumberOfOccurrences(word);
-
-            multi += val1 * val2;
-            normDoc1 += val1 * val1;
-            normDoc2 += val2 * val2;
-
-            index++;
+    public double getDocumentNorm(int documentIndex, final RankingModel model) throws IllegalArgumentException {
+        refreshStatistics();
+        if (documentIndex < 0 || documentIndex > maxDocumentIndex) {
+            throw new IllegalArgumentException("Document has not been indexed yet");
         }
-        normDoc1 = Math.sqrt(normDoc1);
-        normDoc2 = Math.sqrt(normDoc2);
-
-        if (normDoc1 * normDoc2 == 0)
-            return 0;
-        return multi / (normDoc1 * normDoc2);
+        return statistics.getDocumentNorm(documentIndex, model);
+    }
 
+    /***
+     * Returns the greatest contribution of a term to the score of a document
+     * (before it's normalized by the norm of the query). The bounds of all terms
+     * are calculated together with the norms of the documents.
+     * @param term given term
+     * @param model ranking model the documents are ranked by
+     * @return upper bound of the term's contribution (0 if the term has not been indexed)
+     */
+    @Override
+    public double getMaxImpact(final String term, final RankingModel model) {
+        refreshStatistics();
+        return statistics.getMaxImpact(dictionary.getId(term), model);
     }
 
     /***
@@ -249,84 +417,100 @@ public class Index implements IIndex {
      * @param filePath path to the document
      */
     @Override
-    public void addDocument(final String term, int documentIndex, final String filePath) {
-        // Create a new document (item of a linked list)
-        Document document = new Document(documentIndex);
+    public synchronized void addDocument(final String term, int documentIndex, final String filePath) {
+        addDocument(addTerm(term), documentIndex, filePath);
+    }
+
+    /***
+     * Adds a term into the dictionary of the index.
+     * @param term term that has been found in a document
+     * @return id of the term
+     */
+    private int addTerm(final String term) {
+        final int size = dictionary.size();
+        final int termId = dictionary.add(term);
 
         // Check if the term is seen for the first time.
-        if (!invertedIndex.containsKey(term)) {
-            invertedIndex.put(term, new DocumentList());
+        if (termId == size) {
             // Increment the term count.
             setTermCount(getTermCount() + 1);
         }
+        return termId;
+    }
 
-        // Check if the document has been previously used. If not,
-        // create a new record - bag of words, path
-        if (!indexFilePaths.containsKey(documentIndex)) {
-            indexFilePaths.put(documentIndex, filePath);
-            bagOfWords.put(documentIndex, new BagOfWords());
+    /***
+     * Adds a document into the index.
+     * @param termId id of the term that has been found in a document
+     * @param documentIndex index of the document where the term's been found
+     * @param filePath path to the document
+     */
+    private void addDocument(int termId, int documentIndex, final String filePath) {
+        // Add the term into the buffer (if the document is already at the end
+        // of the term's posting list, only its term frequency gets incremented).
+        writer.addDocument(termId, documentIndex, filePath);
+
+        // Add the document into the set of all documents as well.
+        if (!allDocuments.contains(documentIndex)) {
+            allDocuments.add(documentIndex);
+            allDocumentsChanged = true;
+            maxDocumentIndex = Math.max(maxDocumentIndex, documentIndex);
         }
 
-        // Get the wrapper (linked list) by the term and append the document to the end.
-        final var documentList = invertedIndex.get(term);
-        documentList.add(document);
-
-        // Add the term into the bag of words and add
-        // the document into the set of all documents as well.
-        bagOfWords.get(documentIndex).addWord(term);
-        allDocumentIndexes.add(documentIndex);
+        // The norms of the documents and the bounds of the terms need to be recalculated.
+        statisticsChanged = true;
 
         // Increment the token count.
         setTokenCount(getTokenCount() + 1);
     }
 
     /***
-     * Returns a linked list of all documents.
-     * @return head of a linked list of all documents.
+     * Returns a bitmap of all documents that have been indexed.
+     * Document indexes are mostly consecutive, so the bitmap
+     * is stored as runs which take only a few bytes.
+     * @return bitmap of all documents
      */
     @Override
-    public Document getAllDocumentIndexes() {
-        Document head = null;
-        Document currentDoc = null;
-
-        for (final var index : allDocumentIndexes) {
-            if (head == null) {
-                head = new Document(index);
-                currentDoc = head;
-            } else {
-                currentDoc.setNext(new Document(index));
-                currentDoc = currentDoc.getNext();
-            }
+    public IPostingList getAllPostings() {
+        if (allDocumentsChanged) {
+            allDocuments.optimize();
+            allDocumentsChanged = false;
         }
-        return head;
+        return allDocuments;
     }
 
     /***
-     * Returns a filepath of a given document
-     * @param documentIndex index of a document
-     * @return filepath of a give document
-     * @throws IllegalArgumentException if the document has not been indexed yet
+     * Returns documents containing a given term in a form suited for boolean operations.
+     * Terms which occur in a large fraction of all documents are served as bitmaps
+     * (built lazily and rebuilt once the term occurs in new documents),
+     * the rest as regular posting lists.
+     * @param term given term
+     * @return documents containing the term (empty if the term has not been indexed)
      */
     @Override
-    public String getFilePath(int documentIndex) throws IllegalArgumentException {
-        if (!indexFilePaths.containsKey(documentIndex)) {
-            throw new IllegalArgumentException("Document has not been indexed yet");
+    public IPostingList getMatchingDocuments(String term) {
+        final var postings = getPostings(term);
+        // Check if the term is dense enough.
+        if (!isDenseTerm(postings.size(), allDocuments.size())) {
+            return postings;
+        }
+        var bitmap = denseTerms.get(term);
+        if (bitmap == null || bitmap.size() != postings.size()) {
+            bitmap = RoaringDocIdSet.of(postings);
+            bitmap.optimize();
+            denseTerms.put(term, bitmap);
         }
-        return indexFilePaths.get(documentIndex);
+        return bitmap;
     }
 
     /***
-     * Returns a linked list (row in the index) of a given term
-     * @param term given term
-     * @return linked list (row in the index) of a given term
+     * Checks whether a term occurs in a large enough fraction
+     * of all documents to be served as a bitmap.
+     * @param documentFrequency number of documents containing the term
+     * @param documentCount number of all documents
+     * @return True, if the term should be served as a bitmap. False, otherwise.
      */
-    @Override
-    public Document getDocuments(String term) {
-        if (invertedIndex.containsKey(term)) {
-            return invertedIndex.get(term).getFirst();
-        }
-        // Return an empty linked list of documents.
-        return new Document();
+    static boolean isDenseTerm(int documentFrequency, int documentCount) {
+        return documentFrequency >= DENSE_TERM_MIN_DOCUMENTS && (long)documentFrequency * DENSE_TERM_RATIO >= documentCount;
     }
 
     /***
@@ -337,20 +521,221 @@ public class Index implements IIndex {
      */
     @Override
     public boolean index(final String text, final String filePath) {
+        return index(text, filePath, null);
+    }
+
+    /***
+     * Indexes a document that has already been split into preprocessed terms.
+     * @param terms preprocessed terms of the document in the order they occur in
+     * @param filePath filepath of the document
+     * @return True, if the document's been indexed successfully. False, otherwise.
+     */
+    @Override
+    public boolean index(final List<String> terms, final String filePath) {
+        return index(terms, filePath, null);
+    }
+
+    /***
+     * Indexes a document given as a piece of text and stores its fields.
+     * @param text content of a document to be indexed
+     * @param filePath filepath of the document
+     * @param storedFields fields of the document to be stored (key = name of a field, null if none)
+     * @return True, if the document's been indexed successfully. False, otherwise.
+     */
+    @Override
+    public synchronized boolean index(final String text, final String filePath, final Map<String, String> storedFields) {
+        // Check if the filepath is already indexed
+        if (filePaths.contains(filePath)) {
+            return false;
+        }
+        filePaths.add(filePath);
+
+        // Index the terms as they're produced by the preprocessor.
+        final int documentIndex = getDocumentCount();
+        preprocessor.tokenize(text, this::addTerm, termId -> addDocument(termId, documentIndex, filePath));
+        finishDocument(documentIndex, storedFields);
+        return true;
+    }
+
+    /***
+     * Indexes a document that has already been split into preprocessed terms and stores its fields.
+     * @param terms preprocessed terms of the document in the order they occur in
+     * @param filePath filepath of the document
+     * @param storedFields fields of the document to be stored (key = name of a field, null if none)
+     * @return True, if the document's been indexed successfully. False, otherwise.
+     */
+    @Override
+    public synchronized boolean index(final List<String> terms, final String filePath, final Map<String, String> storedFields) {
         // Check if the filepath is already indexed
         if (!filePaths.contains(filePath)) {
             filePaths.add(filePath);
 
-            // Preprocess the text and index it term by term.
-            preprocessor.tokenize(text).forEach(token -> addDocument(token, getDocumentCount(), filePath));
-
-            // Increment the document count.
-            setDocumentCount(getDocumentCount() + 1);
+            // Index the document term by term.
+            final int documentIndex = getDocumentCount();
+            terms.forEach(term -> addDocument(term, documentIndex, filePath));
+            finishDocument(documentIndex, storedFields);
             return true;
         }
         return false;
     }
 
+    /***
+     * Returns the stored fields of a document.
+     * @param documentIndex index of a document
+     * @return fields of the document (key = name of a field) or null if they have not been stored
+     */
+    @Override
+    public Map<String, String> getStoredFields(int documentIndex) {
+        return documentStore.get(documentIndex);
+    }
+
+    /***
+     * Finishes indexing of a document. The fields of the document get stored, the document
+     * count gets incremented, and the buffer is flushed if it's full.
+     * @param documentIndex index of the document
+     * @param storedFields fields of the document to be stored (null if none)
+     */
+    private void finishDocument(int documentIndex, final Map<String, String> storedFields) {
+        if (storedFields != null) {
+            documentStore.add(documentIndex, storedFields);
+        }
+        setDocumentCount(getDocumentCount() + 1);
+        if (writer.getDocumentCount() >= maxBufferedDocuments) {
+            flush();
+        }
+    }
+
+    /***
+     * Stores the index into a file (see IndexFormat). The buffer is flushed
+     * first and the newly published snapshot gets written.
+     * @param filePath path to the file
+     * @throws IOException if the index could not be written
+     */
+    @Override
+    public synchronized void save(final String filePath) throws IOException {
+        flush();
+        snapshot.save(filePath);
+    }
+
+    /***
+     * Loads the index from a file that has been created using save(String).
+     * The current content of the index is discarded. The whole file is read
+     * and validated first, so the index stays as it is if the file is not valid.
+     * @param filePath path to the file
+     * @throws IOException if the index could not be read or if the file is not a valid index file
+     */
+    @Override
+    public synchronized void load(final String filePath) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath)))) {
+            // Read the header (the offsets of the sections are not needed
+            // as the whole file is read sequentially).
+            IndexFormat.checkHeader(in.readInt(), in.readInt());
+            final IPostingsCodec fileCodec = IndexFormat.getCodec(IndexFormat.readString(in));
+            final int documentCount = in.readInt();
+            final int termCount = in.readInt();
+            final int tokenCount = in.readInt();
+            final int fileMaxDocumentIndex = in.readInt();
+            if (documentCount < 0 || fileMaxDocumentIndex < documentCount - 1) {
+                throw new IOException("Invalid number of documents");
+            }
+            for (int i = 0; i < IndexFormat.NUMBER_OF_SECTIONS; i++) {
+                in.readLong();
+            }
+
+            // Read the paths of the documents (they're stored in the
+            // same order as the offsets of the documents that have one).
+            final int numberOfDocuments = in.readInt();
+            final var documents = new ArrayList<Integer>();
+            for (int i = 0; i <= fileMaxDocumentIndex; i++) {
+                if (in.readLong() != IndexFormat.NO_OFFSET) {
+                    documents.add(i);
+                }
+            }
+            if (numberOfDocuments != documents.size()) {
+                throw new IOException("Invalid number of documents");
+            }
+            final Map<Integer, String> indexFilePaths = new HashMap<>();
+            final RoaringDocIdSet fileDocuments = new RoaringDocIdSet();
+            for (final int documentIndex : documents) {
+                indexFilePaths.put(documentIndex, IndexFormat.readString(in));
+                fileDocuments.add(documentIndex);
+            }
+
+            // Read the norms of the documents.
+            final double[] fileCosineNorms = new double[fileMaxDocumentIndex + 1];
+            final double[] fileTfIdfNorms = new double[fileMaxDocumentIndex + 1];
+            for (int i = 0; i <= fileMaxDocumentIndex; i++) {
+                fileCosineNorms[i] = in.readDouble();
+            }
+            for (int i = 0; i <= fileMaxDocumentIndex; i++) {
+                fileTfIdfNorms[i] = in.readDouble();
+            }
+
+            // Read the term dictionary (the offsets are not needed
+            // as the posting lists are read sequentially).
+            final int numberOfTerms = in.readInt();
+            if (numberOfTerms < 0) {
+                throw new IOException("Invalid number of terms");
+            }
+            for (int i = 0; i < 2 * numberOfTerms; i++) {
+                in.readLong();
+            }
+            final String[] terms = new String[numberOfTerms];
+            for (int i = 0; i < numberOfTerms; i++) {
+                terms[i] = IndexFormat.readString(in);
+            }
+
+            // Read the upper bounds of the terms' contributions (in the order of the dictionary).
+            final double[] fileCosineImpacts = new double[numberOfTerms];
+            final double[] fileTfIdfImpacts = new double[numberOfTerms];
+            for (int i = 0; i < numberOfTerms; i++) {
+                fileCosineImpacts[i] = in.readDouble();
+                fileTfIdfImpacts[i] = in.readDouble();
+            }
+
+            // Read the posting lists (the terms are sorted, so they get their ids in ascending
+            // order, i.e. the same as their positions in the file, which the bounds are indexed by).
+            // The forward index of the documents is rebuilt by the segment.
+            final var fileDictionary = new TermDictionary();
+            final int[] termIds = new int[numberOfTerms];
+            final var postings = new CompressedPostingList[numberOfTerms];
+            for (int i = 0; i < numberOfTerms; i++) {
+                termIds[i] = fileDictionary.add(terms[i]);
+                if (termIds[i] != i) {
+                    throw new IOException("Duplicate term " + terms[i]);
+                }
+                postings[i] = CompressedPostingList.read(in, fileCodec);
+            }
+
+            // Read the stored fields of the documents.
+            final DocumentStore fileDocumentStore = DocumentStore.read(in, fileMaxDocumentIndex + 1);
+
+            // The whole file's been read, so the current content of the index
+            // (including the buffer) can be replaced. It's loaded as a single segment.
+            final var segment = new Segment(termIds, postings, indexFilePaths);
+            writer.flush();
+            denseTerms.clear();
+            filePaths.clear();
+            filePaths.addAll(indexFilePaths.values());
+            dictionary = fileDictionary;
+            documentStore = fileDocumentStore;
+            allDocuments = fileDocuments;
+            allDocumentsChanged = true;
+            maxDocumentIndex = fileMaxDocumentIndex;
+            statistics = new RankingStatistics(fileCosineNorms, fileTfIdfNorms, fileCosineImpacts, fileTfIdfImpacts);
+            setDocumentCount(documentCount);
+            setTermCount(termCount);
+            setTokenCount(tokenCount);
+            statisticsDocumentCount = documentCount;
+            statisticsChanged = false;
+            synchronized (snapshotLock) {
+                publish(List.of(segment));
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | NegativeArraySizeException e) {
+            throw new IOException("The index file is corrupted: " + e.getMessage());
+        }
+    }
+
     /***
      * Returns the instance of a preprocessor used within the index.
      * @return preprocessor of the index
@@ -0,0 +1,123 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingsCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PForDeltaCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.VByteCodec;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class describes the binary format an index is stored on the disk in.
+ * All numbers are stored in the big-endian byte order, and strings are stored
+ * as their length in bytes followed by their UTF-8 representation.
+ * All offsets are absolute positions within the file, so the file can be either
+ * read sequentially or memory-mapped and accessed randomly (see MappedIndex).
+ * The file is made up of the following sections:
+ *
+ * header           - magic number, version, name of the postings codec, document count,
+ *                    term count, token count, the greatest document index, and the offsets
+ *                    of the documents, norms, term dictionary, max impacts, postings, and stored fields sections
+ * documents        - number of documents, offset of the file path of each document
+ *                    (indexed by document indexes, NO_OFFSET if there is no such a document),
+ *                    and the file paths themselves
+ * norms            - cosine norms followed by TF-IDF norms of all documents (indexed by document indexes)
+ * term dictionary  - number of terms, offsets of the terms, offsets of their posting lists,
+ *                    and the terms themselves, sorted by their UTF-8 representation
+ *                    (so they can be binary-searched byte by byte)
+ * max impacts      - the greatest contribution of each term to the cosine similarity and to TF-IDF
+ *                    of a document (in the order of the term dictionary, see RankingStatistics)
+ * postings         - posting lists (see CompressedPostingList.write)
+ * stored fields    - number of blocks, offsets of the blocks, block of each document (indexed
+ *                    by document indexes, NO_BLOCK if its fields have not been stored),
+ *                    and the compressed blocks themselves (see DocumentStore)
+ */
+final class IndexFormat {
+
+    /*** Magic number identifying an index file ("SEIX") */
+    static final int MAGIC = 0x53454958;
+
+    /*** Current version of the format */
+    static final int VERSION = 4;
+
+    /*** Number of sections whose offsets are stored in the header */
+    static final int NUMBER_OF_SECTIONS = 6;
+
+    /*** Offset of a document which has not been indexed */
+    static final long NO_OFFSET = -1;
+
+    /***
+     * Creates an instance of the class.
+     * The class only provides static methods.
+     */
+    private IndexFormat() {
+    }
+
+    /***
+     * Returns a codec by its name.
+     * @param name name of the codec
+     * @return instance of the codec
+     * @throws IllegalArgumentException if the codec is not known
+     */
+    static IPostingsCodec getCodec(final String name) throws IllegalArgumentException {
+        switch (name) {
+            case VByteCodec.NAME:
+                return new VByteCodec();
+            case PForDeltaCodec.NAME:
+                return new PForDeltaCodec();
+            default:
+                throw new IllegalArgumentException("Unknown postings codec " + name);
+        }
+    }
+
+    /***
+     * Checks the header of an index file.
+     * @param magic magic number read from the file
+     * @param version version read from the file
+     * @throws IOException if the file is not an index file or if its version is not supported
+     */
+    static void checkHeader(int magic, int version) throws IOException {
+        if (magic != MAGIC) {
+            throw new IOException("The file is not an index file");
+        }
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of the index file " + version);
+        }
+    }
+
+    /***
+     * Returns the size of the header.
+     * @param codecNameLength length of the name of the codec in bytes
+     * @return size of the header in bytes
+     */
+    static int getHeaderSize(int codecNameLength) {
+        return 7 * Integer.BYTES + codecNameLength + NUMBER_OF_SECTIONS * Long.BYTES;
+    }
+
+    /***
+     * Writes a UTF-8 representation of a string into an output.
+     * @param out output the string is written into
+     * @param bytes UTF-8 representation of the string
+     * @throws IOException if the string could not be written
+     */
+    static void writeBytes(final DataOutput out, final byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /***
+     * Reads a string from an input.
+     * @param in input the string is read from
+     * @return string read from the input
+     * @throws IOException if the string could not be read
+     */
+    static String readString(final DataInput in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,503 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.CompressedPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingsCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.RoaringDocIdSet;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.Segment;
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.IPreprocessor;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a point-in-time read-only view of an index.
+ * A snapshot consists of an immutable list of immutable segments,
+ * so any number of threads can search it while the index keeps
+ * indexing new documents, without taking any locks. Everything
+ * the snapshot calculates (norms, bounds, bitmaps) is calculated
+ * lazily and cached within the snapshot, unless it's been handed
+ * over by the index (e.g. the norms of a loaded index) or by the
+ * snapshot the segments of which have been merged.
+ */
+public class IndexSnapshot extends SegmentedIndex {
+
+    /*** Instance of a preprocessor */
+    private final IPreprocessor preprocessor;
+
+    /*** Codec the posting lists have been compressed with */
+    private final IPostingsCodec codec;
+
+    /*** Dictionary assigning ids to the terms (shared with the index) */
+    private final TermDictionary dictionary;
+
+    /*** Segments the snapshot consists of */
+    private final List<Segment> segments;
+
+    /*** Store of the fields of the documents (shared with the index) */
+    private final DocumentStore documentStore;
+
+    /*** The greatest index of a document that has been indexed */
+    private final int maxDocumentIndex;
+
+    /*** Number of documents that have been indexed */
+    private final int documentCount;
+
+    /*** Number of terms occurred during indexing */
+    private final int termCount;
+
+    /*** Number of tokens occurred during indexing */
+    private final int tokenCount;
+
+    /*** Set of all documents (created lazily) */
+    private volatile RoaringDocIdSet allDocuments;
+
+    /*** Norms of the documents and upper bounds of the terms' contributions (created lazily if not given) */
+    private volatile RankingStatistics statistics;
+
+    /*** Bitmaps of terms that occur in a large fraction of documents (key = word) */
+    private final Map<String, RoaringDocIdSet> denseTerms;
+
+    /***
+     * Creates an instance of the class.
+     * @param preprocessor instance of a word preprocessor
+     * @param codec codec the posting lists have been compressed with
+     * @param dictionary dictionary assigning ids to the terms
+     * @param segments segments the snapshot consists of (the list must not be modified anymore)
+     * @param documentStore store of the fields of the documents
+     * @param documentCount number of documents that have been indexed
+     * @param termCount number of terms occurred during indexing
+     * @param tokenCount number of tokens occurred during indexing
+     * @param maxDocumentIndex the greatest index of a document that has been indexed
+     * @param statistics norms of the documents and bounds of the terms or null if they should be calculated lazily
+     */
+    IndexSnapshot(final IPreprocessor preprocessor, final IPostingsCodec codec, final TermDictionary dictionary,
+                  final List<Segment> segments, final DocumentStore documentStore,
+                  int documentCount, int termCount, int tokenCount, int maxDocumentIndex, final RankingStatistics statistics) {
+        this(preprocessor, codec, dictionary, segments, documentStore, documentCount, termCount, tokenCount, maxDocumentIndex,
+             statistics, null, new ConcurrentHashMap<>());
+    }
+
+    /***
+     * Creates an instance of the class reusing what has already been calculated for the same documents.
+     * @param preprocessor instance of a word preprocessor
+     * @param codec codec the posting lists have been compressed with
+     * @param dictionary dictionary assigning ids to the terms
+     * @param segments segments the snapshot consists of (the list must not be modified anymore)
+     * @param documentStore store of the fields of the documents
+     * @param documentCount number of documents that have been indexed
+     * @param termCount number of terms occurred during indexing
+     * @param tokenCount number of tokens occurred during indexing
+     * @param maxDocumentIndex the greatest index of a document that has been indexed
+     * @param statistics norms of the documents and bounds of the terms or null if they should be calculated lazily
+     * @param allDocuments bitmap of all documents or null if it should be created lazily
+     * @param denseTerms cache of the bitmaps of dense terms
+     */
+    private IndexSnapshot(final IPreprocessor preprocessor, final IPostingsCodec codec, final TermDictionary dictionary,
+                          final List<Segment> segments, final DocumentStore documentStore,
+                          int documentCount, int termCount, int tokenCount, int maxDocumentIndex, final RankingStatistics statistics,
+                          final RoaringDocIdSet allDocuments, final Map<String, RoaringDocIdSet> denseTerms) {
+        this.preprocessor = preprocessor;
+        this.codec = codec;
+        this.dictionary = dictionary;
+        this.segments = segments;
+        this.documentStore = documentStore;
+        this.maxDocumentIndex = maxDocumentIndex;
+        this.documentCount = documentCount;
+        this.termCount = termCount;
+        this.tokenCount = tokenCount;
+        this.statistics = statistics;
+        this.allDocuments = allDocuments;
+        this.denseTerms = denseTerms;
+    }
+
+    /***
+     * Creates a snapshot holding the same documents stored in different
+     * segments (after some of the segments have been merged). Merging does not change
+     * the documents, so the norms, the bounds, and the bitmaps calculated so far are kept
+     * (the cache of the bitmaps is shared by both snapshots).
+     * @param segments new segments of the snapshot (the list must not be modified anymore)
+     * @return new snapshot
+     */
+    IndexSnapshot withSegments(final List<Segment> segments) {
+        return new IndexSnapshot(preprocessor, codec, dictionary, segments, documentStore, getDocumentCount(), getTermCount(), getTokenCount(),
+                                 maxDocumentIndex, statistics, allDocuments, denseTerms);
+    }
+
+    /***
+     * Returns the segments the snapshot consists of.
+     * @return unmodifiable list of segments
+     */
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    /***
+     * Returns the segments the documents are read from.
+     * @return segments of the snapshot
+     */
+    @Override
+    List<Segment> getReadSegments() {
+        return segments;
+    }
+
+    /***
+     * Returns the dictionary assigning ids to the terms.
+     * @return term dictionary (shared with the index)
+     */
+    @Override
+    TermDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /***
+     * Returns the snapshot itself as it never changes.
+     * @return this snapshot
+     */
+    @Override
+    public IIndex snapshot() {
+        return this;
+    }
+
+    /***
+     * The snapshot never changes, so there is nothing to be published.
+     */
+    @Override
+    public void refresh() {
+    }
+
+    /***
+     * Returns the norms of all documents and the bounds of all terms. Unless they've been
+     * given when the snapshot was created, they're calculated when they're first needed.
+     * @return statistics of the snapshot
+     */
+    private RankingStatistics getStatistics() {
+        var result = statistics;
+        if (result == null) {
+            synchronized (this) {
+                result = statistics;
+                if (result == null) {
+                    result = RankingStatistics.calculate(segments, documentCount, maxDocumentIndex);
+                    statistics = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /***
+     * The snapshot is read-only, so no document can be added.
+     * @param term term that has been found in a document
+     * @param documentIndex index of the document where the term's been found
+     * @param filePath path to the document
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addDocument(final String term, int documentIndex, final String filePath) {
+        throw new UnsupportedOperationException("The snapshot is read-only");
+    }
+
+    /***
+     * Returns a bitmap of all documents of the snapshot.
+     * The bitmap is a union of the bitmaps of the segments created when it's first needed.
+     * @return bitmap of all documents
+     */
+    @Override
+    public IPostingList getAllPostings() {
+        var result = allDocuments;
+        if (result == null) {
+            result = new RoaringDocIdSet();
+            for (final var segment : segments) {
+                result = RoaringDocIdSet.or(result, segment.getDocuments());
+            }
+            result.optimize();
+            allDocuments = result;
+        }
+        return result;
+    }
+
+    /***
+     * Returns documents containing a given term in a form suited for boolean operations.
+     * Terms which occur in a large fraction of all documents are served as bitmaps
+     * (built lazily), the rest as regular posting lists.
+     * @param term given term
+     * @return documents containing the term (empty if the term has not been indexed)
+     */
+    @Override
+    public IPostingList getMatchingDocuments(final String term) {
+        final var postings = getPostings(term);
+        if (!Index.isDenseTerm(postings.size(), getAllPostings().size())) {
+            return postings;
+        }
+        return denseTerms.computeIfAbsent(term, key -> {
+            final var bitmap = RoaringDocIdSet.of(postings);
+            bitmap.optimize();
+            return bitmap;
+        });
+    }
+
+    /***
+     * The snapshot is read-only, so no document can be added.
+     * @param text content of a document to be indexed
+     * @param filePath filepath of the document
+     * @return always false
+     */
+    @Override
+    public boolean index(final String text, final String filePath) {
+        return false;
+    }
+
+    /***
+     * The snapshot is read-only, so no document can be added.
+     * @param terms preprocessed terms of the document
+     * @param filePath filepath of the document
+     * @return always false
+     */
+    @Override
+    public boolean index(final List<String> terms, final String filePath) {
+        return false;
+    }
+
+    /***
+     * The snapshot is read-only, so no document can be added.
+     * @param text content of a document to be indexed
+     * @param filePath filepath of the document
+     * @param storedFields fields of the document to be stored
+     * @return always false
+     */
+    @Override
+    public boolean index(final String text, final String filePath, final Map<String, String> storedFields) {
+        return false;
+    }
+
+    /***
+     * The snapshot is read-only, so no document can be added.
+     * @param terms preprocessed terms of the document
+     * @param filePath filepath of the document
+     * @param storedFields fields of the document to be stored
+     * @return always false
+     */
+    @Override
+    public boolean index(final List<String> terms, final String filePath, final Map<String, String> storedFields) {
+        return false;
+    }
+
+    /***
+     * Returns the stored fields of a document of the snapshot.
+     * @param documentIndex index of a document
+     * @return fields of the document (key = name of a field) or null if they have not been stored
+     */
+    @Override
+    public Map<String, String> getStoredFields(int documentIndex) {
+        if (documentIndex < 0 || documentIndex > maxDocumentIndex) {
+            return null;
+        }
+        return documentStore.get(documentIndex);
+    }
+
+    /***
+     * Stores the snapshot into a file (see IndexFormat). The forward index of the documents is
+     * not stored as it can be reconstructed from the posting lists.
+     * All segments are written as one merged segment.
+     * @param filePath path to the file
+     * @throws IOException if the snapshot could not be written
+     */
+    @Override
+    public void save(final String filePath) throws IOException {
+        final RankingStatistics statistics = getStatistics();
+        final Segment segment = segments.size() == 1 ? segments.get(0) : Segment.merge(segments, codec);
+
+        // Sort the documents by their indexes and the terms by their UTF-8 representation.
+        final var documents = new TreeMap<Integer, byte[]>();
+        segment.getFilePaths().forEach((documentIndex, path) -> documents.put(documentIndex, path.getBytes(StandardCharsets.UTF_8)));
+        final var termIds = new TreeMap<byte[], Integer>(Arrays::compareUnsigned);
+        for (final int termId : segment.getTermIds()) {
+            termIds.put(dictionary.getTerm(termId).getBytes(StandardCharsets.UTF_8), termId);
+        }
+        final var terms = termIds.keySet();
+        final var termPostings = new ArrayList<CompressedPostingList>(terms.size());
+        for (final int termId : termIds.values()) {
+            termPostings.add(segment.getPostings(termId));
+        }
+
+        // Calculate the offsets of all sections.
+        final byte[] codecName = codec.getName().getBytes(StandardCharsets.UTF_8);
+        long offset = IndexFormat.getHeaderSize(codecName.length);
+        final long documentsOffset = offset;
+        offset += Integer.BYTES + (long)Long.BYTES * (maxDocumentIndex + 1);
+        for (final var path : documents.values()) {
+            offset += Integer.BYTES + path.length;
+        }
+        final long normsOffset = offset;
+        offset += 2L * Double.BYTES * (maxDocumentIndex + 1);
+        final long dictionaryOffset = offset;
+        offset += Integer.BYTES + 2L * Long.BYTES * terms.size();
+        for (final var term : terms) {
+            offset += Integer.BYTES + term.length;
+        }
+        final long impactsOffset = offset;
+        offset += 2L * Double.BYTES * terms.size();
+        final long postingsOffset = offset;
+        for (final var postings : termPostings) {
+            offset += postings.getSerializedSize();
+        }
+        final long storedFieldsOffset = offset;
+
+        try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            // Write the header.
+            out.writeInt(IndexFormat.MAGIC);
+            out.writeInt(IndexFormat.VERSION);
+            IndexFormat.writeBytes(out, codecName);
+            out.writeInt(getDocumentCount());
+            out.writeInt(getTermCount());
+            out.writeInt(getTokenCount());
+            out.writeInt(maxDocumentIndex);
+            out.writeLong(documentsOffset);
+            out.writeLong(normsOffset);
+            out.writeLong(dictionaryOffset);
+            out.writeLong(impactsOffset);
+            out.writeLong(postingsOffset);
+            out.writeLong(storedFieldsOffset);
+
+            // Write the paths of the documents.
+            out.writeInt(documents.size());
+            offset = documentsOffset + Integer.BYTES + (long)Long.BYTES * (maxDocumentIndex + 1);
+            for (int i = 0; i <= maxDocumentIndex; i++) {
+                final byte[] path = documents.get(i);
+                if (path == null) {
+                    out.writeLong(IndexFormat.NO_OFFSET);
+                } else {
+                    out.writeLong(offset);
+                    offset += Integer.BYTES + path.length;
+                }
+            }
+            for (final var path : documents.values()) {
+                IndexFormat.writeBytes(out, path);
+            }
+
+            // Write the norms of the documents.
+            for (int i = 0; i <= maxDocumentIndex; i++) {
+                out.writeDouble(statistics.getDocumentNorm(i, RankingModel.COSINE_SIMILARITY));
+            }
+            for (int i = 0; i <= maxDocumentIndex; i++) {
+                out.writeDouble(statistics.getDocumentNorm(i, RankingModel.TF_IDF));
+            }
+
+            // Write the term dictionary.
+            out.writeInt(terms.size());
+            offset = dictionaryOffset + Integer.BYTES + 2L * Long.BYTES * terms.size();
+            for (final var term : terms) {
+                out.writeLong(offset);
+                offset += Integer.BYTES + term.length;
+            }
+            offset = postingsOffset;
+            for (final var postings : termPostings) {
+                out.writeLong(offset);
+                offset += postings.getSerializedSize();
+            }
+            for (final var term : terms) {
+                IndexFormat.writeBytes(out, term);
+            }
+
+            // Write the upper bounds of the terms' contributions.
+            for (final int termId : termIds.values()) {
+                out.writeDouble(statistics.getMaxImpact(termId, RankingModel.COSINE_SIMILARITY));
+                out.writeDouble(statistics.getMaxImpact(termId, RankingModel.TF_IDF));
+            }
+
+            // Write the posting lists.
+            for (final var postings : termPostings) {
+                postings.write(out);
+            }
+
+            // Write the stored fields of the documents.
+            documentStore.write(out, storedFieldsOffset, maxDocumentIndex + 1);
+        }
+    }
+
+    /***
+     * The snapshot is immutable, so nothing can be loaded into it.
+     * @param filePath path to the file
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void load(final String filePath) {
+        throw new UnsupportedOperationException("The snapshot is read-only");
+    }
+
+    /***
+     * Returns the instance of a preprocessor used within the index.
+     * @return preprocessor of the index
+     */
+    @Override
+    public final IPreprocessor getPreprocessor() {
+        return preprocessor;
+    }
+
+    /***
+     * Return the total number of documents.
+     * @return number of documents that are part of the snapshot
+     */
+    @Override
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /***
+     * Return the total number of terms.
+     * @return number of terms that are part of the snapshot
+     */
+    @Override
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /***
+     * Returns number of tokens occurred during indexing.
+     * @return total number of tokens that are part of the snapshot
+     */
+    @Override
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    /***
+     * Returns the norm of a document's vector.
+     * @param documentIndex index of a document
+     * @param model ranking model the vector is weighted by
+     * @return norm of the document
+     * @throws IllegalArgumentException if the document is not part of the snapshot
+     */
+    @Override
+    public double getDocumentNorm(int documentIndex, final RankingModel model) throws IllegalArgumentException {
+        if (documentIndex < 0 || documentIndex > maxDocumentIndex) {
+            throw new IllegalArgumentException("Document has not been indexed yet");
+        }
+        return getStatistics().getDocumentNorm(documentIndex, model);
+    }
+
+    /***
+     * Returns the greatest contribution of a term to the score of a document
+     * (before it's normalized by the norm of the query). The bounds of all terms
+     * are calculated together with the norms of the documents.
+     * @param term given term
+     * @param model ranking model the documents are ranked by
+     * @return upper bound of the term's contribution (0 if the term has not been indexed)
+     */
+    @Override
+    public double getMaxImpact(final String term, final RankingModel model) {
+        return getStatistics().getMaxImpact(dictionary.getId(term), model);
+    }
+
+}
@@ -0,0 +1,92 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents an immutable snapshot of the statistics of an index
+ * (number of documents, terms, and tokens). The statistics are sampled from
+ * the plain counters of an index, so they can be taken at any rate
+ * without slowing indexing down.
+ */
+public class IndexStatistics {
+
+    /*** Number of documents that have been indexed */
+    private final int documentCount;
+
+    /*** Number of terms occurred during indexing */
+    private final int termCount;
+
+    /*** Number of tokens occurred during indexing */
+    private final int tokenCount;
+
+    /***
+     * Creates an instance of the class.
+     * @param documentCount number of documents that have been indexed
+     * @param termCount number of terms occurred during indexing
+     * @param tokenCount number of tokens occurred during indexing
+     */
+    public IndexStatistics(int documentCount, int termCount, int tokenCount) {
+        this.documentCount = documentCount;
+        this.termCount = termCount;
+        this.tokenCount = tokenCount;
+    }
+
+    /***
+     * Takes the current statistics of an index.
+     * @param index index whose statistics are taken
+     * @return statistics of the index
+     */
+    public static IndexStatistics of(final IIndex index) {
+        return new IndexStatistics(index.getDocumentCount(), index.getTermCount(), index.getTokenCount());
+    }
+
+    /***
+     * Returns the number of documents.
+     * @return number of documents that have been indexed
+     */
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /***
+     * Returns the number of terms.
+     * @return number of terms occurred during indexing
+     */
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /***
+     * Returns the number of tokens.
+     * @return number of tokens occurred during indexing
+     */
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    /***
+     * Checks whether two snapshots hold the same statistics.
+     * @param o other object
+     * @return True, if the statistics are the same. False, otherwise.
+     */
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof IndexStatistics)) {
+            return false;
+        }
+        final var other = (IndexStatistics)o;
+        return documentCount == other.documentCount && termCount == other.termCount && tokenCount == other.tokenCount;
+    }
+
+    /***
+     * Returns the hash code of the statistics.
+     * @return hash code
+     */
+    @Override
+    public int hashCode() {
+        return 31 * (31 * documentCount + termCount) + tokenCount;
+    }
+}
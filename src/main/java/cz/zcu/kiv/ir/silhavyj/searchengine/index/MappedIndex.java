@@ -0,0 +1,549 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingsCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.MappedPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.RoaringDocIdSet;
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.IPreprocessor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a read-only inverted index opened straight from
+ * a file created by Index.save (see IndexFormat). The file is memory-mapped,
+ * so the term dictionary, the posting lists, the file paths, the stored fields,
+ * the norms of the documents, and the bounds of the terms stay in the page cache
+ * (shared by all processes that have the file open) and are never deserialized
+ * into Java objects.
+ * Opening the index only reads its header.
+ */
+public class MappedIndex implements IIndex {
+
+    /*** Empty posting list returned for unknown terms */
+    private static final IPostingList EMPTY_POSTINGS = new PostingList(1);
+
+    /*** Instance of a preprocessor */
+    private final IPreprocessor preprocessor;
+
+    /*** Path to the file the index is mapped from */
+    private Path filePath;
+
+    /*** Content of the file */
+    private ByteBuffer buffer;
+
+    /*** Codec the posting lists have been compressed with */
+    private IPostingsCodec codec;
+
+    /*** The greatest index of a document that has been indexed */
+    private int maxDocumentIndex;
+
+    /*** Position of the offsets of the file paths of documents */
+    private int documentsPosition;
+
+    /*** Position of the norms of documents */
+    private int normsPosition;
+
+    /*** Number of terms in the term dictionary */
+    private int numberOfTerms;
+
+    /*** Position of the offsets of the terms */
+    private int termsPosition;
+
+    /*** Position of the upper bounds of the terms' contributions */
+    private int impactsPosition;
+
+    /*** Position of the offsets of the posting lists */
+    private int postingsPosition;
+
+    /*** Position of the stored fields section */
+    private int storedFieldsPosition;
+
+    /*** Set of all documents (created lazily) */
+    private RoaringDocIdSet allDocuments;
+
+    /*** Number of documents that have been indexed */
+    private int documentCount;
+
+    /*** Number of terms occurred during indexing */
+    private int termCount;
+
+    /*** Number of tokens occurred during indexing */
+    private int tokenCount;
+
+    /***
+     * Creates an instance of the class.
+     * @param preprocessor instance of a word preprocessor (the one the index has been created with)
+     * @param filePath path to the file the index has been stored in
+     * @throws IOException if the file could not be mapped or if it's not a valid index file
+     */
+    public MappedIndex(final IPreprocessor preprocessor, final String filePath) throws IOException {
+        this.preprocessor = preprocessor;
+        load(filePath);
+    }
+
+    /***
+     * Maps an index file into the memory. The index then reflects its content.
+     * @param filePath path to the file
+     * @throws IOException if the file could not be mapped or if it's not a valid index file
+     */
+    @Override
+    public void load(final String filePath) throws IOException {
+        final Path path = Paths.get(filePath);
+        final ByteBuffer content;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The index file is too large to be mapped");
+            }
+            // The mapping stays valid after the channel is closed.
+            content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        try {
+            // Read the header.
+            IndexFormat.checkHeader(content.getInt(0), content.getInt(Integer.BYTES));
+            int position = 2 * Integer.BYTES;
+            final String codecName = readString(content, position);
+            final IPostingsCodec fileCodec = IndexFormat.getCodec(codecName);
+            position += Integer.BYTES + content.getInt(position);
+
+            final int documents = content.getInt(position);
+            final int terms = content.getInt(position + Integer.BYTES);
+            final int tokens = content.getInt(position + 2 * Integer.BYTES);
+            maxDocumentIndex = content.getInt(position + 3 * Integer.BYTES);
+            position += 4 * Integer.BYTES;
+
+            // Find the sections.
+            documentsPosition = toPosition(content.getLong(position)) + Integer.BYTES;
+            normsPosition = toPosition(content.getLong(position + Long.BYTES));
+            final int dictionaryPosition = toPosition(content.getLong(position + 2 * Long.BYTES));
+            numberOfTerms = content.getInt(dictionaryPosition);
+            termsPosition = dictionaryPosition + Integer.BYTES;
+            postingsPosition = termsPosition + numberOfTerms * Long.BYTES;
+            final int maxImpactsPosition = toPosition(content.getLong(position + 3 * Long.BYTES));
+            final int fieldsPosition = toPosition(content.getLong(position + 5 * Long.BYTES));
+
+            this.filePath = path;
+            buffer = content;
+            codec = fileCodec;
+            impactsPosition = maxImpactsPosition;
+            storedFieldsPosition = fieldsPosition;
+            allDocuments = null;
+            documentCount = documents;
+            termCount = terms;
+            tokenCount = tokens;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("The index file is corrupted: " + e.getMessage());
+        }
+    }
+
+    /***
+     * Converts an offset stored in the file into a position within the buffer.
+     * @param offset offset read from the file
+     * @return position within the buffer
+     */
+    private static int toPosition(long offset) {
+        if (offset < 0 || offset > Integer.MAX_VALUE) {
+            throw new IndexOutOfBoundsException("Invalid offset " + offset);
+        }
+        return (int)offset;
+    }
+
+    /***
+     * Reads a string stored at a given position of a buffer.
+     * @param content buffer the string is read from
+     * @param position position of the string (its length followed by its UTF-8 representation)
+     * @return string read from the buffer
+     */
+    private static String readString(final ByteBuffer content, int position) {
+        final byte[] bytes = new byte[content.getInt(position)];
+        final ByteBuffer view = content.duplicate();
+        view.position(position + Integer.BYTES);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /***
+     * Finds a term in the term dictionary. The terms are sorted by their UTF-8
+     * representation, so they're binary-searched byte by byte without being decoded.
+     * @param term given term
+     * @return position of the term within the dictionary or -1 if the term has not been indexed
+     */
+    private int findTerm(final String term) {
+        final byte[] key = term.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = numberOfTerms - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int comparison = compareTerm(toPosition(buffer.getLong(termsPosition + middle * Long.BYTES)), key);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /***
+     * Compares a term stored in the buffer with a given key (unsigned, byte by byte).
+     * @param position position of the term within the buffer
+     * @param key UTF-8 representation of the key
+     * @return negative number, zero, or positive number if the term is less than, equal to, or greater than the key
+     */
+    private int compareTerm(int position, final byte[] key) {
+        final int length = buffer.getInt(position);
+        final int start = position + Integer.BYTES;
+        final int common = Math.min(length, key.length);
+        for (int i = 0; i < common; i++) {
+            final int comparison = Byte.toUnsignedInt(buffer.get(start + i)) - Byte.toUnsignedInt(key[i]);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return length - key.length;
+    }
+
+    /***
+     * Returns the offset of the file path of a document.
+     * @param documentIndex index of a document
+     * @return offset of the file path or NO_OFFSET if the document has not been indexed
+     */
+    private long getFilePathOffset(int documentIndex) {
+        if (documentIndex < 0 || documentIndex > maxDocumentIndex) {
+            return IndexFormat.NO_OFFSET;
+        }
+        return buffer.getLong(documentsPosition + documentIndex * Long.BYTES);
+    }
+
+    /***
+     * Returns the frequency of a term in a document.
+     * @param term given term
+     * @param documentIndex index of a document
+     * @return number of occurrences of the term in the document
+     */
+    private int getFrequency(final String term, int documentIndex) {
+        final IPostingCursor cursor = getPostings(term).cursor();
+        return cursor.advance(documentIndex) == documentIndex ? cursor.freq() : 0;
+    }
+
+    /***
+     * The index is read-only, so no document can be added.
+     * @param term term that has been found in a document
+     * @param documentIndex index of the document where the term's been found
+     * @param filePath path to the document
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addDocument(final String term, int documentIndex, final String filePath) {
+        throw new UnsupportedOperationException("The index is read-only");
+    }
+
+    /***
+     * Returns a linked list of all documents.
+     * @return head of a linked list of all documents.
+     */
+    @Override
+    public Document getAllDocumentIndexes() {
+        return PostingList.toDocument(getAllPostings());
+    }
+
+    /***
+     * Returns a bitmap of all documents that have been indexed.
+     * The bitmap is created from the file paths of the documents when it's first needed.
+     * @return bitmap of all documents
+     */
+    @Override
+    public IPostingList getAllPostings() {
+        if (allDocuments == null) {
+            final var documents = new RoaringDocIdSet();
+            for (int i = 0; i <= maxDocumentIndex; i++) {
+                if (getFilePathOffset(i) != IndexFormat.NO_OFFSET) {
+                    documents.add(i);
+                }
+            }
+            documents.optimize();
+            allDocuments = documents;
+        }
+        return allDocuments;
+    }
+
+    /***
+     * Returns a filepath of a given document
+     * @param documentIndex index of a document
+     * @return filepath of a give document
+     * @throws IllegalArgumentException if the document has not been indexed
+     */
+    @Override
+    public String getFilePath(int documentIndex) throws IllegalArgumentException {
+        final long offset = getFilePathOffset(documentIndex);
+        if (offset == IndexFormat.NO_OFFSET) {
+            throw new IllegalArgumentException("Document has not been indexed yet");
+        }
+        return readString(buffer, toPosition(offset));
+    }
+
+    /***
+     * Returns a linked list (row in the index) of a given term
+     * @param term given term
+     * @return linked list (row in the index) of a given term
+     */
+    @Override
+    public Document getDocuments(final String term) {
+        final var postings = getPostings(term);
+        if (postings.size() > 0) {
+            return PostingList.toDocument(postings);
+        }
+        // Return an empty linked list of documents.
+        return new Document();
+    }
+
+    /***
+     * Returns a posting list (row in the index) of a given term.
+     * The list is decoded straight from the mapped file as it's being iterated.
+     * @param term given term
+     * @return posting list of the term (empty if the term has not been indexed)
+     */
+    @Override
+    public IPostingList getPostings(final String term) {
+        final int i = findTerm(term);
+        if (i < 0) {
+            return EMPTY_POSTINGS;
+        }
+        final int position = toPosition(buffer.getLong(postingsPosition + i * Long.BYTES));
+        return new MappedPostingList(buffer, position, codec);
+    }
+
+    /***
+     * Returns documents containing a given term in a form suited for boolean operations.
+     * @param term given term
+     * @return documents containing the term (empty if the term has not been indexed)
+     */
+    @Override
+    public IPostingList getMatchingDocuments(final String term) {
+        return getPostings(term);
+    }
+
+    /***
+     * The index is read-only, so no document can be added.
+     * @param text content of a document to be indexed
+     * @param filePath filepath of the document
+     * @return always false
+     */
+    @Override
+    public boolean index(final String text, final String filePath) {
+        return false;
+    }
+
+    /***
+     * The index is read-only, so no document can be added.
+     * @param terms preprocessed terms of the document
+     * @param filePath filepath of the document
+     * @return always false
+     */
+    @Override
+    public boolean index(final List<String> terms, final String filePath) {
+        return false;
+    }
+
+    /***
+     * The index is read-only, so no document can be added.
+     * @param text content of a document to be indexed
+     * @param filePath filepath of the document
+     * @param storedFields fields of the document to be stored
+     * @return always false
+     */
+    @Override
+    public boolean index(final String text, final String filePath, final Map<String, String> storedFields) {
+        return false;
+    }
+
+    /***
+     * The index is read-only, so no document can be added.
+     * @param terms preprocessed terms of the document
+     * @param filePath filepath of the document
+     * @param storedFields fields of the document to be stored
+     * @return always false
+     */
+    @Override
+    public boolean index(final List<String> terms, final String filePath, final Map<String, String> storedFields) {
+        return false;
+    }
+
+    /***
+     * Returns the stored fields of a document. The block holding the document
+     * is decompressed straight from the mapped file.
+     * @param documentIndex index of a document
+     * @return fields of the document (key = name of a field) or null if they have not been stored
+     */
+    @Override
+    public Map<String, String> getStoredFields(int documentIndex) {
+        if (documentIndex < 0 || documentIndex > maxDocumentIndex) {
+            return null;
+        }
+        try {
+            // Find the block of the document in the offset table.
+            final int numberOfBlocks = buffer.getInt(storedFieldsPosition);
+            final int blocksPosition = storedFieldsPosition + Integer.BYTES;
+            final int block = buffer.getInt(blocksPosition + numberOfBlocks * Long.BYTES + documentIndex * Integer.BYTES);
+            if (block == DocumentStore.NO_BLOCK) {
+                return null;
+            }
+            final int position = toPosition(buffer.getLong(blocksPosition + block * Long.BYTES));
+            final ByteBuffer view = buffer.duplicate();
+            view.position(position).limit(position + DocumentStore.getBlockSize(buffer, position));
+            return DocumentStore.readDocument(view, documentIndex);
+        } catch (IOException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /***
+     * Stores the index into a file. The mapped file is already
+     * in the right format, so it's only copied.
+     * @param filePath path to the file
+     * @throws IOException if the index could not be written
+     */
+    @Override
+    public void save(final String filePath) throws IOException {
+        final Path target = Paths.get(filePath);
+        if (!Files.exists(target) || !Files.isSameFile(this.filePath, target)) {
+            Files.copy(this.filePath, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /***
+     * Returns the index itself as it's read-only. Reopening the index
+     * using load(String) is not supposed to run concurrently with searches.
+     * @return this index
+     */
+    @Override
+    public IIndex snapshot() {
+        return this;
+    }
+
+    /***
+     * The index is read-only, so there is nothing to be published.
+     */
+    @Override
+    public void refresh() {
+    }
+
+    /***
+     * Returns the instance of a preprocessor used within the index.
+     * @return preprocessor of the index
+     */
+    @Override
+    public final IPreprocessor getPreprocessor() {
+        return preprocessor;
+    }
+
+    /***
+     * Return the total number of documents.
+     * @return number of documents that have been indexed
+     */
+    @Override
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /***
+     * Return the total number of terms.
+     * @return number of terms that were encountered during indexing
+     */
+    @Override
+    public int getTermCount() {
+        return termCount;
+    }
+
+    /***
+     * Returns number of tokens occurred during indexing.
+     * @return total number of tokens
+     */
+    @Override
+    public int getTokenCount() {
+        return tokenCount;
+    }
+
+    /***
+     * Returns the inverse document frequency of a given term.
+     * @param term given term
+     * @return IDF of the term (0 if the term has not been indexed)
+     */
+    @Override
+    public double getIDF(final String term) {
+        return SegmentedIndex.calculateIDF(getDocumentCount(), getPostings(term).size());
+    }
+
+    /***
+     * Returns the norm of a document's vector stored in the file.
+     * @param documentIndex index of a document
+     * @param model ranking model the vector is weighted by
+     * @return norm of the document
+     * @throws IllegalArgumentException if the document has not been indexed
+     */
+    @Override
+    public double getDocumentNorm(int documentIndex, final RankingModel model) throws IllegalArgumentException {
+        if (documentIndex < 0 || documentIndex > maxDocumentIndex) {
+            throw new IllegalArgumentException("Document has not been indexed yet");
+        }
+        final int i = model == RankingModel.TF_IDF ? maxDocumentIndex + 1 + documentIndex : documentIndex;
+        return buffer.getDouble(normsPosition + i * Double.BYTES);
+    }
+
+    /***
+     * Returns the greatest contribution of a term to the score of a document
+     * (before it's normalized by the norm of the query) stored in the file.
+     * @param term given term
+     * @param model ranking model the documents are ranked by
+     * @return upper bound of the term's contribution (0 if the term has not been indexed)
+     */
+    @Override
+    public double getMaxImpact(final String term, final RankingModel model) {
+        final int i = findTerm(term);
+        if (i < 0) {
+            return 0;
+        }
+        final int j = model == RankingModel.TF_IDF ? 2 * i + 1 : 2 * i;
+        return buffer.getDouble(impactsPosition + j * Double.BYTES);
+    }
+
+    /***
+     * Calculates TF-IDF for a given document and a unique set of words (query).
+     * The frequencies of the terms are looked up in the mapped posting lists.
+     * @param index index of a document
+     * @param relevantTerms relevant words of a query
+     * @return value of TF-IDF
+     */
+    @Override
+    public double calculateTF_IDF(int index, final Set<String> relevantTerms) {
+        return SegmentedIndex.calculateTF_IDF(this, index, relevantTerms, term -> getFrequency(term, index));
+    }
+
+    /***
+     * Calculates cosine similarity for a given document and relevant words of a query.
+     * The frequencies of the terms are looked up in the mapped posting lists.
+     * @param index index of a document
+     * @param relevantTerms relevant words of a query
+     * @return cosine similarity
+     */
+    @Override
+    public double calculateCosineSimilarity(int index, final Set<String> relevantTerms) {
+        return SegmentedIndex.calculateCosineSimilarity(this, index, relevantTerms, term -> getFrequency(term, index));
+    }
+}
@@ -0,0 +1,196 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor.NO_MORE_DOCS;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class evaluates a disjunction of terms (a | b | c ...) and returns
+ * the k best-ranked documents using the MaxScore algorithm. Each term has
+ * an upper bound of its contribution to the score of a document (stored in the index).
+ * The terms are sorted by their bounds, and once the sum of the bounds of the weakest
+ * terms cannot beat the k-th best score found so far, these terms become
+ * non-essential. Documents which contain only non-essential terms are skipped,
+ * and the posting lists of non-essential terms are only advanced to the candidates.
+ */
+public class MaxScoreEvaluator {
+
+    /*** Relative tolerance the bounds are inflated by to make up for rounding errors */
+    private static final double BOUND_TOLERANCE = 1e-6;
+
+    /*** Index the documents are ranked within */
+    private final IIndex index;
+
+    /***
+     * Creates an instance of the class.
+     * @param index index the documents are ranked within
+     */
+    public MaxScoreEvaluator(final IIndex index) {
+        this.index = index;
+    }
+
+    /***
+     * Returns the k best-ranked documents containing at least one of the given terms.
+     * The scores are the same as if the disjunction was evaluated as a boolean
+     * query and ranked by ScoreAccumulator.
+     * @param terms terms of the disjunction
+     * @param relevantTerms relevant words of the query (those that contribute to the score)
+     * @param model ranking model to be used
+     * @param k maximum number of documents to be returned
+     * @return k best-ranked documents together with the number of documents that have been
+     *         looked at (a lower bound of the total number of hits if some have been skipped)
+     */
+    public TopHits search(final Set<String> terms, final Set<String> relevantTerms, final RankingModel model, int k) {
+        // Calculate the norm of the query.
+        double queryNorm = 0;
+        for (final var term : relevantTerms) {
+            final double termWeight = getTermWeight(term, model);
+            queryNorm += termWeight * termWeight;
+        }
+        queryNorm = Math.sqrt(queryNorm);
+
+        // Create a scorer for each term that occurs in the index.
+        final List<TermScorer> scorers = new ArrayList<>();
+        for (final var term : new LinkedHashSet<>(terms)) {
+            final var postings = index.getPostings(term);
+            if (postings.size() == 0) {
+                continue;
+            }
+            double factor = 0;
+            double maxImpact = 0;
+            if (relevantTerms.contains(term) && queryNorm != 0) {
+                final double termWeight = getTermWeight(term, model);
+                factor = termWeight * termWeight / queryNorm;
+                maxImpact = index.getMaxImpact(term, model) / queryNorm;
+            }
+            scorers.add(new TermScorer(postings.cursor(), factor, maxImpact));
+        }
+
+        // Sort the terms by their bounds (the weakest one goes first) and calculate
+        // the upper bound of the score of a document that contains only the first i terms.
+        scorers.sort(Comparator.comparingDouble(scorer -> scorer.maxImpact));
+        final int count = scorers.size();
+        final double[] upperBounds = new double[count];
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += scorers.get(i).maxImpact;
+            upperBounds[i] = sum * (1 + BOUND_TOLERANCE);
+            scorers.get(i).cursor.nextDoc();
+        }
+
+        final var collector = new TopKCollector(k);
+        float threshold = collector.getMinCompetitiveScore();
+        int firstEssential = 0;
+        boolean skipped = false;
+        int steps = 0;
+
+        while (firstEssential < count) {
+            SearchCancellation.checkpoint(++steps);
+
+            // Find the next candidate (the smallest document of the essential terms).
+            int document = NO_MORE_DOCS;
+            for (int i = firstEssential; i < count; i++) {
+                document = Math.min(document, scorers.get(i).cursor.docId());
+            }
+            if (document == NO_MORE_DOCS) {
+                break;
+            }
+            final double documentNorm = index.getDocumentNorm(document, model);
+
+            // Score the candidate using the essential terms.
+            double score = 0;
+            for (int i = firstEssential; i < count; i++) {
+                final var scorer = scorers.get(i);
+                if (scorer.cursor.docId() == document) {
+                    score += scorer.score(documentNorm, model);
+                    scorer.cursor.nextDoc();
+                }
+            }
+
+            // Add the non-essential terms (the strongest one first) unless
+            // the document cannot make it into the best-ranked ones anymore.
+            for (int i = firstEssential - 1; i >= 0; i--) {
+                if (score + upperBounds[i] <= threshold) {
+                    skipped = true;
+                    break;
+                }
+                final var scorer = scorers.get(i);
+                if (scorer.cursor.docId() < document) {
+                    scorer.cursor.advance(document);
+                }
+                if (scorer.cursor.docId() == document) {
+                    score += scorer.score(documentNorm, model);
+                }
+            }
+            collector.collect(document, (float)score);
+
+            // Update the threshold and move the terms which cannot
+            // make a document competitive on their own to the non-essential ones.
+            threshold = collector.getMinCompetitiveScore();
+            while (firstEssential < count && upperBounds[firstEssential] <= threshold) {
+                firstEssential++;
+                skipped = true;
+            }
+        }
+        return collector.getTopHits(!skipped);
+    }
+
+    /***
+     * Returns the weight of a term in the query.
+     * @param term given term
+     * @param model ranking model to be used
+     * @return weight of the term
+     */
+    private double getTermWeight(final String term, final RankingModel model) {
+        // Each term of the query occurs exactly once (1 + log(1) = 1).
+        return model == RankingModel.TF_IDF ? index.getIDF(term) : 1;
+    }
+
+    /***
+     * State of one term of the disjunction.
+     */
+    private static class TermScorer {
+
+        /*** Cursor over the posting list of the term */
+        private final IPostingCursor cursor;
+
+        /*** Factor the weight of the term in a document is multiplied by */
+        private final double factor;
+
+        /*** Upper bound of the term's contribution to the score of a document */
+        private final double maxImpact;
+
+        /***
+         * Creates an instance of the class.
+         * @param cursor cursor over the posting list of the term
+         * @param factor factor the weight of the term in a document is multiplied by
+         * @param maxImpact upper bound of the term's contribution to the score
+         */
+        TermScorer(final IPostingCursor cursor, double factor, double maxImpact) {
+            this.cursor = cursor;
+            this.factor = factor;
+            this.maxImpact = maxImpact;
+        }
+
+        /***
+         * Returns the contribution of the term to the score of the current document.
+         * @param documentNorm norm of the current document
+         * @param model ranking model to be used
+         * @return contribution of the term
+         */
+        double score(double documentNorm, final RankingModel model) {
+            if (factor == 0 || documentNorm == 0) {
+                return 0;
+            }
+            return model.weight(cursor.freq()) * factor / documentNorm;
+        }
+    }
+}
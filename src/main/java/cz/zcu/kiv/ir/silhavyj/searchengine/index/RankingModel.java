@@ -0,0 +1,26 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This enumeration represents different models
+ * the results of a query can be ranked by.
+ */
+public enum RankingModel {
+
+    TF_IDF,            // weights (1 + log(tf)) * idf
+    COSINE_SIMILARITY; // weights tf
+
+    /***
+     * Returns the weight of a term within a document
+     * (without the IDF component).
+     * @param frequency frequency of the term in the document
+     * @return weight of the term
+     */
+    public double weight(int frequency) {
+        if (this == TF_IDF) {
+            return 1 + Math.log10(frequency);
+        }
+        return frequency;
+    }
+}
@@ -0,0 +1,142 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.ISegment;
+
+import java.util.List;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class holds everything the ranking models need to know about the documents
+ * of an index - the norms of the documents and the greatest contribution of each term
+ * to the score of a document (used to skip documents, see MaxScoreEvaluator).
+ * Both depend on the IDF of the terms, i.e. on all documents of the index, so they're
+ * calculated together, in two passes over all posting lists, whenever the documents
+ * change. The instance is immutable, so it can be shared by the snapshots of an index.
+ */
+final class RankingStatistics {
+
+    /*** Norms of the documents' term frequency vectors (index = document index) */
+    private final double[] cosineNorms;
+
+    /*** Norms of the documents' TF-IDF vectors (index = document index) */
+    private final double[] tfIdfNorms;
+
+    /*** Upper bounds of the terms' contributions to the cosine similarity (index = term id) */
+    private final double[] cosineImpacts;
+
+    /*** Upper bounds of the terms' contributions to TF-IDF (index = term id) */
+    private final double[] tfIdfImpacts;
+
+    /***
+     * Creates an instance of the class.
+     * @param cosineNorms norms of the documents' term frequency vectors (index = document index)
+     * @param tfIdfNorms norms of the documents' TF-IDF vectors (index = document index)
+     * @param cosineImpacts upper bounds of the terms' contributions to the cosine similarity (index = term id)
+     * @param tfIdfImpacts upper bounds of the terms' contributions to TF-IDF (index = term id)
+     */
+    RankingStatistics(final double[] cosineNorms, final double[] tfIdfNorms, final double[] cosineImpacts, final double[] tfIdfImpacts) {
+        this.cosineNorms = cosineNorms;
+        this.tfIdfNorms = tfIdfNorms;
+        this.cosineImpacts = cosineImpacts;
+        this.tfIdfImpacts = tfIdfImpacts;
+    }
+
+    /***
+     * Returns the norm of a document's vector.
+     * @param documentIndex index of a document (at most the greatest document index of the index)
+     * @param model ranking model the vector is weighted by
+     * @return norm of the document
+     */
+    double getDocumentNorm(int documentIndex, final RankingModel model) {
+        return model == RankingModel.TF_IDF ? tfIdfNorms[documentIndex] : cosineNorms[documentIndex];
+    }
+
+    /***
+     * Returns the greatest contribution of a term to the score of a document
+     * (before it's normalized by the norm of the query).
+     * @param termId id of a term
+     * @param model ranking model the documents are ranked by
+     * @return upper bound of the term's contribution (0 if the term does not occur in any document)
+     */
+    double getMaxImpact(int termId, final RankingModel model) {
+        final double[] impacts = model == RankingModel.TF_IDF ? tfIdfImpacts : cosineImpacts;
+        if (termId < 0 || termId >= impacts.length) {
+            return 0;
+        }
+        return impacts[termId];
+    }
+
+    /***
+     * Calculates the statistics of the documents stored in given segments.
+     * @param segments segments holding the documents (all segments of the index)
+     * @param documentCount number of documents stored in the segments
+     * @param maxDocumentIndex the greatest index of a document stored in the segments
+     * @return statistics of the documents
+     */
+    static RankingStatistics calculate(final List<? extends ISegment> segments, int documentCount, int maxDocumentIndex) {
+        final double[] cosineNorms = new double[maxDocumentIndex + 1];
+        final double[] tfIdfNorms = new double[maxDocumentIndex + 1];
+
+        // Calculate the IDFs of all terms by their ids (the document
+        // frequency of a term is the sum over all segments).
+        int termIdCount = 0;
+        for (final var segment : segments) {
+            final int[] termIds = segment.getTermIds();
+            if (termIds.length > 0) {
+                termIdCount = Math.max(termIdCount, termIds[termIds.length - 1] + 1);
+            }
+        }
+        final int[] documentFrequencies = new int[termIdCount];
+        for (final var segment : segments) {
+            for (final int termId : segment.getTermIds()) {
+                documentFrequencies[termId] += segment.getPostings(termId).size();
+            }
+        }
+        final double[] IDFs = new double[termIdCount];
+        for (int termId = 0; termId < termIdCount; termId++) {
+            IDFs[termId] = SegmentedIndex.calculateIDF(documentCount, documentFrequencies[termId]);
+        }
+
+        // Go over the segments term by term and accumulate
+        // the squared weights of the terms into the documents' norms.
+        for (final var segment : segments) {
+            for (final int termId : segment.getTermIds()) {
+                final double IDF = IDFs[termId];
+                final IPostingCursor cursor = segment.getPostings(termId).cursor();
+                while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+                    final int frequency = cursor.freq();
+                    final double weight = RankingModel.TF_IDF.weight(frequency) * IDF;
+                    cosineNorms[cursor.docId()] += (double)frequency * frequency;
+                    tfIdfNorms[cursor.docId()] += weight * weight;
+                }
+            }
+        }
+        for (int i = 0; i <= maxDocumentIndex; i++) {
+            cosineNorms[i] = Math.sqrt(cosineNorms[i]);
+            tfIdfNorms[i] = Math.sqrt(tfIdfNorms[i]);
+        }
+
+        // Now that the norms are known, go over the segments once more
+        // and find the greatest normalized weight of each term.
+        final double[] cosineImpacts = new double[termIdCount];
+        final double[] tfIdfImpacts = new double[termIdCount];
+        for (final var segment : segments) {
+            for (final int termId : segment.getTermIds()) {
+                final double IDF = IDFs[termId];
+                final IPostingCursor cursor = segment.getPostings(termId).cursor();
+                while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+                    final int frequency = cursor.freq();
+                    if (cosineNorms[cursor.docId()] != 0) {
+                        cosineImpacts[termId] = Math.max(cosineImpacts[termId], RankingModel.COSINE_SIMILARITY.weight(frequency) / cosineNorms[cursor.docId()]);
+                    }
+                    if (tfIdfNorms[cursor.docId()] != 0) {
+                        tfIdfImpacts[termId] = Math.max(tfIdfImpacts[termId], RankingModel.TF_IDF.weight(frequency) * IDF * IDF / tfIdfNorms[cursor.docId()]);
+                    }
+                }
+            }
+        }
+        return new RankingStatistics(cosineNorms, tfIdfNorms, cosineImpacts, tfIdfImpacts);
+    }
+}
@@ -0,0 +1,108 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+
+import java.util.BitSet;
+import java.util.Set;
+
+import static cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor.NO_MORE_DOCS;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class ranks the results of a query term at a time.
+ * The posting list of each term of the query is walked through
+ * only once, and the contribution of the term is added into an array
+ * of scores indexed by document indexes. Only documents that match
+ * the query (boolean filter) are taken into account. Ranking can be cancelled
+ * by interrupting the thread it runs on (see SearchCancellation).
+ */
+public class ScoreAccumulator {
+
+    /*** Index the documents are ranked within */
+    private final IIndex index;
+
+    /***
+     * Creates an instance of the class.
+     * @param index index the documents are ranked within
+     */
+    public ScoreAccumulator(final IIndex index) {
+        this.index = index;
+    }
+
+    /***
+     * Calculates the scores of all documents matching a query.
+     * @param relevantTerms relevant words of the query
+     * @param filter documents matching the query (result of the boolean evaluation)
+     * @param model ranking model to be used
+     * @return array of scores indexed by document indexes (documents outside the filter have a score of 0)
+     */
+    public float[] score(final Set<String> relevantTerms, final IPostingList filter, final RankingModel model) {
+        // Create a mask out of the matching documents.
+        final BitSet mask = new BitSet();
+        int lastDocument = -1;
+        final IPostingCursor filterCursor = filter.cursor();
+        int steps = 0;
+        while (filterCursor.nextDoc() != NO_MORE_DOCS) {
+            SearchCancellation.checkpoint(++steps);
+            lastDocument = filterCursor.docId();
+            mask.set(lastDocument);
+        }
+        final float[] scores = new float[lastDocument + 1];
+        if (lastDocument < 0) {
+            return scores;
+        }
+
+        double queryNorm = 0;
+        for (final var term : relevantTerms) {
+            // Each term of the query occurs exactly once (1 + log(1) = 1), so the weight
+            // of the term in the query equals its IDF which scales its weight in the documents too.
+            final double termWeight = model == RankingModel.TF_IDF ? index.getIDF(term) : 1;
+            queryNorm += termWeight * termWeight;
+            if (termWeight == 0) {
+                continue;
+            }
+
+            // Walk through the posting list and add the contribution
+            // of the term into the scores of the matching documents.
+            final IPostingCursor cursor = index.getPostings(term).cursor();
+            int document;
+            while ((document = cursor.nextDoc()) <= lastDocument) {
+                SearchCancellation.checkpoint(++steps);
+                if (mask.get(document)) {
+                    scores[document] += model.weight(cursor.freq()) * termWeight * termWeight;
+                }
+            }
+        }
+        queryNorm = Math.sqrt(queryNorm);
+
+        // Normalize the scores by the norms of the documents and the query.
+        for (int document = mask.nextSetBit(0); document >= 0; document = mask.nextSetBit(document + 1)) {
+            final double norm = index.getDocumentNorm(document, model) * queryNorm;
+            scores[document] = norm == 0 ? 0 : (float)(scores[document] / norm);
+        }
+        return scores;
+    }
+
+    /***
+     * Calculates the scores of all documents matching a query
+     * and returns only the k best-ranked ones.
+     * @param relevantTerms relevant words of the query
+     * @param filter documents matching the query (result of the boolean evaluation)
+     * @param model ranking model to be used
+     * @param k maximum number of documents to be returned
+     * @return k best-ranked documents together with the total number of matching documents
+     */
+    public TopHits getTopHits(final Set<String> relevantTerms, final IPostingList filter, final RankingModel model, int k) {
+        final float[] scores = score(relevantTerms, filter, model);
+        final var collector = new TopKCollector(k);
+        final IPostingCursor cursor = filter.cursor();
+        int steps = 0;
+        while (cursor.nextDoc() != NO_MORE_DOCS) {
+            SearchCancellation.checkpoint(++steps);
+            collector.collect(cursor.docId(), scores[cursor.docId()]);
+        }
+        return collector.getTopHits();
+    }
+}
@@ -0,0 +1,36 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import java.util.concurrent.CancellationException;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class provides cooperative cancellation of searches. A search is cancelled
+ * by interrupting the thread it runs on (see SearchService). The loops walking through
+ * posting lists report every step they take, but the interrupt flag of the thread
+ * is only looked at once every CHECK_INTERVAL steps, so the checks cost next to nothing.
+ */
+public final class SearchCancellation {
+
+    /*** Number of steps between two checks of the interrupt flag (power of two) */
+    public static final int CHECK_INTERVAL = 1 << 12;
+
+    /***
+     * Creates an instance of the class.
+     * The class only provides static methods.
+     */
+    private SearchCancellation() {
+    }
+
+    /***
+     * Checks whether the search running on the current thread has been cancelled.
+     * The interrupt flag is left as it is, so the caller can still see it.
+     * @param step number of steps the loop has taken so far
+     * @throws CancellationException if the current thread's been interrupted
+     */
+    public static void checkpoint(int step) throws CancellationException {
+        if ((step & (CHECK_INTERVAL - 1)) == 0 && Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("The search has been cancelled");
+        }
+    }
+}
@@ -1,163 +1,209 @@
 package cz.zcu.kiv.ir.silhavyj.searchengine.index;
 
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.RoaringDocIdSet;
+
+import static cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor.NO_MORE_DOCS;
+
 /***
  * @author Jakub Silhavy
  *
  * This class is a utility class that provides function for
- * performing AND, OR, and NOT operations on two lists of Documents.
- * Each of the two operands represents one record (lineked list)
- * in an inverted index.
+ * performing AND, OR, and NOT operations on two posting lists.
+ * Each of the two operands represents one record (posting list)
+ * in an inverted index or a result of a previous operation.
+ * If the operands are bitmaps (RoaringDocIdSet), the operations
+ * are performed as bitwise operations. The operations can be cancelled
+ * by interrupting the thread they run on (see SearchCancellation).
  */
 public class SearchOperations {
 
     /***
-     * Calculates NOT operation of a given chained list of Documents.
+     * Calculates NOT operation of a given posting list.
      * Essentially, the NOT operator represents a complement within the
-     * set of all documents. The input linked lists are assumed to be sorted
+     * set of all documents. The input lists are assumed to be sorted
      * prior to calling this method.
-     * @param docs linked list of document (input operand, e.g !cat)
-     * @param allDocs linked list of all documents that have been indexed.
+     * @param docs posting list (input operand, e.g !cat)
+     * @param allDocs posting list of all documents that have been indexed.
      * @return Out of all documents in the index, it will return those which
      *         not appear in the original one (complement).
      */
-    public static Document not(Document docs, Document allDocs) {
-        Document previousDoc = null;
-        Document currentDoc = allDocs;
-
-        // Go through all documents that have been indexed and
-        // remove those which in 'docs'.
-        while (currentDoc != null && docs != null) {
-            if (currentDoc.getIndex() < docs.getIndex()) {
-                previousDoc = currentDoc;
-                currentDoc = currentDoc.getNext();
-            } else if (currentDoc.getIndex() > docs.getIndex()) {
-                docs = docs.getNext();
-            } else {
-                if (previousDoc != null) {
-                    previousDoc.setNext(currentDoc.getNext());
-                    currentDoc = currentDoc.getNext();
-                } else {
-                    allDocs = allDocs.getNext();
-                    currentDoc = allDocs;
-                }
-            }
-        }
-        return allDocs;
+    public static IPostingList not(final IPostingList docs, final IPostingList allDocs) {
+        return andNot(allDocs, docs);
     }
 
     /***
-     * Calculates AND operation between dow linked lists of Documents.
-     * The input linked lists are assumed to be sorted prior to calling this method.
-     * @param docs1 fist sorted list of Documents
-     * @param docs2 second sorted list of Documents
-     * @return intersection of the two lists of Documents
+     * Calculates AND NOT operation between two posting lists (docs1 & !docs2).
+     * Unlike a combination of NOT and AND, the complement of the second operand
+     * is never materialized. The input lists are assumed to be sorted
+     * prior to calling this method.
+     * @param docs1 posting list the documents are taken from
+     * @param docs2 posting list of documents to be excluded
+     * @return documents of the first list which do not appear in the second one
      */
-    public static Document and(Document docs1, Document docs2) {
-        // Make sure both lists are not empty.
-        if ((docs1 == null || docs2 == null) || (docs1.isUninitialized() && docs2.isUninitialized())) {
-            return null;
+    public static IPostingList andNot(final IPostingList docs1, final IPostingList docs2) {
+        if (docs1 instanceof RoaringDocIdSet && docs2 instanceof RoaringDocIdSet) {
+            return RoaringDocIdSet.andNot((RoaringDocIdSet)docs1, (RoaringDocIdSet)docs2);
         }
+        final PostingList result = new PostingList(docs1.size());
+        final IPostingCursor cursor1 = docs1.cursor();
 
-        Document result = null;
-        Document currentDoc = null;
-
-        while (docs1 != null && docs2 != null) {
-            if (docs1.getIndex() == docs2.getIndex()) {
-                if (result == null) {
-                    result = new Document(docs1.getIndex());
-                    currentDoc = result;
-                } else {
-                    currentDoc.setNext(new Document(docs1.getIndex()));
-                    currentDoc = currentDoc.getNext();
+        // Probe the bitmap directly if there is one.
+        if (docs2 instanceof RoaringDocIdSet) {
+            final RoaringDocIdSet excluded = (RoaringDocIdSet)docs2;
+            int steps = 0;
+            while (cursor1.nextDoc() != NO_MORE_DOCS) {
+                SearchCancellation.checkpoint(++steps);
+                if (!excluded.contains(cursor1.docId())) {
+                    result.add(cursor1.docId());
                 }
-                docs1 = docs1.getNext();
-                docs2 = docs2.getNext();
-            } else if (docs1.getIndex() < docs2.getIndex()) {
-                docs1 = docs1.getNext();
-            } else {
-                docs2 = docs2.getNext();
             }
+            return result;
+        }
+
+        // Go through the documents of the first list and
+        // skip those which are in the second one.
+        final IPostingCursor cursor2 = docs2.cursor();
+        int doc2 = cursor2.nextDoc();
+        int doc1 = cursor1.nextDoc();
+        int steps = 0;
+        while (doc1 != NO_MORE_DOCS) {
+            SearchCancellation.checkpoint(++steps);
+            if (doc2 < doc1) {
+                doc2 = cursor2.advance(doc1);
+            }
+            if (doc1 != doc2) {
+                result.add(doc1);
+            }
+            doc1 = cursor1.nextDoc();
         }
         return result;
     }
 
     /***
-     * Calculates OR operation between dow linked lists of Documents.
-     * The input linked lists are assumed to be sorted prior to calling this method.
-     * @param docs1 fist sorted list of Documents
-     * @param docs2 second sorted list of Documents
-     * @return union of the two lists of Documents (sorted as well)
+     * Calculates AND operation between two posting lists.
+     * The input lists are assumed to be sorted prior to calling this method.
+     * The shorter list leads the intersection, and the longer one is only
+     * advanced (skipped) to the candidate documents, so the cost depends
+     * on the length of the shorter list rather than the longer one.
+     * @param docs1 fist sorted posting list
+     * @param docs2 second sorted posting list
+     * @return intersection of the two posting lists
      */
-    public static Document or(Document docs1, Document docs2) {
-        // If both lists are null, there's nothing to calculate.
-        if (docs1 == null && docs2 == null) {
-            return null;
-        }
-
-        // If the first list is empty, then the result is the second one.
-        // If the second list is empty, then the result is the first one.
-        if (docs1 == null) {
-            return docs2;
-        }
-        if (docs2 == null) {
-            return docs1;
-        }
-        if (docs1.isUninitialized()) {
-            return docs2;
-        }
-        if (docs2.isUninitialized()) {
-            return docs1;
+    public static IPostingList and(final IPostingList docs1, final IPostingList docs2) {
+        if (docs1 instanceof RoaringDocIdSet && docs2 instanceof RoaringDocIdSet) {
+            return RoaringDocIdSet.and((RoaringDocIdSet)docs1, (RoaringDocIdSet)docs2);
         }
+        final IPostingList shorter = docs1.size() <= docs2.size() ? docs1 : docs2;
+        final IPostingList longer = shorter == docs1 ? docs2 : docs1;
+        final PostingList result = new PostingList(shorter.size());
+        final IPostingCursor lead = shorter.cursor();
 
-        // First step, so we can be sure that currentDoc
-        // is initialized.
-        Document currentDoc;
-        if (docs1.getIndex() < docs2.getIndex()) {
-            currentDoc = new Document(docs1.getIndex());
-            docs1 = docs1.getNext();
-        } else {
-            currentDoc = new Document(docs2.getIndex());
-            docs2 = docs2.getNext();
+        // Probe the bitmap directly if there is one.
+        if (longer instanceof RoaringDocIdSet) {
+            final RoaringDocIdSet set = (RoaringDocIdSet)longer;
+            int steps = 0;
+            while (lead.nextDoc() != NO_MORE_DOCS) {
+                SearchCancellation.checkpoint(++steps);
+                if (set.contains(lead.docId())) {
+                    result.add(lead.docId());
+                }
+            }
+            return result;
         }
+        final IPostingCursor other = longer.cursor();
 
-
-        // Keep on iterating until you reach the end of
-        // one of the lists.
-        Document result = currentDoc;
-        while (docs1 != null && docs2 != null) {
-            if (docs1.getIndex() < docs2.getIndex()) {
-                if (docs1.getIndex() != currentDoc.getIndex()) {
-                    currentDoc.setNext(new Document(docs1.getIndex()));
-                }
-                docs1 = docs1.getNext();
+        int doc = lead.nextDoc();
+        int steps = 0;
+        while (doc != NO_MORE_DOCS) {
+            SearchCancellation.checkpoint(++steps);
+            final int otherDoc = other.advance(doc);
+            if (otherDoc == doc) {
+                result.add(doc);
+                doc = lead.nextDoc();
             } else {
-                if (docs2.getIndex() != currentDoc.getIndex()) {
-                    currentDoc.setNext(new Document(docs2.getIndex()));
-                }
-                docs2 = docs2.getNext();
-            }
-            if (currentDoc.getNext() != null) {
-                currentDoc = currentDoc.getNext();
+                doc = lead.advance(otherDoc);
             }
         }
+        return result;
+    }
 
-        // Append what's left from list 1.
-        while (docs1 != null) {
-            if (docs1.getIndex() != currentDoc.getIndex()) {
-                currentDoc.setNext(new Document(docs1.getIndex()));
-                currentDoc = currentDoc.getNext();
-            }
-            docs1 = docs1.getNext();
+    /***
+     * Calculates OR operation between two posting lists.
+     * The input lists are assumed to be sorted prior to calling this method.
+     * @param docs1 fist sorted posting list
+     * @param docs2 second sorted posting list
+     * @return union of the two posting lists (sorted as well)
+     */
+    public static IPostingList or(final IPostingList docs1, final IPostingList docs2) {
+        // If one of the operands is a bitmap, the result is going to be
+        // large as well, so it's calculated as a bitmap.
+        if (docs1 instanceof RoaringDocIdSet || docs2 instanceof RoaringDocIdSet) {
+            return RoaringDocIdSet.or(RoaringDocIdSet.of(docs1), RoaringDocIdSet.of(docs2));
         }
+        final PostingList result = new PostingList(docs1.size() + docs2.size());
+        final IPostingCursor cursor1 = docs1.cursor();
+        final IPostingCursor cursor2 = docs2.cursor();
 
-        // Append what's left from list 2.
-        while (docs2 != null) {
-            if (docs2.getIndex() != currentDoc.getIndex()) {
-                currentDoc.setNext(new Document(docs2.getIndex()));
-                currentDoc = currentDoc.getNext();
+        int doc1 = cursor1.nextDoc();
+        int doc2 = cursor2.nextDoc();
+
+        // Keep on iterating until you reach the end of both lists.
+        // NO_MORE_DOCS is greater than any valid index, so whatever
+        // is left in one of the lists gets appended as well.
+        int steps = 0;
+        while (doc1 != NO_MORE_DOCS || doc2 != NO_MORE_DOCS) {
+            SearchCancellation.checkpoint(++steps);
+            if (doc1 < doc2) {
+                result.add(doc1);
+                doc1 = cursor1.nextDoc();
+            } else if (doc1 > doc2) {
+                result.add(doc2);
+                doc2 = cursor2.nextDoc();
+            } else {
+                result.add(doc1);
+                doc1 = cursor1.nextDoc();
+                doc2 = cursor2.nextDoc();
             }
-            docs2 = docs2.getNext();
         }
         return result;
     }
+
+    /***
+     * Calculates NOT operation of a given chained list of Documents.
+     * This method is kept as a compatibility adapter for the linked list
+     * representation. See {@link #not(IPostingList, IPostingList)}.
+     * @param docs linked list of document (input operand, e.g !cat)
+     * @param allDocs linked list of all documents that have been indexed.
+     * @return complement of 'docs' within 'allDocs' or null if it's empty
+     */
+    public static Document not(Document docs, Document allDocs) {
+        return PostingList.toDocument(not(PostingList.fromDocument(docs), PostingList.fromDocument(allDocs)));
+    }
+
+    /***
+     * Calculates AND operation between dow linked lists of Documents.
+     * This method is kept as a compatibility adapter for the linked list
+     * representation. See {@link #and(IPostingList, IPostingList)}.
+     * @param docs1 fist sorted list of Documents
+     * @param docs2 second sorted list of Documents
+     * @return intersection of the two lists of Documents or null if it's empty
+     */
+    public static Document and(Document docs1, Document docs2) {
+        return PostingList.toDocument(and(PostingList.fromDocument(docs1), PostingList.fromDocument(docs2)));
+    }
+
+    /***
+     * Calculates OR operation between dow linked lists of Documents.
+     * This method is kept as a compatibility adapter for the linked list
+     * representation. See {@link #or(IPostingList, IPostingList)}.
+     * @param docs1 fist sorted list of Documents
+     * @param docs2 second sorted list of Documents
+     * @return union of the two lists of Documents or null if it's empty
+     */
+    public static Document or(Document docs1, Document docs2) {
+        return PostingList.toDocument(or(PostingList.fromDocument(docs1), PostingList.fromDocument(docs2)));
+    }
 }
@@ -0,0 +1,233 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.MultiPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.ISegment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents an index whose documents are stored in segments (see Index and IndexSnapshot).
+ * It holds the read path shared by all such indexes (looking up posting lists, file paths, and term
+ * frequencies across the segments) as well as the scoring of documents, which is also used by
+ * MappedIndex, so there is only one implementation of each ranking model.
+ */
+abstract class SegmentedIndex implements IIndex {
+
+    /*** Empty posting list returned for unknown terms */
+    static final IPostingList EMPTY_POSTINGS = new PostingList(1);
+
+    /***
+     * Returns the segments the documents are currently read from.
+     * @return list of segments (each document is stored in exactly one of them)
+     */
+    abstract List<? extends ISegment> getReadSegments();
+
+    /***
+     * Returns the dictionary assigning ids to the terms.
+     * @return term dictionary
+     */
+    abstract TermDictionary getDictionary();
+
+    /***
+     * Returns the segment a given document is stored in.
+     * @param documentIndex index of a document
+     * @return segment holding the document
+     * @throws IllegalArgumentException if the document has not been indexed yet
+     */
+    ISegment getSegment(int documentIndex) throws IllegalArgumentException {
+        for (final var segment : getReadSegments()) {
+            if (segment.getFilePath(documentIndex) != null) {
+                return segment;
+            }
+        }
+        throw new IllegalArgumentException("Document has not been indexed yet");
+    }
+
+    /***
+     * Returns a linked list of all documents.
+     * @return head of a linked list of all documents.
+     */
+    @Override
+    public Document getAllDocumentIndexes() {
+        return PostingList.toDocument(getAllPostings());
+    }
+
+    /***
+     * Returns a filepath of a given document
+     * @param documentIndex index of a document
+     * @return filepath of a give document
+     * @throws IllegalArgumentException if the document has not been indexed yet
+     */
+    @Override
+    public String getFilePath(int documentIndex) throws IllegalArgumentException {
+        return getSegment(documentIndex).getFilePath(documentIndex);
+    }
+
+    /***
+     * Returns a linked list (row in the index) of a given term
+     * @param term given term
+     * @return linked list (row in the index) of a given term
+     */
+    @Override
+    public Document getDocuments(final String term) {
+        final var postings = getPostings(term);
+        if (postings.size() > 0) {
+            return PostingList.toDocument(postings);
+        }
+        // Return an empty linked list of documents.
+        return new Document();
+    }
+
+    /***
+     * Returns a posting list (row in the index) of a given term.
+     * The list is decoded lazily, block by block, as it's being iterated.
+     * If the term occurs in more than one segment, their posting
+     * lists are merged by document index on the fly.
+     * @param term given term
+     * @return posting list of the term (empty if the term has not been indexed)
+     */
+    @Override
+    public IPostingList getPostings(final String term) {
+        final int termId = getDictionary().getId(term);
+        if (termId == TermDictionary.NO_TERM) {
+            return EMPTY_POSTINGS;
+        }
+        final List<IPostingList> postingLists = new ArrayList<>(1);
+        for (final var segment : getReadSegments()) {
+            final var postings = segment.getPostings(termId);
+            if (postings != null) {
+                postingLists.add(postings);
+            }
+        }
+        if (postingLists.isEmpty()) {
+            return EMPTY_POSTINGS;
+        }
+        return postingLists.size() == 1 ? postingLists.get(0) : new MultiPostingList(postingLists);
+    }
+
+    /***
+     * Returns the inverse document frequency of a given term.
+     * @param term given term
+     * @return IDF of the term (0 if the term has not been indexed)
+     */
+    @Override
+    public double getIDF(final String term) {
+        return calculateIDF(getDocumentCount(), getPostings(term).size());
+    }
+
+    /***
+     * Calculates TF-IDF for a given document and a unique set of words (query).
+     * The frequencies of the terms are looked up in the term vector of the document.
+     * @param index index of a document
+     * @param relevantTerms relevant words of a query
+     * @return value of TF-IDF
+     */
+    @Override
+    public double calculateTF_IDF(int index, final Set<String> relevantTerms) {
+        return calculateTF_IDF(this, index, relevantTerms, getTermFrequencies(index));
+    }
+
+    /***
+     * Calculates cosine similarity for a given document and relevant words of a query.
+     * The frequencies of the terms are looked up in the term vector of the document.
+     * @param index index of a document
+     * @param relevantTerms relevant words of a query
+     * @return cosine similarity
+     */
+    @Override
+    public double calculateCosineSimilarity(int index, final Set<String> relevantTerms) {
+        return calculateCosineSimilarity(this, index, relevantTerms, getTermFrequencies(index));
+    }
+
+    /***
+     * Returns a function looking up the frequencies of terms in a given document.
+     * @param documentIndex index of a document
+     * @return function returning the number of occurrences of a term in the document
+     * @throws IllegalArgumentException if the document has not been indexed yet
+     */
+    private ToIntFunction<String> getTermFrequencies(int documentIndex) throws IllegalArgumentException {
+        // Get the segment holding the term vector of the document.
+        final var segment = getSegment(documentIndex);
+        final var dictionary = getDictionary();
+        return term -> {
+            final int termId = dictionary.getId(term);
+            return termId == TermDictionary.NO_TERM ? 0 : segment.getTermFrequency(documentIndex, termId);
+        };
+    }
+
+    /***
+     * Calculates the inverse document frequency of a term.
+     * @param documentCount number of all documents
+     * @param documentFrequency number of documents containing the term
+     * @return IDF of the term (0 if the term does not occur in any document)
+     */
+    static double calculateIDF(int documentCount, int documentFrequency) {
+        if (documentFrequency == 0) {
+            return 0;
+        }
+        return Math.log10((double)documentCount / documentFrequency);
+    }
+
+    /***
+     * Calculates TF-IDF for a given document and a unique set of words (query).
+     * The norm of the document is precomputed, so only the terms of the query are looked at.
+     * @param index index the document is held in
+     * @param documentIndex index of a document
+     * @param relevantTerms relevant words of a query
+     * @param frequencies function returning the number of occurrences of a term in the document
+     * @return value of TF-IDF
+     */
+    static double calculateTF_IDF(final IIndex index, int documentIndex, final Set<String> relevantTerms,
+                                  final ToIntFunction<String> frequencies) {
+        double normQuery = 0;
+        double multi = 0;
+
+        // Each term of the query occurs exactly once (1 + log(1) = 1).
+        for (final var word : relevantTerms) {
+            final double IDF = index.getIDF(word);
+            final int frequency = frequencies.applyAsInt(word);
+            if (frequency > 0) {
+                multi += (1 + Math.log10(frequency)) * IDF * IDF;
+            }
+            normQuery += IDF * IDF;
+        }
+        final double normDoc = index.getDocumentNorm(documentIndex, RankingModel.TF_IDF);
+        normQuery = Math.sqrt(normQuery);
+
+        if (normDoc * normQuery == 0)
+            return 0;
+
+        return multi / (normDoc * normQuery);
+    }
+
+    /***
+     * Calculates cosine similarity for a given document and relevant words of a query.
+     * The norm of the document is precomputed, so only the terms of the query are looked at.
+     * @param index index the document is held in
+     * @param documentIndex index of a document
+     * @param relevantTerms relevant words of a query
+     * @param frequencies function returning the number of occurrences of a term in the document
+     * @return cosine similarity
+     */
+    static double calculateCosineSimilarity(final IIndex index, int documentIndex, final Set<String> relevantTerms,
+                                            final ToIntFunction<String> frequencies) {
+        // Each term of the query occurs exactly once.
+        double multi = 0;
+        for (final var word : relevantTerms) {
+            multi += frequencies.applyAsInt(word);
+        }
+        final double normDoc = index.getDocumentNorm(documentIndex, RankingModel.COSINE_SIMILARITY);
+        final double normQuery = Math.sqrt(relevantTerms.size());
+
+        if (normDoc * normQuery == 0)
+            return 0;
+        return multi / (normDoc * normQuery);
+    }
+}
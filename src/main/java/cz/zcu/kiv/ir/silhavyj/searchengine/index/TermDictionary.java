@@ -0,0 +1,173 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+import java.util.Arrays;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a dictionary of all terms of an index. Each term
+ * is assigned a dense integer id (0, 1, 2, ...) when it's first added, so the
+ * rest of the index (posting lists, forward indexes) refers to terms by their ids
+ * and every term string is stored only once.
+ *
+ * The terms are looked up in an open-addressing hash table (linear probing)
+ * whose slots hold the ids of the terms. Terms are added only by the thread
+ * indexing the documents, but they can be looked up by any number of threads
+ * (e.g. searching a snapshot) without locking. A lookup racing with an addition
+ * may not find the term being added, which is fine as no snapshot the reader
+ * could use contains it yet.
+ */
+public class TermDictionary {
+
+    /*** Id returned for terms which are not in the dictionary */
+    public static final int NO_TERM = -1;
+
+    /*** Initial number of slots of the hash table (power of two) */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /***
+     * Hash table of the dictionary. It's replaced as a whole when it grows,
+     * so a reader always sees the slots and the terms of the same table.
+     */
+    private static class Table {
+
+        /*** Slots of the hash table (id + 1 of a term, 0 = empty slot) */
+        final int[] slots;
+
+        /*** Terms by their ids */
+        final String[] terms;
+
+        /***
+         * Creates an instance of the class.
+         * @param slots slots of the hash table
+         * @param terms terms by their ids
+         */
+        Table(final int[] slots, final String[] terms) {
+            this.slots = slots;
+            this.terms = terms;
+        }
+    }
+
+    /*** Current hash table */
+    private volatile Table table;
+
+    /*** Number of terms in the dictionary */
+    private volatile int size;
+
+    /***
+     * Creates an empty dictionary.
+     */
+    public TermDictionary() {
+        table = new Table(new int[INITIAL_CAPACITY], new String[INITIAL_CAPACITY / 2]);
+        size = 0;
+    }
+
+    /***
+     * Returns the id of a given term.
+     * @param term given term
+     * @return id of the term or NO_TERM if the term is not in the dictionary
+     */
+    public int getId(final String term) {
+        final Table current = table;
+        final int mask = current.slots.length - 1;
+        for (int i = hash(term) & mask; ; i = (i + 1) & mask) {
+            final int slot = current.slots[i];
+            if (slot == 0) {
+                return NO_TERM;
+            }
+            final int id = slot - 1;
+            if (id < current.terms.length && term.equals(current.terms[id])) {
+                return id;
+            }
+        }
+    }
+
+    /***
+     * Adds a term into the dictionary unless it's already there.
+     * @param term term to be added
+     * @return id of the term (new terms get the id equal to the former size of the dictionary)
+     */
+    public synchronized int add(final String term) {
+        final int existing = getId(term);
+        if (existing != NO_TERM) {
+            return existing;
+        }
+        final int id = size;
+        Table current = table;
+
+        // Make room for the term (the term is stored before
+        // its slot is filled, so readers never see an empty term).
+        if (id == current.terms.length) {
+            current = new Table(current.slots, Arrays.copyOf(current.terms, 2 * current.terms.length));
+            table = current;
+        }
+        current.terms[id] = term;
+        if (2 * (id + 1) > current.slots.length) {
+            table = rehash(current, id + 1);
+        } else {
+            insert(current.slots, term, id);
+        }
+        size = id + 1;
+        return id;
+    }
+
+    /***
+     * Returns the term of a given id.
+     * @param id id of a term
+     * @return term with the given id
+     * @throws IllegalArgumentException if there's no term with the id
+     */
+    public String getTerm(int id) throws IllegalArgumentException {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown term id " + id);
+        }
+        return table.terms[id];
+    }
+
+    /***
+     * Returns the number of terms in the dictionary.
+     * @return number of terms
+     */
+    public int size() {
+        return size;
+    }
+
+    /***
+     * Creates a new hash table with twice as many slots.
+     * @param current current hash table
+     * @param count number of terms stored in the table
+     * @return new hash table
+     */
+    private static Table rehash(final Table current, int count) {
+        final int[] slots = new int[2 * current.slots.length];
+        for (int id = 0; id < count; id++) {
+            insert(slots, current.terms[id], id);
+        }
+        return new Table(slots, current.terms);
+    }
+
+    /***
+     * Stores the id of a term into the first free slot.
+     * @param slots slots of a hash table
+     * @param term term to be stored
+     * @param id id of the term
+     */
+    private static void insert(final int[] slots, final String term, int id) {
+        final int mask = slots.length - 1;
+        int i = hash(term) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = id + 1;
+    }
+
+    /***
+     * Calculates the hash of a term (the higher bits are spread into the lower ones).
+     * @param term given term
+     * @return hash of the term
+     */
+    private static int hash(final String term) {
+        final int hash = term.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+}
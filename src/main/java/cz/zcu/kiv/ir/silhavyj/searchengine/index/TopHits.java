@@ -0,0 +1,92 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents the best-ranked documents of a query
+ * sorted by their scores (the best one goes first) together
+ * with the total number of documents that matched the query.
+ */
+public class TopHits {
+
+    /*** Indexes of the best-ranked documents */
+    private final int[] documents;
+
+    /*** Scores of the best-ranked documents */
+    private final float[] scores;
+
+    /*** Total number of documents matching the query */
+    private final int totalHits;
+
+    /*** Flag if the total number of hits is exact (not only a lower bound) */
+    private final boolean totalHitsExact;
+
+    /***
+     * Creates an instance of the class.
+     * @param documents indexes of the best-ranked documents (sorted by their scores)
+     * @param scores scores of the documents
+     * @param totalHits total number of documents matching the query
+     */
+    public TopHits(final int[] documents, final float[] scores, int totalHits) {
+        this(documents, scores, totalHits, true);
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param documents indexes of the best-ranked documents (sorted by their scores)
+     * @param scores scores of the documents
+     * @param totalHits total number of documents matching the query
+     * @param totalHitsExact flag if the total number of hits is exact (false = it is a lower bound)
+     */
+    public TopHits(final int[] documents, final float[] scores, int totalHits, boolean totalHitsExact) {
+        this.documents = documents;
+        this.scores = scores;
+        this.totalHits = totalHits;
+        this.totalHitsExact = totalHitsExact;
+    }
+
+    /***
+     * Returns the number of best-ranked documents held in the instance.
+     * @return number of documents
+     */
+    public int size() {
+        return documents.length;
+    }
+
+    /***
+     * Returns the index of the i-th best-ranked document.
+     * @param i position of the document (0 = the best one)
+     * @return index of the document
+     */
+    public int getDocument(int i) {
+        return documents[i];
+    }
+
+    /***
+     * Returns the score of the i-th best-ranked document.
+     * @param i position of the document (0 = the best one)
+     * @return score of the document
+     */
+    public float getScore(int i) {
+        return scores[i];
+    }
+
+    /***
+     * Returns the total number of documents matching the query
+     * (not only those which have been kept).
+     * @return total number of matching documents
+     */
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    /***
+     * Returns whether the total number of hits is exact. Documents that
+     * cannot make it into the best-ranked ones may be skipped without
+     * being counted, in which case the total is only a lower bound.
+     * @return True, if the total is exact. False, if it's a lower bound.
+     */
+    public boolean isTotalHitsExact() {
+        return totalHitsExact;
+    }
+}
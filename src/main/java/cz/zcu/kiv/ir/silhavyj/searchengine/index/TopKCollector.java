@@ -0,0 +1,176 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class collects the k best-ranked documents of a query.
+ * The documents are kept in a bounded min-heap (the worst of the kept
+ * documents is on the top), so collecting n documents takes O(n log k)
+ * and none of the documents or scores get boxed. Documents of the same
+ * score are ordered by their indexes (the lower index goes first).
+ */
+public class TopKCollector {
+
+    /*** Maximum number of documents to be kept */
+    private final int k;
+
+    /*** Indexes of the documents in the heap */
+    private final int[] heapDocuments;
+
+    /*** Scores of the documents in the heap */
+    private final float[] heapScores;
+
+    /*** Number of documents in the heap */
+    private int heapSize;
+
+    /*** Total number of documents that have been collected */
+    private int totalHits;
+
+    /***
+     * Creates an instance of the class.
+     * @param k maximum number of documents to be kept
+     * @throws IllegalArgumentException if k is negative
+     */
+    public TopKCollector(int k) throws IllegalArgumentException {
+        if (k < 0) {
+            throw new IllegalArgumentException("Number of documents to be kept must not be negative");
+        }
+        this.k = k;
+        heapDocuments = new int[k];
+        heapScores = new float[k];
+        heapSize = 0;
+        totalHits = 0;
+    }
+
+    /***
+     * Collects a document matching the query.
+     * @param document index of the document
+     * @param score score of the document
+     */
+    public void collect(int document, float score) {
+        totalHits++;
+        if (heapSize < k) {
+            heapDocuments[heapSize] = document;
+            heapScores[heapSize] = score;
+            siftUp(heapSize++);
+        } else if (k > 0 && isWorse(heapDocuments[0], heapScores[0], document, score)) {
+            // Replace the worst of the kept documents.
+            heapDocuments[0] = document;
+            heapScores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /***
+     * Returns the score a document needs to exceed to get into the heap.
+     * @return score of the worst kept document or negative infinity if the heap is not full yet
+     */
+    public float getMinCompetitiveScore() {
+        return heapSize < k || k == 0 ? Float.NEGATIVE_INFINITY : heapScores[0];
+    }
+
+    /***
+     * Returns the total number of documents that have been collected.
+     * @return number of collected documents
+     */
+    public int getTotalHits() {
+        return totalHits;
+    }
+
+    /***
+     * Returns the best-ranked documents sorted by their scores. The heap
+     * is emptied in the process, so the collector should not be used afterwards.
+     * @return best-ranked documents together with the total number of hits
+     */
+    public TopHits getTopHits() {
+        return getTopHits(true);
+    }
+
+    /***
+     * Returns the best-ranked documents sorted by their scores. The heap
+     * is emptied in the process, so the collector should not be used afterwards.
+     * @param totalHitsExact flag if all matching documents have been collected
+     * @return best-ranked documents together with the total number of hits
+     */
+    public TopHits getTopHits(boolean totalHitsExact) {
+        final int count = heapSize;
+        final int[] documents = new int[count];
+        final float[] scores = new float[count];
+
+        // Keep on removing the worst document, and fill the arrays from the end.
+        for (int i = count - 1; i >= 0; i--) {
+            documents[i] = heapDocuments[0];
+            scores[i] = heapScores[0];
+            heapSize--;
+            heapDocuments[0] = heapDocuments[heapSize];
+            heapScores[0] = heapScores[heapSize];
+            siftDown(0);
+        }
+        return new TopHits(documents, scores, totalHits, totalHitsExact);
+    }
+
+    /***
+     * Compares two documents by their scores.
+     * @param document1 index of the first document
+     * @param score1 score of the first document
+     * @param document2 index of the second document
+     * @param score2 score of the second document
+     * @return True, if the first document ranks lower than the second one. False, otherwise.
+     */
+    private static boolean isWorse(int document1, float score1, int document2, float score2) {
+        if (score1 != score2) {
+            return score1 < score2;
+        }
+        return document1 > document2;
+    }
+
+    /***
+     * Moves an element of the heap up until the heap property is restored.
+     * @param i position of the element
+     */
+    private void siftUp(int i) {
+        final int document = heapDocuments[i];
+        final float score = heapScores[i];
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (!isWorse(document, score, heapDocuments[parent], heapScores[parent])) {
+                break;
+            }
+            heapDocuments[i] = heapDocuments[parent];
+            heapScores[i] = heapScores[parent];
+            i = parent;
+        }
+        heapDocuments[i] = document;
+        heapScores[i] = score;
+    }
+
+    /***
+     * Moves an element of the heap down until the heap property is restored.
+     * @param i position of the element
+     */
+    private void siftDown(int i) {
+        if (heapSize == 0) {
+            return;
+        }
+        final int document = heapDocuments[i];
+        final float score = heapScores[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            // Pick the worse of the two children.
+            if (child + 1 < heapSize && isWorse(heapDocuments[child + 1], heapScores[child + 1], heapDocuments[child], heapScores[child])) {
+                child++;
+            }
+            if (!isWorse(heapDocuments[child], heapScores[child], document, score)) {
+                break;
+            }
+            heapDocuments[i] = heapDocuments[child];
+            heapScores[i] = heapScores[child];
+            i = child;
+        }
+        heapDocuments[i] = document;
+        heapScores[i] = score;
+    }
+}
@@ -0,0 +1,232 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.util.Arrays;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a container of sparse values stored as a sorted array.
+ */
+final class ArrayContainer extends Container {
+
+    /*** Sorted values */
+    private char[] values;
+
+    /*** Number of values stored in the array */
+    private int cardinality;
+
+    /***
+     * Creates an instance of the class.
+     * @param capacity initial capacity of the array
+     */
+    ArrayContainer(int capacity) {
+        values = new char[Math.max(1, capacity)];
+        cardinality = 0;
+    }
+
+    /***
+     * Creates an array container holding the same values as a given container.
+     * @param container container to be converted
+     * @return new array container
+     */
+    static ArrayContainer fromContainer(final Container container) {
+        final ArrayContainer result = new ArrayContainer(container.cardinality());
+        for (int value = container.nextValue(0); value >= 0; value = container.nextValue(value + 1)) {
+            result.values[result.cardinality++] = (char)value;
+        }
+        return result;
+    }
+
+    /***
+     * Returns the position of a value within the array.
+     * @param value value to be found
+     * @return position of the value or (-(insertion point) - 1) if it is not present
+     */
+    private int indexOf(int value) {
+        return Arrays.binarySearch(values, 0, cardinality, (char)value);
+    }
+
+    /***
+     * Returns the number of values stored in the container.
+     * @return cardinality of the container
+     */
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    /***
+     * Checks if the container holds a given value.
+     * @param value value (lower 16 bits of a document index)
+     * @return True, if the value is present. False, otherwise.
+     */
+    @Override
+    boolean contains(int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /***
+     * Adds a value into the container.
+     * @param value value (lower 16 bits of a document index)
+     * @return container holding the value (it may be a different type of container)
+     */
+    @Override
+    Container add(int value) {
+        // Fast path - values are usually appended in ascending order.
+        int position = cardinality;
+        if (cardinality > 0 && values[cardinality - 1] >= value) {
+            position = indexOf(value);
+            if (position >= 0) {
+                return this;
+            }
+            position = -position - 1;
+        }
+        if (cardinality == MAX_ARRAY_CARDINALITY) {
+            return toBitmap().add(value);
+        }
+        if (cardinality == values.length) {
+            values = Arrays.copyOf(values, Math.min(MAX_ARRAY_CARDINALITY, 2 * values.length));
+        }
+        System.arraycopy(values, position, values, position + 1, cardinality - position);
+        values[position] = (char)value;
+        cardinality++;
+        return this;
+    }
+
+    /***
+     * Returns the smallest value that is greater than or equal to a given value.
+     * @param from lower bound
+     * @return the next value or -1 if there is no such a value
+     */
+    @Override
+    int nextValue(int from) {
+        int position = indexOf(from);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return position < cardinality ? values[position] : -1;
+    }
+
+    /***
+     * Returns the number of runs of consecutive values.
+     * @return number of runs
+     */
+    @Override
+    int numberOfRuns() {
+        int runs = 0;
+        for (int i = 0; i < cardinality; i++) {
+            if (i == 0 || values[i] != values[i - 1] + 1) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    /***
+     * Converts the container into a bitmap container.
+     * @return bitmap container holding the same values (a new one unless it already is a bitmap)
+     */
+    @Override
+    BitmapContainer toBitmap() {
+        final BitmapContainer bitmap = new BitmapContainer();
+        for (int i = 0; i < cardinality; i++) {
+            bitmap.add(values[i]);
+        }
+        return bitmap;
+    }
+
+    /***
+     * Creates a copy of the container.
+     * @return copy of the container
+     */
+    @Override
+    Container copy() {
+        final ArrayContainer result = new ArrayContainer(cardinality);
+        System.arraycopy(values, 0, result.values, 0, cardinality);
+        result.cardinality = cardinality;
+        return result;
+    }
+
+    /***
+     * Calculates the intersection of two containers.
+     * @param other the other container
+     * @return new container holding the intersection
+     */
+    @Override
+    Container and(final Container other) {
+        final ArrayContainer result = new ArrayContainer(cardinality);
+        if (other instanceof ArrayContainer) {
+            // Merge two sorted arrays.
+            final ArrayContainer array = (ArrayContainer)other;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < array.cardinality) {
+                if (values[i] < array.values[j]) {
+                    i++;
+                } else if (values[i] > array.values[j]) {
+                    j++;
+                } else {
+                    result.values[result.cardinality++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+        } else {
+            // Probe the other container with each value.
+            for (int i = 0; i < cardinality; i++) {
+                if (other.contains(values[i])) {
+                    result.values[result.cardinality++] = values[i];
+                }
+            }
+        }
+        return result;
+    }
+
+    /***
+     * Calculates the union of two containers.
+     * @param other the other container
+     * @return new container holding the union
+     */
+    @Override
+    Container or(final Container other) {
+        if (!(other instanceof ArrayContainer)) {
+            return other.or(this);
+        }
+        final ArrayContainer array = (ArrayContainer)other;
+        if (cardinality + array.cardinality > MAX_ARRAY_CARDINALITY) {
+            return toBitmap().or(array);
+        }
+        // Merge two sorted arrays.
+        final ArrayContainer result = new ArrayContainer(cardinality + array.cardinality);
+        int i = 0;
+        int j = 0;
+        while (i < cardinality || j < array.cardinality) {
+            if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                result.values[result.cardinality++] = values[i++];
+            } else if (i == cardinality || values[i] > array.values[j]) {
+                result.values[result.cardinality++] = array.values[j++];
+            } else {
+                result.values[result.cardinality++] = values[i];
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /***
+     * Calculates the difference of two containers (this AND NOT other).
+     * @param other the other container
+     * @return new container holding the values which are not in the other container
+     */
+    @Override
+    Container andNot(final Container other) {
+        final ArrayContainer result = new ArrayContainer(cardinality);
+        for (int i = 0; i < cardinality; i++) {
+            if (!other.contains(values[i])) {
+                result.values[result.cardinality++] = values[i];
+            }
+        }
+        return result;
+    }
+}
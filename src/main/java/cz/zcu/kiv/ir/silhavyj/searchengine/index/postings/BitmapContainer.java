@@ -0,0 +1,211 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a container of dense values stored as a bitmap.
+ * Binary operations between two bitmaps are performed word by word (64 values at once).
+ */
+final class BitmapContainer extends Container {
+
+    /*** Number of 64-bit words making up the bitmap */
+    private static final int WORDS = MAX_VALUES / 64;
+
+    /*** Bits of the bitmap */
+    private final long[] words;
+
+    /*** Number of bits that are set */
+    private int cardinality;
+
+    /***
+     * Creates an empty bitmap.
+     */
+    BitmapContainer() {
+        words = new long[WORDS];
+        cardinality = 0;
+    }
+
+    /***
+     * Sets all bits of a given range.
+     * @param start first value of the range
+     * @param end last value of the range (inclusive)
+     */
+    void setRange(int start, int end) {
+        final int firstWord = start >>> 6;
+        final int lastWord = end >>> 6;
+        for (int i = firstWord; i <= lastWord; i++) {
+            long mask = -1L;
+            if (i == firstWord) {
+                mask &= -1L << start;
+            }
+            if (i == lastWord) {
+                mask &= -1L >>> (63 - (end & 63));
+            }
+            cardinality += Long.bitCount(mask & ~words[i]);
+            words[i] |= mask;
+        }
+    }
+
+    /***
+     * Recalculates the cardinality after the words have been modified
+     * and returns the most suitable representation of the result.
+     * @return optimized container
+     */
+    private Container finish() {
+        cardinality = 0;
+        for (final long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        if (cardinality <= MAX_ARRAY_CARDINALITY) {
+            return ArrayContainer.fromContainer(this);
+        }
+        return this;
+    }
+
+    /***
+     * Returns the number of values stored in the container.
+     * @return cardinality of the container
+     */
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    /***
+     * Checks if the container holds a given value.
+     * @param value value (lower 16 bits of a document index)
+     * @return True, if the value is present. False, otherwise.
+     */
+    @Override
+    boolean contains(int value) {
+        return (words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    /***
+     * Adds a value into the container.
+     * @param value value (lower 16 bits of a document index)
+     * @return container holding the value (it may be a different type of container)
+     */
+    @Override
+    Container add(int value) {
+        final long word = words[value >>> 6];
+        final long bit = 1L << value;
+        if ((word & bit) == 0) {
+            words[value >>> 6] = word | bit;
+            cardinality++;
+        }
+        return this;
+    }
+
+    /***
+     * Returns the smallest value that is greater than or equal to a given value.
+     * @param from lower bound
+     * @return the next value or -1 if there is no such a value
+     */
+    @Override
+    int nextValue(int from) {
+        if (from >= MAX_VALUES) {
+            return -1;
+        }
+        int i = from >>> 6;
+        long word = words[i] & (-1L << from);
+        while (word == 0) {
+            if (++i == WORDS) {
+                return -1;
+            }
+            word = words[i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /***
+     * Returns the number of runs of consecutive values.
+     * @return number of runs
+     */
+    @Override
+    int numberOfRuns() {
+        int runs = 0;
+        long previous = 0;
+        for (final long word : words) {
+            // A run starts at every set bit whose predecessor is not set.
+            runs += Long.bitCount(word & ~((word << 1) | (previous >>> 63)));
+            previous = word;
+        }
+        return runs;
+    }
+
+    /***
+     * Converts the container into a bitmap container.
+     * @return bitmap container holding the same values (a new one unless it already is a bitmap)
+     */
+    @Override
+    BitmapContainer toBitmap() {
+        return this;
+    }
+
+    /***
+     * Creates a copy of the container.
+     * @return copy of the container
+     */
+    @Override
+    Container copy() {
+        final BitmapContainer result = new BitmapContainer();
+        System.arraycopy(words, 0, result.words, 0, WORDS);
+        result.cardinality = cardinality;
+        return result;
+    }
+
+    /***
+     * Calculates the intersection of two containers.
+     * @param other the other container
+     * @return new container holding the intersection
+     */
+    @Override
+    Container and(final Container other) {
+        if (other instanceof ArrayContainer) {
+            return other.and(this);
+        }
+        final long[] otherWords = other.toBitmap().words;
+        final BitmapContainer result = new BitmapContainer();
+        for (int i = 0; i < WORDS; i++) {
+            result.words[i] = words[i] & otherWords[i];
+        }
+        return result.finish();
+    }
+
+    /***
+     * Calculates the union of two containers.
+     * @param other the other container
+     * @return new container holding the union
+     */
+    @Override
+    Container or(final Container other) {
+        final BitmapContainer result = (BitmapContainer)copy();
+        if (other instanceof ArrayContainer) {
+            for (int value = other.nextValue(0); value >= 0; value = other.nextValue(value + 1)) {
+                result.add(value);
+            }
+            return result;
+        }
+        final long[] otherWords = other.toBitmap().words;
+        for (int i = 0; i < WORDS; i++) {
+            result.words[i] |= otherWords[i];
+        }
+        return result.finish();
+    }
+
+    /***
+     * Calculates the difference of two containers (this AND NOT other).
+     * @param other the other container
+     * @return new container holding the values which are not in the other container
+     */
+    @Override
+    Container andNot(final Container other) {
+        final long[] otherWords = other.toBitmap().words;
+        final BitmapContainer result = new BitmapContainer();
+        for (int i = 0; i < WORDS; i++) {
+            result.words[i] = words[i] & ~otherWords[i];
+        }
+        return result.finish();
+    }
+}
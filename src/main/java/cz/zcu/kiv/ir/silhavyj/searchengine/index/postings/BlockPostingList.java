@@ -0,0 +1,256 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.nio.ByteBuffer;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a posting list made up of compressed blocks of
+ * IPostingsCodec.BLOCK_SIZE documents followed by an uncompressed tail.
+ * Each block is stored as gaps between document indexes followed by term
+ * frequencies, both compressed by a codec. Subclasses only define where the
+ * blocks are stored (e.g. on the heap or in a memory-mapped file), cursors
+ * decode the list lazily, block by block, and skip over the blocks
+ * using the last document of each block.
+ */
+public abstract class BlockPostingList implements IPostingList {
+
+    /*** Codec used to compress the blocks */
+    protected final IPostingsCodec codec;
+
+    /***
+     * Creates an instance of the class.
+     * @param codec codec used to compress the blocks
+     */
+    protected BlockPostingList(final IPostingsCodec codec) {
+        this.codec = codec;
+    }
+
+    /***
+     * Returns the codec used to compress the blocks.
+     * @return codec of the posting list
+     */
+    public IPostingsCodec getCodec() {
+        return codec;
+    }
+
+    /***
+     * Returns the number of compressed blocks.
+     * @return number of blocks
+     */
+    protected abstract int getBlockCount();
+
+    /***
+     * Returns the offset of a block within the compressed data.
+     * @param block index of the block
+     * @return offset of the block
+     */
+    protected abstract int getBlockOffset(int block);
+
+    /***
+     * Returns the index of the last document of a block.
+     * @param block index of the block
+     * @return index of the last document of the block
+     */
+    protected abstract int getBlockLastDocument(int block);
+
+    /***
+     * Returns a new read-only view of the compressed data.
+     * Each cursor gets its own view, so they can be positioned independently.
+     * @return view of the compressed data (null if there are no blocks)
+     */
+    protected abstract ByteBuffer getData();
+
+    /***
+     * Returns the number of documents which have not yet filled up a block.
+     * @return size of the tail
+     */
+    protected abstract int getTailSize();
+
+    /***
+     * Returns the index of a document of the tail.
+     * @param i position within the tail
+     * @return index of the document
+     */
+    protected abstract int getTailDocument(int i);
+
+    /***
+     * Returns the term frequency of a document of the tail.
+     * @param i position within the tail
+     * @return term frequency within the document
+     */
+    protected abstract int getTailFrequency(int i);
+
+    /***
+     * Returns the number of documents stored in the posting list.
+     * @return number of documents (document frequency)
+     */
+    @Override
+    public int size() {
+        return getBlockCount() * IPostingsCodec.BLOCK_SIZE + getTailSize();
+    }
+
+    /***
+     * Creates a new cursor positioned before the first document.
+     * @return new cursor over the posting list
+     */
+    @Override
+    public IPostingCursor cursor() {
+        return new Cursor();
+    }
+
+    /***
+     * Cursor decoding the posting list block by block.
+     */
+    private class Cursor implements IPostingCursor {
+
+        /*** Read-only view of the compressed data (null if there are no blocks) */
+        private final ByteBuffer buffer = getData();
+
+        /*** Number of compressed blocks */
+        private final int blockCount = getBlockCount();
+
+        /*** Decoded documents of the current block */
+        private final int[] documents = new int[Math.min(size(), IPostingsCodec.BLOCK_SIZE)];
+
+        /*** Decoded term frequencies of the current block */
+        private final int[] frequencies = new int[documents.length];
+
+        /*** Index of the current block (blockCount = the tail) */
+        private int block = -1;
+
+        /*** Number of documents of the current block */
+        private int length = 0;
+
+        /*** Position within the current block */
+        private int position = -1;
+
+        /*** Index of the current document */
+        private int docId = -1;
+
+        /***
+         * Decodes the next block (or switches over to the tail).
+         * @return True, if there's another block. False, otherwise.
+         */
+        private boolean loadNextBlock() {
+            block++;
+            position = 0;
+            if (block < blockCount) {
+                buffer.position(getBlockOffset(block));
+                codec.decode(buffer, documents, IPostingsCodec.BLOCK_SIZE);
+                codec.decode(buffer, frequencies, IPostingsCodec.BLOCK_SIZE);
+
+                // Turn the gaps back into document indexes.
+                int previous = block == 0 ? 0 : getBlockLastDocument(block - 1);
+                for (int i = 0; i < IPostingsCodec.BLOCK_SIZE; i++) {
+                    previous += documents[i];
+                    documents[i] = previous;
+                    frequencies[i]++;
+                }
+                length = IPostingsCodec.BLOCK_SIZE;
+                return true;
+            }
+            if (block == blockCount) {
+                length = getTailSize();
+                for (int i = 0; i < length; i++) {
+                    documents[i] = getTailDocument(i);
+                    frequencies[i] = getTailFrequency(i);
+                }
+                return length > 0;
+            }
+            length = 0;
+            return false;
+        }
+
+        /***
+         * Returns the index of the document the cursor is currently positioned at.
+         * @return index of the current document
+         */
+        @Override
+        public int docId() {
+            return docId;
+        }
+
+        /***
+         * Moves the cursor to the next document.
+         * @return index of the next document or NO_MORE_DOCS
+         */
+        @Override
+        public int nextDoc() {
+            if (docId == NO_MORE_DOCS) {
+                return docId;
+            }
+            position++;
+            if (position >= length && !loadNextBlock()) {
+                docId = NO_MORE_DOCS;
+                return docId;
+            }
+            docId = documents[position];
+            return docId;
+        }
+
+        /***
+         * Moves the cursor forward to the first document whose index is greater
+         * than or equal to the target. Blocks whose last document is lower than
+         * the target are skipped without being decoded.
+         * @param target index of the document to move to
+         * @return index of the document the cursor ended up at or NO_MORE_DOCS
+         */
+        @Override
+        public int advance(int target) {
+            if (docId >= target) {
+                return docId;
+            }
+            if (block < 0 || (block < blockCount && target > getBlockLastDocument(block))) {
+                // Find the first block that may contain the target (binary search over skip data).
+                int low = block + 1;
+                int high = blockCount;
+                while (low < high) {
+                    final int middle = (low + high) >>> 1;
+                    if (getBlockLastDocument(middle) < target) {
+                        low = middle + 1;
+                    } else {
+                        high = middle;
+                    }
+                }
+                block = low - 1;
+                if (!loadNextBlock()) {
+                    docId = NO_MORE_DOCS;
+                    return docId;
+                }
+            } else {
+                position++;
+            }
+
+            // Find the target within the current block.
+            int low = position;
+            int high = length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (documents[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            position = low;
+
+            // Only the tail may not contain the target.
+            if (position >= length) {
+                docId = NO_MORE_DOCS;
+                return docId;
+            }
+            docId = documents[position];
+            return docId;
+        }
+
+        /***
+         * Returns the number of occurrences of the term in the current document.
+         * @return term frequency within the current document
+         */
+        @Override
+        public int freq() {
+            return frequencies[position];
+        }
+    }
+}
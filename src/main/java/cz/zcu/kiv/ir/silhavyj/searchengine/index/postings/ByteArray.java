@@ -0,0 +1,122 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a growable array of bytes. It is used as
+ * an output of postings codecs as it avoids the overhead
+ * (synchronization, exceptions) of java.io.ByteArrayOutputStream.
+ */
+public class ByteArray {
+
+    /*** Default capacity of a new array */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /*** Bytes stored in the array */
+    private byte[] bytes;
+
+    /*** Number of bytes that have been written */
+    private int size;
+
+    /***
+     * Creates an instance of the class.
+     */
+    public ByteArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param capacity initial capacity of the array
+     */
+    public ByteArray(int capacity) {
+        bytes = new byte[Math.max(1, capacity)];
+        size = 0;
+    }
+
+    /***
+     * Creates an instance of the class wrapping given bytes.
+     * @param bytes bytes the array is made up of (they're not copied)
+     */
+    public ByteArray(final byte[] bytes) {
+        this.bytes = bytes.length == 0 ? new byte[1] : bytes;
+        size = bytes.length;
+    }
+
+    /***
+     * Makes sure there is space for a given number of additional bytes.
+     * @param additional number of bytes that are about to be written
+     */
+    private void ensureCapacity(int additional) {
+        if (size + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(size + additional, bytes.length + (bytes.length >> 1)));
+        }
+    }
+
+    /***
+     * Appends one byte.
+     * @param value byte to be appended (only the lowest 8 bits are used)
+     */
+    public void write(int value) {
+        ensureCapacity(1);
+        bytes[size++] = (byte)value;
+    }
+
+    /***
+     * Appends a sequence of bytes.
+     * @param values bytes to be appended
+     * @param offset offset of the first byte
+     * @param length number of bytes to be appended
+     */
+    public void write(final byte[] values, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(values, offset, bytes, size, length);
+        size += length;
+    }
+
+    /***
+     * Returns the number of bytes that have been written.
+     * @return number of bytes
+     */
+    public int size() {
+        return size;
+    }
+
+    /***
+     * Discards all bytes written so far (the capacity is preserved).
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /***
+     * Shrinks the underlying array, so it does not waste any memory.
+     */
+    public void trim() {
+        if (bytes.length > size) {
+            bytes = Arrays.copyOf(bytes, Math.max(1, size));
+        }
+    }
+
+    /***
+     * Writes the bytes that have been written so far into an output.
+     * @param out output the bytes are written into
+     * @throws IOException if the bytes could not be written
+     */
+    public void writeTo(final DataOutput out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    /***
+     * Returns a read-only buffer wrapping the bytes that have been written so far.
+     * @return read-only view of the bytes
+     */
+    public ByteBuffer toBuffer() {
+        return ByteBuffer.wrap(bytes, 0, size).slice().asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,281 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents an append-only compressed posting list held on the heap.
+ * Documents are grouped into blocks of IPostingsCodec.BLOCK_SIZE. Each full
+ * block is stored as gaps between document indexes followed by term frequencies,
+ * both compressed by a codec. The last (incomplete) block is kept uncompressed
+ * until it fills up. Cursors decode the list lazily, block by block.
+ */
+public class CompressedPostingList extends BlockPostingList {
+
+    /*** Default capacity of the arrays holding information about blocks */
+    private static final int DEFAULT_BLOCK_CAPACITY = 2;
+
+    /*** Empty array of block information shared by lists that have no blocks yet */
+    private static final int[] NO_BLOCKS = new int[0];
+
+    /*** Compressed blocks (created along with the first block) */
+    private ByteArray data;
+
+    /*** Offset of each block within the compressed data */
+    private int[] blockOffsets;
+
+    /*** Index of the last document of each block */
+    private int[] blockLastDocuments;
+
+    /*** Number of compressed blocks */
+    private int blockCount;
+
+    /*** Uncompressed documents which have not yet filled up a block */
+    private final PostingList tail;
+
+    /***
+     * Creates an instance of the class.
+     * @param codec codec used to compress the blocks
+     */
+    public CompressedPostingList(final IPostingsCodec codec) {
+        super(codec);
+        data = null;
+        blockOffsets = NO_BLOCKS;
+        blockLastDocuments = NO_BLOCKS;
+        blockCount = 0;
+        tail = new PostingList(1);
+    }
+
+    /***
+     * Adds an occurrence of the term in a given document. If the document
+     * is the same as the last one, only its frequency gets incremented.
+     * @param documentIndex index of the document
+     * @throws IllegalArgumentException if the document index is lower than the last one
+     */
+    public void add(int documentIndex) throws IllegalArgumentException {
+        add(documentIndex, 1);
+    }
+
+    /***
+     * Adds occurrences of the term in a given document. If the document
+     * is the same as the last one, only its frequency gets increased.
+     * @param documentIndex index of the document
+     * @param frequency number of occurrences of the term in the document
+     * @throws IllegalArgumentException if the document index is lower than the last one
+     */
+    public void add(int documentIndex, int frequency) throws IllegalArgumentException {
+        if (documentIndex < getLastDocument()) {
+            throw new IllegalArgumentException("Documents must be added in ascending order");
+        }
+        // Compress the tail once it's full and a new document comes in
+        // (until then, the frequency of its last document may still change).
+        if (tail.size() == IPostingsCodec.BLOCK_SIZE && documentIndex != tail.getLastDocument()) {
+            flushTail();
+        }
+        tail.add(documentIndex, frequency);
+    }
+
+    /***
+     * Compresses the tail into a new block.
+     */
+    private void flushTail() {
+        final int length = tail.size();
+        final int[] values = new int[length];
+
+        // Grow the arrays holding information about blocks.
+        if (data == null) {
+            data = new ByteArray();
+        }
+        if (blockCount == blockOffsets.length) {
+            final int capacity = Math.max(DEFAULT_BLOCK_CAPACITY, blockCount * 2);
+            blockOffsets = Arrays.copyOf(blockOffsets, capacity);
+            blockLastDocuments = Arrays.copyOf(blockLastDocuments, capacity);
+        }
+        blockOffsets[blockCount] = data.size();
+
+        // Encode the gaps between documents (the first document
+        // of the block is relative to the last one of the previous block).
+        int previous = blockCount == 0 ? 0 : blockLastDocuments[blockCount - 1];
+        for (int i = 0; i < length; i++) {
+            values[i] = tail.getDocument(i) - previous;
+            previous = tail.getDocument(i);
+        }
+        codec.encode(values, length, data);
+
+        // Encode the term frequencies (they're always at least 1).
+        for (int i = 0; i < length; i++) {
+            values[i] = tail.getFrequency(i) - 1;
+        }
+        codec.encode(values, length, data);
+
+        blockLastDocuments[blockCount] = tail.getLastDocument();
+        blockCount++;
+        tail.clear();
+    }
+
+    /***
+     * Returns the index of the last document in the list.
+     * @return index of the last document or -1 if the list is empty
+     */
+    public int getLastDocument() {
+        if (tail.size() > 0) {
+            return tail.getLastDocument();
+        }
+        return blockCount == 0 ? -1 : blockLastDocuments[blockCount - 1];
+    }
+
+    /***
+     * Returns the number of bytes taken by the compressed blocks.
+     * @return size of the compressed data in bytes
+     */
+    public int getCompressedSize() {
+        return data == null ? 0 : data.size();
+    }
+
+    /***
+     * Returns the number of bytes the posting list takes when written
+     * into an output using write(DataOutput).
+     * @return size of the serialized posting list in bytes
+     */
+    public int getSerializedSize() {
+        return 3 * Integer.BYTES + 2 * Integer.BYTES * blockCount + getCompressedSize() + 2 * Integer.BYTES * tail.size();
+    }
+
+    /***
+     * Writes the posting list into an output. The layout is the following:
+     * number of blocks, size of the compressed data, size of the tail,
+     * offsets of the blocks, last documents of the blocks, compressed data,
+     * documents of the tail, and term frequencies of the tail.
+     * @param out output the posting list is written into
+     * @throws IOException if the posting list could not be written
+     */
+    public void write(final DataOutput out) throws IOException {
+        out.writeInt(blockCount);
+        out.writeInt(getCompressedSize());
+        out.writeInt(tail.size());
+        for (int i = 0; i < blockCount; i++) {
+            out.writeInt(blockOffsets[i]);
+        }
+        for (int i = 0; i < blockCount; i++) {
+            out.writeInt(blockLastDocuments[i]);
+        }
+        if (data != null) {
+            data.writeTo(out);
+        }
+        for (int i = 0; i < tail.size(); i++) {
+            out.writeInt(tail.getDocument(i));
+        }
+        for (int i = 0; i < tail.size(); i++) {
+            out.writeInt(tail.getFrequency(i));
+        }
+    }
+
+    /***
+     * Reads a posting list that has been written using write(DataOutput).
+     * @param in input the posting list is read from
+     * @param codec codec the blocks have been compressed with
+     * @return posting list read from the input
+     * @throws IOException if the posting list could not be read
+     */
+    public static CompressedPostingList read(final DataInput in, final IPostingsCodec codec) throws IOException {
+        final var postings = new CompressedPostingList(codec);
+        final int blockCount = in.readInt();
+        final int compressedSize = in.readInt();
+        final int tailSize = in.readInt();
+
+        if (blockCount > 0) {
+            postings.blockOffsets = new int[blockCount];
+            postings.blockLastDocuments = new int[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                postings.blockOffsets[i] = in.readInt();
+            }
+            for (int i = 0; i < blockCount; i++) {
+                postings.blockLastDocuments[i] = in.readInt();
+            }
+            final byte[] bytes = new byte[compressedSize];
+            in.readFully(bytes);
+            postings.data = new ByteArray(bytes);
+            postings.blockCount = blockCount;
+        }
+        final int[] documents = new int[tailSize];
+        for (int i = 0; i < tailSize; i++) {
+            documents[i] = in.readInt();
+        }
+        for (int i = 0; i < tailSize; i++) {
+            postings.tail.add(documents[i], in.readInt());
+        }
+        return postings;
+    }
+
+    /***
+     * Returns the number of compressed blocks.
+     * @return number of blocks
+     */
+    @Override
+    protected int getBlockCount() {
+        return blockCount;
+    }
+
+    /***
+     * Returns the offset of a block within the compressed data.
+     * @param block index of the block
+     * @return offset of the block
+     */
+    @Override
+    protected int getBlockOffset(int block) {
+        return blockOffsets[block];
+    }
+
+    /***
+     * Returns the index of the last document of a block.
+     * @param block index of the block
+     * @return index of the last document of the block
+     */
+    @Override
+    protected int getBlockLastDocument(int block) {
+        return blockLastDocuments[block];
+    }
+
+    /***
+     * Returns a new read-only view of the compressed data.
+     * @return view of the compressed data (null if there are no blocks)
+     */
+    @Override
+    protected ByteBuffer getData() {
+        return data == null ? null : data.toBuffer();
+    }
+
+    /***
+     * Returns the number of documents which have not yet filled up a block.
+     * @return size of the tail
+     */
+    @Override
+    protected int getTailSize() {
+        return tail.size();
+    }
+
+    /***
+     * Returns the index of a document of the tail.
+     * @param i position within the tail
+     * @return index of the document
+     */
+    @Override
+    protected int getTailDocument(int i) {
+        return tail.getDocument(i);
+    }
+
+    /***
+     * Returns the term frequency of a document of the tail.
+     * @param i position within the tail
+     * @return term frequency within the document
+     */
+    @Override
+    protected int getTailFrequency(int i) {
+        return tail.getFrequency(i);
+    }
+}
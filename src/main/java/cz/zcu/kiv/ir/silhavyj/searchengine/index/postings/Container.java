@@ -0,0 +1,108 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a container of RoaringDocIdSet. A container holds
+ * the lower 16 bits of document indexes that share the same upper 16 bits.
+ * Depending on its content, it is stored either as a sorted array, as a bitmap,
+ * or as a list of runs. Binary operations always return a new container,
+ * so containers may be shared between sets as long as they're not modified.
+ */
+abstract class Container {
+
+    /*** Number of values a container can hold (2^16) */
+    static final int MAX_VALUES = 1 << 16;
+
+    /*** Maximum cardinality of an array container (beyond that, a bitmap is smaller) */
+    static final int MAX_ARRAY_CARDINALITY = 4096;
+
+    /*** Size of a bitmap container in bytes */
+    static final int BITMAP_SIZE_IN_BYTES = MAX_VALUES / 8;
+
+    /***
+     * Returns the number of values stored in the container.
+     * @return cardinality of the container
+     */
+    abstract int cardinality();
+
+    /***
+     * Checks if the container holds a given value.
+     * @param value value (lower 16 bits of a document index)
+     * @return True, if the value is present. False, otherwise.
+     */
+    abstract boolean contains(int value);
+
+    /***
+     * Adds a value into the container.
+     * @param value value (lower 16 bits of a document index)
+     * @return container holding the value (it may be a different type of container)
+     */
+    abstract Container add(int value);
+
+    /***
+     * Returns the smallest value that is greater than or equal to a given value.
+     * @param from lower bound
+     * @return the next value or -1 if there is no such a value
+     */
+    abstract int nextValue(int from);
+
+    /***
+     * Returns the number of runs of consecutive values.
+     * @return number of runs
+     */
+    abstract int numberOfRuns();
+
+    /***
+     * Converts the container into a bitmap container.
+     * @return bitmap container holding the same values (a new one unless it already is a bitmap)
+     */
+    abstract BitmapContainer toBitmap();
+
+    /***
+     * Creates a copy of the container.
+     * @return copy of the container
+     */
+    abstract Container copy();
+
+    /***
+     * Calculates the intersection of two containers.
+     * @param other the other container
+     * @return new container holding the intersection
+     */
+    abstract Container and(final Container other);
+
+    /***
+     * Calculates the union of two containers.
+     * @param other the other container
+     * @return new container holding the union
+     */
+    abstract Container or(final Container other);
+
+    /***
+     * Calculates the difference of two containers (this AND NOT other).
+     * @param other the other container
+     * @return new container holding the values which are not in the other container
+     */
+    abstract Container andNot(final Container other);
+
+    /***
+     * Returns the container in its most compact representation
+     * (array, bitmap, or runs).
+     * @return optimized container (it may be the same instance)
+     */
+    Container optimize() {
+        final int cardinality = cardinality();
+        final int runs = numberOfRuns();
+        final int arraySize = cardinality <= MAX_ARRAY_CARDINALITY ? 2 * cardinality : Integer.MAX_VALUE;
+        final int runSize = 4 * runs + 2;
+
+        if (runSize < arraySize && runSize < BITMAP_SIZE_IN_BYTES) {
+            return this instanceof RunContainer ? this : RunContainer.fromContainer(this, runs);
+        }
+        if (arraySize <= BITMAP_SIZE_IN_BYTES) {
+            return this instanceof ArrayContainer ? this : ArrayContainer.fromContainer(this);
+        }
+        return toBitmap();
+    }
+}
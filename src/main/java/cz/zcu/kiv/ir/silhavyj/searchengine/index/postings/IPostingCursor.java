@@ -0,0 +1,44 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a read-only cursor over a posting list.
+ * The cursor starts positioned before the first document, so
+ * nextDoc() needs to be called before docId() returns a valid value.
+ * Documents are always visited in ascending order.
+ */
+public interface IPostingCursor {
+
+    /*** Value returned once the cursor has been exhausted */
+    int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+    /***
+     * Returns the index of the document the cursor is currently positioned at.
+     * @return index of the current document, -1 if nextDoc() has not been called yet,
+     *         or NO_MORE_DOCS if the cursor has been exhausted
+     */
+    int docId();
+
+    /***
+     * Moves the cursor to the next document.
+     * @return index of the next document or NO_MORE_DOCS if there are no more documents
+     */
+    int nextDoc();
+
+    /***
+     * Moves the cursor forward to the first document whose index is greater
+     * than or equal to the target. If the cursor is already positioned at such
+     * a document, it stays where it is. Implementations are expected to skip
+     * over documents in sub-linear time.
+     * @param target index of the document to move to
+     * @return index of the document the cursor ended up at or NO_MORE_DOCS
+     */
+    int advance(int target);
+
+    /***
+     * Returns the number of occurrences of the term in the current document.
+     * @return term frequency within the current document
+     */
+    int freq();
+}
@@ -0,0 +1,23 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a read-only view of a posting list
+ * ("row" in an inverted index). The documents are sorted by
+ * their indexes in ascending order.
+ */
+public interface IPostingList {
+
+    /***
+     * Returns the number of documents stored in the posting list.
+     * @return number of documents (document frequency)
+     */
+    int size();
+
+    /***
+     * Creates a new cursor positioned before the first document.
+     * @return new cursor over the posting list
+     */
+    IPostingCursor cursor();
+}
@@ -0,0 +1,41 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.nio.ByteBuffer;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a codec used to compress blocks of posting lists.
+ * A codec encodes a block of non-negative integers (gaps between
+ * document indexes or term frequencies) into a sequence of bytes
+ * and decodes them back.
+ */
+public interface IPostingsCodec {
+
+    /*** Maximum number of values encoded in one block */
+    int BLOCK_SIZE = 128;
+
+    /***
+     * Returns the name of the codec.
+     * @return name of the codec
+     */
+    String getName();
+
+    /***
+     * Encodes a block of non-negative integers.
+     * @param values values to be encoded
+     * @param length number of values to be encoded (at most BLOCK_SIZE)
+     * @param out output the encoded bytes are appended to
+     */
+    void encode(final int[] values, int length, final ByteArray out);
+
+    /***
+     * Decodes a block of integers. The buffer is expected to be positioned
+     * at the beginning of the block. After the method returns, it is positioned
+     * right after the block.
+     * @param in buffer holding the encoded values
+     * @param values output array the decoded values are stored into
+     * @param length number of values to be decoded
+     */
+    void decode(final ByteBuffer in, final int[] values, int length);
+}
@@ -0,0 +1,133 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.nio.ByteBuffer;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a read-only posting list stored in a buffer
+ * (typically a memory-mapped index file) in the layout written by
+ * CompressedPostingList.write. Nothing is copied onto the heap,
+ * the blocks are decoded straight from the buffer as the list is iterated.
+ */
+public class MappedPostingList extends BlockPostingList {
+
+    /*** Buffer holding the posting list */
+    private final ByteBuffer buffer;
+
+    /*** Position of the offsets of the blocks within the buffer */
+    private final int blockOffsetsPosition;
+
+    /*** Position of the last documents of the blocks within the buffer */
+    private final int blockLastDocumentsPosition;
+
+    /*** Position of the compressed data within the buffer */
+    private final int dataPosition;
+
+    /*** Position of the documents of the tail within the buffer */
+    private final int tailDocumentsPosition;
+
+    /*** Position of the term frequencies of the tail within the buffer */
+    private final int tailFrequenciesPosition;
+
+    /*** Number of compressed blocks */
+    private final int blockCount;
+
+    /*** Size of the compressed data in bytes */
+    private final int compressedSize;
+
+    /*** Number of documents which have not filled up a block */
+    private final int tailSize;
+
+    /***
+     * Creates an instance of the class.
+     * @param buffer buffer holding the posting list (it's only read using absolute positions)
+     * @param position position of the posting list within the buffer
+     * @param codec codec the blocks have been compressed with
+     */
+    public MappedPostingList(final ByteBuffer buffer, int position, final IPostingsCodec codec) {
+        super(codec);
+        this.buffer = buffer;
+        blockCount = buffer.getInt(position);
+        compressedSize = buffer.getInt(position + Integer.BYTES);
+        tailSize = buffer.getInt(position + 2 * Integer.BYTES);
+        blockOffsetsPosition = position + 3 * Integer.BYTES;
+        blockLastDocumentsPosition = blockOffsetsPosition + blockCount * Integer.BYTES;
+        dataPosition = blockLastDocumentsPosition + blockCount * Integer.BYTES;
+        tailDocumentsPosition = dataPosition + compressedSize;
+        tailFrequenciesPosition = tailDocumentsPosition + tailSize * Integer.BYTES;
+    }
+
+    /***
+     * Returns the number of compressed blocks.
+     * @return number of blocks
+     */
+    @Override
+    protected int getBlockCount() {
+        return blockCount;
+    }
+
+    /***
+     * Returns the offset of a block within the compressed data.
+     * @param block index of the block
+     * @return offset of the block
+     */
+    @Override
+    protected int getBlockOffset(int block) {
+        return buffer.getInt(blockOffsetsPosition + block * Integer.BYTES);
+    }
+
+    /***
+     * Returns the index of the last document of a block.
+     * @param block index of the block
+     * @return index of the last document of the block
+     */
+    @Override
+    protected int getBlockLastDocument(int block) {
+        return buffer.getInt(blockLastDocumentsPosition + block * Integer.BYTES);
+    }
+
+    /***
+     * Returns a new read-only view of the compressed data.
+     * @return view of the compressed data (null if there are no blocks)
+     */
+    @Override
+    protected ByteBuffer getData() {
+        if (blockCount == 0) {
+            return null;
+        }
+        final ByteBuffer data = buffer.duplicate();
+        data.limit(dataPosition + compressedSize);
+        data.position(dataPosition);
+        return data.slice().asReadOnlyBuffer();
+    }
+
+    /***
+     * Returns the number of documents which have not filled up a block.
+     * @return size of the tail
+     */
+    @Override
+    protected int getTailSize() {
+        return tailSize;
+    }
+
+    /***
+     * Returns the index of a document of the tail.
+     * @param i position within the tail
+     * @return index of the document
+     */
+    @Override
+    protected int getTailDocument(int i) {
+        return buffer.getInt(tailDocumentsPosition + i * Integer.BYTES);
+    }
+
+    /***
+     * Returns the term frequency of a document of the tail.
+     * @param i position within the tail
+     * @return term frequency within the document
+     */
+    @Override
+    protected int getTailFrequency(int i) {
+        return buffer.getInt(tailFrequenciesPosition + i * Integer.BYTES);
+    }
+}
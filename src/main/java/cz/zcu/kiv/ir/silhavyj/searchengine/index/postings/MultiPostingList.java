@@ -0,0 +1,138 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.util.List;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a read-only union of several posting lists
+ * (e.g. the posting lists of one term in different segments of an index).
+ * The lists are expected to hold distinct documents. If a document occurs
+ * in more than one list, it's visited only once and its term frequencies
+ * are summed up.
+ */
+public class MultiPostingList implements IPostingList {
+
+    /*** Posting lists the union consists of */
+    private final IPostingList[] postingLists;
+
+    /*** Total number of documents stored in the posting lists */
+    private final int size;
+
+    /***
+     * Creates an instance of the class.
+     * @param postingLists posting lists the union consists of
+     */
+    public MultiPostingList(final List<? extends IPostingList> postingLists) {
+        this.postingLists = postingLists.toArray(new IPostingList[0]);
+        int total = 0;
+        for (final var postings : this.postingLists) {
+            total += postings.size();
+        }
+        size = total;
+    }
+
+    /***
+     * Returns the number of documents stored in the posting lists.
+     * @return number of documents (document frequency)
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /***
+     * Creates a new cursor positioned before the first document.
+     * @return new cursor over the union of the posting lists
+     */
+    @Override
+    public IPostingCursor cursor() {
+        final IPostingCursor[] cursors = new IPostingCursor[postingLists.length];
+        for (int i = 0; i < cursors.length; i++) {
+            cursors[i] = postingLists[i].cursor();
+        }
+        return new Cursor(cursors);
+    }
+
+    /***
+     * Cursor merging the cursors of the posting lists by document index.
+     */
+    private static class Cursor implements IPostingCursor {
+
+        /*** Cursors over the individual posting lists */
+        private final IPostingCursor[] cursors;
+
+        /*** Index of the current document */
+        private int docId;
+
+        /***
+         * Creates an instance of the class.
+         * @param cursors cursors over the individual posting lists
+         */
+        Cursor(final IPostingCursor[] cursors) {
+            this.cursors = cursors;
+            docId = -1;
+        }
+
+        /***
+         * Returns the index of the document the cursor is currently positioned at.
+         * @return index of the current document
+         */
+        @Override
+        public int docId() {
+            return docId;
+        }
+
+        /***
+         * Moves the cursor to the next document of any of the posting lists.
+         * @return index of the next document or NO_MORE_DOCS
+         */
+        @Override
+        public int nextDoc() {
+            if (docId == NO_MORE_DOCS) {
+                return NO_MORE_DOCS;
+            }
+            return advance(docId + 1);
+        }
+
+        /***
+         * Moves the cursor forward to the first document whose index is greater
+         * than or equal to the target.
+         * @param target index of the document to move to
+         * @return index of the document the cursor ended up at or NO_MORE_DOCS
+         */
+        @Override
+        public int advance(int target) {
+            if (target <= docId) {
+                return docId;
+            }
+            // Move all cursors that are behind the target and take the smallest document.
+            int next = NO_MORE_DOCS;
+            for (final var cursor : cursors) {
+                int document = cursor.docId();
+                if (document < target) {
+                    document = cursor.advance(target);
+                }
+                next = Math.min(next, document);
+            }
+            docId = next;
+            return docId;
+        }
+
+        /***
+         * Returns the number of occurrences of the term in the current document.
+         * @return term frequency within the current document
+         */
+        @Override
+        public int freq() {
+            // Sum up the frequencies of all lists containing the current document.
+            int frequency = 0;
+            for (final var cursor : cursors) {
+                if (cursor.docId() == docId) {
+                    frequency += cursor.freq();
+                }
+            }
+            return frequency;
+        }
+    }
+}
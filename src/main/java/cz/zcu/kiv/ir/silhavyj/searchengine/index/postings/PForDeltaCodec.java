@@ -0,0 +1,147 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.nio.ByteBuffer;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a patched frame-of-reference (PForDelta) codec.
+ * All values of a block are bit-packed using the same bit width which is
+ * chosen so that the block takes as little space as possible. Values that
+ * do not fit into the bit width (exceptions) are patched afterwards.
+ *
+ * Layout of a block:
+ * [bit width (1B)][number of exceptions (1B)][packed low bits][exceptions: position (1B), high bits (VByte)]
+ */
+public class PForDeltaCodec implements IPostingsCodec {
+
+    /*** Name of the codec */
+    public static final String NAME = "PForDelta";
+
+    /*** Maximum number of bits a value can take */
+    private static final int MAX_BITS = 32;
+
+    /***
+     * Returns the number of bits needed to represent a value.
+     * @param value non-negative value
+     * @return number of bits (0 for zero)
+     */
+    private static int bitsNeeded(int value) {
+        return MAX_BITS - Integer.numberOfLeadingZeros(value);
+    }
+
+    /***
+     * Chooses the bit width that minimizes the size of the encoded block.
+     * @param histogram histogram[k] = number of values that need exactly k bits
+     * @param length number of values in the block
+     * @return optimal bit width
+     */
+    private static int chooseBitWidth(final int[] histogram, int length) {
+        int bestWidth = MAX_BITS;
+        int bestCost = Integer.MAX_VALUE;
+
+        for (int width = MAX_BITS; width >= 0; width--) {
+            int cost = (length * width + 7) / 8;
+            for (int bits = width + 1; bits <= MAX_BITS; bits++) {
+                // Each exception takes its position plus the high bits encoded as VByte.
+                cost += histogram[bits] * (1 + (bits - width + 6) / 7);
+            }
+            if (cost <= bestCost) {
+                bestCost = cost;
+                bestWidth = width;
+            }
+        }
+        return bestWidth;
+    }
+
+    /***
+     * Returns the name of the codec.
+     * @return name of the codec
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /***
+     * Encodes a block of non-negative integers.
+     * @param values values to be encoded
+     * @param length number of values to be encoded (at most BLOCK_SIZE)
+     * @param out output the encoded bytes are appended to
+     */
+    @Override
+    public void encode(final int[] values, int length, final ByteArray out) {
+        // Find out how many bits each value needs.
+        final int[] histogram = new int[MAX_BITS + 1];
+        for (int i = 0; i < length; i++) {
+            histogram[bitsNeeded(values[i])]++;
+        }
+        final int width = chooseBitWidth(histogram, length);
+        final long mask = (1L << width) - 1;
+
+        int exceptions = 0;
+        for (int bits = width + 1; bits <= MAX_BITS; bits++) {
+            exceptions += histogram[bits];
+        }
+        out.write(width);
+        out.write(exceptions);
+
+        // Pack the low bits of all values.
+        long buffer = 0;
+        int bufferedBits = 0;
+        for (int i = 0; i < length; i++) {
+            buffer |= (values[i] & mask) << bufferedBits;
+            bufferedBits += width;
+            while (bufferedBits >= 8) {
+                out.write((int)buffer);
+                buffer >>>= 8;
+                bufferedBits -= 8;
+            }
+        }
+        if (bufferedBits > 0) {
+            out.write((int)buffer);
+        }
+
+        // Store the high bits of the values that did not fit.
+        if (exceptions > 0) {
+            for (int i = 0; i < length; i++) {
+                if (bitsNeeded(values[i]) > width) {
+                    out.write(i);
+                    VByteCodec.writeVInt(values[i] >>> width, out);
+                }
+            }
+        }
+    }
+
+    /***
+     * Decodes a block of integers.
+     * @param in buffer holding the encoded values
+     * @param values output array the decoded values are stored into
+     * @param length number of values to be decoded
+     */
+    @Override
+    public void decode(final ByteBuffer in, final int[] values, int length) {
+        final int width = in.get() & 0xFF;
+        final int exceptions = in.get() & 0xFF;
+        final long mask = (1L << width) - 1;
+
+        // Unpack the low bits of all values.
+        long buffer = 0;
+        int bufferedBits = 0;
+        for (int i = 0; i < length; i++) {
+            while (bufferedBits < width) {
+                buffer |= (long)(in.get() & 0xFF) << bufferedBits;
+                bufferedBits += 8;
+            }
+            values[i] = (int)(buffer & mask);
+            buffer >>>= width;
+            bufferedBits -= width;
+        }
+
+        // Patch the exceptions.
+        for (int i = 0; i < exceptions; i++) {
+            final int position = in.get() & 0xFF;
+            values[position] |= VByteCodec.readVInt(in) << width;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.Document;
+
+import java.util.Arrays;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a growable posting list backed by primitive arrays.
+ * It stores sorted indexes of documents along with the number of occurrences
+ * of the term in each of them. Compared to a chain of Documents, there's
+ * only a couple of objects per list no matter how many documents it holds.
+ */
+public class PostingList implements IPostingList {
+
+    /*** Default capacity of a new posting list */
+    private static final int DEFAULT_CAPACITY = 4;
+
+    /*** Sorted indexes of documents */
+    private int[] documents;
+
+    /*** Term frequencies (frequencies[i] belongs to documents[i]) */
+    private int[] frequencies;
+
+    /*** Number of documents stored in the list */
+    private int size;
+
+    /***
+     * Creates an instance of the class.
+     */
+    public PostingList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param capacity initial capacity of the list
+     */
+    public PostingList(int capacity) {
+        capacity = Math.max(1, capacity);
+        documents = new int[capacity];
+        frequencies = new int[capacity];
+        size = 0;
+    }
+
+    /***
+     * Creates a posting list out of a linked list of Documents.
+     * Uninitialized documents are skipped.
+     * @param document head of a sorted linked list of documents (may be null)
+     * @return new posting list holding the same documents
+     */
+    public static PostingList fromDocument(Document document) {
+        final PostingList postingList = new PostingList();
+        while (document != null) {
+            if (!document.isUninitialized()) {
+                postingList.add(document.getIndex());
+            }
+            document = document.getNext();
+        }
+        return postingList;
+    }
+
+    /***
+     * Adds an occurrence of the term in a given document. If the document
+     * is the same as the last one, only its frequency gets incremented.
+     * @param documentIndex index of the document
+     * @throws IllegalArgumentException if the document index is lower than the last one
+     */
+    public void add(int documentIndex) throws IllegalArgumentException {
+        add(documentIndex, 1);
+    }
+
+    /***
+     * Adds occurrences of the term in a given document. If the document
+     * is the same as the last one, only its frequency gets increased.
+     * @param documentIndex index of the document
+     * @param frequency number of occurrences of the term in the document
+     * @throws IllegalArgumentException if the document index is lower than the last one
+     */
+    public void add(int documentIndex, int frequency) throws IllegalArgumentException {
+        if (size > 0) {
+            final int last = documents[size - 1];
+            if (documentIndex == last) {
+                frequencies[size - 1] += frequency;
+                return;
+            }
+            if (documentIndex < last) {
+                throw new IllegalArgumentException("Documents must be added in ascending order");
+            }
+        }
+        // Grow the arrays if they're full.
+        if (size == documents.length) {
+            final int capacity = documents.length + (documents.length >> 1) + 1;
+            documents = Arrays.copyOf(documents, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+        }
+        documents[size] = documentIndex;
+        frequencies[size] = frequency;
+        size++;
+    }
+
+    /***
+     * Returns the index of the i-th document.
+     * @param i position within the list
+     * @return index of the document
+     */
+    public int getDocument(int i) {
+        return documents[i];
+    }
+
+    /***
+     * Returns the term frequency of the i-th document.
+     * @param i position within the list
+     * @return number of occurrences of the term in the document
+     */
+    public int getFrequency(int i) {
+        return frequencies[i];
+    }
+
+    /***
+     * Returns the index of the last document in the list.
+     * @return index of the last document or -1 if the list is empty
+     */
+    public int getLastDocument() {
+        return size == 0 ? -1 : documents[size - 1];
+    }
+
+    /***
+     * Removes all documents from the list (the capacity is preserved).
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /***
+     * Returns the number of documents stored in the posting list.
+     * @return number of documents (document frequency)
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /***
+     * Creates a new cursor positioned before the first document.
+     * @return new cursor over the posting list
+     */
+    @Override
+    public IPostingCursor cursor() {
+        return new Cursor();
+    }
+
+    /***
+     * Converts a posting list into a linked list of Documents.
+     * This is used only as a compatibility adapter.
+     * @param postings posting list to be converted
+     * @return head of the linked list or null if the list is empty
+     */
+    public static Document toDocument(final IPostingList postings) {
+        Document head = null;
+        Document currentDoc = null;
+        final IPostingCursor cursor = postings.cursor();
+
+        while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+            final Document document = new Document(cursor.docId());
+            if (head == null) {
+                head = document;
+            } else {
+                currentDoc.setNext(document);
+            }
+            currentDoc = document;
+        }
+        return head;
+    }
+
+    /***
+     * Cursor iterating over the primitive arrays of the posting list.
+     */
+    private class Cursor implements IPostingCursor {
+
+        /*** Current position within the arrays */
+        private int position = -1;
+
+        /***
+         * Returns the index of the document the cursor is currently positioned at.
+         * @return index of the current document
+         */
+        @Override
+        public int docId() {
+            if (position < 0) {
+                return -1;
+            }
+            return position < size ? documents[position] : NO_MORE_DOCS;
+        }
+
+        /***
+         * Moves the cursor to the next document.
+         * @return index of the next document or NO_MORE_DOCS
+         */
+        @Override
+        public int nextDoc() {
+            if (position < size) {
+                position++;
+            }
+            return docId();
+        }
+
+        /***
+         * Moves the cursor forward to the first document whose index is greater
+         * than or equal to the target. It uses galloping (exponential) search
+         * followed by a binary search.
+         * @param target index of the document to move to
+         * @return index of the document the cursor ended up at or NO_MORE_DOCS
+         */
+        @Override
+        public int advance(int target) {
+            if (docId() >= target) {
+                return docId();
+            }
+            int low = position + 1;
+            int high = low;
+            int step = 1;
+
+            // Gallop forward until a document greater than or equal to the target is found.
+            while (high < size && documents[high] < target) {
+                low = high + 1;
+                high = low + step;
+                step <<= 1;
+            }
+
+            // Binary search the range the target has to be in.
+            high = Math.min(high, size);
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (documents[middle] < target) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            position = low;
+            return docId();
+        }
+
+        /***
+         * Returns the number of occurrences of the term in the current document.
+         * @return term frequency within the current document
+         */
+        @Override
+        public int freq() {
+            return frequencies[position];
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.util.Arrays;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a compressed bitmap of document indexes (roaring bitmap).
+ * Document indexes are split into chunks by their upper 16 bits. Each chunk is
+ * stored in a container of its own - a sorted array for sparse chunks, a bitmap
+ * for dense chunks, or a list of runs for chunks of consecutive documents.
+ * AND, OR, and AND NOT are calculated container by container, and bitmaps
+ * are processed 64 documents at a time.
+ */
+public class RoaringDocIdSet implements IPostingList {
+
+    /*** Upper 16 bits of the documents held by each container (sorted) */
+    private char[] keys;
+
+    /*** Containers holding the lower 16 bits of the documents */
+    private Container[] containers;
+
+    /*** Number of containers */
+    private int containerCount;
+
+    /*** Total number of documents */
+    private int cardinality;
+
+    /***
+     * Creates an empty set.
+     */
+    public RoaringDocIdSet() {
+        this(1);
+    }
+
+    /***
+     * Creates an empty set.
+     * @param capacity initial number of containers
+     */
+    private RoaringDocIdSet(int capacity) {
+        keys = new char[Math.max(1, capacity)];
+        containers = new Container[keys.length];
+        containerCount = 0;
+        cardinality = 0;
+    }
+
+    /***
+     * Creates a set out of a posting list. If the posting list
+     * is already a RoaringDocIdSet, it is returned as it is.
+     * @param postings posting list to be converted
+     * @return set holding the documents of the posting list
+     */
+    public static RoaringDocIdSet of(final IPostingList postings) {
+        if (postings instanceof RoaringDocIdSet) {
+            return (RoaringDocIdSet)postings;
+        }
+        final RoaringDocIdSet result = new RoaringDocIdSet();
+        final IPostingCursor cursor = postings.cursor();
+        while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+            result.add(cursor.docId());
+        }
+        return result;
+    }
+
+    /***
+     * Returns the position of a container by its key.
+     * @param key upper 16 bits of a document index
+     * @return position of the container or (-(insertion point) - 1) if it does not exist
+     */
+    private int indexOf(int key) {
+        // Fast path - documents are usually added in ascending order.
+        if (containerCount > 0 && keys[containerCount - 1] == key) {
+            return containerCount - 1;
+        }
+        return Arrays.binarySearch(keys, 0, containerCount, (char)key);
+    }
+
+    /***
+     * Appends a container whose key is greater than all keys in the set.
+     * @param key upper 16 bits of the documents held by the container
+     * @param container container to be appended
+     */
+    private void append(int key, final Container container) {
+        if (containerCount == keys.length) {
+            keys = Arrays.copyOf(keys, 2 * containerCount);
+            containers = Arrays.copyOf(containers, 2 * containerCount);
+        }
+        keys[containerCount] = (char)key;
+        containers[containerCount] = container;
+        containerCount++;
+        cardinality += container.cardinality();
+    }
+
+    /***
+     * Adds a document into the set. Documents can be added in any order.
+     * @param documentIndex index of the document (non-negative)
+     */
+    public void add(int documentIndex) {
+        final int key = documentIndex >>> 16;
+        int position = indexOf(key);
+
+        // Create a new container if there is none for the key.
+        if (position < 0) {
+            position = -position - 1;
+            if (containerCount == keys.length) {
+                keys = Arrays.copyOf(keys, 2 * containerCount);
+                containers = Arrays.copyOf(containers, 2 * containerCount);
+            }
+            System.arraycopy(keys, position, keys, position + 1, containerCount - position);
+            System.arraycopy(containers, position, containers, position + 1, containerCount - position);
+            keys[position] = (char)key;
+            containers[position] = new ArrayContainer(1);
+            containerCount++;
+        }
+        final Container container = containers[position];
+        final int previousCardinality = container.cardinality();
+        containers[position] = container.add(documentIndex & 0xFFFF);
+        cardinality += containers[position].cardinality() - previousCardinality;
+    }
+
+    /***
+     * Checks if a document is present in the set.
+     * @param documentIndex index of the document
+     * @return True, if the document is in the set. False, otherwise.
+     */
+    public boolean contains(int documentIndex) {
+        final int position = indexOf(documentIndex >>> 16);
+        return position >= 0 && containers[position].contains(documentIndex & 0xFFFF);
+    }
+
+    /***
+     * Converts all containers into their most compact representation.
+     * This is worth calling once the set is not going to change much,
+     * e.g. runs of consecutive documents are stored as runs.
+     */
+    public void optimize() {
+        for (int i = 0; i < containerCount; i++) {
+            containers[i] = containers[i].optimize();
+        }
+    }
+
+    /***
+     * Calculates the intersection of two sets.
+     * @param set1 first set
+     * @param set2 second set
+     * @return new set holding documents that are in both sets
+     */
+    public static RoaringDocIdSet and(final RoaringDocIdSet set1, final RoaringDocIdSet set2) {
+        final RoaringDocIdSet result = new RoaringDocIdSet(Math.min(set1.containerCount, set2.containerCount));
+        int i = 0;
+        int j = 0;
+        while (i < set1.containerCount && j < set2.containerCount) {
+            if (set1.keys[i] < set2.keys[j]) {
+                i++;
+            } else if (set1.keys[i] > set2.keys[j]) {
+                j++;
+            } else {
+                final Container container = set1.containers[i].and(set2.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.append(set1.keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /***
+     * Calculates the union of two sets.
+     * @param set1 first set
+     * @param set2 second set
+     * @return new set holding documents that are in at least one of the sets
+     */
+    public static RoaringDocIdSet or(final RoaringDocIdSet set1, final RoaringDocIdSet set2) {
+        final RoaringDocIdSet result = new RoaringDocIdSet(set1.containerCount + set2.containerCount);
+        int i = 0;
+        int j = 0;
+        while (i < set1.containerCount || j < set2.containerCount) {
+            if (j == set2.containerCount || (i < set1.containerCount && set1.keys[i] < set2.keys[j])) {
+                result.append(set1.keys[i], set1.containers[i].copy());
+                i++;
+            } else if (i == set1.containerCount || set1.keys[i] > set2.keys[j]) {
+                result.append(set2.keys[j], set2.containers[j].copy());
+                j++;
+            } else {
+                result.append(set1.keys[i], set1.containers[i].or(set2.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /***
+     * Calculates the difference of two sets.
+     * @param set1 set the documents are taken from
+     * @param set2 set of documents to be excluded
+     * @return new set holding documents of the first set which are not in the second one
+     */
+    public static RoaringDocIdSet andNot(final RoaringDocIdSet set1, final RoaringDocIdSet set2) {
+        final RoaringDocIdSet result = new RoaringDocIdSet(set1.containerCount);
+        int j = 0;
+        for (int i = 0; i < set1.containerCount; i++) {
+            while (j < set2.containerCount && set2.keys[j] < set1.keys[i]) {
+                j++;
+            }
+            final Container container;
+            if (j < set2.containerCount && set2.keys[j] == set1.keys[i]) {
+                container = set1.containers[i].andNot(set2.containers[j]);
+            } else {
+                container = set1.containers[i].copy();
+            }
+            if (container.cardinality() > 0) {
+                result.append(set1.keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    /***
+     * Returns the number of documents stored in the set.
+     * @return number of documents
+     */
+    @Override
+    public int size() {
+        return cardinality;
+    }
+
+    /***
+     * Creates a new cursor positioned before the first document.
+     * @return new cursor over the set
+     */
+    @Override
+    public IPostingCursor cursor() {
+        return new Cursor();
+    }
+
+    /***
+     * Cursor iterating over the set container by container.
+     */
+    private class Cursor implements IPostingCursor {
+
+        /*** Position of the current container */
+        private int position = 0;
+
+        /*** Index of the current document */
+        private int docId = -1;
+
+        /***
+         * Returns the index of the document the cursor is currently positioned at.
+         * @return index of the current document
+         */
+        @Override
+        public int docId() {
+            return docId;
+        }
+
+        /***
+         * Moves the cursor to the next document.
+         * @return index of the next document or NO_MORE_DOCS
+         */
+        @Override
+        public int nextDoc() {
+            return docId == NO_MORE_DOCS ? docId : advance(docId + 1);
+        }
+
+        /***
+         * Moves the cursor forward to the first document whose index is greater
+         * than or equal to the target. Containers are looked up by a binary search.
+         * @param target index of the document to move to
+         * @return index of the document the cursor ended up at or NO_MORE_DOCS
+         */
+        @Override
+        public int advance(int target) {
+            if (docId >= target) {
+                return docId;
+            }
+            final int key = target >>> 16;
+            if (position < containerCount && keys[position] < key) {
+                final int index = Arrays.binarySearch(keys, position, containerCount, (char)key);
+                position = index >= 0 ? index : -index - 1;
+            }
+            while (position < containerCount) {
+                final int from = keys[position] == key ? target & 0xFFFF : 0;
+                final int value = containers[position].nextValue(from);
+                if (value >= 0) {
+                    docId = (keys[position] << 16) | value;
+                    return docId;
+                }
+                position++;
+            }
+            docId = NO_MORE_DOCS;
+            return docId;
+        }
+
+        /***
+         * Returns the number of occurrences of the term in the current document.
+         * Sets do not hold term frequencies, so it's always 1.
+         * @return 1
+         */
+        @Override
+        public int freq() {
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.util.Arrays;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a container of values stored as runs of consecutive
+ * values (run-length encoding). It is very compact for sets such as the set
+ * of all documents, where document indexes form one long run.
+ */
+final class RunContainer extends Container {
+
+    /*** First value of each run */
+    private char[] starts;
+
+    /*** Last value of each run (inclusive) */
+    private char[] ends;
+
+    /*** Number of runs */
+    private int runCount;
+
+    /*** Number of values stored in the container */
+    private int cardinality;
+
+    /***
+     * Creates an instance of the class.
+     * @param capacity initial number of runs
+     */
+    RunContainer(int capacity) {
+        starts = new char[Math.max(1, capacity)];
+        ends = new char[starts.length];
+        runCount = 0;
+        cardinality = 0;
+    }
+
+    /***
+     * Creates a run container holding the same values as a given container.
+     * @param container container to be converted
+     * @param runs number of runs of the container
+     * @return new run container
+     */
+    static RunContainer fromContainer(final Container container, int runs) {
+        final RunContainer result = new RunContainer(runs);
+        for (int value = container.nextValue(0); value >= 0; value = container.nextValue(value + 1)) {
+            result.append(value);
+        }
+        return result;
+    }
+
+    /***
+     * Appends a value greater than all values stored in the container.
+     * @param value value to be appended
+     */
+    private void append(int value) {
+        if (runCount > 0 && ends[runCount - 1] + 1 == value) {
+            ends[runCount - 1] = (char)value;
+        } else {
+            if (runCount == starts.length) {
+                starts = Arrays.copyOf(starts, 2 * runCount);
+                ends = Arrays.copyOf(ends, 2 * runCount);
+            }
+            starts[runCount] = (char)value;
+            ends[runCount] = (char)value;
+            runCount++;
+        }
+        cardinality++;
+    }
+
+    /***
+     * Returns the position of the last run starting at or before a given value.
+     * @param value value to be found
+     * @return position of the run or -1 if all runs start after the value
+     */
+    private int findRun(int value) {
+        int low = 0;
+        int high = runCount - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            if (starts[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return high;
+    }
+
+    /***
+     * Returns the number of values stored in the container.
+     * @return cardinality of the container
+     */
+    @Override
+    int cardinality() {
+        return cardinality;
+    }
+
+    /***
+     * Checks if the container holds a given value.
+     * @param value value (lower 16 bits of a document index)
+     * @return True, if the value is present. False, otherwise.
+     */
+    @Override
+    boolean contains(int value) {
+        final int run = findRun(value);
+        return run >= 0 && value <= ends[run];
+    }
+
+    /***
+     * Adds a value into the container.
+     * @param value value (lower 16 bits of a document index)
+     * @return container holding the value (it may be a different type of container)
+     */
+    @Override
+    Container add(int value) {
+        if (runCount == 0 || value > ends[runCount - 1]) {
+            append(value);
+            return this;
+        }
+        if (contains(value)) {
+            return this;
+        }
+        // Inserting into the middle is rare, so the container is converted.
+        return toBitmap().add(value).optimize();
+    }
+
+    /***
+     * Returns the smallest value that is greater than or equal to a given value.
+     * @param from lower bound
+     * @return the next value or -1 if there is no such a value
+     */
+    @Override
+    int nextValue(int from) {
+        final int run = findRun(from);
+        if (run >= 0 && from <= ends[run]) {
+            return from;
+        }
+        return run + 1 < runCount ? starts[run + 1] : -1;
+    }
+
+    /***
+     * Returns the number of runs of consecutive values.
+     * @return number of runs
+     */
+    @Override
+    int numberOfRuns() {
+        return runCount;
+    }
+
+    /***
+     * Converts the container into a bitmap container.
+     * @return bitmap container holding the same values (a new one unless it already is a bitmap)
+     */
+    @Override
+    BitmapContainer toBitmap() {
+        final BitmapContainer bitmap = new BitmapContainer();
+        for (int i = 0; i < runCount; i++) {
+            bitmap.setRange(starts[i], ends[i]);
+        }
+        return bitmap;
+    }
+
+    /***
+     * Creates a copy of the container.
+     * @return copy of the container
+     */
+    @Override
+    Container copy() {
+        final RunContainer result = new RunContainer(runCount);
+        System.arraycopy(starts, 0, result.starts, 0, runCount);
+        System.arraycopy(ends, 0, result.ends, 0, runCount);
+        result.runCount = runCount;
+        result.cardinality = cardinality;
+        return result;
+    }
+
+    /***
+     * Calculates the intersection of two containers.
+     * @param other the other container
+     * @return new container holding the intersection
+     */
+    @Override
+    Container and(final Container other) {
+        if (other instanceof ArrayContainer) {
+            return other.and(this);
+        }
+        return toBitmap().and(other);
+    }
+
+    /***
+     * Calculates the union of two containers.
+     * @param other the other container
+     * @return new container holding the union
+     */
+    @Override
+    Container or(final Container other) {
+        return toBitmap().or(other);
+    }
+
+    /***
+     * Calculates the difference of two containers (this AND NOT other).
+     * @param other the other container
+     * @return new container holding the values which are not in the other container
+     */
+    @Override
+    Container andNot(final Container other) {
+        return toBitmap().andNot(other);
+    }
+}
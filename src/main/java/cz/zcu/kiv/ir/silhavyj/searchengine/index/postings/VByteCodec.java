@@ -0,0 +1,80 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.postings;
+
+import java.nio.ByteBuffer;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a variable-byte codec. Each value is split
+ * into groups of 7 bits, lowest bits first. The highest bit of a byte
+ * is set if there are more bytes of the same value to follow.
+ * Small values (gaps between documents of frequent terms) take one byte.
+ */
+public class VByteCodec implements IPostingsCodec {
+
+    /*** Name of the codec */
+    public static final String NAME = "VByte";
+
+    /***
+     * Writes one value into the output.
+     * @param value value to be written (non-negative)
+     * @param out output the bytes are appended to
+     */
+    public static void writeVInt(int value, final ByteArray out) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    /***
+     * Reads one value from the buffer.
+     * @param in buffer the value is read from
+     * @return decoded value
+     */
+    public static int readVInt(final ByteBuffer in) {
+        int b = in.get();
+        int value = b & 0x7F;
+        for (int shift = 7; (b & 0x80) != 0; shift += 7) {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+        }
+        return value;
+    }
+
+    /***
+     * Returns the name of the codec.
+     * @return name of the codec
+     */
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    /***
+     * Encodes a block of non-negative integers.
+     * @param values values to be encoded
+     * @param length number of values to be encoded
+     * @param out output the encoded bytes are appended to
+     */
+    @Override
+    public void encode(final int[] values, int length, final ByteArray out) {
+        for (int i = 0; i < length; i++) {
+            writeVInt(values[i], out);
+        }
+    }
+
+    /***
+     * Decodes a block of integers.
+     * @param in buffer holding the encoded values
+     * @param values output array the decoded values are stored into
+     * @param length number of values to be decoded
+     */
+    @Override
+    public void decode(final ByteBuffer in, final int[] values, int length) {
+        for (int i = 0; i < length; i++) {
+            values[i] = readVInt(in);
+        }
+    }
+}
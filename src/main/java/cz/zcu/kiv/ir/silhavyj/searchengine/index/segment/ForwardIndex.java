@@ -0,0 +1,157 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.segment;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+
+import java.util.Arrays;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents an immutable forward index of a segment (document -> terms).
+ * It's used for ranking, so the terms of a document can be looked up without
+ * going over the posting lists. The term vectors of all documents are stored
+ * in three primitive arrays (compressed sparse rows). The row of a document
+ * spans the positions offsets[document - firstDocument] (inclusive) to
+ * offsets[document - firstDocument + 1] (exclusive) of the arrays termIds
+ * and frequencies. Within a row, the terms are sorted by their ids.
+ */
+public class ForwardIndex {
+
+    /*** Index of the first document covered by the forward index */
+    private final int firstDocument;
+
+    /*** Starts of the rows of the documents (one extra offset marks the end of the last row) */
+    private final int[] offsets;
+
+    /*** Ids of the terms of all documents (row by row) */
+    private final int[] termIds;
+
+    /*** Frequencies of the terms of all documents (in the same order as termIds) */
+    private final int[] frequencies;
+
+    /***
+     * Creates an instance of the class. The arrays are taken over
+     * and must not be modified by the caller anymore.
+     * @param firstDocument index of the first document covered by the forward index
+     * @param offsets starts of the rows of the documents
+     * @param termIds ids of the terms of all documents (row by row)
+     * @param frequencies frequencies of the terms of all documents
+     */
+    private ForwardIndex(int firstDocument, final int[] offsets, final int[] termIds, final int[] frequencies) {
+        this.firstDocument = firstDocument;
+        this.offsets = offsets;
+        this.termIds = termIds;
+        this.frequencies = frequencies;
+    }
+
+    /***
+     * Builds a forward index by transposing an inverted index. As the terms
+     * are visited in ascending order of their ids, the rows come out sorted.
+     * @param termIds ids of the terms of the inverted index (in ascending order)
+     * @param postings posting lists of the terms (in the same order as their ids)
+     * @param firstDocument the lowest index of a document stored in the inverted index
+     * @param lastDocument the greatest index of a document stored in the inverted index
+     * @return forward index of the documents
+     */
+    public static ForwardIndex build(final int[] termIds, final IPostingList[] postings, int firstDocument, int lastDocument) {
+        if (lastDocument < firstDocument) {
+            return new ForwardIndex(0, new int[1], new int[0], new int[0]);
+        }
+        final int[] offsets = new int[lastDocument - firstDocument + 2];
+
+        // Count the terms of each document.
+        for (final var termPostings : postings) {
+            final IPostingCursor cursor = termPostings.cursor();
+            while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+                offsets[cursor.docId() - firstDocument + 1]++;
+            }
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+
+        // Fill in the rows term by term.
+        final int size = offsets[offsets.length - 1];
+        final int[] rowTermIds = new int[size];
+        final int[] rowFrequencies = new int[size];
+        final int[] positions = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < termIds.length; i++) {
+            final IPostingCursor cursor = postings[i].cursor();
+            while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+                final int position = positions[cursor.docId() - firstDocument]++;
+                rowTermIds[position] = termIds[i];
+                rowFrequencies[position] = cursor.freq();
+            }
+        }
+        return new ForwardIndex(firstDocument, offsets, rowTermIds, rowFrequencies);
+    }
+
+    /***
+     * Returns the position the row of a given document starts at.
+     * @param documentIndex index of a document
+     * @return start of the row (inclusive)
+     */
+    public int getRowStart(int documentIndex) {
+        return isCovered(documentIndex) ? offsets[documentIndex - firstDocument] : 0;
+    }
+
+    /***
+     * Returns the position the row of a given document ends at.
+     * @param documentIndex index of a document
+     * @return end of the row (exclusive)
+     */
+    public int getRowEnd(int documentIndex) {
+        return isCovered(documentIndex) ? offsets[documentIndex - firstDocument + 1] : 0;
+    }
+
+    /***
+     * Returns the id of the term stored at a given position.
+     * @param position position within a row (see getRowStart and getRowEnd)
+     * @return id of the term
+     */
+    public int getTermId(int position) {
+        return termIds[position];
+    }
+
+    /***
+     * Returns the frequency of the term stored at a given position.
+     * @param position position within a row (see getRowStart and getRowEnd)
+     * @return number of occurrences of the term in the document
+     */
+    public int getFrequency(int position) {
+        return frequencies[position];
+    }
+
+    /***
+     * Returns the number of occurrences of a term in a given document.
+     * The term is looked up by a binary search over the row of the document.
+     * @param documentIndex index of a document
+     * @param termId id of the term
+     * @return number of occurrences of the term (0 if it does not occur in the document)
+     */
+    public int getFrequency(int documentIndex, int termId) {
+        final int start = getRowStart(documentIndex);
+        final int end = getRowEnd(documentIndex);
+        final int position = Arrays.binarySearch(termIds, start, end, termId);
+        return position < 0 ? 0 : frequencies[position];
+    }
+
+    /***
+     * Returns the number of unique terms of a given document.
+     * @param documentIndex index of a document
+     * @return number of unique terms (0 if the document is not covered by the forward index)
+     */
+    public int getNumberOfUniqueTerms(int documentIndex) {
+        return getRowEnd(documentIndex) - getRowStart(documentIndex);
+    }
+
+    /***
+     * Checks whether a document falls into the range of the forward index.
+     * @param documentIndex index of a document
+     * @return True, if the document has a row. False, otherwise.
+     */
+    private boolean isCovered(int documentIndex) {
+        return documentIndex >= firstDocument && documentIndex - firstDocument < offsets.length - 1;
+    }
+}
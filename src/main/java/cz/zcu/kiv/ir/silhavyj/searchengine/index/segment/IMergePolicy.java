@@ -0,0 +1,19 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.segment;
+
+import java.util.List;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a policy that decides which segments
+ * of an index should be merged together.
+ */
+public interface IMergePolicy {
+
+    /***
+     * Finds segments that should be merged into one.
+     * @param segments current segments of the index
+     * @return segments to be merged (an empty list if no merge is needed)
+     */
+    List<Segment> findMerge(final List<Segment> segments);
+}
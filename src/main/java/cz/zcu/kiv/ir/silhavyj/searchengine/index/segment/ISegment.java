@@ -0,0 +1,54 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.segment;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+
+import java.util.Map;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a part of an inverted index that holds
+ * a subset of the documents. Each document is stored in exactly one segment.
+ */
+public interface ISegment {
+
+    /***
+     * Returns the number of documents stored in the segment.
+     * @return number of documents
+     */
+    int getDocumentCount();
+
+    /***
+     * Returns the ids of all terms that occur in the documents of the segment (see TermDictionary).
+     * @return ids of the terms in ascending order (must not be modified)
+     */
+    int[] getTermIds();
+
+    /***
+     * Returns the posting list of a given term.
+     * @param termId id of the given term
+     * @return posting list of the term or null if the term does not occur in the segment
+     */
+    IPostingList getPostings(int termId);
+
+    /***
+     * Returns the file path of a given document.
+     * @param documentIndex index of a document
+     * @return file path of the document or null if the document is not stored in the segment
+     */
+    String getFilePath(int documentIndex);
+
+    /***
+     * Returns the number of occurrences of a term in a given document.
+     * @param documentIndex index of a document
+     * @param termId id of the term
+     * @return number of occurrences of the term (0 if the term does not occur in the document)
+     */
+    int getTermFrequency(int documentIndex, int termId);
+
+    /***
+     * Returns the file paths of all documents stored in the segment.
+     * @return map of file paths (key = document index, value = path)
+     */
+    Map<Integer, String> getFilePaths();
+}
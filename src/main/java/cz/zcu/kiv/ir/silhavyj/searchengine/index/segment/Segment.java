@@ -0,0 +1,185 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.segment;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.CompressedPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingsCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.MultiPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.RoaringDocIdSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents an immutable segment of an inverted index.
+ * Once a segment has been created, it's never modified, so it can
+ * be read by any number of threads without locking. Segments are
+ * created by flushing a SegmentWriter or by merging other segments.
+ */
+public class Segment implements ISegment {
+
+    /*** Ids of the terms occurring in the segment (in ascending order) */
+    private final int[] termIds;
+
+    /*** Compressed posting lists of the terms (in the same order as their ids) */
+    private final CompressedPostingList[] postings;
+
+    /*** Map of file paths (key = document index, value = path) */
+    private final Map<Integer, String> indexFilePaths;
+
+    /*** Forward index of the documents (terms of each document) */
+    private final ForwardIndex forwardIndex;
+
+    /*** Set of all documents stored in the segment */
+    private final RoaringDocIdSet documents;
+
+    /***
+     * Creates an instance of the class. The arrays and maps are taken over
+     * and must not be modified by the caller anymore.
+     * The forward index of the documents is built from the posting lists.
+     * @param termIds ids of the terms occurring in the segment (in ascending order)
+     * @param postings compressed posting lists of the terms (in the same order as their ids)
+     * @param indexFilePaths map of file paths (key = document index, value = path)
+     */
+    public Segment(final int[] termIds,
+                   final CompressedPostingList[] postings,
+                   final Map<Integer, String> indexFilePaths) {
+        this.termIds = termIds;
+        this.postings = postings;
+        this.indexFilePaths = indexFilePaths;
+        documents = new RoaringDocIdSet();
+        indexFilePaths.keySet().forEach(documents::add);
+        documents.optimize();
+        final int firstDocument = indexFilePaths.keySet().stream().mapToInt(Integer::intValue).min().orElse(0);
+        final int lastDocument = indexFilePaths.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+        forwardIndex = ForwardIndex.build(termIds, postings, firstDocument, lastDocument);
+    }
+
+    /***
+     * Merges several segments into a new one. The original segments are left untouched.
+     * @param segments segments to be merged
+     * @param codec codec used to compress the merged posting lists
+     * @return new segment holding all documents of the given segments
+     */
+    public static Segment merge(final List<? extends ISegment> segments, final IPostingsCodec codec) {
+        final Map<Integer, String> indexFilePaths = new HashMap<>();
+
+        // Collect the terms of all segments.
+        final BitSet terms = new BitSet();
+        for (final var segment : segments) {
+            for (final int termId : segment.getTermIds()) {
+                terms.set(termId);
+            }
+        }
+        final int[] termIds = terms.stream().toArray();
+        final var mergedPostings = new CompressedPostingList[termIds.length];
+
+        // Merge the posting lists of each term by document index.
+        final List<IPostingList> postingLists = new ArrayList<>(segments.size());
+        for (int i = 0; i < termIds.length; i++) {
+            postingLists.clear();
+            for (final var segment : segments) {
+                final var postings = segment.getPostings(termIds[i]);
+                if (postings != null) {
+                    postingLists.add(postings);
+                }
+            }
+            final var merged = new CompressedPostingList(codec);
+            final IPostingCursor cursor = new MultiPostingList(postingLists).cursor();
+            while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+                merged.add(cursor.docId(), cursor.freq());
+            }
+            mergedPostings[i] = merged;
+        }
+
+        // Take over the documents.
+        for (final var segment : segments) {
+            indexFilePaths.putAll(segment.getFilePaths());
+        }
+        return new Segment(termIds, mergedPostings, indexFilePaths);
+    }
+
+    /***
+     * Returns the number of documents stored in the segment.
+     * @return number of documents
+     */
+    @Override
+    public int getDocumentCount() {
+        return indexFilePaths.size();
+    }
+
+    /***
+     * Returns the ids of all terms that occur in the documents of the segment.
+     * @return ids of the terms in ascending order (must not be modified)
+     */
+    @Override
+    public int[] getTermIds() {
+        return termIds;
+    }
+
+    /***
+     * Returns the posting list of a given term. The term is looked up
+     * by a binary search over the ids of the terms of the segment.
+     * @param termId id of the given term
+     * @return posting list of the term or null if the term does not occur in the segment
+     */
+    @Override
+    public CompressedPostingList getPostings(int termId) {
+        final int position = Arrays.binarySearch(termIds, termId);
+        return position < 0 ? null : postings[position];
+    }
+
+    /***
+     * Returns the file path of a given document.
+     * @param documentIndex index of a document
+     * @return file path of the document or null if the document is not stored in the segment
+     */
+    @Override
+    public String getFilePath(int documentIndex) {
+        return indexFilePaths.get(documentIndex);
+    }
+
+    /***
+     * Returns the number of occurrences of a term in a given document.
+     * The term is looked up in the forward index of the segment.
+     * @param documentIndex index of a document
+     * @param termId id of the term
+     * @return number of occurrences of the term (0 if the term does not occur in the document)
+     */
+    @Override
+    public int getTermFrequency(int documentIndex, int termId) {
+        return forwardIndex.getFrequency(documentIndex, termId);
+    }
+
+    /***
+     * Returns the forward index of the documents stored in the segment.
+     * @return forward index of the segment
+     */
+    public ForwardIndex getForwardIndex() {
+        return forwardIndex;
+    }
+
+    /***
+     * Returns the file paths of all documents stored in the segment.
+     * @return unmodifiable map of file paths (key = document index, value = path)
+     */
+    @Override
+    public Map<Integer, String> getFilePaths() {
+        return Collections.unmodifiableMap(indexFilePaths);
+    }
+
+    /***
+     * Returns a bitmap of all documents stored in the segment.
+     * @return bitmap of the documents (must not be modified)
+     */
+    public RoaringDocIdSet getDocuments() {
+        return documents;
+    }
+}
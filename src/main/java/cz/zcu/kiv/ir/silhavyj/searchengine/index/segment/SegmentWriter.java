@@ -0,0 +1,173 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.segment;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.CompressedPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingsCodec;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents an in-memory buffer new documents are indexed into.
+ * Once the buffer holds enough documents, it's flushed into an immutable
+ * segment and starts over empty. The buffer is not thread-safe and
+ * is supposed to be modified only by the thread indexing the documents.
+ */
+public class SegmentWriter implements ISegment {
+
+    /*** Initial capacity of the arrays holding the terms */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /*** Codec used to compress posting lists */
+    private final IPostingsCodec codec;
+
+    /*** Inverted index of the buffer (compressed posting lists indexed by term ids) */
+    private CompressedPostingList[] postings;
+
+    /*** Ids of the terms that occur in the buffer (in the order they were added) */
+    private int[] termIds;
+
+    /*** Number of terms that occur in the buffer */
+    private int termCount;
+
+    /*** Map of file paths (key = document index, value = path) */
+    private Map<Integer, String> indexFilePaths;
+
+    /***
+     * Creates an instance of the class.
+     * @param codec codec used to compress posting lists
+     */
+    public SegmentWriter(final IPostingsCodec codec) {
+        this.codec = codec;
+        postings = new CompressedPostingList[INITIAL_CAPACITY];
+        termIds = new int[INITIAL_CAPACITY];
+        termCount = 0;
+        indexFilePaths = new HashMap<>();
+    }
+
+    /***
+     * Adds an occurrence of a term in a document into the buffer.
+     * @param termId id of the term that has been found in a document
+     * @param documentIndex index of the document where the term's been found
+     * @param filePath path to the document
+     * @throws IllegalArgumentException if the document index is lower than the last one of the term
+     */
+    public void addDocument(int termId, int documentIndex, final String filePath) throws IllegalArgumentException {
+        // Check if the document has been previously used. If not, store its path.
+        indexFilePaths.putIfAbsent(documentIndex, filePath);
+        if (termId >= postings.length) {
+            postings = Arrays.copyOf(postings, Math.max(2 * postings.length, termId + 1));
+        }
+        // Create the posting list if the term occurs in the buffer for the first time.
+        var termPostings = postings[termId];
+        if (termPostings == null) {
+            termPostings = new CompressedPostingList(codec);
+            postings[termId] = termPostings;
+            if (termCount == termIds.length) {
+                termIds = Arrays.copyOf(termIds, 2 * termIds.length);
+            }
+            termIds[termCount++] = termId;
+        }
+        termPostings.add(documentIndex);
+    }
+
+    /***
+     * Checks whether the buffer holds any documents.
+     * @return True, if the buffer is empty. False, otherwise.
+     */
+    public boolean isEmpty() {
+        return indexFilePaths.isEmpty();
+    }
+
+    /***
+     * Turns the content of the buffer into an immutable segment
+     * and clears the buffer. The posting lists are already compressed,
+     * so they are handed over without being copied (the forward index
+     * of the segment is built from them).
+     * @return new segment holding the documents of the buffer
+     */
+    public Segment flush() {
+        // Sort the terms by their ids and release the posting lists
+        // from the buffer (the array itself is kept for the next documents).
+        final int[] segmentTermIds = getTermIds();
+        final var segmentPostings = new CompressedPostingList[termCount];
+        for (int i = 0; i < termCount; i++) {
+            segmentPostings[i] = postings[segmentTermIds[i]];
+            postings[segmentTermIds[i]] = null;
+        }
+        final var segment = new Segment(segmentTermIds, segmentPostings, indexFilePaths);
+        termCount = 0;
+        indexFilePaths = new HashMap<>();
+        return segment;
+    }
+
+    /***
+     * Returns the number of documents stored in the buffer.
+     * @return number of documents
+     */
+    @Override
+    public int getDocumentCount() {
+        return indexFilePaths.size();
+    }
+
+    /***
+     * Returns the ids of all terms that occur in the documents of the buffer.
+     * @return new array of the ids of the terms in ascending order
+     */
+    @Override
+    public int[] getTermIds() {
+        final int[] sorted = Arrays.copyOf(termIds, termCount);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /***
+     * Returns the posting list of a given term.
+     * @param termId id of the given term
+     * @return posting list of the term or null if the term does not occur in the buffer
+     */
+    @Override
+    public CompressedPostingList getPostings(int termId) {
+        return termId >= 0 && termId < postings.length ? postings[termId] : null;
+    }
+
+    /***
+     * Returns the file path of a given document.
+     * @param documentIndex index of a document
+     * @return file path of the document or null if the document is not stored in the buffer
+     */
+    @Override
+    public String getFilePath(int documentIndex) {
+        return indexFilePaths.get(documentIndex);
+    }
+
+    /***
+     * Returns the number of occurrences of a term in a given document.
+     * The buffer keeps no forward index, so the posting list of the term is searched.
+     * @param documentIndex index of a document
+     * @param termId id of the term
+     * @return number of occurrences of the term (0 if the term does not occur in the document)
+     */
+    @Override
+    public int getTermFrequency(int documentIndex, int termId) {
+        final var termPostings = getPostings(termId);
+        if (termPostings == null) {
+            return 0;
+        }
+        final IPostingCursor cursor = termPostings.cursor();
+        return cursor.advance(documentIndex) == documentIndex ? cursor.freq() : 0;
+    }
+
+    /***
+     * Returns the file paths of all documents stored in the buffer.
+     * @return unmodifiable map of file paths (key = document index, value = path)
+     */
+    @Override
+    public Map<Integer, String> getFilePaths() {
+        return Collections.unmodifiableMap(indexFilePaths);
+    }
+}
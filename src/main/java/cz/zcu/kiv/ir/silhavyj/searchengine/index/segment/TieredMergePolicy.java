@@ -0,0 +1,91 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.index.segment;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a tiered merge policy. Segments are sorted into tiers
+ * by their number of documents - each tier holds segments that are up to mergeFactor
+ * times bigger than the ones in the tier below. Once a tier holds mergeFactor segments,
+ * they get merged into one segment of the next tier. The number of segments
+ * thus grows only logarithmically with the number of documents.
+ */
+public class TieredMergePolicy implements IMergePolicy {
+
+    /*** Default number of segments merged at once */
+    public static final int DEFAULT_MERGE_FACTOR = 10;
+
+    /*** Default number of documents of the smallest tier */
+    public static final int DEFAULT_MIN_SEGMENT_SIZE = 1000;
+
+    /*** Number of segments merged at once */
+    private final int mergeFactor;
+
+    /*** Segments with up to this number of documents belong to the smallest tier */
+    private final int minSegmentSize;
+
+    /***
+     * Creates an instance of the class using the default parameters.
+     */
+    public TieredMergePolicy() {
+        this(DEFAULT_MERGE_FACTOR, DEFAULT_MIN_SEGMENT_SIZE);
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param mergeFactor number of segments merged at once
+     * @param minSegmentSize segments with up to this number of documents belong to the smallest tier
+     * @throws IllegalArgumentException if the merge factor is lower than 2 or the segment size is not positive
+     */
+    public TieredMergePolicy(int mergeFactor, int minSegmentSize) throws IllegalArgumentException {
+        if (mergeFactor < 2) {
+            throw new IllegalArgumentException("Merge factor must be at least 2");
+        }
+        if (minSegmentSize < 1) {
+            throw new IllegalArgumentException("Minimum segment size must be positive");
+        }
+        this.mergeFactor = mergeFactor;
+        this.minSegmentSize = minSegmentSize;
+    }
+
+    /***
+     * Finds the lowest tier that holds at least mergeFactor segments
+     * and returns its mergeFactor smallest segments.
+     * @param segments current segments of the index
+     * @return segments to be merged (an empty list if no tier is full)
+     */
+    @Override
+    public List<Segment> findMerge(final List<Segment> segments) {
+        // Sort the segments into tiers.
+        final var tiers = new TreeMap<Integer, List<Segment>>();
+        for (final var segment : segments) {
+            tiers.computeIfAbsent(getTier(segment.getDocumentCount()), key -> new ArrayList<>()).add(segment);
+        }
+        for (final var tier : tiers.values()) {
+            if (tier.size() >= mergeFactor) {
+                tier.sort(Comparator.comparingInt(Segment::getDocumentCount));
+                return new ArrayList<>(tier.subList(0, mergeFactor));
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /***
+     * Returns the tier a segment of a given size belongs to.
+     * @param documentCount number of documents of the segment
+     * @return tier of the segment (0 = the smallest segments)
+     */
+    private int getTier(int documentCount) {
+        int tier = 0;
+        long bound = minSegmentSize;
+        while (documentCount > bound) {
+            bound *= mergeFactor;
+            tier++;
+        }
+        return tier;
+    }
+}
@@ -0,0 +1,143 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.utils.IOUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.ZipFile;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class creates and resolves locators of documents. A locator is stored in an index
+ * in place of the file path of a document, so the document can be read again (e.g. to be displayed).
+ * There are three kinds of locators:
+ *
+ * 1. path to a JSON file (a document stored in its own file)
+ * 2. path#offset (a document stored in a file of newline-delimited JSON or in a tar.gz archive),
+ *    where offset is the byte offset of the object within the file or the byte offset of the header
+ *    of the entry within the decompressed archive
+ * 3. path!entry (a document stored in a zip archive)
+ */
+public class DocumentLocator {
+
+    /*** Separator of a path and a byte offset */
+    private static final char OFFSET_SEPARATOR = '#';
+
+    /*** Separator of the path to a zip archive and the name of an entry */
+    private static final String ENTRY_SEPARATOR = ".zip!";
+
+    /***
+     * Creates a locator of a document stored at a byte offset of a file.
+     * @param file file of newline-delimited JSON or tar.gz archive
+     * @param offset byte offset of the document
+     * @return locator of the document
+     */
+    public static String ofOffset(final File file, long offset) {
+        return file.getAbsolutePath() + OFFSET_SEPARATOR + offset;
+    }
+
+    /***
+     * Creates a locator of a document stored in a zip archive.
+     * @param file zip archive
+     * @param entryName name of the entry holding the document
+     * @return locator of the document
+     */
+    public static String ofEntry(final File file, final String entryName) {
+        return file.getAbsolutePath() + "!" + entryName;
+    }
+
+    /***
+     * Reads the content of a document (JSON object) given by its locator.
+     * @param locator locator of the document
+     * @return content of the document
+     * @throws IOException if the document could not be read or if the locator is not valid
+     */
+    public static String read(final String locator) throws IOException {
+        // A document stored in its own file.
+        final var file = new File(locator);
+        if (file.isFile()) {
+            return IOUtils.readCharSequence(file.toPath()).toString();
+        }
+
+        // A document stored at a byte offset of a file.
+        final int offsetSeparator = locator.lastIndexOf(OFFSET_SEPARATOR);
+        if (offsetSeparator > 0) {
+            final var container = new File(locator.substring(0, offsetSeparator));
+            if (container.isFile()) {
+                final long offset;
+                try {
+                    offset = Long.parseLong(locator.substring(offsetSeparator + 1));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid document locator " + locator);
+                }
+                final String name = container.getName().toLowerCase(Locale.ROOT);
+                return name.endsWith(".tar.gz") || name.endsWith(".tgz") ? readTarEntry(container, offset) : readLine(container, offset);
+            }
+        }
+
+        // A document stored in a zip archive.
+        final int entrySeparator = locator.indexOf(ENTRY_SEPARATOR);
+        if (entrySeparator > 0) {
+            try (final var zip = new ZipFile(locator.substring(0, entrySeparator + ENTRY_SEPARATOR.length() - 1))) {
+                final var entry = zip.getEntry(locator.substring(entrySeparator + ENTRY_SEPARATOR.length()));
+                if (entry != null) {
+                    return new String(zip.getInputStream(entry).readAllBytes(), StandardCharsets.UTF_8);
+                }
+            }
+        }
+        throw new IOException("Document " + locator + " does not exist");
+    }
+
+    /***
+     * Reads a line of a file starting at a given byte offset.
+     * @param file file of newline-delimited JSON
+     * @param offset byte offset of the line
+     * @return content of the line
+     * @throws IOException if the file could not be read
+     */
+    private static String readLine(final File file, long offset) throws IOException {
+        try (final var in = new RandomAccessFile(file, "r")) {
+            in.seek(offset);
+            final var line = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                int end = 0;
+                while (end < count && buffer[end] != '\n') {
+                    end++;
+                }
+                line.write(buffer, 0, end);
+                if (end < count) {
+                    break;
+                }
+            }
+            // Leave out the carriage return of a CRLF line terminator.
+            final String content = line.toString(StandardCharsets.UTF_8);
+            return content.endsWith("\r") ? content.substring(0, content.length() - 1) : content;
+        }
+    }
+
+    /***
+     * Reads an entry of a tar.gz archive. The archive needs to be
+     * decompressed up to the entry, so this is not a cheap operation.
+     * @param file tar.gz archive
+     * @param offset byte offset of the header of the entry within the decompressed archive
+     * @return content of the entry
+     * @throws IOException if the archive could not be read
+     */
+    private static String readTarEntry(final File file, long offset) throws IOException {
+        try (final var in = TarGzDocumentSource.openDecompressed(file)) {
+            TarGzDocumentSource.skipFully(in, offset);
+            final byte[] header = new byte[TarGzDocumentSource.BLOCK_SIZE];
+            if (!TarGzDocumentSource.readHeader(in, header)) {
+                throw new IOException("Invalid document locator " + file.getPath() + OFFSET_SEPARATOR + offset);
+            }
+            return new String(in.readNBytes((int)TarGzDocumentSource.getSize(header)), StandardCharsets.UTF_8);
+        }
+    }
+}
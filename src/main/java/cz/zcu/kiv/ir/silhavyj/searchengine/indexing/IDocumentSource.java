@@ -0,0 +1,52 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Locale;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a source of documents to be indexed
+ * (e.g. a list of JSON files or a file of newline-delimited JSON).
+ * The documents are pulled by the workers of an indexing pipeline,
+ * so the implementations need to be thread-safe.
+ */
+public interface IDocumentSource extends Closeable {
+
+    /***
+     * Returns the next document of the source.
+     * @return next document or null if there are no more documents
+     * @throws IOException if the source could not be read
+     */
+    SourceDocument next() throws IOException;
+
+    /***
+     * Returns the number of documents of the source if it's known in advance.
+     * @return number of documents or -1 if it's not known
+     */
+    int getDocumentCount();
+
+    /***
+     * Opens a bulk source of documents by the extension of a file. Supported are files
+     * of newline-delimited JSON (.jsonl, .ndjson) and zip or tar.gz archives of JSON files.
+     * @param file given file
+     * @return new source of the documents stored in the file
+     * @throws IOException if the file could not be opened
+     * @throws IllegalArgumentException if the type of the file is not supported
+     */
+    static IDocumentSource open(final File file) throws IOException, IllegalArgumentException {
+        final String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return new JsonLinesDocumentSource(file);
+        }
+        if (name.endsWith(".zip")) {
+            return new ZipDocumentSource(file);
+        }
+        if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+            return new TarGzDocumentSource(file);
+        }
+        throw new IllegalArgumentException("Unsupported type of file " + file.getName());
+    }
+}
@@ -0,0 +1,18 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a listener that gets notified about
+ * the progress of an indexing pipeline.
+ */
+public interface IIndexingListener {
+
+    /***
+     * Called by the writer thread every time a document has been processed
+     * (no matter whether it's been indexed or skipped).
+     * @param processedDocuments number of documents processed so far
+     * @param totalDocuments total number of documents to be processed (-1 if it is not known in advance)
+     */
+    void onProgress(int processedDocuments, int totalDocuments);
+}
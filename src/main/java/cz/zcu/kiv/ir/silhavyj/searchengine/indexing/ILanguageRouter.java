@@ -0,0 +1,22 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import com.github.pemistahl.lingua.api.Language;
+
+import java.io.File;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a stage of the indexing pipeline that decides
+ * which language (index) a document belongs to.
+ */
+public interface ILanguageRouter {
+
+    /***
+     * Determines the language of a document.
+     * @param file file the document has been read from
+     * @param text content of the document
+     * @return language of the document
+     */
+    Language route(final File file, final String text);
+}
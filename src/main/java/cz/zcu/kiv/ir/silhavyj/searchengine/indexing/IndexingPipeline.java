@@ -0,0 +1,330 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import com.github.pemistahl.lingua.api.Language;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.IPreprocessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a pipeline that indexes JSON documents in parallel.
+ * Worker threads take the documents from a source (see IDocumentSource), determine their
+ * language (see ILanguageRouter), and split them into preprocessed terms. Each worker uses its own instances of preprocessors,
+ * so they don't need to be thread-safe. The tokenized documents are passed
+ * through a bounded queue to a single writer (the thread that runs the pipeline),
+ * which adds them into the indexes. The workers do most of the work, so indexing
+ * scales with the number of cores while the indexes are only ever modified
+ * by one thread.
+ */
+public class IndexingPipeline {
+
+    /*** Default number of tokenized documents waiting for the writer */
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    /*** Document put into the queue by a worker once it has no more files to process */
+    private static final TokenizedDocument END_OF_WORK = new TokenizedDocument(null, null, null, null);
+
+    /*** Number of worker threads */
+    private final int workerCount;
+
+    /*** Maximum number of tokenized documents waiting for the writer */
+    private final int queueCapacity;
+
+    /*** Stage determining the language of a document */
+    private final ILanguageRouter languageRouter;
+
+    /*** Function creating a new preprocessor for a language (null if the language is not supported) */
+    private final Function<Language, IPreprocessor> preprocessorFactory;
+
+    /*** Function returning the index of a language (null if the language is not supported) */
+    private final Function<Language, IIndex> indexProvider;
+
+    /*** Flag if the pipeline should stop processing the files */
+    private volatile boolean stopped;
+
+    /***
+     * Creates an instance of the class using as many workers as there are processors.
+     * The language of a document is detected from its whole text.
+     * @param languageDetector function detecting the language of a piece of text
+     * @param preprocessorFactory function creating a new preprocessor for a language (null if the language is not supported)
+     * @param indexProvider function returning the index of a language, called only by the writer (null if the language is not supported)
+     */
+    public IndexingPipeline(final Function<String, Language> languageDetector,
+                            final Function<Language, IPreprocessor> preprocessorFactory,
+                            final Function<Language, IIndex> indexProvider) {
+        this((file, text) -> languageDetector.apply(text), preprocessorFactory, indexProvider);
+    }
+
+    /***
+     * Creates an instance of the class. The language of a document is detected from its whole text.
+     * @param languageDetector function detecting the language of a piece of text
+     * @param preprocessorFactory function creating a new preprocessor for a language (null if the language is not supported)
+     * @param indexProvider function returning the index of a language, called only by the writer (null if the language is not supported)
+     * @param workerCount number of worker threads
+     * @param queueCapacity maximum number of tokenized documents waiting for the writer
+     * @throws IllegalArgumentException if the number of workers or the capacity of the queue is not positive
+     */
+    public IndexingPipeline(final Function<String, Language> languageDetector,
+                            final Function<Language, IPreprocessor> preprocessorFactory,
+                            final Function<Language, IIndex> indexProvider,
+                            int workerCount, int queueCapacity) throws IllegalArgumentException {
+        this((file, text) -> languageDetector.apply(text), preprocessorFactory, indexProvider, workerCount, queueCapacity);
+    }
+
+    /***
+     * Creates an instance of the class using as many workers as there are processors.
+     * @param languageRouter stage determining the language of a document (called by the workers)
+     * @param preprocessorFactory function creating a new preprocessor for a language (null if the language is not supported)
+     * @param indexProvider function returning the index of a language, called only by the writer (null if the language is not supported)
+     */
+    public IndexingPipeline(final ILanguageRouter languageRouter,
+                            final Function<Language, IPreprocessor> preprocessorFactory,
+                            final Function<Language, IIndex> indexProvider) {
+        this(languageRouter, preprocessorFactory, indexProvider, Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param languageRouter stage determining the language of a document (called by the workers)
+     * @param preprocessorFactory function creating a new preprocessor for a language (null if the language is not supported)
+     * @param indexProvider function returning the index of a language, called only by the writer (null if the language is not supported)
+     * @param workerCount number of worker threads
+     * @param queueCapacity maximum number of tokenized documents waiting for the writer
+     * @throws IllegalArgumentException if the number of workers or the capacity of the queue is not positive
+     */
+    public IndexingPipeline(final ILanguageRouter languageRouter,
+                            final Function<Language, IPreprocessor> preprocessorFactory,
+                            final Function<Language, IIndex> indexProvider,
+                            int workerCount, int queueCapacity) throws IllegalArgumentException {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Number of workers must be positive");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Capacity of the queue must be positive");
+        }
+        this.languageRouter = languageRouter;
+        this.preprocessorFactory = preprocessorFactory;
+        this.indexProvider = indexProvider;
+        this.workerCount = workerCount;
+        this.queueCapacity = queueCapacity;
+        stopped = false;
+    }
+
+    /***
+     * Stops the pipeline. The documents that are already being
+     * processed are finished, the rest of the files is skipped.
+     * Once stopped, the pipeline does not index any more documents
+     * (a new pipeline is created for each import).
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /***
+     * Returns whether the pipeline's been stopped.
+     * @return true if the pipeline's been stopped, false otherwise
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /***
+     * Indexes given JSON files. The calling thread becomes the writer and
+     * the method returns once all files have been processed (or the pipeline's been stopped).
+     * @param files JSON files to be indexed
+     * @param listener listener notified about the progress (may be null)
+     * @return number of documents that have been indexed
+     * @throws InterruptedException if the calling thread's been interrupted
+     */
+    public int run(final List<File> files, final IIndexingListener listener) throws InterruptedException {
+        return run(new JsonFilesDocumentSource(files), listener);
+    }
+
+    /***
+     * Indexes documents of a given source (e.g. a file of newline-delimited JSON or an archive).
+     * The calling thread becomes the writer and the method returns once all documents
+     * have been processed (or the pipeline's been stopped). The source is not closed.
+     * @param source source of the documents to be indexed
+     * @param listener listener notified about the progress (may be null). The total number of documents
+     *                 passed to the listener is -1 if the source does not know it in advance.
+     * @return number of documents that have been indexed
+     * @throws InterruptedException if the calling thread's been interrupted
+     */
+    public int run(final IDocumentSource source, final IIndexingListener listener) throws InterruptedException {
+        final BlockingQueue<TokenizedDocument> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final int documentCount = source.getDocumentCount();
+
+        // Start the workers.
+        final List<Thread> workers = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            final var worker = new Thread(() -> work(source, queue), "indexing-worker-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+
+        // Add the tokenized documents into the indexes until all workers are done.
+        int finishedWorkers = 0;
+        int processedDocuments = 0;
+        int indexedDocuments = 0;
+        try {
+            while (finishedWorkers < workerCount) {
+                final var document = queue.take();
+                if (document == END_OF_WORK) {
+                    finishedWorkers++;
+                    continue;
+                }
+                if (document.terms != null && !stopped) {
+                    final var index = indexProvider.apply(document.language);
+                    if (index != null && index.index(document.terms, document.filePath, document.storedFields)) {
+                        indexedDocuments++;
+                    } else {
+                        System.out.println("Failed to index document " + document.filePath);
+                    }
+                }
+                processedDocuments++;
+                if (listener != null) {
+                    listener.onProgress(processedDocuments, documentCount);
+                }
+            }
+        } finally {
+            // Make sure the workers don't stay blocked on a full queue
+            // (the pipeline stays usable for the next source).
+            workers.forEach(Thread::interrupt);
+        }
+        return indexedDocuments;
+    }
+
+    /***
+     * Processes documents until there are none left. Each document is taken from the source,
+     * its language gets detected, and the text is split into preprocessed terms.
+     * @param source source of the documents (shared by all workers)
+     * @param queue queue the tokenized documents are passed to the writer through
+     */
+    private void work(final IDocumentSource source, final BlockingQueue<TokenizedDocument> queue) {
+        // Preprocessors of the worker (key = language).
+        final Map<Language, IPreprocessor> preprocessors = new HashMap<>();
+        try {
+            SourceDocument document;
+            while (!stopped && (document = nextDocument(source)) != null) {
+                queue.put(tryProcess(document, preprocessors));
+            }
+        } catch (InterruptedException e) {
+            // The writer is gone, so there is no one to pass the documents to.
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            // Let the writer know the worker's done even if it failed (unless the writer is gone).
+            if (!Thread.currentThread().isInterrupted()) {
+                try {
+                    queue.put(END_OF_WORK);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /***
+     * Processes a document, so that a failure of a single document
+     * (e.g. in a preprocessor) does not bring the whole worker down.
+     * @param document document to be processed
+     * @param preprocessors preprocessors of the worker (key = language)
+     * @return tokenized document (with no terms if the document could not be processed)
+     */
+    private TokenizedDocument tryProcess(final SourceDocument document, final Map<Language, IPreprocessor> preprocessors) {
+        try {
+            return process(document, preprocessors);
+        } catch (RuntimeException e) {
+            System.out.println("Failed to process document " + document.getLocator() + ": " + e.getMessage());
+            return new TokenizedDocument(null, document.getLocator(), null, null);
+        }
+    }
+
+    /***
+     * Takes the next document from a source.
+     * @param source source of the documents
+     * @return next document or null if there are no more documents (or the source could not be read)
+     */
+    private static SourceDocument nextDocument(final IDocumentSource source) {
+        try {
+            return source.next();
+        } catch (IOException e) {
+            System.out.println("Failed to read documents: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /***
+     * Splits the content of a document into preprocessed terms.
+     * @param document document to be processed
+     * @param preprocessors preprocessors of the worker (key = language)
+     * @return tokenized document (with no terms if the document could not be processed)
+     */
+    private TokenizedDocument process(final SourceDocument document, final Map<Language, IPreprocessor> preprocessors) {
+        final String filePath = document.getLocator();
+
+        // The document could not be parsed or it's missing the compulsory fields.
+        final String article = document.getText();
+        if (article == null) {
+            System.out.println("Failed to parse document " + filePath);
+            return new TokenizedDocument(null, filePath, null, null);
+        }
+
+        // Determine the language of the documents (SLOVAK and CZECH) are treated the same.
+        var language = languageRouter.route(document.getFile(), article);
+        if (language == Language.SLOVAK) {
+            language = Language.CZECH;
+        }
+
+        // Split the text into terms using the worker's preprocessor of the language.
+        final var preprocessor = preprocessors.computeIfAbsent(language, preprocessorFactory);
+        if (preprocessor == null) {
+            System.out.println("Language detected in " + filePath + " is not supported");
+            return new TokenizedDocument(language, filePath, null, null);
+        }
+        return new TokenizedDocument(language, filePath, preprocessor.tokenize(article), document.getStoredFields());
+    }
+
+    /***
+     * Document that has been split into preprocessed terms by a worker.
+     */
+    private static class TokenizedDocument {
+
+        /*** Language of the document */
+        private final Language language;
+
+        /*** Path to the document */
+        private final String filePath;
+
+        /*** Preprocessed terms of the document (null if it could not be processed) */
+        private final List<String> terms;
+
+        /*** Fields of the document to be stored in the index (null if there are none) */
+        private final Map<String, String> storedFields;
+
+        /***
+         * Creates an instance of the class.
+         * @param language language of the document
+         * @param filePath path to the document
+         * @param terms preprocessed terms of the document (null if it could not be processed)
+         * @param storedFields fields of the document to be stored in the index (null if there are none)
+         */
+        TokenizedDocument(final Language language, final String filePath, final List<String> terms, final Map<String, String> storedFields) {
+            this.language = language;
+            this.filePath = filePath;
+            this.terms = terms;
+            this.storedFields = storedFields;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.utils.JsonStreamParser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a source of documents stored one per JSON file.
+ * The files are read and parsed by the calling threads in parallel.
+ * The locator of a document is the absolute path to its file.
+ */
+public class JsonFilesDocumentSource implements IDocumentSource {
+
+    /*** Files to be read */
+    private final List<File> files;
+
+    /*** Index of the next file to be read (shared by all threads) */
+    private final AtomicInteger nextFile;
+
+    /*** Parsers of the threads (each has its own buffer) */
+    private final ThreadLocal<JsonStreamParser> parsers;
+
+    /***
+     * Creates an instance of the class.
+     * @param files JSON files to be read
+     */
+    public JsonFilesDocumentSource(final List<File> files) {
+        this.files = files;
+        nextFile = new AtomicInteger(0);
+        parsers = ThreadLocal.withInitial(() -> new JsonStreamParser(InputStream.nullInputStream()));
+    }
+
+    /***
+     * Reads and parses the next file.
+     * @return next document (with no text if the file could not be read or parsed) or null if there are no more files
+     */
+    @Override
+    public SourceDocument next() {
+        final int i = nextFile.getAndIncrement();
+        if (i >= files.size()) {
+            return null;
+        }
+        final var file = files.get(i);
+        final String filePath = file.getAbsolutePath();
+        try (final var in = new FileInputStream(file)) {
+            final var parser = parsers.get();
+            parser.reset(in);
+            return SourceDocument.of(file, filePath, parser.readObject(SourceDocument.FIELDS));
+        } catch (IOException | IllegalArgumentException e) {
+            return new SourceDocument(file, filePath, null);
+        }
+    }
+
+    /***
+     * Returns the number of files.
+     * @return number of documents
+     */
+    @Override
+    public int getDocumentCount() {
+        return files.size();
+    }
+
+    /***
+     * There is nothing to be closed as each file is closed once it's been read.
+     */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,84 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.utils.JsonStreamParser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a source of documents stored in a file of newline-delimited JSON
+ * (one object per line). The file is read sequentially by a streaming parser and only
+ * the compulsory fields of the documents are decoded. The locator of a document is
+ * the byte offset of its object within the file (see DocumentLocator).
+ */
+public class JsonLinesDocumentSource implements IDocumentSource {
+
+    /*** File the documents are read from */
+    private final File file;
+
+    /*** Input stream of the file */
+    private final InputStream in;
+
+    /*** Parser of the file */
+    private final JsonStreamParser parser;
+
+    /***
+     * Creates an instance of the class.
+     * @param file file of newline-delimited JSON
+     * @throws IOException if the file could not be opened
+     */
+    public JsonLinesDocumentSource(final File file) throws IOException {
+        this.file = file;
+        in = new FileInputStream(file);
+        parser = new JsonStreamParser(in);
+        parser.setLineDelimited(true);
+    }
+
+    /***
+     * Reads the next line of the file. A line that is not a valid JSON object
+     * is skipped (a document with no text is returned for it).
+     * @return next document or null if the end of the file's been reached
+     * @throws IOException if the file could not be read
+     */
+    @Override
+    public synchronized SourceDocument next() throws IOException {
+        if (!parser.skipWhitespace()) {
+            return null;
+        }
+        final long offset = parser.getPosition();
+        final String locator = DocumentLocator.ofOffset(file, offset);
+        try {
+            final var fields = parser.readObject(SourceDocument.FIELDS);
+            if (!parser.skipLine()) {
+                return new SourceDocument(file, locator, null);
+            }
+            return SourceDocument.of(file, locator, fields);
+        } catch (IllegalArgumentException e) {
+            // Continue with the next line.
+            parser.skipLine();
+            return new SourceDocument(file, locator, null);
+        }
+    }
+
+    /***
+     * The number of lines is not known in advance.
+     * @return -1
+     */
+    @Override
+    public int getDocumentCount() {
+        return -1;
+    }
+
+    /***
+     * Closes the file.
+     * @throws IOException if the file could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,234 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import com.github.pemistahl.lingua.api.Language;
+import cz.zcu.kiv.ir.silhavyj.searchengine.utils.IOUtils;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class decides which language a document belongs to. The cost of running
+ * a full language detector (Lingua) grows with the length of the text, so the
+ * language is determined in the following steps, each of which is cheaper than the next one:
+ *
+ * 1. If the directory of the document has a language hint, the hint is used.
+ * 2. The stopwords of the supported languages are counted in a bounded sample
+ *    (prefix) of the text. If the stopwords of one language clearly dominate,
+ *    that language is used.
+ * 3. The language detector is run on the sample.
+ *
+ * A hint is either set explicitly or read from a file called ".language" (e.g. "CZECH")
+ * in the directory. The hints are cached, so the file is read only once per directory.
+ * The router is thread-safe as long as the language detector is.
+ */
+public class LanguageRouter implements ILanguageRouter {
+
+    /*** Name of the file holding the language hint of a directory */
+    public static final String HINT_FILE_NAME = ".language";
+
+    /*** Default maximum number of characters of a text the language is detected from */
+    public static final int DEFAULT_SAMPLE_LENGTH = 1000;
+
+    /*** Minimum number of stopwords of a language found in a sample to skip the language detector */
+    private static final int MIN_STOPWORD_COUNT = 5;
+
+    /*** Minimum ratio of the stopwords of a language to all words of a sample to skip the language detector */
+    private static final double MIN_STOPWORD_RATIO = 0.15;
+
+    /*** How many times more stopwords the best language needs to have than the second best one */
+    private static final int DOMINANCE_RATIO = 3;
+
+    /*** Marks a word that is a stopword of more than one language */
+    private static final Language AMBIGUOUS = Language.UNKNOWN;
+
+    /*** Function detecting the language of a piece of text (the fallback) */
+    private final Function<String, Language> languageDetector;
+
+    /*** Stopwords of the languages recognized without the language detector */
+    private final Map<Language, Set<String>> stopWords;
+
+    /*** Maximum number of characters of a text the language is detected from */
+    private final int sampleLength;
+
+    /*** Language hints of directories (key = absolute path of a directory) */
+    private final Map<String, Optional<Language>> directoryHints;
+
+    /***
+     * Creates an instance of the class using the default length of a sample.
+     * @param languageDetector function detecting the language of a piece of text
+     */
+    public LanguageRouter(final Function<String, Language> languageDetector) {
+        this(languageDetector, DEFAULT_SAMPLE_LENGTH);
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param languageDetector function detecting the language of a piece of text
+     * @param sampleLength maximum number of characters of a text the language is detected from
+     * @throws IllegalArgumentException if the length of a sample is not positive
+     */
+    public LanguageRouter(final Function<String, Language> languageDetector, int sampleLength) throws IllegalArgumentException {
+        if (sampleLength < 1) {
+            throw new IllegalArgumentException("Length of a sample must be positive");
+        }
+        this.languageDetector = languageDetector;
+        this.sampleLength = sampleLength;
+        stopWords = new HashMap<>();
+        directoryHints = new ConcurrentHashMap<>();
+    }
+
+    /***
+     * Adds the stopwords of a language, so the language can
+     * be recognized without running the language detector.
+     * This method is supposed to be called before the router is used.
+     * @param language language of the stopwords
+     * @param stopWordsPath path to the file holding the stopwords (one per line)
+     */
+    public void addStopWords(final Language language, final String stopWordsPath) {
+        stopWords.computeIfAbsent(language, key -> new HashSet<>()).addAll(IOUtils.readLines(stopWordsPath));
+    }
+
+    /***
+     * Sets the language hint of a directory. All documents
+     * in the directory are then assigned the language.
+     * @param directory directory containing documents
+     * @param language language of the documents
+     */
+    public void setDirectoryHint(final File directory, final Language language) {
+        directoryHints.put(directory.getAbsolutePath(), Optional.of(language));
+    }
+
+    /***
+     * Determines the language of a document. The language hint of the document's directory is
+     * used if there's one. Otherwise, the language is detected from a sample of the text.
+     * @param file file the document has been read from
+     * @param text content of the document
+     * @return language of the document
+     */
+    @Override
+    public Language route(final File file, final String text) {
+        final var directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null) {
+            final var hint = directoryHints.computeIfAbsent(directory.getAbsolutePath(), path -> readHint(directory));
+            if (hint.isPresent()) {
+                return hint.get();
+            }
+        }
+        return detect(text);
+    }
+
+    /***
+     * Detects the language of a piece of text from a sample of the text.
+     * The language detector is run only if the stopwords don't give a clear answer.
+     * @param text given text
+     * @return language of the text
+     */
+    public Language detect(final String text) {
+        final String sample = getSample(text);
+        final var language = classifyByStopWords(sample);
+        return language != null ? language : languageDetector.apply(sample);
+    }
+
+    /***
+     * Returns a prefix of a text of at most sampleLength characters.
+     * The prefix is cut off at the last whitespace, so no word gets split.
+     * @param text given text
+     * @return sample of the text
+     */
+    private String getSample(final String text) {
+        if (text.length() <= sampleLength) {
+            return text;
+        }
+        int end = sampleLength;
+        while (end > 0 && !Character.isWhitespace(text.charAt(end))) {
+            end--;
+        }
+        return text.substring(0, end > 0 ? end : sampleLength);
+    }
+
+    /***
+     * Counts the stopwords of each language in a sample. If there are enough stopwords
+     * of one language and the language clearly dominates the others, it's returned.
+     * The counting is cheap and the sample is bounded, so this costs a small constant per document.
+     * @param sample sample of a text
+     * @return language of the sample or null if there's no clear answer
+     */
+    private Language classifyByStopWords(final String sample) {
+        final Map<Language, Integer> counts = new HashMap<>();
+        int words = 0;
+
+        // Go over the words of the sample (runs of letters).
+        int i = 0;
+        while (i < sample.length()) {
+            while (i < sample.length() && !Character.isLetter(sample.charAt(i))) {
+                i++;
+            }
+            final int start = i;
+            while (i < sample.length() && Character.isLetter(sample.charAt(i))) {
+                i++;
+            }
+            if (start == i) {
+                break;
+            }
+            words++;
+
+            // Only the stopwords of a single language count (e.g. "a" or "to" are both
+            // Czech and English stopwords, so they don't tell the languages apart).
+            final String word = sample.substring(start, i).toLowerCase(Locale.ROOT);
+            Language match = null;
+            for (final var entry : stopWords.entrySet()) {
+                if (entry.getValue().contains(word)) {
+                    match = match == null ? entry.getKey() : AMBIGUOUS;
+                }
+            }
+            if (match != null && match != AMBIGUOUS) {
+                counts.merge(match, 1, Integer::sum);
+            }
+        }
+
+        // Find the two languages with the most stopwords.
+        Language best = null;
+        int bestCount = 0;
+        int secondCount = 0;
+        for (final var entry : counts.entrySet()) {
+            if (entry.getValue() > bestCount) {
+                secondCount = bestCount;
+                bestCount = entry.getValue();
+                best = entry.getKey();
+            } else if (entry.getValue() > secondCount) {
+                secondCount = entry.getValue();
+            }
+        }
+        if (bestCount < MIN_STOPWORD_COUNT || bestCount < MIN_STOPWORD_RATIO * words || bestCount < DOMINANCE_RATIO * secondCount) {
+            return null;
+        }
+        return best;
+    }
+
+    /***
+     * Reads the language hint of a directory from its hint file.
+     * @param directory given directory
+     * @return language of the directory or an empty optional if it has no (valid) hint
+     */
+    private static Optional<Language> readHint(final File directory) {
+        final var hintFile = new File(directory, HINT_FILE_NAME);
+        if (!hintFile.isFile()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Language.valueOf(IOUtils.readFile(hintFile.getPath()).trim().toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Invalid language hint in " + hintFile.getPath());
+            return Optional.empty();
+        }
+    }
+}
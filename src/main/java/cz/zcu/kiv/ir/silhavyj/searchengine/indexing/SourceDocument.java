@@ -0,0 +1,103 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.DocumentStore;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a document read from a source (see IDocumentSource)
+ * before it's been tokenized. The text of the document is kept along with
+ * the fields that get stored in the index (see DocumentStore).
+ */
+public class SourceDocument {
+
+    /*** Fields of a JSON document that are read (the ones making up its text included) */
+    public static final Set<String> FIELDS = Set.copyOf(DocumentStore.FIELDS);
+
+    /*** File the document has been read from (e.g. an archive) */
+    private final File file;
+
+    /*** Locator of the document (see DocumentLocator) */
+    private final String locator;
+
+    /*** Text of the document (null if the document could not be parsed) */
+    private final String text;
+
+    /*** Fields of the document to be stored (null if there are none) */
+    private final Map<String, String> storedFields;
+
+    /***
+     * Creates an instance of the class.
+     * @param file file the document has been read from
+     * @param locator locator of the document
+     * @param text text of the document (null if the document could not be parsed)
+     */
+    public SourceDocument(final File file, final String locator, final String text) {
+        this(file, locator, text, null);
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param file file the document has been read from
+     * @param locator locator of the document
+     * @param text text of the document (null if the document could not be parsed)
+     * @param storedFields fields of the document to be stored (null if there are none)
+     */
+    public SourceDocument(final File file, final String locator, final String text, final Map<String, String> storedFields) {
+        this.file = file;
+        this.locator = locator;
+        this.text = text;
+        this.storedFields = storedFields;
+    }
+
+    /***
+     * Creates a document out of the fields of a JSON object. Each document needs
+     * to have both compulsory fields (title and article).
+     * @param file file the document has been read from
+     * @param locator locator of the document
+     * @param fields values of the fields of the JSON object (null if it could not be parsed)
+     * @return new document
+     */
+    public static SourceDocument of(final File file, final String locator, final Map<String, String> fields) {
+        if (fields == null || !fields.containsKey("title") || !fields.containsKey("article")) {
+            return new SourceDocument(file, locator, null);
+        }
+        return new SourceDocument(file, locator, fields.get("title") + " " + fields.get("article"), fields);
+    }
+
+    /***
+     * Returns the file the document has been read from.
+     * @return file of the document
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /***
+     * Returns the locator of the document.
+     * @return locator of the document
+     */
+    public String getLocator() {
+        return locator;
+    }
+
+    /***
+     * Returns the text of the document.
+     * @return text of the document (null if the document could not be parsed)
+     */
+    public String getText() {
+        return text;
+    }
+
+    /***
+     * Returns the fields of the document to be stored.
+     * @return fields of the document (key = name of a field, null if there are none)
+     */
+    public Map<String, String> getStoredFields() {
+        return storedFields;
+    }
+}
@@ -0,0 +1,293 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.utils.JsonStreamParser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a source of documents stored as JSON files in a tar.gz archive.
+ * The archive is decompressed and read sequentially (entry by entry) and each entry
+ * is parsed by a streaming parser. The locator of a document is the byte offset
+ * of its entry's header within the decompressed archive (see DocumentLocator).
+ * Only regular files are read (GNU long names are supported, other extensions are skipped).
+ */
+public class TarGzDocumentSource implements IDocumentSource {
+
+    /*** Size of a block of a tar archive */
+    static final int BLOCK_SIZE = 512;
+
+    /*** Size of the buffers of the input streams */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /*** Archive the documents are read from */
+    private final File file;
+
+    /*** Decompressed input stream of the archive */
+    private final InputStream in;
+
+    /*** Parser of the entries */
+    private final JsonStreamParser parser;
+
+    /*** Header of the current entry */
+    private final byte[] header;
+
+    /*** Offset of the next entry within the decompressed archive */
+    private long offset;
+
+    /***
+     * Input stream of the content of an entry. It stops at the end of the
+     * entry, so the parser can't read past it.
+     */
+    private static class EntryInputStream extends InputStream {
+
+        /*** Input stream of the archive */
+        private final InputStream in;
+
+        /*** Number of bytes of the entry that have not been read yet */
+        private long remaining;
+
+        /***
+         * Creates an instance of the class.
+         * @param in input stream of the archive (positioned at the start of the entry)
+         * @param size size of the entry
+         */
+        EntryInputStream(final InputStream in, long size) {
+            this.in = in;
+            remaining = size;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            final int c = in.read();
+            if (c == -1) {
+                throw new IOException("Truncated tar archive");
+            }
+            remaining--;
+            return c;
+        }
+
+        @Override
+        public int read(final byte[] bytes, int off, int len) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            final int count = in.read(bytes, off, (int)Math.min(len, remaining));
+            if (count < 0) {
+                throw new IOException("Truncated tar archive");
+            }
+            remaining -= count;
+            return count;
+        }
+
+        /***
+         * Skips the rest of the entry.
+         * @throws IOException if the archive could not be read
+         */
+        void skipRemaining() throws IOException {
+            skipFully(in, remaining);
+            remaining = 0;
+        }
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param file tar.gz archive of JSON files
+     * @throws IOException if the archive could not be opened
+     */
+    public TarGzDocumentSource(final File file) throws IOException {
+        this.file = file;
+        in = openDecompressed(file);
+        parser = new JsonStreamParser(in);
+        header = new byte[BLOCK_SIZE];
+        offset = 0;
+    }
+
+    /***
+     * Reads the next JSON file of the archive (other entries are skipped).
+     * @return next document or null if there are no more JSON files in the archive
+     * @throws IOException if the archive could not be read
+     */
+    @Override
+    public synchronized SourceDocument next() throws IOException {
+        String longName = null;
+        while (true) {
+            final long headerOffset = offset;
+            if (!readHeader(in, header)) {
+                return null;
+            }
+            final long size = getSize(header);
+            final long paddedSize = (size + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+            offset += BLOCK_SIZE + paddedSize;
+            final byte type = header[156];
+
+            // The data of a GNU long name entry is the name of the next entry.
+            if (type == 'L') {
+                final byte[] name = in.readNBytes((int)size);
+                skipFully(in, paddedSize - name.length);
+                longName = getString(name, 0, name.length);
+                continue;
+            }
+            final String name = longName != null ? longName : getName(header);
+            longName = null;
+            if ((type != '0' && type != 0) || !name.toLowerCase(Locale.ROOT).endsWith(".json")) {
+                skipFully(in, paddedSize);
+                continue;
+            }
+
+            // Parse the entry and skip whatever is left of it.
+            final var entry = new EntryInputStream(in, size);
+            final String locator = DocumentLocator.ofOffset(file, headerOffset);
+            SourceDocument document;
+            try {
+                parser.reset(entry);
+                document = SourceDocument.of(file, locator, parser.readObject(SourceDocument.FIELDS));
+            } catch (IllegalArgumentException e) {
+                document = new SourceDocument(file, locator, null);
+            }
+            entry.skipRemaining();
+            skipFully(in, paddedSize - size);
+            return document;
+        }
+    }
+
+    /***
+     * The number of entries is not known in advance.
+     * @return -1
+     */
+    @Override
+    public int getDocumentCount() {
+        return -1;
+    }
+
+    /***
+     * Closes the archive.
+     * @throws IOException if the archive could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /***
+     * Opens a tar.gz archive for reading the decompressed content.
+     * @param file tar.gz archive
+     * @return decompressed input stream of the archive
+     * @throws IOException if the archive could not be opened
+     */
+    static InputStream openDecompressed(final File file) throws IOException {
+        return new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), BUFFER_SIZE);
+    }
+
+    /***
+     * Reads the header of an entry.
+     * @param in input stream of the archive
+     * @param header buffer the header is read into
+     * @return True, if a header's been read. False, if the end of the archive's been reached.
+     * @throws IOException if the archive could not be read or if it's truncated
+     */
+    static boolean readHeader(final InputStream in, final byte[] header) throws IOException {
+        final int count = in.readNBytes(header, 0, BLOCK_SIZE);
+        if (count == 0) {
+            return false;
+        }
+        if (count < BLOCK_SIZE) {
+            throw new IOException("Truncated tar archive");
+        }
+        // The archive ends with blocks of zeros.
+        for (final byte b : header) {
+            if (b != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /***
+     * Returns the size of an entry stored in its header.
+     * @param header header of the entry
+     * @return size of the entry
+     * @throws IOException if the size is not valid
+     */
+    static long getSize(final byte[] header) throws IOException {
+        long size = 0;
+        // Sizes of 8GB and more are stored as big-endian binary numbers.
+        if ((header[124] & 0x80) != 0) {
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xFF);
+            }
+            return size;
+        }
+        for (int i = 124; i < 136 && header[i] != 0; i++) {
+            if (header[i] == ' ') {
+                continue;
+            }
+            if (header[i] < '0' || header[i] > '7') {
+                throw new IOException("Invalid size of a tar entry");
+            }
+            size = (size << 3) | (header[i] - '0');
+        }
+        return size;
+    }
+
+    /***
+     * Returns the name of an entry stored in its header (including the ustar prefix).
+     * @param header header of the entry
+     * @return name of the entry
+     */
+    private static String getName(final byte[] header) {
+        final String name = getString(header, 0, 100);
+        if (header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a' && header[261] == 'r') {
+            final String prefix = getString(header, 345, 155);
+            if (!prefix.isEmpty()) {
+                return prefix + "/" + name;
+            }
+        }
+        return name;
+    }
+
+    /***
+     * Decodes a NUL-terminated string of a header.
+     * @param bytes bytes holding the string
+     * @param start start of the string
+     * @param length maximum length of the string
+     * @return decoded string
+     */
+    private static String getString(final byte[] bytes, int start, int length) {
+        int end = start;
+        while (end < start + length && bytes[end] != 0) {
+            end++;
+        }
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /***
+     * Skips a given number of bytes of an input stream.
+     * @param in input stream
+     * @param count number of bytes to be skipped
+     * @throws IOException if the stream could not be read or if it ends too early
+     */
+    static void skipFully(final InputStream in, long count) throws IOException {
+        while (count > 0) {
+            final long skipped = in.skip(count);
+            if (skipped > 0) {
+                count -= skipped;
+            } else if (in.read() == -1) {
+                throw new IOException("Truncated tar archive");
+            } else {
+                count--;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.indexing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.utils.JsonStreamParser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a source of documents stored as JSON files in a zip archive.
+ * The archive is read sequentially (entry by entry) and each entry is parsed by
+ * a streaming parser. The locator of a document is the name of its entry
+ * within the archive (see DocumentLocator).
+ */
+public class ZipDocumentSource implements IDocumentSource {
+
+    /*** Archive the documents are read from */
+    private final File file;
+
+    /*** Input stream of the archive */
+    private final ZipInputStream in;
+
+    /*** Parser of the entries */
+    private final JsonStreamParser parser;
+
+    /***
+     * Creates an instance of the class.
+     * @param file zip archive of JSON files
+     * @throws IOException if the archive could not be opened
+     */
+    public ZipDocumentSource(final File file) throws IOException {
+        this.file = file;
+        in = new ZipInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        parser = new JsonStreamParser(in);
+    }
+
+    /***
+     * Reads the next JSON file of the archive (other entries are skipped).
+     * @return next document or null if there are no more JSON files in the archive
+     * @throws IOException if the archive could not be read
+     */
+    @Override
+    public synchronized SourceDocument next() throws IOException {
+        ZipEntry entry;
+        while ((entry = in.getNextEntry()) != null) {
+            if (entry.isDirectory() || !entry.getName().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                continue;
+            }
+            final String locator = DocumentLocator.ofEntry(file, entry.getName());
+            try {
+                parser.reset(in);
+                return SourceDocument.of(file, locator, parser.readObject(SourceDocument.FIELDS));
+            } catch (IllegalArgumentException e) {
+                return new SourceDocument(file, locator, null);
+            }
+        }
+        return null;
+    }
+
+    /***
+     * The number of entries is not known in advance.
+     * @return -1
+     */
+    @Override
+    public int getDocumentCount() {
+        return -1;
+    }
+
+    /***
+     * Closes the archive.
+     * @throws IOException if the archive could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -3,11 +3,11 @@ package cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing;
 import cz.zcu.kiv.ir.silhavyj.searchengine.utils.IOUtils;
 
 import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /***
@@ -16,60 +16,67 @@ import java.util.regex.Pattern;
  */
 public class CzechPreprocessor implements IPreprocessor {
 
-    private final StringBuffer sb;
     private final Set<String> stopWords;
 
-    private static final String regex = "(\\d+[,]\\d+[,]?(\\d+)?[,]?(\\d+)?)|(\\d+[:]\\d+)|(\\d+[.,](\\d+)?[.,]?(\\d+)?)|(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]|(?:(?<=^|[^\\p{L}\\d])'|'(?=[\\p{L}\\d]|$)|[\\p{L}\\d*])+|(<.*?>)";
+    /*** Pattern matching the characters which are removed after the normalization */
+    private static final Pattern NON_ASCII_PATTERN = Pattern.compile("[^\\p{ASCII}]");
+
+    /*** Cache of the stems of the tokens (it may be shared with other preprocessors) */
+    private final StemCache stemCache;
 
     public CzechPreprocessor(final String stopWordsPath) {
-        sb = new StringBuffer();
+        this(stopWordsPath, new StemCache());
+    }
+
+    public CzechPreprocessor(final String stopWordsPath, final StemCache stemCache) {
+        this.stemCache = stemCache;
         stopWords = new HashSet<>();
         final var lines = IOUtils.readLines(stopWordsPath);
         stopWords.addAll(lines);
     }
 
-    private void removeDerivational(StringBuffer buffer) {
+    private void removeDerivational(WordBuffer buffer) {
         int len=buffer.length();
         //
         if( (len > 8 )&&
-                buffer.substring( len-6 ,len).equals("obinec")){
+                buffer.regionEquals(len-6, "obinec")){
 
             buffer.delete( len- 6 , len);
             return;
         }//len >8
         if(len > 7){
-            if(buffer.substring( len-5 ,len).equals("ion\u00e1\u0159")){ // -ionář
+            if(buffer.regionEquals(len-5, "ion\u00e1\u0159")){ // -ionář
 
                 buffer.delete( len- 4 , len);
                 palatalise(buffer);
                 return;
             }
-            if(buffer.substring( len-5 ,len).equals("ovisk")||
-                    buffer.substring( len-5 ,len).equals("ovstv")||
-                    buffer.substring( len-5 ,len).equals("ovi\u0161t")||  //-ovišt
-                    buffer.substring( len-5 ,len).equals("ovn\u00edk")){ //-ovník
+            if(buffer.regionEquals(len-5, "ovisk")||
+                    buffer.regionEquals(len-5, "ovstv")||
+                    buffer.regionEquals(len-5, "ovi\u0161t")||  //-ovišt
+                    buffer.regionEquals(len-5, "ovn\u00edk")){ //-ovník
 
                 buffer.delete( len- 5 , len);
                 return;
             }
         }//len>7
         if(len > 6){
-            if(	buffer.substring( len-4 ,len).equals("\u00e1sek")|| // -ásek
-                    buffer.substring( len-4 ,len).equals("loun")||
-                    buffer.substring( len-4 ,len).equals("nost")||
-                    buffer.substring( len-4 ,len).equals("teln")||
-                    buffer.substring( len-4 ,len).equals("ovec")||
-                    buffer.substring( len-5 ,len).equals("ov\u00edk")|| //-ovík
-                    buffer.substring( len-4 ,len).equals("ovtv")||
-                    buffer.substring( len-4 ,len).equals("ovin")||
-                    buffer.substring( len-4 ,len).equals("\u0161tin")){ //-štin
+            if(	buffer.regionEquals(len-4, "\u00e1sek")|| // -ásek
+                    buffer.regionEquals(len-4, "loun")||
+                    buffer.regionEquals(len-4, "nost")||
+                    buffer.regionEquals(len-4, "teln")||
+                    buffer.regionEquals(len-4, "ovec")||
+                    buffer.regionEquals(len-5, "ov\u00edk")|| //-ovík
+                    buffer.regionEquals(len-4, "ovtv")||
+                    buffer.regionEquals(len-4, "ovin")||
+                    buffer.regionEquals(len-4, "\u0161tin")){ //-štin
 
                 buffer.delete( len- 4 , len);
                 return;
             }
-            if(buffer.substring( len-4 ,len).equals("enic")||
-                    buffer.substring( len-4 ,len).equals("inec")||
-                    buffer.substring( len-4 ,len).equals("itel")){
+            if(buffer.regionEquals(len-4, "enic")||
+                    buffer.regionEquals(len-4, "inec")||
+                    buffer.regionEquals(len-4, "itel")){
 
                 buffer.delete( len- 3 , len);
                 palatalise(buffer);
@@ -77,112 +84,112 @@ public class CzechPreprocessor implements IPreprocessor {
             }
         }//len>6
         if(len > 5){
-            if(buffer.substring( len-3 ,len).equals("\u00e1rn")){ //-árn
+            if(buffer.regionEquals(len-3, "\u00e1rn")){ //-árn
 
                 buffer.delete( len- 3 , len);
                 return;
             }
-            if(buffer.substring( len-3 ,len).equals("\u011bnk")){ //-ěnk
+            if(buffer.regionEquals(len-3, "\u011bnk")){ //-ěnk
 
                 buffer.delete( len- 2 , len);
                 palatalise(buffer);
                 return;
             }
-            if(buffer.substring( len-3 ,len).equals("i\u00e1n")|| //-ián
-                    buffer.substring( len-3 ,len).equals("ist")||
-                    buffer.substring( len-3 ,len).equals("isk")||
-                    buffer.substring( len-3 ,len).equals("i\u0161t")|| //-išt
-                    buffer.substring( len-3 ,len).equals("itb")||
-                    buffer.substring( len-3 ,len).equals("\u00edrn")){  //-írn
+            if(buffer.regionEquals(len-3, "i\u00e1n")|| //-ián
+                    buffer.regionEquals(len-3, "ist")||
+                    buffer.regionEquals(len-3, "isk")||
+                    buffer.regionEquals(len-3, "i\u0161t")|| //-išt
+                    buffer.regionEquals(len-3, "itb")||
+                    buffer.regionEquals(len-3, "\u00edrn")){  //-írn
 
                 buffer.delete( len- 2 , len);
                 palatalise(buffer);
                 return;
             }
-            if(buffer.substring( len-3 ,len).equals("och")||
-                    buffer.substring( len-3 ,len).equals("ost")||
-                    buffer.substring( len-3 ,len).equals("ovn")||
-                    buffer.substring( len-3 ,len).equals("oun")||
-                    buffer.substring( len-3 ,len).equals("out")||
-                    buffer.substring( len-3 ,len).equals("ou\u0161")){  //-ouš
+            if(buffer.regionEquals(len-3, "och")||
+                    buffer.regionEquals(len-3, "ost")||
+                    buffer.regionEquals(len-3, "ovn")||
+                    buffer.regionEquals(len-3, "oun")||
+                    buffer.regionEquals(len-3, "out")||
+                    buffer.regionEquals(len-3, "ou\u0161")){  //-ouš
 
                 buffer.delete( len- 3 , len);
                 return;
             }
-            if(buffer.substring( len-3 ,len).equals("u\u0161k")){ //-ušk
+            if(buffer.regionEquals(len-3, "u\u0161k")){ //-ušk
 
                 buffer.delete( len- 3 , len);
                 return;
             }
-            if(buffer.substring( len-3 ,len).equals("kyn")||
-                    buffer.substring( len-3 ,len).equals("\u010dan")||    //-čan
-                    buffer.substring( len-3 ,len).equals("k\u00e1\u0159")|| //kář
-                    buffer.substring( len-3 ,len).equals("n\u00e9\u0159")|| //néř
-                    buffer.substring( len-3 ,len).equals("n\u00edk")||      //-ník
-                    buffer.substring( len-3 ,len).equals("ctv")||
-                    buffer.substring( len-3 ,len).equals("stv")){
+            if(buffer.regionEquals(len-3, "kyn")||
+                    buffer.regionEquals(len-3, "\u010dan")||    //-čan
+                    buffer.regionEquals(len-3, "k\u00e1\u0159")|| //kář
+                    buffer.regionEquals(len-3, "n\u00e9\u0159")|| //néř
+                    buffer.regionEquals(len-3, "n\u00edk")||      //-ník
+                    buffer.regionEquals(len-3, "ctv")||
+                    buffer.regionEquals(len-3, "stv")){
 
                 buffer.delete( len- 3 , len);
                 return;
             }
         }//len>5
         if(len > 4){
-            if(buffer.substring( len-2 ,len).equals("\u00e1\u010d")|| // -áč
-                    buffer.substring( len-2 ,len).equals("a\u010d")||      //-ač
-                    buffer.substring( len-2 ,len).equals("\u00e1n")||      //-án
-                    buffer.substring( len-2 ,len).equals("an")||
-                    buffer.substring( len-2 ,len).equals("\u00e1\u0159")|| //-ář
-                    buffer.substring( len-2 ,len).equals("as")){
+            if(buffer.regionEquals(len-2, "\u00e1\u010d")|| // -áč
+                    buffer.regionEquals(len-2, "a\u010d")||      //-ač
+                    buffer.regionEquals(len-2, "\u00e1n")||      //-án
+                    buffer.regionEquals(len-2, "an")||
+                    buffer.regionEquals(len-2, "\u00e1\u0159")|| //-ář
+                    buffer.regionEquals(len-2, "as")){
 
                 buffer.delete( len- 2 , len);
                 return;
             }
-            if(buffer.substring( len-2 ,len).equals("ec")||
-                    buffer.substring( len-2 ,len).equals("en")||
-                    buffer.substring( len-2 ,len).equals("\u011bn")||   //-ěn
-                    buffer.substring( len-2 ,len).equals("\u00e9\u0159")){  //-éř
+            if(buffer.regionEquals(len-2, "ec")||
+                    buffer.regionEquals(len-2, "en")||
+                    buffer.regionEquals(len-2, "\u011bn")||   //-ěn
+                    buffer.regionEquals(len-2, "\u00e9\u0159")){  //-éř
 
                 buffer.delete( len-1 , len);
                 palatalise(buffer);
                 return;
             }
-            if(buffer.substring( len-2 ,len).equals("\u00ed\u0159")|| //-íř
-                    buffer.substring( len-2 ,len).equals("ic")||
-                    buffer.substring( len-2 ,len).equals("in")||
-                    buffer.substring( len-2 ,len).equals("\u00edn")||  //-ín
-                    buffer.substring( len-2 ,len).equals("it")||
-                    buffer.substring( len-2 ,len).equals("iv")){
+            if(buffer.regionEquals(len-2, "\u00ed\u0159")|| //-íř
+                    buffer.regionEquals(len-2, "ic")||
+                    buffer.regionEquals(len-2, "in")||
+                    buffer.regionEquals(len-2, "\u00edn")||  //-ín
+                    buffer.regionEquals(len-2, "it")||
+                    buffer.regionEquals(len-2, "iv")){
 
                 buffer.delete( len- 1 , len);
                 palatalise(buffer);
                 return;
             }
 
-            if(buffer.substring( len-2 ,len).equals("ob")||
-                    buffer.substring( len-2 ,len).equals("ot")||
-                    buffer.substring( len-2 ,len).equals("ov")||
-                    buffer.substring( len-2 ,len).equals("o\u0148")){ //-oň
+            if(buffer.regionEquals(len-2, "ob")||
+                    buffer.regionEquals(len-2, "ot")||
+                    buffer.regionEquals(len-2, "ov")||
+                    buffer.regionEquals(len-2, "o\u0148")){ //-oň
 
                 buffer.delete( len- 2 , len);
                 return;
             }
-            if(buffer.substring( len-2 ,len).equals("ul")){
+            if(buffer.regionEquals(len-2, "ul")){
 
                 buffer.delete( len- 2 , len);
                 return;
             }
-            if(buffer.substring( len-2 ,len).equals("yn")){
+            if(buffer.regionEquals(len-2, "yn")){
 
                 buffer.delete( len- 2 , len);
                 return;
             }
-            if(buffer.substring( len-2 ,len).equals("\u010dk")||              //-čk
-                    buffer.substring( len-2 ,len).equals("\u010dn")||  //-čn
-                    buffer.substring( len-2 ,len).equals("dl")||
-                    buffer.substring( len-2 ,len).equals("nk")||
-                    buffer.substring( len-2 ,len).equals("tv")||
-                    buffer.substring( len-2 ,len).equals("tk")||
-                    buffer.substring( len-2 ,len).equals("vk")){
+            if(buffer.regionEquals(len-2, "\u010dk")||              //-čk
+                    buffer.regionEquals(len-2, "\u010dn")||  //-čn
+                    buffer.regionEquals(len-2, "dl")||
+                    buffer.regionEquals(len-2, "nk")||
+                    buffer.regionEquals(len-2, "tv")||
+                    buffer.regionEquals(len-2, "tk")||
+                    buffer.regionEquals(len-2, "vk")){
 
                 buffer.delete( len-2 , len);
                 return;
@@ -202,133 +209,133 @@ public class CzechPreprocessor implements IPreprocessor {
 
     }//removeDerivational
 
-    private void removeAugmentative(StringBuffer buffer) {
+    private void removeAugmentative(WordBuffer buffer) {
         int len=buffer.length();
         //
         if( (len> 6 )&&
-                buffer.substring( len- 4 ,len).equals("ajzn")){
+                buffer.regionEquals(len-4, "ajzn")){
 
             buffer.delete( len- 4 , len);
             return;
         }
         if( (len> 5 )&&
-                (buffer.substring( len- 3 ,len).equals("izn")||
-                        buffer.substring( len- 3 ,len).equals("isk"))){
+                (buffer.regionEquals(len-3, "izn")||
+                        buffer.regionEquals(len-3, "isk"))){
 
             buffer.delete( len- 2 , len);
             palatalise(buffer);
             return;
         }
         if( (len> 4 )&&
-                buffer.substring( len- 2 ,len).equals("\00e1k")){ //-ák
+                buffer.regionEquals(len-2, "\00e1k")){ //-ák
 
             buffer.delete( len- 2 , len);
         }
 
     }
 
-    private void removeDiminutive(StringBuffer buffer) {
+    private void removeDiminutive(WordBuffer buffer) {
         int len=buffer.length();
         //
         if( (len> 7 )&&
-                buffer.substring( len- 5 ,len).equals("ou\u0161ek")){  //-oušek
+                buffer.regionEquals(len-5, "ou\u0161ek")){  //-oušek
 
             buffer.delete( len- 5 , len);
             return;
         }
         if( len> 6){
-            if(buffer.substring( len-4,len).equals("e\u010dek")||      //-eček
-                    buffer.substring( len-4,len).equals("\u00e9\u010dek")||    //-éček
-                    buffer.substring( len-4,len).equals("i\u010dek")||         //-iček
-                    buffer.substring( len-4,len).equals("\u00ed\u010dek")||    //íček
-                    buffer.substring( len-4,len).equals("enek")||
-                    buffer.substring( len-4,len).equals("\u00e9nek")||      //-ének
-                    buffer.substring( len-4,len).equals("inek")||
-                    buffer.substring( len-4,len).equals("\u00ednek")){      //-ínek
+            if(buffer.regionEquals(len-4, "e\u010dek")||      //-eček
+                    buffer.regionEquals(len-4, "\u00e9\u010dek")||    //-éček
+                    buffer.regionEquals(len-4, "i\u010dek")||         //-iček
+                    buffer.regionEquals(len-4, "\u00ed\u010dek")||    //íček
+                    buffer.regionEquals(len-4, "enek")||
+                    buffer.regionEquals(len-4, "\u00e9nek")||      //-ének
+                    buffer.regionEquals(len-4, "inek")||
+                    buffer.regionEquals(len-4, "\u00ednek")){      //-ínek
 
                 buffer.delete( len- 3 , len);
                 palatalise(buffer);
                 return;
             }
-            if( buffer.substring( len-4,len).equals("\u00e1\u010dek")|| //áček
-                    buffer.substring( len-4,len).equals("a\u010dek")||   //aček
-                    buffer.substring( len-4,len).equals("o\u010dek")||   //oček
-                    buffer.substring( len-4,len).equals("u\u010dek")||   //uček
-                    buffer.substring( len-4,len).equals("anek")||
-                    buffer.substring( len-4,len).equals("onek")||
-                    buffer.substring( len-4,len).equals("unek")||
-                    buffer.substring( len-4,len).equals("\u00e1nek")){   //-ánek
+            if( buffer.regionEquals(len-4, "\u00e1\u010dek")|| //áček
+                    buffer.regionEquals(len-4, "a\u010dek")||   //aček
+                    buffer.regionEquals(len-4, "o\u010dek")||   //oček
+                    buffer.regionEquals(len-4, "u\u010dek")||   //uček
+                    buffer.regionEquals(len-4, "anek")||
+                    buffer.regionEquals(len-4, "onek")||
+                    buffer.regionEquals(len-4, "unek")||
+                    buffer.regionEquals(len-4, "\u00e1nek")){   //-ánek
 
                 buffer.delete( len- 4 , len);
                 return;
             }
         }//len>6
         if( len> 5){
-            if(buffer.substring( len-3,len).equals("e\u010dk")||   //-ečk
-                    buffer.substring( len-3,len).equals("\u00e9\u010dk")||  //-éčk
-                    buffer.substring( len-3,len).equals("i\u010dk")||   //-ičk
-                    buffer.substring( len-3,len).equals("\u00ed\u010dk")||    //-íčk
-                    buffer.substring( len-3,len).equals("enk")||   //-enk
-                    buffer.substring( len-3,len).equals("\u00e9nk")||  //-énk
-                    buffer.substring( len-3,len).equals("ink")||   //-ink
-                    buffer.substring( len-3,len).equals("\u00ednk")){   //-ínk
+            if(buffer.regionEquals(len-3, "e\u010dk")||   //-ečk
+                    buffer.regionEquals(len-3, "\u00e9\u010dk")||  //-éčk
+                    buffer.regionEquals(len-3, "i\u010dk")||   //-ičk
+                    buffer.regionEquals(len-3, "\u00ed\u010dk")||    //-íčk
+                    buffer.regionEquals(len-3, "enk")||   //-enk
+                    buffer.regionEquals(len-3, "\u00e9nk")||  //-énk
+                    buffer.regionEquals(len-3, "ink")||   //-ink
+                    buffer.regionEquals(len-3, "\u00ednk")){   //-ínk
 
                 buffer.delete( len- 3 , len);
                 palatalise(buffer);
                 return;
             }
-            if(buffer.substring( len-3,len).equals("\u00e1\u010dk")||  //-áčk
-                    buffer.substring( len-3,len).equals("au010dk")|| //-ačk
-                    buffer.substring( len-3,len).equals("o\u010dk")||  //-očk
-                    buffer.substring( len-3,len).equals("u\u010dk")||   //-učk
-                    buffer.substring( len-3,len).equals("ank")||
-                    buffer.substring( len-3,len).equals("onk")||
-                    buffer.substring( len-3,len).equals("unk")){
+            if(buffer.regionEquals(len-3, "\u00e1\u010dk")||  //-áčk
+                    buffer.regionEquals(len-3, "au010dk")|| //-ačk
+                    buffer.regionEquals(len-3, "o\u010dk")||  //-očk
+                    buffer.regionEquals(len-3, "u\u010dk")||   //-učk
+                    buffer.regionEquals(len-3, "ank")||
+                    buffer.regionEquals(len-3, "onk")||
+                    buffer.regionEquals(len-3, "unk")){
 
                 buffer.delete( len- 3 , len);
                 return;
 
             }
-            if(buffer.substring( len-3,len).equals("\u00e1tk")|| //-átk
-                    buffer.substring( len-3,len).equals("\u00e1nk")||  //-ánk
-                    buffer.substring( len-3,len).equals("u\u0161k")){   //-ušk
+            if(buffer.regionEquals(len-3, "\u00e1tk")|| //-átk
+                    buffer.regionEquals(len-3, "\u00e1nk")||  //-ánk
+                    buffer.regionEquals(len-3, "u\u0161k")){   //-ušk
 
                 buffer.delete( len- 3 , len);
                 return;
             }
         }//len>5
         if( len> 4){
-            if(buffer.substring( len-2,len).equals("ek")||
-                    buffer.substring( len-2,len).equals("\u00e9k")||  //-ék
-                    buffer.substring( len-2,len).equals("\u00edk")||  //-ík
-                    buffer.substring( len-2,len).equals("ik")){
+            if(buffer.regionEquals(len-2, "ek")||
+                    buffer.regionEquals(len-2, "\u00e9k")||  //-ék
+                    buffer.regionEquals(len-2, "\u00edk")||  //-ík
+                    buffer.regionEquals(len-2, "ik")){
 
                 buffer.delete( len- 1 , len);
                 palatalise(buffer);
                 return;
             }
-            if(buffer.substring( len-2,len).equals("\u00e1k")||  //-ák
-                    buffer.substring( len-2,len).equals("ak")||
-                    buffer.substring( len-2,len).equals("ok")||
-                    buffer.substring( len-2,len).equals("uk")){
+            if(buffer.regionEquals(len-2, "\u00e1k")||  //-ák
+                    buffer.regionEquals(len-2, "ak")||
+                    buffer.regionEquals(len-2, "ok")||
+                    buffer.regionEquals(len-2, "uk")){
 
                 buffer.delete( len- 1 , len);
                 return;
             }
         }
         if( (len> 3 )&&
-                buffer.substring( len- 1 ,len).equals("k")){
+                buffer.regionEquals(len-1, "k")){
 
             buffer.delete( len- 1, len);
         }
     }//removeDiminutives
 
-    private void removeComparative(StringBuffer buffer) {
+    private void removeComparative(WordBuffer buffer) {
         int len=buffer.length();
         //
         if( (len> 5)&&
-                (buffer.substring( len-3,len).equals("ej\u0161")||  //-ejš
-                        buffer.substring( len-3,len).equals("\u011bj\u0161"))){   //-ějš
+                (buffer.regionEquals(len-3, "ej\u0161")||  //-ejš
+                        buffer.regionEquals(len-3, "\u011bj\u0161"))){   //-ějš
 
             buffer.delete( len- 2 , len);
             palatalise(buffer);
@@ -336,35 +343,35 @@ public class CzechPreprocessor implements IPreprocessor {
 
     }
 
-    private void palatalise(StringBuffer buffer){
+    private void palatalise(WordBuffer buffer){
         int len=buffer.length();
 
-        if( buffer.substring( len- 2 ,len).equals("ci")||
-                buffer.substring( len- 2 ,len).equals("ce")||
-                buffer.substring( len- 2 ,len).equals("\u010di")||      //-či
-                buffer.substring( len- 2 ,len).equals("\u010de")){   //-če
+        if( buffer.regionEquals(len-2, "ci")||
+                buffer.regionEquals(len-2, "ce")||
+                buffer.regionEquals(len-2, "\u010di")||      //-či
+                buffer.regionEquals(len-2, "\u010de")){   //-če
 
             buffer.replace(len- 2 ,len, "k");
             return;
         }
-        if( buffer.substring( len- 2 ,len).equals("zi")||
-                buffer.substring( len- 2 ,len).equals("ze")||
-                buffer.substring( len- 2 ,len).equals("\u017ei")||    //-ži
-                buffer.substring( len- 2 ,len).equals("\u017ee")){  //-že
+        if( buffer.regionEquals(len-2, "zi")||
+                buffer.regionEquals(len-2, "ze")||
+                buffer.regionEquals(len-2, "\u017ei")||    //-ži
+                buffer.regionEquals(len-2, "\u017ee")){  //-že
 
             buffer.replace(len- 2 ,len, "h");
             return;
         }
-        if( buffer.substring( len- 3 ,len).equals("\u010dt\u011b")||     //-čtě
-                buffer.substring( len- 3 ,len).equals("\u010dti")||   //-čti
-                buffer.substring( len- 3 ,len).equals("\u010dt\u00ed")){   //-čtí
+        if( buffer.regionEquals(len-3, "\u010dt\u011b")||     //-čtě
+                buffer.regionEquals(len-3, "\u010dti")||   //-čti
+                buffer.regionEquals(len-3, "\u010dt\u00ed")){   //-čtí
 
             buffer.replace(len- 3 ,len, "ck");
             return;
         }
-        if( buffer.substring( len- 2 ,len).equals("\u0161t\u011b")||   //-ště
-                buffer.substring( len- 2 ,len).equals("\u0161ti")||   //-šti
-                buffer.substring( len- 2 ,len).equals("\u0161t\u00ed")){  //-ští
+        if( buffer.regionEquals(len-2, "\u0161t\u011b")||   //-ště
+                buffer.regionEquals(len-2, "\u0161ti")||   //-šti
+                buffer.regionEquals(len-2, "\u0161t\u00ed")){  //-ští
 
             buffer.replace(len- 2 ,len, "sk");
             return;
@@ -372,21 +379,21 @@ public class CzechPreprocessor implements IPreprocessor {
         buffer.delete( len- 1 , len);
     }//palatalise
 
-    private void removePossessives(StringBuffer buffer) {
+    private void removePossessives(WordBuffer buffer) {
         int len=buffer.length();
 
         if( len> 5 ){
-            if( buffer.substring( len- 2 ,len).equals("ov")){
+            if( buffer.regionEquals(len-2, "ov")){
 
                 buffer.delete( len- 2 , len);
                 return;
             }
-            if(buffer.substring( len-2,len).equals("\u016fv")){ //-ův
+            if(buffer.regionEquals(len-2, "\u016fv")){ //-ův
 
                 buffer.delete( len- 2 , len);
                 return;
             }
-            if( buffer.substring( len- 2 ,len).equals("in")){
+            if( buffer.regionEquals(len-2, "in")){
 
                 buffer.delete( len- 1 , len);
                 palatalise(buffer);
@@ -394,123 +401,123 @@ public class CzechPreprocessor implements IPreprocessor {
         }
     }//removePossessives
 
-    private void removeCase(StringBuffer buffer) {
+    private void removeCase(WordBuffer buffer) {
         int len=buffer.length();
         //
         if( (len> 7 )&&
-                buffer.substring( len- 5 ,len).equals("atech")){
+                buffer.regionEquals(len-5, "atech")){
 
             buffer.delete( len- 5 , len);
             return;
         }//len>7
         if( len> 6 ){
-            if(buffer.substring( len- 4 ,len).equals("\u011btem")){   //-ětem
+            if(buffer.regionEquals(len-4, "\u011btem")){   //-ětem
 
                 buffer.delete( len- 3 , len);
                 palatalise(buffer);
                 return;
             }
-            if(buffer.substring( len- 4 ,len).equals("at\u016fm")){  //-atům
+            if(buffer.regionEquals(len-4, "at\u016fm")){  //-atům
                 buffer.delete( len- 4 , len);
                 return;
             }
 
         }
         if( len> 5 ){
-            if(buffer.substring( len-3,len).equals("ech")||
-                    buffer.substring( len-3,len).equals("ich")||
-                    buffer.substring( len-3,len).equals("\u00edch")){ //-ích
+            if(buffer.regionEquals(len-3, "ech")||
+                    buffer.regionEquals(len-3, "ich")||
+                    buffer.regionEquals(len-3, "\u00edch")){ //-ích
 
                 buffer.delete( len-2 , len);
                 palatalise(buffer);
                 return;
             }
-            if(buffer.substring( len-3,len).equals("\u00e9ho")|| //-ého
-                    buffer.substring( len-3,len).equals("\u011bmi")||  //-ěmu
-                    buffer.substring( len-3,len).equals("emi")||
-                    buffer.substring( len-3,len).equals("\u00e9mu")||  // -ému				                                                                buffer.substring( len-3,len).equals("ete")||
-                    buffer.substring( len-3,len).equals("eti")||
-                    buffer.substring( len-3,len).equals("iho")||
-                    buffer.substring( len-3,len).equals("\u00edho")||  //-ího
-                    buffer.substring( len-3,len).equals("\u00edmi")||  //-ími
-                    buffer.substring( len-3,len).equals("imu")){
+            if(buffer.regionEquals(len-3, "\u00e9ho")|| //-ého
+                    buffer.regionEquals(len-3, "\u011bmi")||  //-ěmu
+                    buffer.regionEquals(len-3, "emi")||
+                    buffer.regionEquals(len-3, "\u00e9mu")||  // -ému				                                                                buffer.regionEquals(len-3, "ete")||
+                    buffer.regionEquals(len-3, "eti")||
+                    buffer.regionEquals(len-3, "iho")||
+                    buffer.regionEquals(len-3, "\u00edho")||  //-ího
+                    buffer.regionEquals(len-3, "\u00edmi")||  //-ími
+                    buffer.regionEquals(len-3, "imu")){
 
                 buffer.delete( len- 2 , len);
                 palatalise(buffer);
                 return;
             }
-            if( buffer.substring( len-3,len).equals("\u00e1ch")|| //-ách
-                    buffer.substring( len-3,len).equals("ata")||
-                    buffer.substring( len-3,len).equals("aty")||
-                    buffer.substring( len-3,len).equals("\u00fdch")||   //-ých
-                    buffer.substring( len-3,len).equals("ama")||
-                    buffer.substring( len-3,len).equals("ami")||
-                    buffer.substring( len-3,len).equals("ov\u00e9")||   //-ové
-                    buffer.substring( len-3,len).equals("ovi")||
-                    buffer.substring( len-3,len).equals("\u00fdmi")){  //-ými
+            if( buffer.regionEquals(len-3, "\u00e1ch")|| //-ách
+                    buffer.regionEquals(len-3, "ata")||
+                    buffer.regionEquals(len-3, "aty")||
+                    buffer.regionEquals(len-3, "\u00fdch")||   //-ých
+                    buffer.regionEquals(len-3, "ama")||
+                    buffer.regionEquals(len-3, "ami")||
+                    buffer.regionEquals(len-3, "ov\u00e9")||   //-ové
+                    buffer.regionEquals(len-3, "ovi")||
+                    buffer.regionEquals(len-3, "\u00fdmi")){  //-ými
 
                 buffer.delete( len- 3 , len);
                 return;
             }
         }
         if( len> 4){
-            if(buffer.substring( len-2,len).equals("em")){
+            if(buffer.regionEquals(len-2, "em")){
 
                 buffer.delete( len- 1 , len);
                 palatalise(buffer);
                 return;
 
             }
-            if( buffer.substring( len-2,len).equals("es")||
-                    buffer.substring( len-2,len).equals("\u00e9m")||    //-ém
-                    buffer.substring( len-2,len).equals("\u00edm")){   //-ím
+            if( buffer.regionEquals(len-2, "es")||
+                    buffer.regionEquals(len-2, "\u00e9m")||    //-ém
+                    buffer.regionEquals(len-2, "\u00edm")){   //-ím
 
                 buffer.delete( len- 2 , len);
                 palatalise(buffer);
                 return;
             }
-            if( buffer.substring( len-2,len).equals("\u016fm")){
+            if( buffer.regionEquals(len-2, "\u016fm")){
 
                 buffer.delete( len- 2 , len);
                 return;
             }
-            if( buffer.substring( len-2,len).equals("at")||
-                    buffer.substring( len-2,len).equals("\u00e1m")||    //-ám
-                    buffer.substring( len-2,len).equals("os")||
-                    buffer.substring( len-2,len).equals("us")||
-                    buffer.substring( len-2,len).equals("\u00fdm")||     //-ým
-                    buffer.substring( len-2,len).equals("mi")||
-                    buffer.substring( len-2,len).equals("ou")){
+            if( buffer.regionEquals(len-2, "at")||
+                    buffer.regionEquals(len-2, "\u00e1m")||    //-ám
+                    buffer.regionEquals(len-2, "os")||
+                    buffer.regionEquals(len-2, "us")||
+                    buffer.regionEquals(len-2, "\u00fdm")||     //-ým
+                    buffer.regionEquals(len-2, "mi")||
+                    buffer.regionEquals(len-2, "ou")){
 
                 buffer.delete( len- 2 , len);
                 return;
             }
         }//len>4
         if( len> 3){
-            if(buffer.substring( len-1,len).equals("e")||
-                    buffer.substring( len-1,len).equals("i")){
+            if(buffer.regionEquals(len-1, "e")||
+                    buffer.regionEquals(len-1, "i")){
 
                 palatalise(buffer);
                 return;
             }
-            if(buffer.substring( len-1,len).equals("\u00ed")||    //-é
-                    buffer.substring( len-1,len).equals("\u011b")){   //-ě
+            if(buffer.regionEquals(len-1, "\u00ed")||    //-é
+                    buffer.regionEquals(len-1, "\u011b")){   //-ě
 
                 palatalise(buffer);
                 return;
             }
-            if( buffer.substring( len-1,len).equals("u")||
-                    buffer.substring( len-1,len).equals("y")||
-                    buffer.substring( len-1,len).equals("\u016f")){   //-ů
+            if( buffer.regionEquals(len-1, "u")||
+                    buffer.regionEquals(len-1, "y")||
+                    buffer.regionEquals(len-1, "\u016f")){   //-ů
 
                 buffer.delete( len- 1 , len);
                 return;
             }
-            if( buffer.substring( len-1,len).equals("a")||
-                    buffer.substring( len-1,len).equals("o")||
-                    buffer.substring( len-1,len).equals("\u00e1")||  // -á
-                    buffer.substring( len-1,len).equals("\u00e9")||  //-é
-                    buffer.substring( len-1,len).equals("\u00fd")){   //-ý
+            if( buffer.regionEquals(len-1, "a")||
+                    buffer.regionEquals(len-1, "o")||
+                    buffer.regionEquals(len-1, "\u00e1")||  // -á
+                    buffer.regionEquals(len-1, "\u00e9")||  //-é
+                    buffer.regionEquals(len-1, "\u00fd")){   //-ý
 
                 buffer.delete( len- 1 , len);
             }
@@ -520,44 +527,46 @@ public class CzechPreprocessor implements IPreprocessor {
 
     @Override
     public List<String> tokenize(String text) {
-        final Pattern pattern = Pattern.compile(regex);
-        final Matcher matcher = pattern.matcher(text);
-        final List<String> tokens = new LinkedList<>();
+        final List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens::add);
+        return tokens;
+    }
 
-        while (matcher.find()) {
-            int start = matcher.start();
-            int end = matcher.end();
-            String token = text.substring(start, end);
+    @Override
+    public void tokenize(final CharSequence text, final ITokenSink sink) {
+        Tokenizer.tokenize(text, (source, start, end) -> {
+            final String token = source.subSequence(start, end).toString();
 
             if (!stopWords.contains(token)) {
-                tokens.add(preprocess(token));
+                sink.onTerm(preprocess(token));
             }
-        }
-        return tokens;
+        });
     }
 
     @Override
     public String preprocess(String token) {
-        token = token.toLowerCase();
+        return stemCache.get(token, this::stem);
+    }
 
-        sb.delete(0,sb.length());
-        sb.insert(0,token);
+    private String stem(final String token) {
+        // Each call works with its own buffer, so the stemmer is reentrant.
+        final WordBuffer buffer = new WordBuffer(token.toLowerCase());
         // stemming...
         //removes case endings from nouns and adjectives
-        removeCase(sb);
+        removeCase(buffer);
         //removes possesive endings from names -ov- and -in-
-        removePossessives(sb);
+        removePossessives(buffer);
         //removes comparative endings
-        removeComparative(sb);
+        removeComparative(buffer);
         //removes diminutive endings
-        removeDiminutive(sb);
+        removeDiminutive(buffer);
         //removes augmentatives endings
-        removeAugmentative(sb);
+        removeAugmentative(buffer);
         //removes derivational sufixes from nouns
-        removeDerivational(sb);
+        removeDerivational(buffer);
 
-        String result = Normalizer.normalize(sb.toString(), Normalizer.Form.NFD);
-        result = result.replaceAll("[^\\p{ASCII}]", "");
+        String result = Normalizer.normalize(buffer.toString(), Normalizer.Form.NFD);
+        result = NON_ASCII_PATTERN.matcher(result).replaceAll("");
         return result;
     }
 
@@ -570,6 +579,93 @@ public class CzechPreprocessor implements IPreprocessor {
     public boolean isStopWord(String token) {
         return stopWords.contains(token);
     }
-}
 
+    /***
+     * Working buffer of a word being stemmed. It holds the characters
+     * in an array, so the suffixes can be compared and removed in place.
+     */
+    private static class WordBuffer {
 
+        /*** Characters of the word */
+        private char[] chars;
+
+        /*** Current length of the word */
+        private int length;
+
+        /***
+         * Creates an instance of the class.
+         * @param word word to be stemmed
+         */
+        WordBuffer(final String word) {
+            chars = word.toCharArray();
+            length = chars.length;
+        }
+
+        /***
+         * Returns the current length of the word.
+         * @return length of the word
+         */
+        int length() {
+            return length;
+        }
+
+        /***
+         * Returns the character at the given position.
+         * @param index position of the character
+         * @return character at the given position
+         */
+        char charAt(int index) {
+            return chars[index];
+        }
+
+        /***
+         * Returns whether the characters from the given position up to the
+         * end of the word are equal to the given string.
+         * @param start position the region starts at
+         * @param value string the region is compared to
+         * @return True if the region is equal to the string. False, otherwise.
+         */
+        boolean regionEquals(int start, final String value) {
+            if (start < 0 || length - start != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < value.length(); i++) {
+                if (chars[start + i] != value.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /***
+         * Removes the characters in the given range.
+         * @param start position of the first character to be removed
+         * @param end position after the last character to be removed
+         */
+        void delete(int start, int end) {
+            System.arraycopy(chars, end, chars, start, length - end);
+            length -= end - start;
+        }
+
+        /***
+         * Replaces the characters in the given range with a string.
+         * @param start position of the first character to be replaced
+         * @param end position after the last character to be replaced
+         * @param value string the characters are replaced with
+         */
+        void replace(int start, int end, final String value) {
+            final int newLength = length - (end - start) + value.length();
+            if (newLength > chars.length) {
+                chars = Arrays.copyOf(chars, newLength);
+            }
+            System.arraycopy(chars, end, chars, start + value.length(), length - end);
+            value.getChars(0, value.length(), chars, start);
+            length = newLength;
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
@@ -4,42 +4,49 @@ import cz.zcu.kiv.ir.silhavyj.searchengine.utils.IOUtils;
 
 import opennlp.tools.stemmer.PorterStemmer;
 
+import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /***
  * @author Jakub Silhavy
  *
  * This class represents a prprocessor for the English language.
  * It splits a piece of text into tokens and applies stemming to them.
+ * PorterStemmer keeps the word being stemmed in its own buffer, so each thread
+ * gets its own stemmer and the preprocessor can be shared by multiple threads
+ * (e.g. indexing and searching).
  */
 public class EnglishPreprocessor implements IPreprocessor {
 
-    /*** Regular expression used to split text into tokens - tokenization */
-    private static final String regex = "(\\d+[,]\\d+[,]?(\\d+)?[,]?(\\d+)?)|(\\d+[:]\\d+)|(\\d+[.,](\\d+)?[.,]?(\\d+)?)|(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]|(?:(?<=^|[^\\p{L}\\d])'|'(?=[\\p{L}\\d]|$)|[\\p{L}\\d*])+|(<.*?>)";
-
     /*** Set of stop words of the English language */
     private final Set<String> stopWords;
 
-    /*** Instance of PorterStemmer which was imported as an external library */
-    private final PorterStemmer stemmer;
+    /*** Instances of PorterStemmer (imported as an external library), one per thread as they're not thread-safe */
+    private final ThreadLocal<PorterStemmer> stemmer;
 
-    /*** Regex pattern used to find matches in a given piece of text */
-    private final Pattern pattern;
+    /*** Cache of the stems of the tokens (it may be shared with other preprocessors) */
+    private final StemCache stemCache;
 
     /***
      * Creates an instance of the class.
      * @param stopWordsPath path to a file containing stop words
      */
     public EnglishPreprocessor(final String stopWordsPath) {
-        stemmer = new PorterStemmer();
+        this(stopWordsPath, new StemCache());
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param stopWordsPath path to a file containing stop words
+     * @param stemCache cache of stems shared by the preprocessors of the English language
+     */
+    public EnglishPreprocessor(final String stopWordsPath, final StemCache stemCache) {
+        this.stemCache = stemCache;
+        stemmer = ThreadLocal.withInitial(PorterStemmer::new);
         stopWords = new HashSet<>();
         final var lines = IOUtils.readLines(stopWordsPath);
-        pattern = Pattern.compile(regex);
         stopWords.addAll(lines);
     }
 
@@ -51,23 +58,29 @@ public class EnglishPreprocessor implements IPreprocessor {
      */
     @Override
     public List<String> tokenize(final String text) {
-        final Matcher matcher = pattern.matcher(text);
-        final List<String> tokens = new LinkedList<>();
-
-        // Go through all tokens that match the regular expression.
-        while (matcher.find()) {
-            int start = matcher.start();
-            int end = matcher.end();
+        final List<String> tokens = new ArrayList<>();
+        tokenize(text, tokens::add);
+        return tokens;
+    }
 
+    /***
+     * Preprocesses a piece of text and pushes the terms into the sink
+     * as they're found by the tokenizer.
+     * @param text piece of text (document) to be preprocessed
+     * @param sink consumer of the preprocessed terms
+     */
+    @Override
+    public void tokenize(final CharSequence text, final ITokenSink sink) {
+        // Go through all tokens found by the tokenizer.
+        Tokenizer.tokenize(text, (source, start, end) -> {
             // Retrieve the token.
-            String token = text.substring(start, end);
+            final String token = source.subSequence(start, end).toString();
 
             // Skip it if it's recognized as a stopword.
             if (!stopWords.contains(token)) {
-                tokens.add(preprocess(token));
+                sink.onTerm(preprocess(token));
             }
-        }
-        return tokens;
+        });
     }
 
     /***
@@ -78,7 +91,16 @@ public class EnglishPreprocessor implements IPreprocessor {
      */
     @Override
     public String preprocess(final String token) {
-        return stemmer.stem(token.toLowerCase());
+        return stemCache.get(token, this::stem);
+    }
+
+    /***
+     * Stems a given token (the stem cache is bypassed).
+     * @param token token to be stemmed
+     * @return preprocessed token (term)
+     */
+    private String stem(final String token) {
+        return stemmer.get().stem(token.toLowerCase());
     }
 
     /***
@@ -1,6 +1,7 @@
 package cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing;
 
 import java.util.List;
+import java.util.function.ToIntFunction;
 
 /***
  * @author Jakub Silhavy
@@ -17,6 +18,27 @@ public interface IPreprocessor {
      */
     List<String> tokenize(final String text);
 
+    /***
+     * Preprocesses a piece of text the same way as tokenize(String) does,
+     * but pushes the terms into the sink as soon as they're produced
+     * instead of collecting them into a list.
+     * @param text piece of text (document) to be preprocessed
+     * @param sink consumer of the preprocessed terms
+     */
+    default void tokenize(final CharSequence text, final ITokenSink sink) {
+        tokenize(text.toString()).forEach(sink::onTerm);
+    }
+
+    /***
+     * Preprocesses a piece of text and pushes the ids of the terms into the sink.
+     * @param text piece of text (document) to be preprocessed
+     * @param termIds function assigning an id to a preprocessed term
+     * @param sink consumer of the term ids
+     */
+    default void tokenize(final CharSequence text, final ToIntFunction<String> termIds, final ITermIdSink sink) {
+        tokenize(text, term -> sink.onTerm(termIds.applyAsInt(term)));
+    }
+
     /***
      * Preprocesses a given token. The token gets converted into lowercase
      * and using PorterStemmer, it gets stemmed as well.
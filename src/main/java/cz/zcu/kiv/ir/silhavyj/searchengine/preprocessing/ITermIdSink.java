@@ -0,0 +1,16 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a consumer of the terms produced by a preprocessor
+ * that have already been translated into term ids (see IPreprocessor).
+ */
+public interface ITermIdSink {
+
+    /***
+     * Consumes the id of a preprocessed term.
+     * @param termId id of the term
+     */
+    void onTerm(int termId);
+}
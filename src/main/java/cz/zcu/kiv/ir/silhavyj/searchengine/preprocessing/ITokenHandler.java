@@ -0,0 +1,19 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a callback that receives the tokens found by the tokenizer.
+ * A token is passed as a range of the text, so no object is created for it
+ * unless the handler itself needs one.
+ */
+public interface ITokenHandler {
+
+    /***
+     * Handles a token found in a piece of text.
+     * @param text piece of text being tokenized
+     * @param start index of the first character of the token
+     * @param end index after the last character of the token
+     */
+    void onToken(final CharSequence text, int start, int end);
+}
@@ -0,0 +1,17 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * Interface defining a consumer of the terms produced by a preprocessor.
+ * The terms are pushed into the sink one by one as they are found in the text,
+ * so the text never has to be turned into a list of terms.
+ */
+public interface ITokenSink {
+
+    /***
+     * Consumes a preprocessed term.
+     * @param term preprocessed term (stop words are not passed)
+     */
+    void onTerm(final String term);
+}
@@ -0,0 +1,119 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a bounded cache of stems (surface form -> term).
+ * Natural language text repeats the same words over and over again, so most
+ * calls of IPreprocessor.preprocess can be answered without stemming.
+ * The cache is split into stripes, each of which is a small LRU map guarded
+ * by its own lock, so it can be shared by multiple threads (e.g. indexing
+ * threads and searching).
+ */
+public class StemCache {
+
+    /*** Default maximum number of cached stems */
+    public static final int DEFAULT_CAPACITY = 100_000;
+
+    /*** Number of stripes the cache is split into */
+    private static final int STRIPE_COUNT = 16;
+
+    /*** Stripes of the cache (LRU maps) */
+    private final Map<String, String>[] stripes;
+
+    /*** Number of lookups which found the stem in the cache */
+    private final LongAdder hitCount = new LongAdder();
+
+    /*** Number of lookups which had to calculate the stem */
+    private final LongAdder missCount = new LongAdder();
+
+    /***
+     * Creates an instance of the class with the default capacity.
+     */
+    public StemCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /***
+     * Creates an instance of the class.
+     * @param capacity maximum number of cached stems
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public StemCache(int capacity) throws IllegalArgumentException {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity of the stem cache must be positive");
+        }
+        final int stripeCapacity = Math.max(1, capacity / STRIPE_COUNT);
+        stripes = new Map[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+                    return size() > stripeCapacity;
+                }
+            };
+        }
+    }
+
+    /***
+     * Returns the stem of a token. If the stem is not cached, it gets
+     * calculated using the given function and stored into the cache.
+     * @param token token (surface form) to be stemmed
+     * @param stemmer function calculating the stem of a token
+     * @return stem of the token
+     */
+    public String get(final String token, final Function<String, String> stemmer) {
+        final var stripe = stripes[(token.hashCode() & 0x7fffffff) % STRIPE_COUNT];
+        String stem;
+        synchronized (stripe) {
+            stem = stripe.get(token);
+        }
+        if (stem != null) {
+            hitCount.increment();
+            return stem;
+        }
+        // Calculate the stem outside of the lock (other threads may do the same).
+        missCount.increment();
+        stem = stemmer.apply(token);
+        synchronized (stripe) {
+            stripe.put(token, stem);
+        }
+        return stem;
+    }
+
+    /***
+     * Returns the number of stems currently stored in the cache.
+     * @return number of cached stems
+     */
+    public int size() {
+        int size = 0;
+        for (final var stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /***
+     * Returns the number of lookups which found the stem in the cache.
+     * @return number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    /***
+     * Returns the number of lookups which had to calculate the stem.
+     * @return number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.sum();
+    }
+}
@@ -0,0 +1,268 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class splits a piece of text into tokens in a single pass. It recognizes
+ * the same tokens as the regular expression the preprocessors used to use:
+ *
+ * (\d+[,]\d+[,]?(\d+)?[,]?(\d+)?)|(\d+[:]\d+)|(\d+[.,](\d+)?[.,]?(\d+)?)|
+ * (https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]|
+ * (?:(?<=^|[^\p{L}\d])'|'(?=[\p{L}\d]|$)|[\p{L}\d*])+|(<.*?>)
+ *
+ * i.e. numbers with separators, times, URLs, words (with apostrophes), and tags.
+ * At each position, the alternatives are tried in the same order as in the
+ * regular expression, so the output is identical.
+ */
+public class Tokenizer {
+
+    /*** Schemes a URL may start with */
+    private static final String[] URL_SCHEMES = { "http://", "https://", "ftp://", "file://" };
+
+    /***
+     * Splits a piece of text into tokens and passes them to the handler.
+     * @param text piece of text to be tokenized
+     * @param handler callback receiving the tokens
+     */
+    public static void tokenize(final CharSequence text, final ITokenHandler handler) {
+        final int length = text.length();
+        int position = 0;
+        while (position < length) {
+            final int end = matchToken(text, position);
+            if (end < 0) {
+                // No token starts at this position.
+                position++;
+            } else {
+                handler.onToken(text, position, end);
+                position = end;
+            }
+        }
+    }
+
+    /***
+     * Splits a piece of text into tokens.
+     * @param text piece of text to be tokenized
+     * @return list of tokens found in the text
+     */
+    public static List<String> tokenize(final CharSequence text) {
+        final List<String> tokens = new ArrayList<>();
+        tokenize(text, (source, start, end) -> tokens.add(source.subSequence(start, end).toString()));
+        return tokens;
+    }
+
+    /***
+     * Returns the end of the token starting at the given position.
+     * @param text piece of text being tokenized
+     * @param start position the token starts at
+     * @return index after the last character of the token or -1 if no token starts at the position
+     */
+    private static int matchToken(final CharSequence text, int start) {
+        final char c = text.charAt(start);
+        int end = -1;
+        if (isDigit(c)) {
+            end = matchNumber(text, start);
+        } else if (c == 'h' || c == 'f') {
+            end = matchURL(text, start);
+        } else if (c == '<') {
+            return matchTag(text, start);
+        }
+        if (end < 0) {
+            end = matchWord(text, start);
+        }
+        return end;
+    }
+
+    /***
+     * Matches a number with separators (e.g. 1,234,567 or 3.14) or a time (e.g. 12:30).
+     * @param text piece of text being tokenized
+     * @param start position of the first digit
+     * @return index after the last character of the number or -1 if there's no number
+     */
+    private static int matchNumber(final CharSequence text, int start) {
+        final int length = text.length();
+        final int digitsEnd = skipDigits(text, start);
+        if (digitsEnd == length) {
+            return -1;
+        }
+        final char separator = text.charAt(digitsEnd);
+
+        // \d+[,]\d+[,]?(\d+)?[,]?(\d+)?
+        if (separator == ',' && digitsEnd + 1 < length && isDigit(text.charAt(digitsEnd + 1))) {
+            int end = skipDigits(text, digitsEnd + 1);
+            if (end < length && text.charAt(end) == ',') {
+                end = skipDigits(text, end + 1);
+                if (end < length && text.charAt(end) == ',') {
+                    end = skipDigits(text, end + 1);
+                }
+            }
+            return end;
+        }
+        // \d+[:]\d+
+        if (separator == ':' && digitsEnd + 1 < length && isDigit(text.charAt(digitsEnd + 1))) {
+            return skipDigits(text, digitsEnd + 1);
+        }
+        // \d+[.,](\d+)?[.,]?(\d+)?
+        if (separator == '.' || separator == ',') {
+            int end = skipDigits(text, digitsEnd + 1);
+            if (end < length && (text.charAt(end) == '.' || text.charAt(end) == ',')) {
+                end = skipDigits(text, end + 1);
+            }
+            return end;
+        }
+        return -1;
+    }
+
+    /***
+     * Matches a URL starting with one of the supported schemes.
+     * @param text piece of text being tokenized
+     * @param start position the scheme starts at
+     * @return index after the last character of the URL or -1 if there's no URL
+     */
+    private static int matchURL(final CharSequence text, int start) {
+        for (final var scheme : URL_SCHEMES) {
+            if (startsWith(text, start, scheme)) {
+                // The URL ends with the last character which is allowed at its end.
+                int end = -1;
+                int position = start + scheme.length();
+                while (position < text.length() && isURLCharacter(text.charAt(position))) {
+                    if (isURLEndCharacter(text.charAt(position))) {
+                        end = position + 1;
+                    }
+                    position++;
+                }
+                return end;
+            }
+        }
+        return -1;
+    }
+
+    /***
+     * Matches a word made of letters, digits, asterisks, and apostrophes.
+     * An apostrophe is a part of the word only if it's not preceded by
+     * a letter or digit, or if it's followed by one (or the end of the text).
+     * @param text piece of text being tokenized
+     * @param start position the word starts at
+     * @return index after the last character of the word or -1 if there's no word
+     */
+    private static int matchWord(final CharSequence text, int start) {
+        final int length = text.length();
+        int position = start;
+        while (position < length) {
+            final char c = text.charAt(position);
+            if (c == '\'') {
+                if (position == 0 || !isLetterOrDigit(text.charAt(position - 1)) || isWordEnd(text, position + 1)) {
+                    position++;
+                    continue;
+                }
+                break;
+            }
+            if (c == '*' || isDigit(c)) {
+                position++;
+                continue;
+            }
+            final int codePoint = Character.codePointAt(text, position);
+            if (!Character.isLetter(codePoint)) {
+                break;
+            }
+            position += Character.charCount(codePoint);
+        }
+        return position == start ? -1 : position;
+    }
+
+    /***
+     * Matches a tag, i.e. the shortest text enclosed in angle brackets within a line.
+     * @param text piece of text being tokenized
+     * @param start position of the opening bracket
+     * @return index after the closing bracket or -1 if there's no tag
+     */
+    private static int matchTag(final CharSequence text, int start) {
+        for (int position = start + 1; position < text.length(); position++) {
+            final char c = text.charAt(position);
+            if (c == '>') {
+                return position + 1;
+            }
+            if (isLineTerminator(c)) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /***
+     * Returns whether an apostrophe at the position before the given one
+     * is followed by a letter, digit, or the end of the text (which may
+     * also be the end of the last line).
+     * @param text piece of text being tokenized
+     * @param position position after the apostrophe
+     * @return True if the apostrophe can end a word. False, otherwise.
+     */
+    private static boolean isWordEnd(final CharSequence text, int position) {
+        final int length = text.length();
+        if (position == length) {
+            return true;
+        }
+        final char c = text.charAt(position);
+        if (isDigit(c) || Character.isLetter(Character.codePointAt(text, position))) {
+            return true;
+        }
+        if (position == length - 1) {
+            return isLineTerminator(c);
+        }
+        return position == length - 2 && c == '\r' && text.charAt(position + 1) == '\n';
+    }
+
+    /***
+     * Skips all digits starting at the given position.
+     * @param text piece of text being tokenized
+     * @param position position to start at
+     * @return position of the first character which is not a digit
+     */
+    private static int skipDigits(final CharSequence text, int position) {
+        while (position < text.length() && isDigit(text.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    /***
+     * Returns whether the text contains the given prefix at the given position.
+     * @param text piece of text being tokenized
+     * @param position position to check the prefix at
+     * @param prefix prefix to be checked
+     * @return True if the prefix is found at the position. False, otherwise.
+     */
+    private static boolean startsWith(final CharSequence text, int position, final String prefix) {
+        if (position + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(position + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return isDigit(c) || Character.isLetter(c);
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean isURLCharacter(char c) {
+        return isURLEndCharacter(c) || c == '?' || c == '!' || c == ':' || c == ',' || c == '.' || c == ';';
+    }
+
+    private static boolean isURLEndCharacter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || isDigit(c) || "-+&@#/%=~_|".indexOf(c) >= 0;
+    }
+}
@@ -0,0 +1,125 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.query;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.RankingModel;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.ScoreAccumulator;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.TopHits;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.IQueryParser;
+
+import java.util.Collections;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class runs searches asynchronously on a dedicated thread, so the calling
+ * thread (e.g. the UI thread) is never blocked by parsing, evaluating, or ranking a query.
+ * Only the latest search matters, so once a new search is submitted, the previous one
+ * gets cancelled. A search that is already running is cancelled cooperatively, by interrupting
+ * its thread which the loops walking through posting lists check (see SearchCancellation).
+ * Each search uses its own query parser as the parsers are not thread-safe.
+ */
+public class SearchService {
+
+    /*** Function creating a new query parser */
+    private final Supplier<IQueryParser> parserFactory;
+
+    /*** Thread the searches run on */
+    private final ExecutorService executor;
+
+    /*** Result of the latest search (null if no search has been submitted yet) */
+    private CompletableFuture<TopHits> latest;
+
+    /***
+     * Creates an instance of the class.
+     * @param parserFactory function creating a new query parser
+     */
+    public SearchService(final Supplier<IQueryParser> parserFactory) {
+        this.parserFactory = parserFactory;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            final var thread = new Thread(runnable, "search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /***
+     * Submits a search. The previous search gets cancelled if it has not finished yet.
+     * Cancelling the returned future cancels the search as well.
+     * @param index index in which the search will be performed (e.g. a snapshot)
+     * @param query query the user entered (string, infix notation)
+     * @param model ranking model to be used (null if the documents should not be ranked)
+     * @param k maximum number of documents to be returned
+     * @return future completed with the k best-ranked documents matching the query. It's completed
+     *         exceptionally with an IllegalArgumentException if the query is not valid.
+     */
+    public synchronized CompletableFuture<TopHits> search(final IIndex index, final String query, final RankingModel model, int k) {
+        if (latest != null) {
+            latest.cancel(false);
+        }
+        final var result = new CompletableFuture<TopHits>();
+        latest = result;
+        final Future<?> task;
+        try {
+            task = executor.submit(() -> run(result, index, query, model, k));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        // Interrupt the search once the result's been cancelled (if it's still running).
+        result.whenComplete((topHits, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /***
+     * Performs a search on the thread of the service.
+     * @param result future the result of the search is passed through
+     * @param index index in which the search will be performed
+     * @param query query the user entered
+     * @param model ranking model to be used (null if the documents should not be ranked)
+     * @param k maximum number of documents to be returned
+     */
+    private void run(final CompletableFuture<TopHits> result, final IIndex index, final String query, final RankingModel model, int k) {
+        // The search's been cancelled before it even started.
+        if (result.isDone()) {
+            return;
+        }
+        final IQueryParser parser = parserFactory.get();
+        try {
+            if (model != null) {
+                result.complete(parser.searchRanked(index, query, model, k));
+            } else {
+                // All documents have a rank of 0.
+                final var matching = parser.evaluate(index, query);
+                result.complete(new ScoreAccumulator(index).getTopHits(Collections.emptySet(), matching, RankingModel.COSINE_SIMILARITY, k));
+            }
+        } catch (CancellationException e) {
+            result.cancel(false);
+        } catch (RuntimeException e) {
+            // Prefer the message of the parser as it describes what's wrong with the query.
+            final String message = parser.getErrorMessage();
+            result.completeExceptionally(new IllegalArgumentException(message != null && !message.isEmpty() ? message : e.getMessage(), e));
+        }
+    }
+
+    /***
+     * Stops the service. The running search gets cancelled
+     * and no more searches can be submitted.
+     */
+    public synchronized void stop() {
+        if (latest != null) {
+            latest.cancel(false);
+        }
+        executor.shutdownNow();
+    }
+}
@@ -2,6 +2,9 @@ package cz.zcu.kiv.ir.silhavyj.searchengine.query.parser;
 
 import cz.zcu.kiv.ir.silhavyj.searchengine.index.Document;
 import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.RankingModel;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.TopHits;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
 
 import java.util.Set;
 
@@ -26,7 +29,8 @@ public interface IQueryParser {
     boolean isValidQuery(final String query);
 
     /***
-     * Performs a search
+     * Performs a search.
+     * This method is kept as a compatibility adapter, see evaluate(IIndex, String).
      * @param index index in which the search will be performed
      * @param query query the user entered (string, infix notation)
      * @return Linked list of Documents representing the result of the search.
@@ -34,6 +38,29 @@ public interface IQueryParser {
      */
     Document search(final IIndex index, String query) throws IllegalArgumentException;
 
+    /***
+     * Performs a search
+     * @param index index in which the search will be performed
+     * @param query query the user entered (string, infix notation)
+     * @return posting list representing the result of the search
+     * @throws IllegalArgumentException if the user entered an invalid query
+     */
+    IPostingList evaluate(final IIndex index, String query) throws IllegalArgumentException;
+
+    /***
+     * Performs a search and ranks the results. Only the k best-ranked documents
+     * are returned. Queries made up only of OR operators are evaluated with
+     * dynamic pruning (documents which cannot make it into the best-ranked ones
+     * are skipped), the rest are evaluated as a boolean query and ranked afterwards.
+     * @param index index in which the search will be performed
+     * @param query query the user entered (string, infix notation)
+     * @param model ranking model to be used
+     * @param k maximum number of documents to be returned
+     * @return k best-ranked documents matching the query
+     * @throws IllegalArgumentException if the user entered an invalid query
+     */
+    TopHits searchRanked(final IIndex index, String query, final RankingModel model, int k) throws IllegalArgumentException;
+
     /***
      * Returns relevant words of a query
      * @return relevant words of a query as a Set (uniqueness)
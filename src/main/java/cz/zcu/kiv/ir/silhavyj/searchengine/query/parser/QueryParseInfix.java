@@ -2,7 +2,13 @@ package cz.zcu.kiv.ir.silhavyj.searchengine.query.parser;
 
 import cz.zcu.kiv.ir.silhavyj.searchengine.index.Document;
 import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.MaxScoreEvaluator;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.RankingModel;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.ScoreAccumulator;
 import cz.zcu.kiv.ir.silhavyj.searchengine.index.SearchOperations;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.TopHits;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
 import cz.zcu.kiv.ir.silhavyj.searchengine.query.lexer.IQueryLexer;
 import cz.zcu.kiv.ir.silhavyj.searchengine.query.lexer.QueryLexerToken;
 
@@ -225,7 +231,8 @@ public class QueryParseInfix implements IQueryParser {
     }
 
     /***
-     * Performs a search
+     * Performs a search.
+     * This method is kept as a compatibility adapter, see evaluate(IIndex, String).
      * @param index index in which the search will be performed
      * @param query query the user entered (string, infix notation)
      * @return Linked list of Documents representing the result of the search.
@@ -233,6 +240,18 @@ public class QueryParseInfix implements IQueryParser {
      */
     @Override
     public Document search(IIndex index, String query) throws IllegalArgumentException {
+        return PostingList.toDocument(evaluate(index, query));
+    }
+
+    /***
+     * Performs a search
+     * @param index index in which the search will be performed
+     * @param query query the user entered (string, infix notation)
+     * @return posting list representing the result of the search
+     * @throws IllegalArgumentException if the user entered an invalid query
+     */
+    @Override
+    public IPostingList evaluate(IIndex index, String query) throws IllegalArgumentException {
         // Make sure the entered query is valid.
         if (!isValidQuery(query)) {
             throw new IllegalArgumentException("Query syntax error");
@@ -241,11 +260,12 @@ public class QueryParseInfix implements IQueryParser {
         final Stack<QueryParserToken> stack = new Stack<>();
         QueryParserToken operand1;
         QueryParserToken operand2;
-        Document result;
 
         // Iterate through the query represented as a list
         // of tokens in a postfix notation and evaluate the
-        // query using a stack.
+        // query using a stack. The NOT operator only marks the
+        // operand as negated, so its complement is not calculated
+        // unless it's really needed (e.g. a & !b = a AND NOT b).
         for (final var token : postfixNotation) {
             switch (token.getType()) {
                 // Store the identifier on the stack.
@@ -254,29 +274,127 @@ public class QueryParseInfix implements IQueryParser {
                     if (index.getPreprocessor() != null) {
                         term = index.getPreprocessor().preprocess(term);
                     }
-                    stack.push(new QueryParserToken(IDENTIFIER, index.getDocuments(term), term));
+                    stack.push(new QueryParserToken(IDENTIFIER, index.getMatchingDocuments(term), term));
                     break;
                 // Perform NOT.
                 case NOT_OPERATOR:
                     operand1 = stack.pop();
-                    result = SearchOperations.not(operand1.getDocument(), index.getAllDocumentIndexes());
-                    stack.push(new QueryParserToken(IDENTIFIER, result, null));
+                    stack.push(new QueryParserToken(IDENTIFIER, operand1.getPostings(), null, !operand1.isNegated()));
                     break;
                 // Perform AND, OR.
                 default:
                     operand1 = stack.pop();
                     operand2 = stack.pop();
                     if (token.getType() == OR_OPERATOR) {
-                        result = SearchOperations.or(operand1.getDocument(), operand2.getDocument());
+                        stack.push(or(operand1, operand2));
                     } else {
-                        result = SearchOperations.and(operand1.getDocument(), operand2.getDocument());
+                        stack.push(and(operand1, operand2));
                     }
-                    stack.push(new QueryParserToken(IDENTIFIER, result, null));
                     break;
             }
         }
+        // Calculate the complement of the result if it's still negated.
+        final var result = stack.pop();
+        if (result.isNegated()) {
+            return SearchOperations.andNot(index.getAllPostings(), result.getPostings());
+        }
         // Return the result of the search.
-        return stack.pop().getDocument();
+        return result.getPostings();
+    }
+
+    /***
+     * Performs a search and ranks the results. Only the k best-ranked documents
+     * are returned. Queries made up only of OR operators are evaluated with
+     * dynamic pruning (documents which cannot make it into the best-ranked ones
+     * are skipped), the rest are evaluated as a boolean query and ranked afterwards.
+     * @param index index in which the search will be performed
+     * @param query query the user entered (string, infix notation)
+     * @param model ranking model to be used
+     * @param k maximum number of documents to be returned
+     * @return k best-ranked documents matching the query
+     * @throws IllegalArgumentException if the user entered an invalid query
+     */
+    @Override
+    public TopHits searchRanked(IIndex index, String query, RankingModel model, int k) throws IllegalArgumentException {
+        // Make sure the entered query is valid.
+        if (!isValidQuery(query)) {
+            throw new IllegalArgumentException("Query syntax error");
+        }
+        final var preprocessor = index.getPreprocessor();
+
+        // Retrieve relevant words (stop words do not contribute to the score).
+        final Set<String> relevantTerms = new HashSet<>();
+        for (final var word : getRelevantWords()) {
+            if (preprocessor == null) {
+                relevantTerms.add(word);
+            } else if (!preprocessor.isStopWord(word)) {
+                relevantTerms.add(preprocessor.preprocess(word));
+            }
+        }
+
+        // Check if the query is a disjunction of terms.
+        final Set<String> terms = new HashSet<>();
+        boolean disjunction = true;
+        for (final var token : postfixNotation) {
+            if (token.getType() == IDENTIFIER) {
+                terms.add(preprocessor != null ? preprocessor.preprocess(token.getValue()) : token.getValue());
+            } else if (token.getType() != OR_OPERATOR) {
+                disjunction = false;
+                break;
+            }
+        }
+        if (disjunction) {
+            return new MaxScoreEvaluator(index).search(terms, relevantTerms, model, k);
+        }
+        // Evaluate the query as a boolean query and rank the result.
+        return new ScoreAccumulator(index).getTopHits(relevantTerms, evaluate(index, query), model, k);
+    }
+
+    /***
+     * Performs AND of two operands which may be negated.
+     * @param operand1 first operand
+     * @param operand2 second operand
+     * @return result of the operation (it may be negated as well)
+     */
+    private QueryParserToken and(final QueryParserToken operand1, final QueryParserToken operand2) {
+        final var docs1 = operand1.getPostings();
+        final var docs2 = operand2.getPostings();
+
+        if (!operand1.isNegated() && !operand2.isNegated()) {
+            return new QueryParserToken(IDENTIFIER, SearchOperations.and(docs1, docs2), null);
+        }
+        if (!operand1.isNegated()) {
+            return new QueryParserToken(IDENTIFIER, SearchOperations.andNot(docs1, docs2), null);
+        }
+        if (!operand2.isNegated()) {
+            return new QueryParserToken(IDENTIFIER, SearchOperations.andNot(docs2, docs1), null);
+        }
+        // !a & !b = !(a | b)
+        return new QueryParserToken(IDENTIFIER, SearchOperations.or(docs1, docs2), null, true);
+    }
+
+    /***
+     * Performs OR of two operands which may be negated.
+     * @param operand1 first operand
+     * @param operand2 second operand
+     * @return result of the operation (it may be negated as well)
+     */
+    private QueryParserToken or(final QueryParserToken operand1, final QueryParserToken operand2) {
+        final var docs1 = operand1.getPostings();
+        final var docs2 = operand2.getPostings();
+
+        if (!operand1.isNegated() && !operand2.isNegated()) {
+            return new QueryParserToken(IDENTIFIER, SearchOperations.or(docs1, docs2), null);
+        }
+        // a | !b = !(b & !a)
+        if (!operand1.isNegated()) {
+            return new QueryParserToken(IDENTIFIER, SearchOperations.andNot(docs2, docs1), null, true);
+        }
+        if (!operand2.isNegated()) {
+            return new QueryParserToken(IDENTIFIER, SearchOperations.andNot(docs1, docs2), null, true);
+        }
+        // !a | !b = !(a & b)
+        return new QueryParserToken(IDENTIFIER, SearchOperations.and(docs1, docs2), null, true);
     }
 
     /***
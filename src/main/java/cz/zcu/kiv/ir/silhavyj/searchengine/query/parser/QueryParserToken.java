@@ -1,6 +1,6 @@
 package cz.zcu.kiv.ir.silhavyj.searchengine.query.parser;
 
-import cz.zcu.kiv.ir.silhavyj.searchengine.index.Document;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
 import cz.zcu.kiv.ir.silhavyj.searchengine.query.lexer.QueryLexerTokenType;
 
 /***
@@ -14,30 +14,53 @@ public class QueryParserToken {
     /*** Token type */
     private final QueryLexerTokenType type;
 
-    /*** List of Documents associated with the token (e.g. a lost of all documents that contain the word 'cat') */
-    private final Document document;
+    /*** Posting list associated with the token (e.g. a list of all documents that contain the word 'cat') */
+    private final IPostingList postings;
 
     /** Term associated with the token (e.g. the word 'cat') */
     private final String term;
 
+    /*** Flag if the token stands for the complement of its posting list */
+    private final boolean negated;
+
+    /***
+     * Creates an instance of the token.
+     * @param type token type
+     * @param postings posting list associated with the token
+     * @param term term associated with the document
+     */
+    public QueryParserToken(QueryLexerTokenType type, IPostingList postings, String term) {
+        this(type, postings, term, false);
+    }
+
     /***
      * Creates an instance of the token.
      * @param type token type
-     * @param document list of documents associated with the token
+     * @param postings posting list associated with the token
      * @param term term associated with the document
+     * @param negated flag if the token stands for the complement of the posting list
      */
-    public QueryParserToken(QueryLexerTokenType type, Document document, String term) {
+    public QueryParserToken(QueryLexerTokenType type, IPostingList postings, String term, boolean negated) {
         this.type = type;
-        this.document = document;
+        this.postings = postings;
         this.term = term;
+        this.negated = negated;
+    }
+
+    /***
+     * Return the posting list associated with the token.
+     * @return posting list associated with the token
+     */
+    public IPostingList getPostings() {
+        return postings;
     }
 
     /***
-     * Return the list of documents associated with the token.
-     * @return list of documents associated with the token
+     * Returns whether the token stands for the complement of its posting list.
+     * @return True, if the token is negated. False, otherwise.
      */
-    public Document getDocument() {
-        return document;
+    public boolean isNegated() {
+        return negated;
     }
 
     /***
@@ -48,8 +71,9 @@ public class QueryParserToken {
     public String toString() {
         return "QueryParserToken{" +
                 "type=" + type +
-                ", document=" + document +
+                ", postings=" + postings +
                 ", term='" + term + '\'' +
+                ", negated=" + negated +
                 '}';
     }
 }
@@ -1,7 +1,17 @@
 package cz.zcu.kiv.ir.silhavyj.searchengine.utils;
 
 import java.io.*;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
 
 /***
@@ -13,64 +23,142 @@ import java.util.List;
  */
 public class IOUtils {
 
+    /*** Size of the direct buffers small files are read through */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /*** Files of this size (in bytes) and larger are memory-mapped instead of being read through a buffer */
+    public static final long MAPPING_THRESHOLD = 1 << 20;
+
+    /*** Direct buffer of each thread (allocating direct buffers is expensive, so they're reused) */
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    /*** UTF-8 decoder of each thread (decoders are not thread-safe) */
+    private static final ThreadLocal<CharsetDecoder> DECODERS = ThreadLocal.withInitial(() -> StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
     /***
-     * Reads the content of a file line by line.
+     * Reads the content of a file line by line. The file is decoded as UTF-8
+     * and both LF and CRLF line terminators are recognized.
      * @param filename path to the file on the disk
      * @return List of lines which make up the content of the file
      */
     public static List<String> readLines(final String filename) {
-        BufferedReader bufferedReader = null;
-        String line;
-        final List<String> lines = new LinkedList<>();
+        final List<String> lines = new ArrayList<>();
+        final CharSequence content;
         try {
-            // Read the file line by line.
-            bufferedReader = new BufferedReader(new FileReader(filename));
-            while ((line = bufferedReader.readLine()) != null) {
-                lines.add(line);
-            }
+            content = readCharSequence(Paths.get(filename));
         } catch (IOException e) {
             e.printStackTrace();
-        } finally {
-            try {
-                if (bufferedReader != null) {
-                    bufferedReader.close();
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+            return lines;
+        }
+
+        // Split the content into lines (a line terminator at the very end does not start a new line).
+        int start = 0;
+        for (int i = 0; i < content.length(); i++) {
+            if (content.charAt(i) == '\n') {
+                final int end = i > start && content.charAt(i - 1) == '\r' ? i - 1 : i;
+                lines.add(content.subSequence(start, end).toString());
+                start = i + 1;
             }
         }
+        if (start < content.length()) {
+            lines.add(content.subSequence(start, content.length()).toString());
+        }
         return lines;
     }
 
     /***
-     * Reads the content of a file as one string.
+     * Reads the content of a file as one string (decoded as UTF-8).
      * @param filename path to the file on the disk
-     * @return the content of the file
+     * @return the content of the file (an empty string if it could not be read)
      */
     public static String readFile(final String filename) {
-        BufferedReader bufferedReader = null;
-        String line;
-        final StringBuilder stringBuilder = new StringBuilder();
         try {
-            // Read the content of the file line by line.
-            bufferedReader = new BufferedReader(new FileReader(filename));
-            while ((line = bufferedReader.readLine()) != null) {
-                stringBuilder.append(line);
-            }
+            return readCharSequence(Paths.get(filename)).toString();
         } catch (IOException e) {
             e.printStackTrace();
-        } finally {
-            try {
-                if (bufferedReader != null) {
-                    bufferedReader.close();
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
+        }
+        return "";
+    }
+
+    /***
+     * Reads the content of a file and decodes it as UTF-8. Invalid byte sequences are
+     * replaced rather than reported. Files of at least MAPPING_THRESHOLD bytes are memory-mapped
+     * and decoded in one go, smaller files are read through a direct buffer of the calling thread.
+     * The returned characters are not copied into a string, so they can be passed
+     * to the tokenizer as they are.
+     * @param path path to the file on the disk
+     * @return the content of the file
+     * @throws IOException if the file could not be read
+     */
+    public static CharSequence readCharSequence(final Path path) throws IOException {
+        final var decoder = DECODERS.get().reset();
+        try (final var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File " + path + " is too large to be read at once");
+            }
+            // UTF-8 never decodes into more characters than there are bytes.
+            var chars = CharBuffer.allocate((int)size);
+
+            // Decode a large file straight from the page cache.
+            if (size >= MAPPING_THRESHOLD) {
+                final var mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                chars = decode(decoder, mapped, chars, true);
+                return finishDecoding(decoder, chars).flip();
+            }
+
+            // Read a small file chunk by chunk into the direct buffer of the thread.
+            final var buffer = BUFFERS.get().clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                chars = decode(decoder, buffer, chars, false);
+                buffer.compact();
             }
+            buffer.flip();
+            chars = decode(decoder, buffer, chars, true);
+            return finishDecoding(decoder, chars).flip();
+        }
+    }
+
+    /***
+     * Decodes bytes into a buffer of characters. The buffer is enlarged
+     * if it overflows (e.g. when the file has grown since its size was read).
+     * @param decoder UTF-8 decoder
+     * @param bytes bytes to be decoded
+     * @param chars buffer the characters are stored into
+     * @param endOfInput flag if there are no more bytes to come
+     * @return buffer holding the decoded characters
+     */
+    private static CharBuffer decode(final CharsetDecoder decoder, final ByteBuffer bytes, CharBuffer chars, boolean endOfInput) {
+        while (decoder.decode(bytes, chars, endOfInput).isOverflow()) {
+            chars = enlarge(chars);
         }
-        // Concatenate the lines that make up the content of the file
-        // and return it as one string.
-        return stringBuilder.toString();
+        return chars;
+    }
+
+    /***
+     * Flushes the characters the decoder may be holding.
+     * @param decoder UTF-8 decoder
+     * @param chars buffer the characters are stored into
+     * @return buffer holding all decoded characters
+     */
+    private static CharBuffer finishDecoding(final CharsetDecoder decoder, CharBuffer chars) {
+        while (decoder.flush(chars).isOverflow()) {
+            chars = enlarge(chars);
+        }
+        return chars;
+    }
+
+    /***
+     * Copies a buffer of characters into a buffer twice as large.
+     * @param chars buffer to be enlarged (in write mode)
+     * @return new buffer (in write mode)
+     */
+    private static CharBuffer enlarge(final CharBuffer chars) {
+        final var larger = CharBuffer.allocate(Math.max(16, 2 * chars.capacity()));
+        return larger.put(chars.flip());
     }
 
     /***
@@ -89,34 +177,16 @@ public class IOUtils {
     }
 
     /***
-     * Writes a string into a file.
+     * Writes a string into a file using UTF-8 (the encoding the files are read with).
+     * The file gets created if it does not exist, otherwise it's overwritten.
      * @param filename path to the file on the disk
      * @param data data to be stored in the file.
      */
     public static void writeToFile(final String filename, final String data) {
-        BufferedWriter bufferedWriter = null;
         try {
-            File file = new File(filename);
-
-            // Make sure the file exists.
-            if (!file.exists()) {
-                if (!file.createNewFile()) {
-                    System.err.printf("could not create file %s", filename);
-                }
-            }
-            FileWriter fileWriter = new FileWriter(file);
-            bufferedWriter = new BufferedWriter(fileWriter);
-            bufferedWriter.write(data);
+            Files.writeString(Paths.get(filename), data, StandardCharsets.UTF_8);
         } catch (IOException e) {
             e.printStackTrace();
         }
-        finally  {
-            try {
-                if (bufferedWriter != null)
-                    bufferedWriter.close();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-        }
     }
 }
@@ -0,0 +1,406 @@
+package cz.zcu.kiv.ir.silhavyj.searchengine.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/***
+ * @author Jakub Silhavy
+ *
+ * This class represents a streaming parser of JSON objects encoded in UTF-8.
+ * Unlike org.json, it does not build the whole object in the memory. Only the values
+ * of the requested fields are decoded, everything else is skipped byte by byte.
+ * All structural characters of JSON are ASCII (and no byte of a multi-byte UTF-8
+ * sequence is), so the input does not need to be decoded while it's being skipped.
+ * The parser keeps track of the number of bytes it has consumed, so the position
+ * of each object within the input is known (e.g. in a file of newline-delimited JSON).
+ */
+public class JsonStreamParser {
+
+    /*** Size of the input buffer */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /*** Buffer holding a chunk of the input */
+    private final byte[] buffer;
+
+    /*** Input the objects are read from */
+    private InputStream in;
+
+    /*** Position of the next byte within the buffer */
+    private int position;
+
+    /*** Number of valid bytes in the buffer */
+    private int limit;
+
+    /*** Number of bytes consumed before the current content of the buffer */
+    private long bufferOffset;
+
+    /*** Bytes of a string that have not been decoded yet */
+    private byte[] pending;
+
+    /*** Number of pending bytes */
+    private int pendingCount;
+
+    /*** Output the consumed bytes are copied into (null if they're not being captured) */
+    private ByteArrayOutputStream capture;
+
+    /*** Flag if an object must not span multiple lines (newline-delimited JSON) */
+    private boolean lineDelimited;
+
+    /***
+     * Creates an instance of the class.
+     * @param in input the objects are read from
+     */
+    public JsonStreamParser(final InputStream in) {
+        buffer = new byte[BUFFER_SIZE];
+        pending = new byte[256];
+        reset(in);
+    }
+
+    /***
+     * Starts reading from another input (the buffers are reused).
+     * The position is reset to 0.
+     * @param in input the objects are read from
+     */
+    public void reset(final InputStream in) {
+        this.in = in;
+        position = 0;
+        limit = 0;
+        bufferOffset = 0;
+    }
+
+    /***
+     * Sets whether an object must not span multiple lines. If it's set, an object
+     * that is not finished by the end of a line is malformed and the line terminator
+     * is left in the input, so the parser can continue with the next line (see skipLine).
+     * @param lineDelimited True, if the objects are newline-delimited. False, otherwise.
+     */
+    public void setLineDelimited(boolean lineDelimited) {
+        this.lineDelimited = lineDelimited;
+    }
+
+    /***
+     * Returns the number of bytes that have been consumed.
+     * @return position within the input
+     */
+    public long getPosition() {
+        return bufferOffset + position;
+    }
+
+    /***
+     * Skips whitespace characters.
+     * @return True, if there is more input. False, if the end of the input's been reached.
+     * @throws IOException if the input could not be read
+     */
+    public boolean skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) != -1 && isWhitespace(c)) {
+            position++;
+        }
+        return c != -1;
+    }
+
+    /***
+     * Skips the rest of the current line including the line terminator.
+     * @return True, if the rest of the line consisted of whitespace only. False, otherwise.
+     * @throws IOException if the input could not be read
+     */
+    public boolean skipLine() throws IOException {
+        boolean blank = true;
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            blank &= isWhitespace(c);
+        }
+        return blank;
+    }
+
+    /***
+     * Reads the next object. The values of the requested fields are returned as strings
+     * (the values that are not strings are returned as they appear in the input).
+     * @param fields names of the fields whose values are returned
+     * @return values of the requested fields found in the object (key = name of a field)
+     * @throws IOException if the input could not be read
+     * @throws IllegalArgumentException if the input is not a valid JSON object
+     */
+    public Map<String, String> readObject(final Set<String> fields) throws IOException, IllegalArgumentException {
+        final Map<String, String> values = new HashMap<>();
+        skipBlanks();
+        expect('{');
+        skipBlanks();
+        if (peek() == '}') {
+            position++;
+            return values;
+        }
+        while (true) {
+            // Read the name of the field.
+            skipBlanks();
+            expect('"');
+            final String name = readString();
+            skipBlanks();
+            expect(':');
+            skipBlanks();
+
+            // Read the value of the field if it's requested, skip it otherwise.
+            if (!fields.contains(name)) {
+                skipValue();
+            } else if (peek() == '"') {
+                position++;
+                values.put(name, readString());
+            } else {
+                capture = new ByteArrayOutputStream();
+                try {
+                    skipValue();
+                    values.put(name, capture.toString(StandardCharsets.UTF_8));
+                } finally {
+                    capture = null;
+                }
+            }
+            skipBlanks();
+            final int c = read();
+            if (c == '}') {
+                return values;
+            }
+            if (c != ',') {
+                throw c == '\n' ? unterminated(c) : malformed("Expected ',' or '}'");
+            }
+        }
+    }
+
+    /***
+     * Skips whitespace characters within an object (the line terminator is
+     * not skipped if the objects are newline-delimited).
+     * @throws IOException if the input could not be read
+     */
+    private void skipBlanks() throws IOException {
+        int c;
+        while ((c = peek()) != -1 && isWhitespace(c) && !(lineDelimited && c == '\n')) {
+            position++;
+        }
+    }
+
+    /***
+     * Reads a string (the opening quote has already been consumed) and decodes it.
+     * @return decoded string
+     * @throws IOException if the input could not be read
+     */
+    private String readString() throws IOException {
+        final var builder = new StringBuilder();
+        pendingCount = 0;
+        while (true) {
+            final int c = read();
+            if (c == '"') {
+                flushPending(builder);
+                return builder.toString();
+            }
+            if (c == '\\') {
+                flushPending(builder);
+                builder.append(readEscape());
+            } else if (c == -1 || c == '\n' || c == '\r') {
+                throw unterminated(c);
+            } else {
+                if (pendingCount == pending.length) {
+                    pending = Arrays.copyOf(pending, 2 * pending.length);
+                }
+                pending[pendingCount++] = (byte)c;
+            }
+        }
+    }
+
+    /***
+     * Decodes the pending bytes of a string and appends them to a builder.
+     * @param builder builder of the string
+     */
+    private void flushPending(final StringBuilder builder) {
+        if (pendingCount > 0) {
+            builder.append(new String(pending, 0, pendingCount, StandardCharsets.UTF_8));
+            pendingCount = 0;
+        }
+    }
+
+    /***
+     * Reads an escape sequence (the backslash has already been consumed).
+     * @return escaped character
+     * @throws IOException if the input could not be read
+     */
+    private char readEscape() throws IOException {
+        final int c = read();
+        switch (c) {
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    final int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw malformed("Invalid unicode escape");
+                    }
+                    value = (value << 4) | digit;
+                }
+                return (char)value;
+            case '"':
+            case '\\':
+            case '/':
+                return (char)c;
+            default:
+                throw malformed("Invalid escape");
+        }
+    }
+
+    /***
+     * Skips a value of any type (nested objects and arrays included).
+     * @throws IOException if the input could not be read
+     */
+    private void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            final int c = read();
+            switch (c) {
+                case -1:
+                    throw malformed("Unexpected end of input");
+                case '\n':
+                    if (lineDelimited) {
+                        throw unterminated(c);
+                    }
+                    break;
+                case '"':
+                    skipString();
+                    break;
+                case '{':
+                case '[':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                    if (--depth < 0) {
+                        throw malformed("Unexpected '" + (char)c + "'");
+                    }
+                    break;
+                case ',':
+                case ':':
+                    if (depth == 0) {
+                        throw malformed("Missing value");
+                    }
+                    break;
+                default:
+                    // Skip the rest of a literal (number, true, false, null).
+                    if (depth == 0) {
+                        int next;
+                        while ((next = peek()) != -1 && next != ',' && next != '}' && next != ']' && !isWhitespace(next)) {
+                            read();
+                        }
+                    }
+            }
+        } while (depth > 0);
+    }
+
+    /***
+     * Skips a string without decoding it (the opening quote has already been consumed).
+     * @throws IOException if the input could not be read
+     */
+    private void skipString() throws IOException {
+        int c;
+        while ((c = read()) != '"') {
+            if (c == '\\') {
+                read();
+            } else if (c == -1 || c == '\n' || c == '\r') {
+                throw unterminated(c);
+            }
+        }
+    }
+
+    /***
+     * Consumes the next byte and checks it's the expected one.
+     * @param expected expected character
+     * @throws IOException if the input could not be read
+     */
+    private void expect(char expected) throws IOException {
+        final int c = read();
+        if (c != expected) {
+            throw c == '\n' ? unterminated(c) : malformed("Expected '" + expected + "'");
+        }
+    }
+
+    /***
+     * Returns the next byte without consuming it.
+     * @return next byte or -1 if the end of the input's been reached
+     * @throws IOException if the input could not be read
+     */
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position] & 0xFF;
+    }
+
+    /***
+     * Consumes the next byte.
+     * @return next byte or -1 if the end of the input's been reached
+     * @throws IOException if the input could not be read
+     */
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        final int c = buffer[position++] & 0xFF;
+        if (capture != null) {
+            capture.write(c);
+        }
+        return c;
+    }
+
+    /***
+     * Reads the next chunk of the input into the buffer.
+     * @return True, if at least one byte's been read. False, if the end of the input's been reached.
+     * @throws IOException if the input could not be read
+     */
+    private boolean fill() throws IOException {
+        bufferOffset += limit;
+        position = 0;
+        limit = 0;
+        final int count = in.read(buffer, 0, buffer.length);
+        if (count <= 0) {
+            return false;
+        }
+        limit = count;
+        return true;
+    }
+
+    /***
+     * Creates an exception describing a string or an object that has not been finished.
+     * A line terminator is put back, so it ends the current line.
+     * @param c the byte that has been read instead of the end of the string or object
+     * @return new exception
+     */
+    private IllegalArgumentException unterminated(int c) {
+        if (c == '\n') {
+            position--;
+        }
+        return malformed("Unexpected end of line");
+    }
+
+    /***
+     * Creates an exception describing malformed input.
+     * @param message description of the problem
+     * @return new exception
+     */
+    private IllegalArgumentException malformed(final String message) {
+        return new IllegalArgumentException(message + " at byte " + getPosition());
+    }
+
+    /***
+     * Checks whether a byte is a JSON whitespace.
+     * @param c given byte
+     * @return True, if the byte is a whitespace. False, otherwise.
+     */
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+}
@@ -0,0 +1,164 @@
+package indexing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.DocumentLocator;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.IDocumentSource;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.SourceDocument;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class DocumentSourceTest {
+
+    private static final String[] DOCUMENTS = {
+        "{\"title\": \"First\", \"article\": \"Plain text\"}",
+        "{\"url\": {\"nested\": [1, \"}\", {\"a\": null}]}, \"title\": \"Escapes \\\"quoted\\\" \\\\ \\/ \\t\", \"article\": \"tab\\there\"}",
+        "{\"article\": \"Unicode \\u010ce\\u0161tina \u017elu\u0165ou\u010dk\u00fd k\u016f\u0148\", \"title\": \"\u00dcber\", \"tags\": [\"x\", \"y\"]}",
+        "{ \"title\" : 42 , \"article\" : true }"
+    };
+
+    private static String getText(final String json) {
+        final var data = new JSONObject(json);
+        return data.get("title") + " " + data.get("article");
+    }
+
+    private static List<SourceDocument> readAll(final IDocumentSource source) throws IOException {
+        final List<SourceDocument> documents = new ArrayList<>();
+        SourceDocument document;
+        while ((document = source.next()) != null) {
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    private static void assertDocuments(final Map<String, String> expected, final List<SourceDocument> documents) throws IOException {
+        assertEquals(expected.size(), documents.size());
+        int i = 0;
+        for (final var entry : expected.entrySet()) {
+            final var document = documents.get(i++);
+            assertEquals(entry.getValue() == null ? null : getText(entry.getValue()), document.getText());
+
+            // The locator points back at the original document.
+            if (entry.getValue() != null) {
+                assertEquals(entry.getValue(), DocumentLocator.read(document.getLocator()));
+            }
+        }
+    }
+
+    @Test
+    public void testJsonLinesDocumentSource_01() throws IOException {
+        final var file = Files.createTempFile("documents", ".jsonl").toFile();
+        final Map<String, String> expected = new LinkedHashMap<>();
+        final var builder = new StringBuilder();
+        for (int i = 0; i < DOCUMENTS.length; i++) {
+            builder.append(DOCUMENTS[i]).append(i % 2 == 0 ? "\n" : "\r\n");
+            expected.put("doc" + i, DOCUMENTS[i]);
+
+            // Add some broken records (the parser needs to resynchronize on the next line).
+            if (i == 1) {
+                builder.append("{\"title\": \"Broken\", \"article\": \"unterminated\n");
+                builder.append("\n   \n");
+                builder.append("{\"title\": \"Multi-line\",\n\"article\": \"object\"}\n");
+                builder.append("{\"title\": \"Trailing\", \"article\": \"garbage\"} x\n");
+                builder.append("{\"title\": \"Missing article\"}\n");
+                expected.put("broken", null);
+                expected.put("multi-line", null);
+                expected.put("multi-line-rest", null);
+                expected.put("trailing", null);
+                expected.put("missing", null);
+            }
+        }
+        builder.append(DOCUMENTS[0]);
+        expected.put("last", DOCUMENTS[0]);
+        Files.write(file.toPath(), builder.toString().getBytes(StandardCharsets.UTF_8));
+
+        try (final var source = IDocumentSource.open(file)) {
+            assertEquals(-1, source.getDocumentCount());
+            assertDocuments(expected, readAll(source));
+            assertNull(source.next());
+        }
+    }
+
+    @Test
+    public void testZipDocumentSource_01() throws IOException {
+        final var file = Files.createTempFile("documents", ".zip").toFile();
+        final Map<String, String> expected = new LinkedHashMap<>();
+        try (final var out = new ZipOutputStream(new FileOutputStream(file))) {
+            out.putNextEntry(new ZipEntry("docs/"));
+            out.closeEntry();
+            for (int i = 0; i < DOCUMENTS.length; i++) {
+                out.putNextEntry(new ZipEntry("docs/doc" + i + ".json"));
+                out.write(DOCUMENTS[i].getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+                expected.put("doc" + i, DOCUMENTS[i]);
+            }
+            out.putNextEntry(new ZipEntry("readme.txt"));
+            out.write("not a document".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            out.putNextEntry(new ZipEntry("broken.json"));
+            out.write("{\"title\": ".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+            expected.put("broken", null);
+        }
+        try (final var source = IDocumentSource.open(file)) {
+            assertDocuments(expected, readAll(source));
+        }
+    }
+
+    private static void writeTarEntry(final ByteArrayOutputStream out, final String name, char type, final byte[] data) {
+        final byte[] header = new byte[512];
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, Math.min(nameBytes.length, 100));
+        final byte[] size = String.format("%011o", data.length).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(size, 0, header, 124, size.length);
+        header[156] = (byte)type;
+        System.arraycopy("ustar".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 5);
+        out.writeBytes(header);
+        out.writeBytes(data);
+        out.writeBytes(new byte[(512 - data.length % 512) % 512]);
+    }
+
+    @Test
+    public void testTarGzDocumentSource_01() throws IOException {
+        final var file = Files.createTempFile("documents", ".tar.gz").toFile();
+        final Map<String, String> expected = new LinkedHashMap<>();
+        final var tar = new ByteArrayOutputStream();
+        writeTarEntry(tar, "docs", '5', new byte[0]);
+        for (int i = 0; i < DOCUMENTS.length; i++) {
+            writeTarEntry(tar, "docs/doc" + i + ".json", '0', DOCUMENTS[i].getBytes(StandardCharsets.UTF_8));
+            expected.put("doc" + i, DOCUMENTS[i]);
+        }
+        writeTarEntry(tar, "docs/readme.txt", '0', "not a document".getBytes(StandardCharsets.UTF_8));
+
+        // A name longer than 100 characters is stored in a GNU long name entry.
+        final String longName = "docs/" + "x".repeat(120) + ".json";
+        writeTarEntry(tar, "././@LongLink", 'L', (longName + "\0").getBytes(StandardCharsets.UTF_8));
+        writeTarEntry(tar, longName.substring(0, 100), '0', DOCUMENTS[1].getBytes(StandardCharsets.UTF_8));
+        expected.put("long", DOCUMENTS[1]);
+        writeTarEntry(tar, "docs/broken.json", '0', "{\"title\": \"a\" \"article\": \"b\"}".getBytes(StandardCharsets.UTF_8));
+        expected.put("broken", null);
+        tar.writeBytes(new byte[1024]);
+        try (final var out = new GZIPOutputStream(new FileOutputStream(file))) {
+            tar.writeTo(out);
+        }
+
+        try (final var source = IDocumentSource.open(file)) {
+            assertDocuments(expected, readAll(source));
+        }
+    }
+}
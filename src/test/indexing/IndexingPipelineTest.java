@@ -0,0 +1,219 @@
+package indexing;
+
+import com.github.pemistahl.lingua.api.Language;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.Index;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.IDocumentSource;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.IndexingPipeline;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.SourceDocument;
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.IPreprocessor;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IndexingPipelineTest {
+
+    private static IPreprocessor createPreprocessor() {
+        return new IPreprocessor() {
+            @Override
+            public List<String> tokenize(final String text) {
+                final List<String> terms = new ArrayList<>();
+                for (final var token : text.split(" ")) {
+                    terms.add(preprocess(token));
+                }
+                return terms;
+            }
+
+            @Override
+            public String preprocess(final String token) {
+                return token.toLowerCase();
+            }
+
+            @Override
+            public boolean isStopWord(final String token) {
+                return false;
+            }
+        };
+    }
+
+    private static List<File> createRandomFiles(final Random random, final File directory, int count) throws IOException {
+        final var files = new ArrayList<File>();
+        for (int i = 0; i < count; i++) {
+            final var file = new File(directory, "doc" + i + ".json");
+            final var data = new JSONObject();
+            final var builder = new StringBuilder();
+            final int length = 1 + random.nextInt(30);
+            for (int j = 0; j < length; j++) {
+                builder.append(j > 0 ? " " : "").append(random.nextBoolean() ? "W" : "w").append(random.nextInt(40));
+            }
+            data.put("title", i % 10 == 0 ? "xx" : "t" + i);
+            data.put("article", builder.toString());
+            Files.writeString(file.toPath(), i % 50 == 1 ? "not a JSON document" : data.toString());
+            file.deleteOnExit();
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static Map<String, Set<String>> getPathsByTerm(final IIndex index) {
+        final Map<String, Set<String>> pathsByTerm = new HashMap<>();
+        for (int i = 0; i < 40; i++) {
+            for (final var term : new String[] { "w" + i, "t" + i }) {
+                final var paths = new HashSet<String>();
+                final var cursor = index.getPostings(term).cursor();
+                while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+                    paths.add(index.getFilePath(cursor.docId()) + "#" + cursor.freq());
+                }
+                pathsByTerm.put(term, paths);
+            }
+        }
+        return pathsByTerm;
+    }
+
+    @Test
+    public void testIndexingPipeline_01() throws IOException, InterruptedException {
+        final var random = new Random(61);
+        final var directory = Files.createTempDirectory("pipeline").toFile();
+        directory.deleteOnExit();
+        final var files = createRandomFiles(random, directory, 500);
+
+        // Documents whose title is "xx" are in an unsupported language.
+        final var preprocessors = new AtomicInteger(0);
+        final Map<Language, IIndex> indexes = new HashMap<>();
+        final var pipeline = new IndexingPipeline(
+            text -> text.startsWith("xx") ? Language.GERMAN : Language.ENGLISH,
+            language -> {
+                if (language != Language.ENGLISH) {
+                    return null;
+                }
+                preprocessors.incrementAndGet();
+                return createPreprocessor();
+            },
+            language -> indexes.computeIfAbsent(language, key -> new Index(createPreprocessor())),
+            4, 8);
+
+        final var progress = new ArrayList<Integer>();
+        final int indexed = pipeline.run(files, (processedDocuments, totalDocuments) -> {
+            assertEquals(files.size(), totalDocuments);
+            progress.add(processedDocuments);
+        });
+
+        // Index the same documents sequentially.
+        final IIndex expected = new Index(createPreprocessor());
+        for (int i = 0; i < files.size(); i++) {
+            if (i % 50 != 1 && i % 10 != 0) {
+                final var data = new JSONObject(Files.readString(files.get(i).toPath()));
+                expected.index(data.get("title") + " " + data.get("article"), files.get(i).getAbsolutePath());
+            }
+        }
+
+        final var actual = indexes.get(Language.ENGLISH);
+        assertEquals(1, indexes.size());
+        assertEquals(expected.getDocumentCount(), indexed);
+        assertEquals(expected.getDocumentCount(), actual.getDocumentCount());
+        assertEquals(expected.getTokenCount(), actual.getTokenCount());
+        assertEquals(expected.getTermCount(), actual.getTermCount());
+        assertEquals(getPathsByTerm(expected), getPathsByTerm(actual));
+        assertEquals(files.size(), progress.size());
+        assertEquals(files.size(), (int)progress.get(progress.size() - 1));
+        assertTrue(preprocessors.get() <= 4);
+    }
+
+    @Test
+    public void testIndexingPipeline_02() throws IOException, InterruptedException {
+        final var random = new Random(67);
+        final var directory = Files.createTempDirectory("pipeline").toFile();
+        directory.deleteOnExit();
+        final var files = createRandomFiles(random, directory, 300);
+        final IIndex index = new Index(createPreprocessor());
+        final var pipeline = new IndexingPipeline(text -> Language.ENGLISH, language -> createPreprocessor(), language -> index, 3, 2);
+
+        // Stop the pipeline half way through.
+        final int indexed = pipeline.run(files, (processedDocuments, totalDocuments) -> {
+            if (processedDocuments == 100) {
+                pipeline.stop();
+            }
+        });
+        assertTrue(indexed < files.size());
+        assertEquals(indexed, index.getDocumentCount());
+
+        // A stopped pipeline does not index any of the following sources.
+        assertTrue(pipeline.isStopped());
+        assertEquals(0, pipeline.run(files, null));
+        assertEquals(indexed, index.getDocumentCount());
+
+        // A pipeline that has not been stopped can index several sources one after another.
+        final IIndex other = new Index(createPreprocessor());
+        final var next = new IndexingPipeline(text -> Language.ENGLISH, language -> createPreprocessor(), language -> other, 3, 2);
+        final int first = next.run(files.subList(0, 100), null);
+        final int second = next.run(files.subList(100, 200), null);
+        assertEquals(first + second, other.getDocumentCount());
+        assertTrue(second > 0);
+    }
+
+    @Test(timeout = 10000)
+    public void testIndexingPipeline_03() throws InterruptedException {
+        // The source fails after 200 documents, the preprocessor fails on some of them.
+        final var source = new IDocumentSource() {
+            private int count = 0;
+
+            @Override
+            public synchronized SourceDocument next() {
+                if (count == 200) {
+                    throw new IllegalStateException("Broken source");
+                }
+                count++;
+                return new SourceDocument(null, "doc" + count, (count % 7 == 0 ? "fail " : "") + "w" + count);
+            }
+
+            @Override
+            public int getDocumentCount() {
+                return -1;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        final IIndex index = new Index(createPreprocessor());
+        final var pipeline = new IndexingPipeline(text -> Language.ENGLISH, language -> new IPreprocessor() {
+            @Override
+            public List<String> tokenize(final String text) {
+                if (text.startsWith("fail")) {
+                    throw new IllegalStateException("Broken preprocessor");
+                }
+                return List.of(text);
+            }
+
+            @Override
+            public String preprocess(final String token) {
+                return token;
+            }
+
+            @Override
+            public boolean isStopWord(final String token) {
+                return false;
+            }
+        }, language -> index, 3, 2);
+
+        // The failed workers still let the writer know they're done.
+        final int indexed = pipeline.run(source, null);
+        assertEquals(200 - 200 / 7, indexed);
+        assertEquals(indexed, index.getDocumentCount());
+    }
+}
@@ -0,0 +1,80 @@
+package indexing;
+
+import com.github.pemistahl.lingua.api.Language;
+import cz.zcu.kiv.ir.silhavyj.searchengine.indexing.LanguageRouter;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LanguageRouterTest {
+
+    private static final String ENGLISH_TEXT = "The government said on Monday that it would not change the plans for the new railway, " +
+        "which is expected to be finished by the end of the year. Critics have said that the costs are too high and that " +
+        "the project should be stopped before it is too late. ";
+
+    private static final String CZECH_TEXT = "Vlada v pondeli uvedla, ze na planu nove zeleznice nic nezmeni a ze by stavba mela " +
+        "byt hotova do konce roku. Kritici tvrdi, ze to je prilis drahe a ze by se projekt mel zastavit, dokud to jde. ";
+
+    private static LanguageRouter createRouter(final List<String> detected) {
+        final var router = new LanguageRouter(text -> {
+            detected.add(text);
+            return Language.GERMAN;
+        }, 200);
+        router.addStopWords(Language.CZECH, "stopwords-cs.txt");
+        router.addStopWords(Language.ENGLISH, "stopwords-en.txt");
+        return router;
+    }
+
+    @Test
+    public void testLanguageRouter_01() {
+        final List<String> detected = new ArrayList<>();
+        final var router = createRouter(detected);
+
+        // The stopwords give a clear answer, so the language detector is not needed.
+        assertEquals(Language.ENGLISH, router.detect(ENGLISH_TEXT.repeat(100)));
+        assertEquals(Language.CZECH, router.detect(CZECH_TEXT.repeat(100)));
+        assertEquals(0, detected.size());
+
+        // Otherwise, the language detector is run on a bounded sample.
+        final String text = "Der Hund lief schnell durch den Park, weil er einen Ball sah. ".repeat(100);
+        assertEquals(Language.GERMAN, router.detect(text));
+        assertEquals(1, detected.size());
+        assertTrue(detected.get(0).length() <= 200);
+        assertTrue(text.startsWith(detected.get(0)));
+        assertTrue(Character.isWhitespace(text.charAt(detected.get(0).length())));
+
+        // Short texts are not classified by a handful of stopwords.
+        assertEquals(Language.GERMAN, router.detect("the cat"));
+    }
+
+    @Test
+    public void testLanguageRouter_02() throws IOException {
+        final List<String> detected = new ArrayList<>();
+        final var router = createRouter(detected);
+        final var directory = Files.createTempDirectory("router").toFile();
+        final var hinted = new File(directory, "hinted");
+        final var invalid = new File(directory, "invalid");
+        final var explicit = new File(directory, "explicit");
+        assertTrue(hinted.mkdir() && invalid.mkdir() && explicit.mkdir());
+        Files.writeString(new File(hinted, LanguageRouter.HINT_FILE_NAME).toPath(), "czech\n");
+        Files.writeString(new File(invalid, LanguageRouter.HINT_FILE_NAME).toPath(), "klingon");
+        router.setDirectoryHint(explicit, Language.ENGLISH);
+
+        // The hint of the directory beats the content of the document.
+        assertEquals(Language.CZECH, router.route(new File(hinted, "doc.json"), ENGLISH_TEXT));
+        assertEquals(Language.ENGLISH, router.route(new File(explicit, "doc.json"), CZECH_TEXT));
+        assertEquals(Language.ENGLISH, router.route(new File(invalid, "doc.json"), ENGLISH_TEXT));
+
+        // The hint is read only once per directory.
+        assertTrue(new File(hinted, LanguageRouter.HINT_FILE_NAME).delete());
+        assertEquals(Language.CZECH, router.route(new File(hinted, "other.json"), ENGLISH_TEXT));
+        assertEquals(0, detected.size());
+    }
+}
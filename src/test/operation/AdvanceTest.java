@@ -0,0 +1,104 @@
+package operation;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.SearchOperations;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.CompressedPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PForDeltaCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.VByteCodec;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class AdvanceTest {
+
+    private static TreeSet<Integer> createRandomSet(final Random random, int count, int range) {
+        final var set = new TreeSet<Integer>();
+        while (set.size() < count) {
+            set.add(random.nextInt(range));
+        }
+        return set;
+    }
+
+    private static List<IPostingList> createPostingLists(final TreeSet<Integer> documents) {
+        final var postingList = new PostingList();
+        final var vByte = new CompressedPostingList(new VByteCodec());
+        final var pForDelta = new CompressedPostingList(new PForDeltaCodec());
+        for (final var document : documents) {
+            postingList.add(document);
+            vByte.add(document);
+            pForDelta.add(document);
+        }
+        return List.of(postingList, vByte, pForDelta);
+    }
+
+    private static List<Integer> toList(final IPostingList postings) {
+        final var list = new ArrayList<Integer>();
+        final var cursor = postings.cursor();
+        while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+            list.add(cursor.docId());
+        }
+        return list;
+    }
+
+    @Test
+    public void testAdvance_01() {
+        final var random = new Random(42);
+        final var documents = createRandomSet(random, 1000, 50000);
+        for (final var postings : createPostingLists(documents)) {
+            final var cursor = postings.cursor();
+            int target = 0;
+            while (true) {
+                target += random.nextInt(300);
+                final var expected = documents.ceiling(target);
+                final int actual = cursor.advance(target);
+                if (expected == null) {
+                    assertEquals(IPostingCursor.NO_MORE_DOCS, actual);
+                    break;
+                }
+                assertEquals((int)expected, actual);
+                assertEquals(actual, cursor.advance(target));
+            }
+        }
+    }
+
+    @Test
+    public void testAdvance_02() {
+        final var random = new Random(7);
+        for (int i = 0; i < 30; i++) {
+            final var short1 = createRandomSet(random, 1 + random.nextInt(20), 100000);
+            final var long1 = createRandomSet(random, 5000 + random.nextInt(5000), 100000);
+            final var expected = new ArrayList<>(short1);
+            expected.retainAll(long1);
+
+            for (final var postings1 : createPostingLists(short1)) {
+                for (final var postings2 : createPostingLists(long1)) {
+                    assertEquals(expected, toList(SearchOperations.and(postings1, postings2)));
+                    assertEquals(expected, toList(SearchOperations.and(postings2, postings1)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAdvance_03() {
+        final var random = new Random(3);
+        final var docs = createRandomSet(random, 300, 2000);
+        final var allDocs = createRandomSet(random, 1500, 2000);
+        allDocs.addAll(docs);
+        final var expected = new ArrayList<>(allDocs);
+        expected.removeAll(docs);
+
+        for (final var postings1 : createPostingLists(docs)) {
+            for (final var postings2 : createPostingLists(allDocs)) {
+                assertEquals(expected, toList(SearchOperations.not(postings1, postings2)));
+            }
+        }
+    }
+}
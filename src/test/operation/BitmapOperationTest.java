@@ -0,0 +1,168 @@
+package operation;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.SearchOperations;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.RoaringDocIdSet;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BitmapOperationTest {
+
+    private static TreeSet<Integer> createRandomSet(final Random random, int count, int range) {
+        final var set = new TreeSet<Integer>();
+        while (set.size() < count) {
+            set.add(random.nextInt(range));
+        }
+        return set;
+    }
+
+    private static TreeSet<Integer> createRange(int from, int to) {
+        final var set = new TreeSet<Integer>();
+        for (int i = from; i < to; i++) {
+            set.add(i);
+        }
+        return set;
+    }
+
+    private static RoaringDocIdSet createBitmap(final TreeSet<Integer> documents, boolean optimize) {
+        final var set = new RoaringDocIdSet();
+        for (final var document : documents.descendingSet()) {
+            set.add(document);
+        }
+        if (optimize) {
+            set.optimize();
+        }
+        return set;
+    }
+
+    private static PostingList createPostingList(final TreeSet<Integer> documents) {
+        final var postingList = new PostingList();
+        for (final var document : documents) {
+            postingList.add(document);
+        }
+        return postingList;
+    }
+
+    private static List<Integer> toList(final IPostingList postings) {
+        final var list = new ArrayList<Integer>();
+        final var cursor = postings.cursor();
+        while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+            list.add(cursor.docId());
+        }
+        return list;
+    }
+
+    private static List<TreeSet<Integer>> createOperands(final Random random) {
+        final var dense = createRandomSet(random, 60000, 200000);
+        final var runs = createRange(10000, 150000);
+        runs.addAll(createRange(170000, 171000));
+        return List.of(
+            createRandomSet(random, 100, 200000),
+            createRandomSet(random, 5000, 200000),
+            dense,
+            runs,
+            new TreeSet<>()
+        );
+    }
+
+    @Test
+    public void testBitmap_01() {
+        final var random = new Random(11);
+        final var documents = createRandomSet(random, 30000, 300000);
+        for (final boolean optimize : new boolean[] { false, true }) {
+            final var set = createBitmap(documents, optimize);
+            assertEquals(documents.size(), set.size());
+            assertEquals(new ArrayList<>(documents), toList(set));
+            for (int i = 0; i < 1000; i++) {
+                final int document = random.nextInt(300000);
+                assertEquals(documents.contains(document), set.contains(document));
+            }
+        }
+    }
+
+    @Test
+    public void testBitmap_02() {
+        final var random = new Random(5);
+        final var documents = createRange(0, 100000);
+        documents.addAll(createRandomSet(random, 2000, 400000));
+        for (final boolean optimize : new boolean[] { false, true }) {
+            final var cursor = createBitmap(documents, optimize).cursor();
+            int target = 0;
+            while (true) {
+                target += random.nextInt(700);
+                final var expected = documents.ceiling(target);
+                final int actual = cursor.advance(target);
+                if (expected == null) {
+                    assertEquals(IPostingCursor.NO_MORE_DOCS, actual);
+                    break;
+                }
+                assertEquals((int)expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testBitmap_03() {
+        final var random = new Random(3);
+        final var operands = createOperands(random);
+        for (final var documents1 : operands) {
+            for (final var documents2 : operands) {
+                final var expectedAnd = new TreeSet<>(documents1);
+                expectedAnd.retainAll(documents2);
+                final var expectedOr = new TreeSet<>(documents1);
+                expectedOr.addAll(documents2);
+                final var expectedAndNot = new TreeSet<>(documents1);
+                expectedAndNot.removeAll(documents2);
+
+                for (final boolean optimize : new boolean[] { false, true }) {
+                    final var set1 = createBitmap(documents1, optimize);
+                    final var set2 = createBitmap(documents2, !optimize);
+                    assertEquals(new ArrayList<>(expectedAnd), toList(RoaringDocIdSet.and(set1, set2)));
+                    assertEquals(new ArrayList<>(expectedOr), toList(RoaringDocIdSet.or(set1, set2)));
+                    assertEquals(new ArrayList<>(expectedAndNot), toList(RoaringDocIdSet.andNot(set1, set2)));
+                    assertEquals(expectedAndNot.size(), RoaringDocIdSet.andNot(set1, set2).size());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBitmap_04() {
+        final var random = new Random(9);
+        final var operands = createOperands(random);
+        for (final var documents1 : operands) {
+            for (final var documents2 : operands) {
+                final var expectedAnd = new TreeSet<>(documents1);
+                expectedAnd.retainAll(documents2);
+                final var expectedAndNot = new TreeSet<>(documents1);
+                expectedAndNot.removeAll(documents2);
+
+                // Mixed operands (a bitmap and a plain posting list).
+                final var bitmap = createBitmap(documents1, true);
+                final var postingList = createPostingList(documents2);
+                assertEquals(new ArrayList<>(expectedAnd), toList(SearchOperations.and(bitmap, postingList)));
+                assertEquals(new ArrayList<>(expectedAnd), toList(SearchOperations.and(postingList, bitmap)));
+                assertEquals(new ArrayList<>(expectedAndNot), toList(SearchOperations.andNot(createPostingList(documents1), createBitmap(documents2, true))));
+                assertEquals(new ArrayList<>(expectedAndNot), toList(SearchOperations.andNot(createPostingList(documents1), postingList)));
+            }
+        }
+    }
+
+    @Test
+    public void testBitmap_05() {
+        final var documents = createRange(0, 70000);
+        final var set = RoaringDocIdSet.of(createPostingList(documents));
+        assertTrue(RoaringDocIdSet.of(set) == set);
+        assertEquals(documents.size(), set.size());
+        assertEquals(new ArrayList<>(createRange(0, 70000)), toList(SearchOperations.not(new PostingList(), set)));
+    }
+}
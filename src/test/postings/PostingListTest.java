@@ -0,0 +1,61 @@
+package postings;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static utils.DocumentUtils.createDocumentIndex;
+
+public class PostingListTest {
+
+    @Test
+    public void testPostingList_01() {
+        final var postings = new PostingList();
+        postings.add(1);
+        postings.add(1);
+        postings.add(4);
+        postings.add(7);
+        postings.add(7);
+        postings.add(7);
+        assertEquals(3, postings.size());
+        assertEquals(2, postings.getFrequency(0));
+        assertEquals(1, postings.getFrequency(1));
+        assertEquals(3, postings.getFrequency(2));
+    }
+
+    @Test
+    public void testPostingList_02() {
+        final var postings = new PostingList(1);
+        for (int i = 0; i < 1000; i++) {
+            postings.add(i * 3);
+        }
+        final IPostingCursor cursor = postings.cursor();
+        assertEquals(-1, cursor.docId());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i * 3, cursor.nextDoc());
+            assertEquals(1, cursor.freq());
+        }
+        assertEquals(IPostingCursor.NO_MORE_DOCS, cursor.nextDoc());
+        assertEquals(IPostingCursor.NO_MORE_DOCS, cursor.nextDoc());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPostingList_03() {
+        final var postings = new PostingList();
+        postings.add(5);
+        postings.add(2);
+    }
+
+    @Test
+    public void testPostingList_04() {
+        final var expected = createDocumentIndex(new LinkedList<>(Arrays.asList(2, 3, 10)));
+        final var actual = PostingList.toDocument(PostingList.fromDocument(expected));
+        assertEquals(expected, actual);
+        assertNull(PostingList.toDocument(new PostingList()));
+    }
+}
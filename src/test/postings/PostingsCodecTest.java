@@ -0,0 +1,85 @@
+package postings;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.ByteArray;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.CompressedPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingsCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PForDeltaCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.VByteCodec;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PostingsCodecTest {
+
+    private static final IPostingsCodec[] CODECS = { new VByteCodec(), new PForDeltaCodec() };
+
+    private static PostingList createRandomPostings(long seed, int count, int maxGap) {
+        final var random = new Random(seed);
+        final var postings = new PostingList();
+        int document = 0;
+        for (int i = 0; i < count; i++) {
+            document += 1 + random.nextInt(maxGap);
+            postings.add(document, 1 + random.nextInt(random.nextInt(10) == 0 ? 5000 : 3));
+        }
+        return postings;
+    }
+
+    private static void assertSamePostings(final PostingList expected, final CompressedPostingList actual) {
+        assertEquals(expected.size(), actual.size());
+        final IPostingCursor cursor = actual.cursor();
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getDocument(i), cursor.nextDoc());
+            assertEquals(expected.getFrequency(i), cursor.freq());
+        }
+        assertEquals(IPostingCursor.NO_MORE_DOCS, cursor.nextDoc());
+    }
+
+    @Test
+    public void testCodec_01() {
+        final int[] values = { 0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, 5, 0, 3 };
+        for (final var codec : CODECS) {
+            final var out = new ByteArray();
+            codec.encode(values, values.length, out);
+            final int[] decoded = new int[values.length];
+            final var buffer = out.toBuffer();
+            codec.decode(buffer, decoded, values.length);
+            assertArrayEquals(values, decoded);
+            assertEquals(0, buffer.remaining());
+        }
+    }
+
+    @Test
+    public void testCodec_02() {
+        for (final var codec : CODECS) {
+            for (int seed = 0; seed < 20; seed++) {
+                final var expected = createRandomPostings(seed, seed * 97, seed % 2 == 0 ? 3 : 100000);
+                final var actual = new CompressedPostingList(codec);
+                for (int i = 0; i < expected.size(); i++) {
+                    actual.add(expected.getDocument(i), expected.getFrequency(i));
+                }
+                assertSamePostings(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testCodec_03() {
+        for (final var codec : CODECS) {
+            final var expected = new PostingList();
+            final var actual = new CompressedPostingList(codec);
+            for (int document = 0; document < 10000; document += 2) {
+                expected.add(document);
+                actual.add(document);
+                actual.add(document);
+                expected.add(document);
+            }
+            assertSamePostings(expected, actual);
+            assertEquals(true, actual.getCompressedSize() < expected.size() * 4);
+        }
+    }
+}
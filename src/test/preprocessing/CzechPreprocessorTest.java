@@ -0,0 +1,117 @@
+package preprocessing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.CzechPreprocessor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class CzechPreprocessorTest {
+
+    private static final String STOPWORDS_CZECH = "stopwords-cs.txt";
+
+    private static final String[][] STEMS = {
+        { "hlavn\u00ed", "hlav" },
+        { "m\u011bstech", "mes" },
+        { "republiky", "repub" },
+        { "kn\u00ed\u017eky", "kniz" },
+        { "dome\u010dky", "do" },
+        { "pejsky", "pejs" },
+        { "ko\u010di\u010dky", "ko" },
+        { "nejkr\u00e1sn\u011bj\u0161\u00ed", "nejkras" },
+        { "z\u00e1mek", "zam" },
+        { "u\u010ditel\u00e9", "ucite" },
+        { "p\u0159\u00edtelkyn\u011b", "pritel" },
+        { "dobrodru\u017estv\u00ed", "dobrodruz" },
+        { "prezidentovi", "preziden" },
+        { "Nov\u00e1kovi", "nova" },
+        { "hr\u00e1\u010d\u016fm", "hra" },
+        { "vlastnostmi", "vlast" },
+        { "PRAHA", "prah" },
+        { "okno", "okn" }
+    };
+
+    private static List<String> createRandomWords(final Random random, int count) {
+        final var alphabet = "abcdeghiklmnoprstuvyz\u00e1\u00e9\u011b\u00ed\u00f3\u00fa\u016f\u00fd\u010d\u010f\u0148\u0159\u0161\u0165\u017e";
+        final var words = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            final var builder = new StringBuilder();
+            final int length = 1 + random.nextInt(14);
+            for (int j = 0; j < length; j++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            words.add(builder.toString());
+        }
+        return words;
+    }
+
+    @Test
+    public void testCzechPreprocessor_01() {
+        final var preprocessor = new CzechPreprocessor(STOPWORDS_CZECH);
+        for (final var stem : STEMS) {
+            assertEquals(stem[1], preprocessor.preprocess(stem[0]));
+        }
+        assertEquals(List.of("ve", "mes", "zij", "lid", "maj", "rad", "12,5", "procen", "http://www.seznam.cz/"),
+            preprocessor.tokenize("Ve m\u011bstech \u017eij\u00ed lid\u00e9, kte\u0159\u00ed maj\u00ed r\u00e1di 12,5 procenta z http://www.seznam.cz/"));
+    }
+
+    @Test
+    public void testCzechPreprocessor_02() throws InterruptedException {
+        final var random = new Random(71);
+        final var words = createRandomWords(random, 20000);
+        final var preprocessor = new CzechPreprocessor(STOPWORDS_CZECH);
+        final var expected = new ArrayList<String>();
+        for (final var word : words) {
+            expected.add(preprocessor.preprocess(word));
+        }
+
+        // One instance of the preprocessor is shared by multiple threads.
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final var threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final var thread = new Thread(() -> {
+                try {
+                    for (int j = 0; j < words.size(); j++) {
+                        assertEquals(expected.get(j), preprocessor.preprocess(words.get(j)));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final var thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+    }
+
+    @Test
+    public void testCzechPreprocessor_03() {
+        final var preprocessor = new CzechPreprocessor(STOPWORDS_CZECH);
+        final var text = "Ve m\u011bstech \u017eij\u00ed lid\u00e9, lid\u00e9 \u017eij\u00ed ve m\u011bstech a 12,5";
+
+        // Terms pushed into the sink are the same as the ones in the list.
+        final var terms = new ArrayList<String>();
+        preprocessor.tokenize(text, terms::add);
+        assertEquals(preprocessor.tokenize(text), terms);
+
+        // The same terms get the same ids.
+        final Map<String, Integer> dictionary = new HashMap<>();
+        final var termIds = new ArrayList<Integer>();
+        preprocessor.tokenize(text, term -> dictionary.computeIfAbsent(term, key -> dictionary.size()), termIds::add);
+        assertEquals(terms.size(), termIds.size());
+        for (int i = 0; i < terms.size(); i++) {
+            assertEquals((int)dictionary.get(terms.get(i)), (int)termIds.get(i));
+        }
+        assertEquals(List.of(0, 1, 2, 3, 3, 2, 1, 4), termIds);
+    }
+}
@@ -0,0 +1,68 @@
+package preprocessing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.EnglishPreprocessor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.StemCache;
+import opennlp.tools.stemmer.PorterStemmer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EnglishPreprocessorTest {
+
+    private static final String STOPWORDS_ENGLISH = "stopwords-en.txt";
+
+    private static final String[] SUFFIXES = { "", "ing", "ational", "ness", "ies", "ed", "ization", "fulness", "s" };
+
+    private static List<String> createRandomWords(final Random random, int count) {
+        final var words = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            final var builder = new StringBuilder();
+            final int length = 2 + random.nextInt(8);
+            for (int j = 0; j < length; j++) {
+                builder.append((char)('a' + random.nextInt(26)));
+            }
+            words.add(builder.append(SUFFIXES[random.nextInt(SUFFIXES.length)]).toString());
+        }
+        return words;
+    }
+
+    @Test
+    public void testEnglishPreprocessor_01() throws InterruptedException {
+        final var random = new Random(73);
+        final var words = createRandomWords(random, 20000);
+        final var stemmer = new PorterStemmer();
+        final var expected = new ArrayList<String>();
+        for (final var word : words) {
+            expected.add(stemmer.stem(word));
+        }
+
+        // One instance of the preprocessor is shared by multiple threads (the cache
+        // is tiny, so almost every token gets stemmed).
+        final var preprocessor = new EnglishPreprocessor(STOPWORDS_ENGLISH, new StemCache(16));
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final var threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final var thread = new Thread(() -> {
+                try {
+                    for (int j = 0; j < words.size(); j++) {
+                        assertEquals(expected.get(j), preprocessor.preprocess(words.get(j)));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final var thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+    }
+}
@@ -0,0 +1,70 @@
+package preprocessing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.CzechPreprocessor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.StemCache;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StemCacheTest {
+
+    @Test
+    public void testStemCache_01() {
+        final var cache = new StemCache(160);
+        final var calls = new AtomicInteger(0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals("word", cache.get("Words", token -> {
+                calls.incrementAndGet();
+                return "word";
+            }));
+        }
+        assertEquals(1, calls.get());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        // The number of cached stems is bounded.
+        for (int i = 0; i < 1000; i++) {
+            cache.get("w" + i, token -> token);
+        }
+        assertTrue(cache.size() <= 160);
+        assertEquals(1001, cache.getMissCount());
+    }
+
+    @Test
+    public void testStemCache_02() throws InterruptedException {
+        final var cache = new StemCache(1000);
+        final var preprocessor = new CzechPreprocessor("stopwords-cs.txt", cache);
+        final var uncached = new CzechPreprocessor("stopwords-cs.txt", new StemCache(1));
+        final String[] words = { "m\u011bstech", "republiky", "kn\u00ed\u017eky", "pejsky", "z\u00e1mek", "okno" };
+
+        // The cache is shared by multiple threads.
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final var threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final var thread = new Thread(() -> {
+                try {
+                    for (int j = 0; j < 1000; j++) {
+                        final var word = words[j % words.length] + (j % 7);
+                        assertEquals(uncached.preprocess(word), preprocessor.preprocess(word));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (final var thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get());
+        assertEquals(4000, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.getHitCount() >= 4000 - 4 * 42);
+    }
+}
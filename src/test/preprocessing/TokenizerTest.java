@@ -0,0 +1,63 @@
+package preprocessing;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.Tokenizer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenizerTest {
+
+    private static final Pattern PATTERN = Pattern.compile("(\\d+[,]\\d+[,]?(\\d+)?[,]?(\\d+)?)|(\\d+[:]\\d+)|(\\d+[.,](\\d+)?[.,]?(\\d+)?)|(https?|ftp|file)://[-a-zA-Z0-9+&@#/%?=~_|!:,.;]*[-a-zA-Z0-9+&@#/%=~_|]|(?:(?<=^|[^\\p{L}\\d])'|'(?=[\\p{L}\\d]|$)|[\\p{L}\\d*])+|(<.*?>)");
+
+    private static final String[] FRAGMENTS = {
+        "a", "Z", "h", "f", "e", "i", "l", "t", "p", "s", "0", "7", "42", ",", ".", ":", ";", "'", "*", "<", ">",
+        "/", "?", "!", "-", "_", "=", "#", " ", "\n", "\r", "\r\n", "\u0085", "\u2028", "\u00e1", "\u017e",
+        "\ud835\udc00", "\ud83d\ude00", "\ud835", "\udc00", "http://", "https://", "ftp://", "file://", "htt", "1,2", "3.4"
+    };
+
+    private static List<String> tokenizeRegex(final String text) {
+        final Matcher matcher = PATTERN.matcher(text);
+        final List<String> tokens = new ArrayList<>();
+        while (matcher.find()) {
+            tokens.add(matcher.group());
+        }
+        return tokens;
+    }
+
+    @Test
+    public void testTokenizer_01() {
+        assertEquals(List.of("1,234,567", "12:30", "3.14,", "http://www.zcu.cz/a?b=c", "don't", "'quoted", "<b>", "bold", "</b>", "*"),
+            Tokenizer.tokenize("1,234,567 12:30 3.14, http://www.zcu.cz/a?b=c. don't 'quoted' <b>bold</b> *"));
+        assertEquals(List.of(), Tokenizer.tokenize(""));
+        assertEquals(List.of(), Tokenizer.tokenize(" -- . ; "));
+    }
+
+    @Test
+    public void testTokenizer_02() {
+        final var random = new Random(73);
+        for (int i = 0; i < 50000; i++) {
+            final var builder = new StringBuilder();
+            final int length = random.nextInt(20);
+            for (int j = 0; j < length; j++) {
+                builder.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            final var text = builder.toString();
+            assertEquals(text, tokenizeRegex(text), Tokenizer.tokenize(text));
+        }
+    }
+
+    @Test
+    public void testTokenizer_03() throws IOException {
+        final var text = Files.readString(Path.of("README.md"));
+        assertEquals(tokenizeRegex(text), Tokenizer.tokenize(text));
+    }
+}
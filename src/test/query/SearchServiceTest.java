@@ -0,0 +1,128 @@
+package query;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.Index;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.RankingModel;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.SearchCancellation;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.SearchOperations;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.TopHits;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.SearchService;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.lexer.QueryLexer;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.QueryParseInfix;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static utils.PreprocessorUtils.WHITESPACE_PREPROCESSOR;
+
+public class SearchServiceTest {
+
+    private static IIndex createRandomIndex() {
+        final var random = new Random(7);
+        final IIndex index = new Index(WHITESPACE_PREPROCESSOR);
+        for (int document = 0; document < 300; document++) {
+            final var builder = new StringBuilder();
+            final int length = 1 + random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                builder.append(i > 0 ? " " : "").append("w").append(random.nextInt(20));
+            }
+            index.index(builder.toString(), "doc" + document);
+        }
+        return index;
+    }
+
+    private static void assertSameHits(final TopHits expected, final TopHits actual) {
+        assertEquals(expected.getTotalHits(), actual.getTotalHits());
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getDocument(i), actual.getDocument(i));
+            assertEquals(expected.getScore(i), actual.getScore(i), 1e-6);
+        }
+    }
+
+    @Test
+    public void testSearchService_01() throws Exception {
+        final IIndex index = createRandomIndex();
+        final var service = new SearchService(() -> new QueryParseInfix(new QueryLexer()));
+        final var parser = new QueryParseInfix(new QueryLexer());
+        try {
+            // The results are the same as the results of a synchronous search.
+            for (final var query : List.of("w1 | w2", "w3 & !w4", "(w5 | w6) & w7")) {
+                for (final var model : RankingModel.values()) {
+                    assertSameHits(parser.searchRanked(index, query, model, 10), service.search(index, query, model, 10).get(5, TimeUnit.SECONDS));
+                }
+                final var hits = service.search(index, query, null, 10).get(5, TimeUnit.SECONDS);
+                assertEquals(parser.evaluate(index, query).size(), hits.getTotalHits());
+            }
+
+            // An invalid query completes the search exceptionally.
+            try {
+                service.search(index, "| w1 | w2 |", RankingModel.TF_IDF, 10).get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    public void testSearchService_02() throws Exception {
+        final IIndex index = createRandomIndex();
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var service = new SearchService(() -> {
+            // Hold the first search until the next one has been submitted.
+            if (started.getCount() > 0) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new QueryParseInfix(new QueryLexer());
+        });
+        try {
+            final var first = service.search(index, "w1 | w2", RankingModel.TF_IDF, 10);
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            final var second = service.search(index, "w1 | w2", RankingModel.TF_IDF, 10);
+            release.countDown();
+
+            // The superseded search gets cancelled, the latest one is completed.
+            assertTrue(first.isCancelled());
+            final var expected = new QueryParseInfix(new QueryLexer()).searchRanked(index, "w1 | w2", RankingModel.TF_IDF, 10);
+            assertSameHits(expected, second.get(5, TimeUnit.SECONDS));
+        } finally {
+            service.stop();
+        }
+
+        // Operations on posting lists stop once the thread's been interrupted.
+        final var docs1 = new PostingList();
+        final var docs2 = new PostingList();
+        for (int i = 0; i < 4 * SearchCancellation.CHECK_INTERVAL; i++) {
+            docs1.add(2 * i, 1);
+            docs2.add(2 * i + 1, 1);
+        }
+        assertEquals(docs1.size() + docs2.size(), SearchOperations.or(docs1, docs2).size());
+        Thread.currentThread().interrupt();
+        try {
+            SearchOperations.or(docs1, docs2);
+            fail();
+        } catch (CancellationException e) {
+            // Expected.
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package search;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.ForwardIndex;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ForwardIndexTest {
+
+    @Test
+    public void testForwardIndex_01() {
+        final var random = new Random(42);
+        final int firstDocument = 100;
+        final int lastDocument = 300;
+        final int[][] frequencies = new int[50][lastDocument + 1];
+
+        // Create a random inverted index (some documents get no terms at all).
+        final int[] termIds = new int[50];
+        final var postings = new IPostingList[50];
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = 3 * i;
+            final var termPostings = new PostingList();
+            for (int document = firstDocument; document <= lastDocument; document++) {
+                if (document % 7 != 0 && random.nextInt(4) == 0) {
+                    frequencies[i][document] = 1 + random.nextInt(5);
+                    termPostings.add(document, frequencies[i][document]);
+                }
+            }
+            postings[i] = termPostings;
+        }
+
+        final var forwardIndex = ForwardIndex.build(termIds, postings, firstDocument, lastDocument);
+        for (int document = 0; document <= lastDocument + 10; document++) {
+            int uniqueTerms = 0;
+            for (int i = 0; i < termIds.length; i++) {
+                final int expected = document <= lastDocument ? frequencies[i][document] : 0;
+                assertEquals(expected, forwardIndex.getFrequency(document, termIds[i]));
+                assertEquals(0, forwardIndex.getFrequency(document, termIds[i] + 1));
+                uniqueTerms += expected > 0 ? 1 : 0;
+            }
+            assertEquals(uniqueTerms, forwardIndex.getNumberOfUniqueTerms(document));
+
+            // The terms of a row are sorted by their ids.
+            for (int position = forwardIndex.getRowStart(document) + 1; position < forwardIndex.getRowEnd(document); position++) {
+                assertTrue(forwardIndex.getTermId(position - 1) < forwardIndex.getTermId(position));
+                assertTrue(forwardIndex.getFrequency(position) > 0);
+            }
+        }
+    }
+
+    @Test
+    public void testForwardIndex_02() {
+        final var forwardIndex = ForwardIndex.build(new int[0], new IPostingList[0], 0, -1);
+        assertEquals(0, forwardIndex.getFrequency(0, 0));
+        assertEquals(0, forwardIndex.getNumberOfUniqueTerms(0));
+    }
+}
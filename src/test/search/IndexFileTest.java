@@ -0,0 +1,249 @@
+package search;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.Index;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.MappedIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.RankingModel;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingsCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PForDeltaCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.VByteCodec;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static utils.PreprocessorUtils.WHITESPACE_PREPROCESSOR;
+
+public class IndexFileTest {
+
+    private static IIndex createRandomIndex(final Random random, final IPostingsCodec codec) {
+        final IIndex index = new Index(WHITESPACE_PREPROCESSOR, codec);
+        for (int i = 0; i < 1000; i++) {
+            final var builder = new StringBuilder();
+            final int length = 1 + random.nextInt(30);
+            for (int j = 0; j < length; j++) {
+                builder.append(j > 0 ? " " : "").append("w").append(random.nextInt(50));
+            }
+            index.index(builder.toString(), "documents/doc-" + i + "-\u017e.json");
+        }
+        return index;
+    }
+
+    private static List<Integer> toList(final IPostingList postings) {
+        final var list = new ArrayList<Integer>();
+        final var cursor = postings.cursor();
+        while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+            list.add(cursor.docId());
+            list.add(cursor.freq());
+        }
+        return list;
+    }
+
+    private static double calculateMaxImpact(final IIndex index, final String term, final RankingModel model) {
+        final double termWeight = model == RankingModel.TF_IDF ? index.getIDF(term) : 1;
+        double maxImpact = 0;
+        final var cursor = index.getPostings(term).cursor();
+        while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+            final double norm = index.getDocumentNorm(cursor.docId(), model);
+            if (norm != 0) {
+                maxImpact = Math.max(maxImpact, model.weight(cursor.freq()) * termWeight * termWeight / norm);
+            }
+        }
+        return maxImpact;
+    }
+
+    @Test
+    public void testIndexFile_01() throws IOException {
+        final var random = new Random(37);
+        for (final var codec : new IPostingsCodec[] { new VByteCodec(), new PForDeltaCodec() }) {
+            final var index = createRandomIndex(random, codec);
+            final var file = File.createTempFile("index", ".idx");
+            file.deleteOnExit();
+            index.save(file.getPath());
+
+            final IIndex loaded = new Index(WHITESPACE_PREPROCESSOR);
+            loaded.load(file.getPath());
+            assertEquals(index.getDocumentCount(), loaded.getDocumentCount());
+            assertEquals(index.getTermCount(), loaded.getTermCount());
+            assertEquals(index.getTokenCount(), loaded.getTokenCount());
+            assertEquals(toList(index.getAllPostings()), toList(loaded.getAllPostings()));
+
+            for (int i = 0; i < 55; i++) {
+                final var term = "w" + i;
+                assertEquals(toList(index.getPostings(term)), toList(loaded.getPostings(term)));
+                assertEquals(index.getIDF(term), loaded.getIDF(term), 0);
+            }
+            for (int document = 0; document < index.getDocumentCount(); document++) {
+                final var query = new HashSet<>(List.of("w" + random.nextInt(50), "w" + random.nextInt(50)));
+                assertEquals(index.getFilePath(document), loaded.getFilePath(document));
+                assertEquals(index.calculateTF_IDF(document, query), loaded.calculateTF_IDF(document, query), 1e-12);
+                assertEquals(index.calculateCosineSimilarity(document, query), loaded.calculateCosineSimilarity(document, query), 1e-12);
+                for (final var model : RankingModel.values()) {
+                    assertEquals(index.getDocumentNorm(document, model), loaded.getDocumentNorm(document, model), 0);
+                }
+            }
+
+            // Documents that have already been indexed are not indexed again.
+            assertFalse(loaded.index("w1 w2", index.getFilePath(0)));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testIndexFile_02() throws IOException {
+        final var file = File.createTempFile("index", ".idx");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), "this is not an index");
+        new Index(WHITESPACE_PREPROCESSOR).load(file.getPath());
+    }
+
+    @Test
+    public void testIndexFile_03() throws IOException {
+        final var random = new Random(41);
+        for (final var codec : new IPostingsCodec[] { new VByteCodec(), new PForDeltaCodec() }) {
+            final var index = createRandomIndex(random, codec);
+            final var specialTerms = List.of("\u017elu\u0165ou\u010dk\u00fd", "zebra", "\uD83D\uDE00", "\uFB01", "a");
+            index.index(String.join(" ", specialTerms), "special.json");
+            final var file = File.createTempFile("index", ".idx");
+            file.deleteOnExit();
+            index.save(file.getPath());
+
+            final IIndex mapped = new MappedIndex(WHITESPACE_PREPROCESSOR, file.getPath());
+            assertEquals(index.getDocumentCount(), mapped.getDocumentCount());
+            assertEquals(index.getTermCount(), mapped.getTermCount());
+            assertEquals(index.getTokenCount(), mapped.getTokenCount());
+            assertEquals(toList(index.getAllPostings()), toList(mapped.getAllPostings()));
+
+            final var terms = new ArrayList<>(specialTerms);
+            for (int i = 0; i < 55; i++) {
+                terms.add("w" + i);
+            }
+            terms.add("unknown");
+            for (final var term : terms) {
+                assertEquals(toList(index.getPostings(term)), toList(mapped.getPostings(term)));
+                assertEquals(index.getIDF(term), mapped.getIDF(term), 0);
+                for (final var model : RankingModel.values()) {
+                    assertEquals(calculateMaxImpact(index, term, model), index.getMaxImpact(term, model), 1e-12);
+                    assertEquals(index.getMaxImpact(term, model), mapped.getMaxImpact(term, model), 1e-12);
+                }
+            }
+            for (int document = 0; document < index.getDocumentCount(); document++) {
+                final var query = new HashSet<>(List.of("w" + random.nextInt(50), "w" + random.nextInt(50)));
+                assertEquals(index.getFilePath(document), mapped.getFilePath(document));
+                assertEquals(index.calculateTF_IDF(document, query), mapped.calculateTF_IDF(document, query), 1e-12);
+                assertEquals(index.calculateCosineSimilarity(document, query), mapped.calculateCosineSimilarity(document, query), 1e-12);
+            }
+
+            // The mapped index can be copied and loaded into a regular index.
+            final var copy = File.createTempFile("index", ".idx");
+            copy.deleteOnExit();
+            mapped.save(copy.getPath());
+            final IIndex loaded = new Index(WHITESPACE_PREPROCESSOR);
+            loaded.load(copy.getPath());
+            assertEquals(toList(index.getPostings("w7")), toList(loaded.getPostings("w7")));
+            for (final var term : terms) {
+                for (final var model : RankingModel.values()) {
+                    assertEquals(index.getMaxImpact(term, model), loaded.getMaxImpact(term, model), 1e-12);
+                    assertEquals(index.getMaxImpact(term, model), loaded.snapshot().getMaxImpact(term, model), 1e-12);
+                }
+            }
+            assertFalse(mapped.index("w1 w2", "new.json"));
+        }
+    }
+
+    @Test
+    public void testIndexFile_04() throws IOException {
+        final var random = new Random(41);
+        final var index = new Index(WHITESPACE_PREPROCESSOR);
+        final List<Map<String, String>> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            // Every fifth document has no stored fields, some of the articles exceed the size of a block.
+            Map<String, String> fields = null;
+            if (i % 5 != 0) {
+                final var article = new StringBuilder();
+                final int length = random.nextInt(10) == 0 ? 3000 : 1 + random.nextInt(40);
+                for (int j = 0; j < length; j++) {
+                    article.append(j > 0 ? " " : "").append("w").append(random.nextInt(50));
+                }
+                fields = new HashMap<>();
+                fields.put("title", "Title \u017e " + i);
+                fields.put("article", article.toString());
+                if (i % 2 == 0) {
+                    fields.put("url", "https://example.com/" + i);
+                }
+            }
+            expected.add(fields);
+            index.index(fields == null ? "w1 w2" : fields.get("article"), "doc-" + i + ".json", fields);
+
+            // Documents are readable as soon as they're indexed.
+            assertEquals(fields, index.getStoredFields(i));
+        }
+        final var snapshot = index.snapshot();
+        final var file = File.createTempFile("index", ".idx");
+        file.deleteOnExit();
+        index.save(file.getPath());
+
+        final IIndex loaded = new Index(WHITESPACE_PREPROCESSOR);
+        loaded.load(file.getPath());
+        final IIndex mapped = new MappedIndex(WHITESPACE_PREPROCESSOR, file.getPath());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), index.getStoredFields(i));
+            assertEquals(expected.get(i), loaded.getStoredFields(i));
+            assertEquals(expected.get(i), mapped.getStoredFields(i));
+        }
+        assertNull(index.getStoredFields(expected.size()));
+        assertNull(mapped.getStoredFields(expected.size()));
+        assertNull(mapped.getStoredFields(-1));
+
+        // A snapshot does not see the documents indexed after it's been taken.
+        final Map<String, String> fields = Map.of("title", "New", "article", "w1");
+        index.index("w1", "new.json", fields);
+        assertEquals(fields, index.getStoredFields(expected.size()));
+        assertNull(snapshot.getStoredFields(expected.size()));
+    }
+
+    @Test
+    public void testIndexFile_05() throws IOException {
+        final var random = new Random(47);
+        final var file = File.createTempFile("index", ".idx");
+        file.deleteOnExit();
+        createRandomIndex(random, new VByteCodec()).save(file.getPath());
+        final byte[] content = Files.readAllBytes(file.toPath());
+
+        final IIndex index = new Index(WHITESPACE_PREPROCESSOR);
+        index.index("w1 w2 w2", "first.json");
+        index.index("w2 w3", "second.json");
+        final var postings = toList(index.getPostings("w2"));
+        final double norm = index.getDocumentNorm(1, RankingModel.TF_IDF);
+
+        // A truncated file is rejected and the index stays as it was.
+        for (final int length : new int[] { 40, content.length / 4, content.length / 2, content.length - 1 }) {
+            Files.write(file.toPath(), Arrays.copyOf(content, length));
+            try {
+                index.load(file.getPath());
+                fail();
+            } catch (IOException e) {
+                // Expected.
+            }
+            assertEquals(2, index.getDocumentCount());
+            assertEquals(3, index.getTermCount());
+            assertEquals(postings, toList(index.getPostings("w2")));
+            assertEquals("second.json", index.getFilePath(1));
+            assertEquals(norm, index.getDocumentNorm(1, RankingModel.TF_IDF), 0);
+            assertFalse(index.index("w4", "first.json"));
+        }
+    }
+}
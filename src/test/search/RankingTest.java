@@ -0,0 +1,187 @@
+package search;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.Index;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.RankingModel;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.ScoreAccumulator;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.lexer.QueryLexer;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.IQueryParser;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.QueryParseInfix;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static utils.PreprocessorUtils.WHITESPACE_PREPROCESSOR;
+
+public class RankingTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private static String createRandomDocument(final Random random) {
+        final var builder = new StringBuilder();
+        final int length = 1 + random.nextInt(40);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                builder.append(' ');
+            }
+            builder.append("w").append(random.nextInt(30));
+        }
+        return builder.toString();
+    }
+
+    private static Set<String> createRandomQuery(final Random random) {
+        final var query = new HashSet<String>();
+        final int length = 1 + random.nextInt(4);
+        for (int i = 0; i < length; i++) {
+            query.add("w" + random.nextInt(35));
+        }
+        return query;
+    }
+
+    private static Map<String, Integer> createBagOfWords(final String text) {
+        final Map<String, Integer> bag = new HashMap<>();
+        for (final var word : text.split(" ")) {
+            bag.merge(word, 1, Integer::sum);
+        }
+        return bag;
+    }
+
+    private static double expectedCosineSimilarity(final Map<String, Integer> document, final Set<String> query) {
+        final var words = new HashSet<>(document.keySet());
+        words.addAll(query);
+        double multi = 0;
+        double norm1 = 0;
+        double norm2 = 0;
+        for (final var word : words) {
+            final double val1 = document.getOrDefault(word, 0);
+            final double val2 = query.contains(word) ? 1 : 0;
+            multi += val1 * val2;
+            norm1 += val1 * val1;
+            norm2 += val2 * val2;
+        }
+        return norm1 * norm2 == 0 ? 0 : multi / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    private static double expectedTF_IDF(final Map<String, Integer> document, final Set<String> query,
+                                         final Map<String, Integer> documentFrequencies, int documentCount) {
+        final var words = new HashSet<>(document.keySet());
+        words.addAll(query);
+        double multi = 0;
+        double norm1 = 0;
+        double norm2 = 0;
+        for (final var word : words) {
+            final double IDF = documentFrequencies.containsKey(word) ? Math.log10((double)documentCount / documentFrequencies.get(word)) : 0;
+            final double val1 = document.containsKey(word) ? (1 + Math.log10(document.getOrDefault(word, 0))) * IDF : 0;
+            final double val2 = query.contains(word) ? IDF : 0;
+            multi += val1 * val2;
+            norm1 += val1 * val1;
+            norm2 += val2 * val2;
+        }
+        return norm1 * norm2 == 0 ? 0 : multi / (Math.sqrt(norm1) * Math.sqrt(norm2));
+    }
+
+    @Test
+    public void testRanking_01() {
+        final var random = new Random(17);
+        final IIndex index = new Index(WHITESPACE_PREPROCESSOR);
+        final List<Map<String, Integer>> documents = new ArrayList<>();
+        final Map<String, Integer> documentFrequencies = new HashMap<>();
+
+        // Rank after every batch, so the norms have to be refreshed as the index grows.
+        for (int batch = 0; batch < 5; batch++) {
+            for (int i = 0; i < 40; i++) {
+                final var text = createRandomDocument(random);
+                index.index(text, "doc" + documents.size());
+                final var bag = createBagOfWords(text);
+                documents.add(bag);
+                for (final var word : bag.keySet()) {
+                    documentFrequencies.merge(word, 1, Integer::sum);
+                }
+            }
+            for (int i = 0; i < 50; i++) {
+                final var query = createRandomQuery(random);
+                final int document = random.nextInt(documents.size());
+                assertEquals(expectedCosineSimilarity(documents.get(document), query),
+                    index.calculateCosineSimilarity(document, query), EPSILON);
+                assertEquals(expectedTF_IDF(documents.get(document), query, documentFrequencies, documents.size()),
+                    index.calculateTF_IDF(document, query), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void testRanking_02() {
+        final var random = new Random(23);
+        final IIndex index = new Index(WHITESPACE_PREPROCESSOR);
+        for (int i = 0; i < 300; i++) {
+            index.index(createRandomDocument(random), "doc" + i);
+        }
+        final var accumulator = new ScoreAccumulator(index);
+        for (int i = 0; i < 50; i++) {
+            final var query = createRandomQuery(random);
+            final var filter = new PostingList();
+            final var matching = new HashSet<Integer>();
+            for (int document = 0; document < 300; document++) {
+                if (random.nextInt(3) == 0) {
+                    filter.add(document);
+                    matching.add(document);
+                }
+            }
+            for (final var model : RankingModel.values()) {
+                final float[] scores = accumulator.score(query, filter, model);
+                for (int document = 0; document < scores.length; document++) {
+                    double expected = 0;
+                    if (matching.contains(document)) {
+                        expected = model == RankingModel.TF_IDF ? index.calculateTF_IDF(document, query) : index.calculateCosineSimilarity(document, query);
+                    }
+                    assertEquals(expected, scores[document], 1e-5);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testRanking_03() {
+        final var random = new Random(29);
+        final IIndex index = new Index(WHITESPACE_PREPROCESSOR);
+        for (int i = 0; i < 2000; i++) {
+            index.index(createRandomDocument(random), "doc" + i);
+        }
+        final IQueryParser queryParser = new QueryParseInfix(new QueryLexer());
+        final var accumulator = new ScoreAccumulator(index);
+        int pruned = 0;
+        for (int i = 0; i < 50; i++) {
+            final var query = String.join(" | ", createRandomQuery(random));
+            for (final var model : RankingModel.values()) {
+                for (final int k : new int[] { 1, 10 }) {
+                    final var expected = accumulator.getTopHits(createTerms(query), queryParser.evaluate(index, query), model, k);
+                    final var actual = queryParser.searchRanked(index, query, model, k);
+                    assertEquals(expected.size(), actual.size());
+                    for (int j = 0; j < expected.size(); j++) {
+                        assertEquals(expected.getScore(j), actual.getScore(j), 1e-5);
+                    }
+                    if (actual.isTotalHitsExact()) {
+                        assertEquals(expected.getTotalHits(), actual.getTotalHits());
+                    } else {
+                        pruned++;
+                    }
+                }
+            }
+        }
+        assertTrue(pruned > 0);
+    }
+
+    private static Set<String> createTerms(final String query) {
+        return new HashSet<>(Arrays.asList(query.split(" \\| ")));
+    }
+}
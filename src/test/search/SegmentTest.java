@@ -0,0 +1,139 @@
+package search;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.Index;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.RankingModel;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.MultiPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.PostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.VByteCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.TieredMergePolicy;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.lexer.QueryLexer;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.IQueryParser;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.QueryParseInfix;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static utils.PreprocessorUtils.WHITESPACE_PREPROCESSOR;
+
+public class SegmentTest {
+
+    private static String createRandomDocument(final Random random) {
+        final var builder = new StringBuilder();
+        final int length = 1 + random.nextInt(30);
+        for (int i = 0; i < length; i++) {
+            builder.append(i > 0 ? " " : "").append("w").append(random.nextInt(40));
+        }
+        return builder.toString();
+    }
+
+    private static List<Integer> toList(final IPostingList postings) {
+        final var list = new ArrayList<Integer>();
+        final var cursor = postings.cursor();
+        while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+            list.add(cursor.docId());
+            list.add(cursor.freq());
+        }
+        return list;
+    }
+
+    private static void assertSameIndex(final Index expected, final Index actual) {
+        assertEquals(expected.getDocumentCount(), actual.getDocumentCount());
+        assertEquals(expected.getTermCount(), actual.getTermCount());
+        assertEquals(expected.getTokenCount(), actual.getTokenCount());
+        for (int i = 0; i < 45; i++) {
+            final var term = "w" + i;
+            assertEquals(toList(expected.getPostings(term)), toList(actual.getPostings(term)));
+            assertEquals(toList(expected.getMatchingDocuments(term)), toList(actual.getMatchingDocuments(term)));
+            assertEquals(expected.getIDF(term), actual.getIDF(term), 0);
+        }
+        for (int document = 0; document < expected.getDocumentCount(); document++) {
+            assertEquals(expected.getFilePath(document), actual.getFilePath(document));
+            for (final var model : RankingModel.values()) {
+                assertEquals(expected.getDocumentNorm(document, model), actual.getDocumentNorm(document, model), 1e-12);
+            }
+        }
+    }
+
+    @Test
+    public void testSegment_01() {
+        final var random = new Random(43);
+        final var expected = new Index(WHITESPACE_PREPROCESSOR, new VByteCodec(), Integer.MAX_VALUE, new TieredMergePolicy());
+        final var actual = new Index(WHITESPACE_PREPROCESSOR, new VByteCodec(), 7, new TieredMergePolicy(3, 7));
+        final IQueryParser queryParser = new QueryParseInfix(new QueryLexer());
+
+        for (int batch = 0; batch < 4; batch++) {
+            for (int i = 0; i < 250; i++) {
+                final var text = createRandomDocument(random);
+                expected.index(text, "doc" + (batch * 250 + i));
+                actual.index(text, "doc" + (batch * 250 + i));
+            }
+            // Search while the merges may still be running.
+            for (int i = 0; i < 20; i++) {
+                final var query = "w" + random.nextInt(40) + " | w" + random.nextInt(40) + " & !w" + random.nextInt(40);
+                assertEquals(toList(queryParser.evaluate(expected, query)), toList(queryParser.evaluate(actual, query)));
+                for (final var model : RankingModel.values()) {
+                    final var expectedHits = queryParser.searchRanked(expected, query, model, 10);
+                    final var actualHits = queryParser.searchRanked(actual, query, model, 10);
+                    assertEquals(expectedHits.size(), actualHits.size());
+                    for (int j = 0; j < expectedHits.size(); j++) {
+                        assertEquals(expectedHits.getScore(j), actualHits.getScore(j), 1e-5);
+                    }
+                }
+            }
+            assertSameIndex(expected, actual);
+        }
+
+        // The tiered policy keeps the number of segments logarithmic.
+        actual.waitForMerges();
+        assertEquals(0, expected.getSegmentCount());
+        assertTrue(actual.getSegmentCount() > 1);
+        assertTrue(actual.getSegmentCount() <= 10);
+        assertSameIndex(expected, actual);
+    }
+
+    @Test
+    public void testSegment_02() throws IOException {
+        final var random = new Random(47);
+        final var index = new Index(WHITESPACE_PREPROCESSOR, new VByteCodec(), 10, new TieredMergePolicy(2, 10));
+        for (int i = 0; i < 333; i++) {
+            index.index(createRandomDocument(random), "doc" + i);
+        }
+        final var file = File.createTempFile("index", ".idx");
+        file.deleteOnExit();
+        index.save(file.getPath());
+
+        // Segments are written as a single one.
+        final var loaded = new Index(WHITESPACE_PREPROCESSOR);
+        loaded.load(file.getPath());
+        assertEquals(1, loaded.getSegmentCount());
+        index.waitForMerges();
+        assertSameIndex(index, loaded);
+    }
+
+    @Test
+    public void testSegment_03() {
+        final var postingList1 = new PostingList();
+        postingList1.add(1, 2);
+        postingList1.add(5, 1);
+        postingList1.add(9, 4);
+        final var postingList2 = new PostingList();
+        postingList2.add(3, 1);
+        postingList2.add(5, 3);
+        final var union = new MultiPostingList(List.of(postingList1, postingList2, new PostingList()));
+        assertEquals(List.of(1, 2, 3, 1, 5, 4, 9, 4), toList(union));
+
+        final var cursor = union.cursor();
+        assertEquals(5, cursor.advance(4));
+        assertEquals(5, cursor.advance(2));
+        assertEquals(9, cursor.nextDoc());
+        assertEquals(IPostingCursor.NO_MORE_DOCS, cursor.nextDoc());
+    }
+}
@@ -0,0 +1,216 @@
+package search;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.IIndex;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.Index;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.RankingModel;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingCursor;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.IPostingList;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.postings.VByteCodec;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.Segment;
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.segment.TieredMergePolicy;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.lexer.QueryLexer;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.IQueryParser;
+import cz.zcu.kiv.ir.silhavyj.searchengine.query.parser.QueryParseInfix;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static utils.PreprocessorUtils.WHITESPACE_PREPROCESSOR;
+
+public class SnapshotTest {
+
+    private static List<String> createRandomDocuments(final Random random, int count) {
+        final var documents = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            final var builder = new StringBuilder();
+            final int length = 1 + random.nextInt(30);
+            for (int j = 0; j < length; j++) {
+                builder.append(j > 0 ? " " : "").append("w").append(random.nextInt(40));
+            }
+            documents.add(builder.toString());
+        }
+        return documents;
+    }
+
+    private static List<Integer> toList(final IPostingList postings) {
+        final var list = new ArrayList<Integer>();
+        final var cursor = postings.cursor();
+        while (cursor.nextDoc() != IPostingCursor.NO_MORE_DOCS) {
+            list.add(cursor.docId());
+        }
+        return list;
+    }
+
+    private static List<Integer> expectedOr(final List<String> documents, int count, final String term1, final String term2) {
+        final var result = new ArrayList<Integer>();
+        for (int i = 0; i < count; i++) {
+            final Set<String> words = new HashSet<>(Arrays.asList(documents.get(i).split(" ")));
+            if (words.contains(term1) || words.contains(term2)) {
+                result.add(i);
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testSnapshot_01() throws InterruptedException {
+        final var random = new Random(53);
+        final var documents = createRandomDocuments(random, 3000);
+        final var index = new Index(WHITESPACE_PREPROCESSOR, new VByteCodec(), 50, new TieredMergePolicy(3, 50));
+        final IQueryParser queryParser = new QueryParseInfix(new QueryLexer());
+
+        // Index the documents on another thread.
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final var writer = new Thread(() -> {
+            try {
+                for (int i = 0; i < documents.size(); i++) {
+                    index.index(documents.get(i), "doc" + i);
+                }
+                index.refresh();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        writer.start();
+
+        // Each snapshot must be consistent with the documents it holds.
+        int snapshots = 0;
+        while (writer.isAlive() || snapshots == 0) {
+            final IIndex snapshot = index.snapshot();
+            final int count = snapshot.getDocumentCount();
+            assertEquals(count, snapshot.getAllPostings().size());
+            final var term1 = "w" + random.nextInt(40);
+            final var term2 = "w" + random.nextInt(40);
+            final var query = term1 + " | " + term2;
+            assertEquals(expectedOr(documents, count, term1, term2), toList(queryParser.evaluate(snapshot, query)));
+            final var topHits = queryParser.searchRanked(snapshot, query, RankingModel.TF_IDF, 10);
+            for (int i = 0; i < topHits.size(); i++) {
+                assertTrue(topHits.getDocument(i) < count);
+            }
+            snapshots++;
+        }
+        writer.join();
+        assertNull(failure.get());
+
+        // All documents are visible once the index has been refreshed.
+        final var snapshot = index.snapshot();
+        assertEquals(documents.size(), snapshot.getDocumentCount());
+        assertEquals(expectedOr(documents, documents.size(), "w1", "w2"), toList(queryParser.evaluate(snapshot, "w1 | w2")));
+    }
+
+    @Test
+    public void testSnapshot_02() {
+        final var random = new Random(59);
+        final var documents = createRandomDocuments(random, 200);
+        final var index = new Index(WHITESPACE_PREPROCESSOR);
+        for (int i = 0; i < 100; i++) {
+            index.index(documents.get(i), "doc" + i);
+        }
+
+        // Documents are visible to snapshots only after a refresh.
+        assertEquals(0, index.snapshot().getDocumentCount());
+        index.refresh();
+        final var snapshot = index.snapshot();
+        final var postings = toList(snapshot.getPostings("w3"));
+        final double norm = snapshot.getDocumentNorm(0, RankingModel.TF_IDF);
+
+        // A snapshot never changes.
+        for (int i = 100; i < 200; i++) {
+            index.index(documents.get(i), "doc" + i);
+        }
+        index.refresh();
+        assertEquals(100, snapshot.getDocumentCount());
+        assertEquals(postings, toList(snapshot.getPostings("w3")));
+        assertEquals(norm, snapshot.getDocumentNorm(0, RankingModel.TF_IDF), 0);
+        assertFalse(snapshot.index("w1", "new"));
+        assertEquals(200, index.snapshot().getDocumentCount());
+        assertEquals(index.getDocumentNorm(0, RankingModel.TF_IDF), index.snapshot().getDocumentNorm(0, RankingModel.TF_IDF), 1e-12);
+    }
+
+    @Test
+    public void testSnapshot_03() throws InterruptedException {
+        // Merge two segments once the test lets it.
+        final var release = new CountDownLatch(1);
+        final var index = new Index(WHITESPACE_PREPROCESSOR, new VByteCodec(), 700, segments -> {
+            if (segments.size() < 2) {
+                return new ArrayList<Segment>();
+            }
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(segments);
+        });
+        final var random = new Random(61);
+        final var documents = createRandomDocuments(random, 1400);
+        for (int i = 0; i < documents.size(); i++) {
+            index.index("w0 " + documents.get(i), "doc" + i);
+        }
+
+        // Calculate the norms, the bounds, and the bitmaps before the segments get merged.
+        final IIndex snapshot = index.snapshot();
+        assertEquals(1400, snapshot.getDocumentCount());
+        final var allPostings = snapshot.getAllPostings();
+        final var denseTerm = snapshot.getMatchingDocuments("w0");
+        final double norm = snapshot.getDocumentNorm(7, RankingModel.TF_IDF);
+        final double maxImpact = snapshot.getMaxImpact("w3", RankingModel.TF_IDF);
+        release.countDown();
+        index.waitForMerges();
+        assertEquals(1, index.getSegmentCount());
+
+        // The merged snapshot keeps what has already been calculated.
+        final IIndex merged = index.snapshot();
+        assertNotSame(snapshot, merged);
+        assertSame(allPostings, merged.getAllPostings());
+        assertSame(denseTerm, merged.getMatchingDocuments("w0"));
+        assertEquals(norm, merged.getDocumentNorm(7, RankingModel.TF_IDF), 0);
+        assertEquals(maxImpact, merged.getMaxImpact("w3", RankingModel.TF_IDF), 0);
+    }
+
+    @Test
+    public void testSnapshot_04() throws IOException {
+        final var random = new Random(67);
+        final var documents = createRandomDocuments(random, 100);
+        final var index = new Index(WHITESPACE_PREPROCESSOR);
+        for (int i = 0; i < documents.size(); i++) {
+            index.index(documents.get(i), "doc" + i);
+        }
+        final var file = File.createTempFile("index", ".idx");
+        file.deleteOnExit();
+        index.save(file.getPath());
+
+        // Overwrite the cosine norm of the first document (skip the magic number, the version,
+        // the name of the codec, the statistics, and the offset of the documents).
+        try (var out = new RandomAccessFile(file, "rw")) {
+            out.seek(2 * Integer.BYTES);
+            final int codecNameLength = out.readInt();
+            out.seek(out.getFilePointer() + codecNameLength + 4 * Integer.BYTES + Long.BYTES);
+            out.seek(out.readLong());
+            out.writeDouble(42);
+        }
+
+        // The snapshot of a loaded index uses the norms stored in the file.
+        final var loaded = new Index(WHITESPACE_PREPROCESSOR);
+        loaded.load(file.getPath());
+        assertEquals(42, loaded.getDocumentNorm(0, RankingModel.COSINE_SIMILARITY), 0);
+        assertEquals(42, loaded.snapshot().getDocumentNorm(0, RankingModel.COSINE_SIMILARITY), 0);
+    }
+}
@@ -0,0 +1,70 @@
+package search;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.TermDictionary;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TermDictionaryTest {
+
+    @Test
+    public void testTermDictionary_01() {
+        final var dictionary = new TermDictionary();
+        assertEquals(TermDictionary.NO_TERM, dictionary.getId("w"));
+
+        // Terms get dense ids in the order they're added.
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, dictionary.add("w" + i));
+        }
+        assertEquals(10000, dictionary.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, dictionary.add("w" + i));
+            assertEquals(i, dictionary.getId("w" + i));
+            assertEquals("w" + i, dictionary.getTerm(i));
+        }
+        assertEquals(10000, dictionary.size());
+        assertEquals(TermDictionary.NO_TERM, dictionary.getId("w10000"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTermDictionary_02() {
+        final var dictionary = new TermDictionary();
+        dictionary.add("w");
+        dictionary.getTerm(1);
+    }
+
+    @Test
+    public void testTermDictionary_03() throws InterruptedException {
+        final var dictionary = new TermDictionary();
+        for (int i = 0; i < 1000; i++) {
+            dictionary.add("w" + i);
+        }
+
+        // Terms added before are always found while new terms are being added.
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final var reader = new Thread(() -> {
+            try {
+                for (int round = 0; round < 50; round++) {
+                    for (int i = 0; i < 1000; i++) {
+                        assertEquals(i, dictionary.getId("w" + i));
+                    }
+                    final int id = dictionary.getId("x" + round);
+                    assertTrue(id == TermDictionary.NO_TERM || id >= 1000);
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        reader.start();
+        for (int i = 0; i < 100000; i++) {
+            dictionary.add("x" + i);
+        }
+        reader.join();
+        assertNull(failure.get());
+        assertEquals(101000, dictionary.size());
+    }
+}
@@ -0,0 +1,56 @@
+package search;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.index.TopKCollector;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TopKCollectorTest {
+
+    @Test
+    public void testTopK_01() {
+        final var random = new Random(31);
+        for (final int k : new int[] { 0, 1, 5, 20, 1000 }) {
+            final var collector = new TopKCollector(k);
+            final var documents = new ArrayList<Integer>();
+            final float[] scores = new float[500];
+            for (int document = 0; document < scores.length; document++) {
+                // Use only a few distinct scores, so there are many ties.
+                scores[document] = random.nextInt(10) / 10.0f;
+                documents.add(document);
+                collector.collect(document, scores[document]);
+            }
+            documents.sort((x, y) -> Float.compare(scores[y], scores[x]));
+
+            final var topHits = collector.getTopHits();
+            assertEquals(scores.length, topHits.getTotalHits());
+            assertEquals(Math.min(k, scores.length), topHits.size());
+            for (int i = 0; i < topHits.size(); i++) {
+                assertEquals((int)documents.get(i), topHits.getDocument(i));
+                assertEquals(scores[documents.get(i)], topHits.getScore(i), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testTopK_02() {
+        final var collector = new TopKCollector(3);
+        collector.collect(0, 0.5f);
+        collector.collect(1, 0.1f);
+        assertEquals(Float.NEGATIVE_INFINITY, collector.getMinCompetitiveScore(), 0);
+        collector.collect(2, 0.9f);
+        assertEquals(0.1f, collector.getMinCompetitiveScore(), 0);
+        collector.collect(3, 0.7f);
+        assertEquals(0.5f, collector.getMinCompetitiveScore(), 0);
+
+        final var topHits = collector.getTopHits();
+        assertEquals(4, topHits.getTotalHits());
+        assertEquals(3, topHits.size());
+        assertEquals(2, topHits.getDocument(0));
+        assertEquals(3, topHits.getDocument(1));
+        assertEquals(0, topHits.getDocument(2));
+    }
+}
@@ -0,0 +1,58 @@
+package utils;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.utils.IOUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class IOUtilsTest {
+
+    @Test
+    public void testReadFile_01() throws IOException {
+        final var file = Files.createTempFile("ioutils", ".txt");
+        file.toFile().deleteOnExit();
+
+        // Line terminators are kept and the content is decoded as UTF-8.
+        final String content = "first line\nd\u0159\u00edv\u011b\r\n\n\ud83d\ude00 last";
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        assertEquals(content, IOUtils.readFile(file.toString()));
+        assertEquals(List.of("first line", "d\u0159\u00edv\u011b", "", "\ud83d\ude00 last"), IOUtils.readLines(file.toString()));
+
+        // Invalid bytes are replaced.
+        Files.write(file, new byte[] { 'a', (byte)0xC3, 'b', (byte)0xFF });
+        assertEquals("a\ufffdb\ufffd", IOUtils.readFile(file.toString()));
+
+        // A file that does not exist has no content.
+        assertEquals("", IOUtils.readFile(file + ".missing"));
+
+        // Files are written as UTF-8 as well (a shorter content replaces the previous one).
+        IOUtils.writeToFile(file.toString(), content);
+        IOUtils.writeToFile(file.toString(), "\u017elu\u0165ou\u010dk\u00fd");
+        assertEquals("\u017elu\u0165ou\u010dk\u00fd", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadCharSequence_01() throws IOException {
+        final var file = Files.createTempFile("ioutils", ".txt");
+        file.toFile().deleteOnExit();
+
+        // Multi-byte characters cross the boundaries of the buffer (small file)
+        // and the whole file is mapped (large file).
+        for (final long size : new long[] { 200_000, 2 * IOUtils.MAPPING_THRESHOLD }) {
+            final var builder = new StringBuilder();
+            for (int i = 0; builder.length() < size; i++) {
+                builder.append(i % 7 == 0 ? "\u017e" : i % 11 == 0 ? "\ud83d\ude00" : "x").append(i % 13 == 0 ? "\n" : "");
+            }
+            final String content = builder.toString();
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+            final CharSequence actual = IOUtils.readCharSequence(file);
+            assertEquals(content.length(), actual.length());
+            assertEquals(content, actual.toString());
+        }
+    }
+}
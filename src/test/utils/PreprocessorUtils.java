@@ -0,0 +1,26 @@
+package utils;
+
+import cz.zcu.kiv.ir.silhavyj.searchengine.preprocessing.IPreprocessor;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class PreprocessorUtils {
+
+    public static final IPreprocessor WHITESPACE_PREPROCESSOR = new IPreprocessor() {
+        @Override
+        public List<String> tokenize(final String text) {
+            return Arrays.asList(text.split(" "));
+        }
+
+        @Override
+        public String preprocess(final String token) {
+            return token;
+        }
+
+        @Override
+        public boolean isStopWord(final String token) {
+            return false;
+        }
+    };
+}